@@ -0,0 +1 @@
+CREATE TABLE IF NOT EXISTS trim_height (table_name VARCHAR(255) NOT NULL PRIMARY KEY, height INT NOT NULL);
@@ -0,0 +1 @@
+CREATE TABLE IF NOT EXISTS trim_height (table_name varchar(255) NOT NULL PRIMARY KEY, height int(11) NOT NULL);
@@ -56,6 +56,10 @@ public class Block {
   private Peer downloadedFrom = null;
   private int byteLength = 0;
 
+  // results of the stateless checks done ahead of the import, see BlockService.preVerify
+  private volatile boolean hashesVerified = false;
+  private volatile byte[] signatureVerifiedKey = null;
+
   Block(int version, int timestamp, long previousBlockId, long totalAmountNQT, long totalFeeNQT,
       long totalFeeCashBackNQT, long totalFeeBurntNQT,
       int payloadLength, byte[] payloadHash, byte[] generatorPublicKey, byte[] generationSignature,
@@ -137,6 +141,22 @@ public class Block {
     return this.byteLength;
   }
 
+  public boolean isHashesVerified() {
+    return hashesVerified;
+  }
+
+  public void setHashesVerified(boolean hashesVerified) {
+    this.hashesVerified = hashesVerified;
+  }
+
+  public byte[] getSignatureVerifiedKey() {
+    return signatureVerifiedKey;
+  }
+
+  public void setSignatureVerifiedKey(byte[] signatureVerifiedKey) {
+    this.signatureVerifiedKey = signatureVerifiedKey;
+  }
+
   public int getVersion() {
     return version;
   }
@@ -241,6 +261,10 @@ public class Block {
     return nextBlockId.get();
   }
 
+  void setNextBlockId(long nextBlockId) {
+    this.nextBlockId.set(nextBlockId);
+  }
+
   public int getHeight() {
     return height;
   }
@@ -366,6 +390,114 @@ public class Block {
     }
   }
 
+  /**
+   * Binary form used by the "B2" peer protocol: the signed block bytes, the fields not covered by them
+   * and the bytes of every transaction.
+   */
+  public byte[] getTransferBytes() {
+    byte[] blockBytes = getBytes();
+    List<Transaction> transactions = getTransactions();
+    List<byte[]> transactionsBytes = new ArrayList<>(transactions.size());
+    int length = 4 + blockBytes.length + 8 + 8 + 8 + 8 + 8 + 4 + 4;
+    for (Transaction transaction : transactions) {
+      byte[] transactionBytes = transaction.getBytes();
+      transactionsBytes.add(transactionBytes);
+      length += 4 + transactionBytes.length;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(blockBytes.length);
+    buffer.put(blockBytes);
+    buffer.putLong(totalAmountNQT);
+    buffer.putLong(totalFeeNQT);
+    buffer.putLong(totalFeeCashBackNQT);
+    buffer.putLong(totalFeeBurntNQT);
+    buffer.putLong(baseTarget);
+    buffer.putInt(blockATs != null ? blockATs.length : -1);
+    buffer.putInt(transactionsBytes.size());
+    for (byte[] transactionBytes : transactionsBytes) {
+      buffer.putInt(transactionBytes.length);
+      buffer.put(transactionBytes);
+    }
+    return buffer.array();
+  }
+
+  static Block parseBlock(byte[] transferBytes, int height) throws BurstException.ValidationException {
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(transferBytes);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      int blockBytesLength = buffer.getInt();
+      if (blockBytesLength < 0 || blockBytesLength > buffer.remaining()) {
+        throw new BurstException.NotValidException("Invalid block bytes length " + blockBytesLength);
+      }
+      int blockBytesEnd = buffer.position() + blockBytesLength;
+      int version = buffer.getInt();
+      int timestamp = buffer.getInt();
+      long previousBlock = buffer.getLong();
+      buffer.getInt(); // number of transactions, they follow the block bytes
+      int amountsLength = version < 3 ? (4 + 4) : (8 + 8);
+      buffer.position(buffer.position() + amountsLength);
+      int payloadLength = buffer.getInt();
+      byte[] payloadHash = new byte[32];
+      buffer.get(payloadHash);
+      byte[] generatorPublicKey = new byte[32];
+      buffer.get(generatorPublicKey);
+      byte[] generationSignature = new byte[32];
+      buffer.get(generationSignature);
+      byte[] previousBlockHash = null;
+      if (version > 1) {
+        previousBlockHash = new byte[32];
+        buffer.get(previousBlockHash);
+      }
+      long nonce = buffer.getLong();
+      // getBytes always reserves room for the previous block hash
+      byte[] blockATs = new byte[blockBytesLength - (4 + 4 + 8 + 4 + amountsLength + 4 + 32 + 32 + (32 + 32) + 8) - 64];
+      buffer.get(blockATs);
+      byte[] blockSignature = new byte[64];
+      buffer.get(blockSignature);
+      buffer.position(blockBytesEnd);
+
+      long totalAmountNQT = buffer.getLong();
+      long totalFeeNQT = buffer.getLong();
+      long totalFeeCashBackNQT = buffer.getLong();
+      long totalFeeBurntNQT = buffer.getLong();
+      long baseTarget = buffer.getLong();
+      if (buffer.getInt() < 0) {
+        blockATs = null;
+      }
+
+      if(Burst.getFluxCapacitor().getValue(FluxValues.POC_PLUS, height) && baseTarget == 0L) {
+        throw new BurstException.NotValidException("Block received without a baseTarget");
+      }
+
+      SortedMap<Long, Transaction> blockTransactions = new TreeMap<>();
+      int transactionCount = buffer.getInt();
+      for (int i = 0; i < transactionCount; i++) {
+        int transactionLength = buffer.getInt();
+        if (transactionLength < 0 || transactionLength > buffer.remaining()) {
+          throw new BurstException.NotValidException("Invalid transaction bytes length " + transactionLength);
+        }
+        byte[] transactionBytes = new byte[transactionLength];
+        buffer.get(transactionBytes);
+        Transaction transaction = Transaction.parseTransaction(transactionBytes);
+        transaction.setHeight(height);
+        if (transaction.getSignature() != null && blockTransactions.put(transaction.getId(), transaction) != null) {
+          throw new BurstException.NotValidException("Block contains duplicate transactions: " + transaction.getStringId());
+        }
+      }
+
+      return new Block(version, timestamp, previousBlock, totalAmountNQT, totalFeeNQT,
+          totalFeeCashBackNQT, totalFeeBurntNQT,
+          payloadLength, payloadHash, generatorPublicKey, generationSignature, blockSignature,
+          previousBlockHash, new ArrayList<>(blockTransactions.values()), nonce, blockATs, height, baseTarget);
+    } catch (BurstException.ValidationException | RuntimeException e) {
+      if (logger.isDebugEnabled()) {
+        logger.debug("Failed to parse block bytes: {}", Convert.toHexString(transferBytes));
+      }
+      throw e;
+    }
+  }
+
   public byte[] getBytes() {
     ByteBuffer buffer = ByteBuffer.allocate(4 + 4 + 8 + 4 + (version < 3 ? (4 + 4) : (8 + 8)) + 4
         + 32 + 32 + (32 + 32) + 8 + (blockATs != null ? blockATs.length : 0) + 64);
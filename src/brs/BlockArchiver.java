@@ -0,0 +1,76 @@
+package brs;
+
+import brs.db.archive.BlockArchive;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Copies the blocks deeper than the maximum rollback into the {@link BlockArchive} in the background.
+ * <p>
+ * Before appending, the last archived block is checked against the chain, and the archive is cut back
+ * to the last block the chain still has, should a deep pop off or a reset have replaced blocks.
+ */
+final class BlockArchiver implements Runnable {
+
+  private static final Logger logger = LoggerFactory.getLogger(BlockArchiver.class);
+
+  private static final int BLOCKS_PER_QUERY = 100;
+
+  private final BlockArchive blockArchive;
+  private final Blockchain blockchain;
+  private final BooleanSupplier importing;
+
+  BlockArchiver(BlockArchive blockArchive, Blockchain blockchain, BooleanSupplier importing) {
+    this.blockArchive = blockArchive;
+    this.blockchain = blockchain;
+    this.importing = importing;
+  }
+
+  @Override
+  public void run() {
+    int archiveHeight = blockchain.getHeight() - Constants.MAX_ROLLBACK;
+    if (archiveHeight < 0 || importing.getAsBoolean()) {
+      return;
+    }
+    int height = verifiedHeight(archiveHeight);
+    long start = System.currentTimeMillis();
+    int archived = 0;
+    while (height < archiveHeight) {
+      if (importing.getAsBoolean() || Thread.currentThread().isInterrupted()) {
+        break;
+      }
+      Collection<Block> blocks = height < 0 ? Collections.singletonList(blockchain.getBlockAtHeight(0))
+          : blockchain.getBlocksAfter(blockArchive.getBlockId(height), BLOCKS_PER_QUERY);
+      if (blocks.isEmpty()) {
+        break;
+      }
+      for (Block block : blocks) {
+        if (block.getHeight() > archiveHeight) {
+          break;
+        }
+        blockArchive.append(block.getHeight(), block.getId(), block.getPreviousBlockId(), block.getTransferBytes());
+        height = block.getHeight();
+        archived++;
+      }
+    }
+    if (archived > 0) {
+      logger.debug("Archived {} blocks up to height {} in {} ms", archived, height, System.currentTimeMillis() - start);
+    }
+  }
+
+  /**
+   * @return the height of the last archived block that is still on the chain
+   */
+  private int verifiedHeight(int archiveHeight) {
+    int height = Math.min(blockArchive.getHeight(), archiveHeight);
+    while (height >= 0 && blockArchive.getBlockId(height) != blockchain.getBlockIdAtHeight(height)) {
+      height = Math.max(height - Constants.MAX_ROLLBACK, -1);
+    }
+    blockArchive.truncate(height + 1);
+    return height;
+  }
+}
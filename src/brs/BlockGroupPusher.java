@@ -0,0 +1,141 @@
+package brs;
+
+import brs.BlockchainProcessor.BlockNotAcceptedException;
+import brs.db.store.Stores;
+import brs.services.BlockService;
+import brs.util.DownloadCacheImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Pushes the following blocks of the download cache in a single DB transaction.
+ * <p>
+ * When a block is not accepted, the transaction is rolled back and the blocks accepted before it are applied
+ * again and committed, so that the chain ends at the last good block, as if the blocks were pushed one by one.
+ */
+final class BlockGroupPusher {
+
+  private static final Logger logger = LoggerFactory.getLogger(BlockGroupPusher.class);
+
+  /**
+   * Validates the block against the current state and applies it, within the current DB transaction.
+   */
+  interface BlockApplier {
+    void apply(Block block, Block previousBlock) throws BlockNotAcceptedException;
+  }
+
+  private final Stores stores;
+  private final BlockchainImpl blockchain;
+  private final DownloadCacheImpl downloadCache;
+  private final BlockService blockService;
+  private final BlockApplier blockApplier;
+
+  BlockGroupPusher(Stores stores, BlockchainImpl blockchain, DownloadCacheImpl downloadCache, BlockService blockService,
+                   BlockApplier blockApplier) {
+    this.stores = stores;
+    this.blockchain = blockchain;
+    this.downloadCache = downloadCache;
+    this.blockService = blockService;
+    this.blockApplier = blockApplier;
+  }
+
+  /**
+   * Pushes up to maxBlocks blocks, as long as proceed holds. The caller holds the block push lock and
+   * notifies the pushed blocks, none of them is committed before the whole group is.
+   *
+   * @throws InterruptedException after rolling back the whole group
+   */
+  Result push(int maxBlocks, BooleanSupplier proceed) throws InterruptedException {
+    List<Block> pushedBlocks = new ArrayList<>();
+    Block groupStartBlock = blockchain.getLastBlock();
+    Block currentBlock = null;
+    stores.beginTransaction();
+    try {
+      while (pushedBlocks.size() < maxBlocks && proceed.getAsBoolean()) {
+        Block lastBlock = blockchain.getLastBlock();
+        currentBlock = downloadCache.getNextBlock(lastBlock.getId());
+        if (currentBlock == null || currentBlock.getHeight() != (lastBlock.getHeight() + 1)) {
+          break;
+        }
+        if (!currentBlock.isVerified()) {
+          downloadCache.removeUnverified(currentBlock.getId());
+          blockService.preVerify(currentBlock, lastBlock);
+        }
+        blockApplier.apply(currentBlock, lastBlock);
+        pushedBlocks.add(currentBlock);
+      }
+      stores.commitTransaction();
+      return new Result(pushedBlocks, null, null);
+    } catch (InterruptedException e) {
+      rollback(groupStartBlock);
+      throw e;
+    } catch (BlockNotAcceptedException | ArithmeticException e) {
+      rollback(groupStartBlock);
+      return new Result(applyAgain(groupStartBlock, pushedBlocks), currentBlock, e);
+    } catch (RuntimeException e) {
+      rollback(groupStartBlock);
+      throw e;
+    } finally {
+      stores.endTransaction();
+    }
+  }
+
+  private List<Block> applyAgain(Block groupStartBlock, List<Block> blocks) {
+    if (blocks.isEmpty()) {
+      return blocks;
+    }
+    try {
+      for (Block block : blocks) {
+        blockApplier.apply(block, blockchain.getLastBlock());
+      }
+      stores.commitTransaction();
+      return blocks;
+    } catch (BlockNotAcceptedException | RuntimeException e) {
+      logger.error("Blocks accepted before could not be applied again, rolled back to height {}", groupStartBlock.getHeight(), e);
+      rollback(groupStartBlock);
+      return Collections.emptyList();
+    }
+  }
+
+  private void rollback(Block groupStartBlock) {
+    stores.rollbackTransaction();
+    blockchain.setLastBlock(groupStartBlock);
+    downloadCache.resetCache();
+  }
+
+  static final class Result {
+
+    private final List<Block> pushedBlocks;
+    private final Block failedBlock;
+    private final Exception failure;
+
+    private Result(List<Block> pushedBlocks, Block failedBlock, Exception failure) {
+      this.pushedBlocks = pushedBlocks;
+      this.failedBlock = failedBlock;
+      this.failure = failure;
+    }
+
+    /**
+     * The blocks committed, in height order.
+     */
+    List<Block> getPushedBlocks() {
+      return pushedBlocks;
+    }
+
+    /**
+     * The block not accepted, null if none was.
+     */
+    Block getFailedBlock() {
+      return failedBlock;
+    }
+
+    Exception getFailure() {
+      return failure;
+    }
+  }
+}
@@ -9,34 +9,64 @@ import brs.util.CollectionWithIndex;
 import brs.util.StampedLockUtils;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.StampedLock;
 import java.util.function.Supplier;
 
 public class BlockchainImpl implements Blockchain {
 
+  // enough for the deepest fork we accept plus the economic clustering lookback, a power of two
+  static final int RECENT_BLOCKS = Integer.highestOneBit(Constants.MAX_ROLLBACK) * 2;
+
   private final TransactionDb transactionDb;
   private final BlockDb blockDb;
   private final BlockchainStore blockchainStore;
   private final PropertyService propertyService;
+  private final CommitmentLedger commitmentLedger;
 
   private final StampedLock bcsl;
 
+  /*
+   * The most recent blocks, indexed by height in a ring buffer, recent[height & (RECENT_BLOCKS - 1)]
+   * holds the block at height for recentFirstHeight <= height <= last block height.
+   * Guarded by bcsl, always read with a full read lock since the id index is a plain HashMap.
+   */
+  private final Block[] recent = new Block[RECENT_BLOCKS];
+  private final Map<Long, Block> recentById = new HashMap<>();
+  private int recentFirstHeight = 0;
+
   BlockchainImpl(TransactionDb transactionDb, BlockDb blockDb, BlockchainStore blockchainStore, PropertyService propertyService) {
     this.transactionDb = transactionDb;
     this.blockDb = blockDb;
     this.blockchainStore = blockchainStore;
     this.propertyService = propertyService;
+    this.commitmentLedger = new CommitmentLedger(blockchainStore);
     this.bcsl = new StampedLock();
   }
 
+  CommitmentLedger getCommitmentLedger() {
+    return commitmentLedger;
+  }
+
   private final AtomicReference<Block> lastBlock = new AtomicReference<>();
 
   private <T> T bcslRead(Supplier<T> supplier) {
     return StampedLockUtils.stampedLockRead(bcsl, supplier);
   }
 
+  private <T> T recentRead(Supplier<T> supplier) {
+    long stamp = bcsl.readLock();
+    try {
+      return supplier.get();
+    } finally {
+      bcsl.unlockRead(stamp);
+    }
+  }
+
   @Override
   public Block getLastBlock() {
     return bcslRead(lastBlock::get);
@@ -44,25 +74,130 @@ public class BlockchainImpl implements Blockchain {
 
   @Override
   public void setLastBlock(Block block) {
+    boolean reset;
     long stamp = bcsl.writeLock();
     try {
+      reset = updateRecent(lastBlock.get(), block);
       lastBlock.set(block);
     } finally {
       bcsl.unlockWrite(stamp);
     }
+    if (reset) {
+      loadRecent(block);
+    }
   }
 
   void setLastBlock(Block previousBlock, Block block) {
+    boolean reset;
     long stamp = bcsl.writeLock();
     try {
       if (! lastBlock.compareAndSet(previousBlock, block)) {
         throw new IllegalStateException("Last block is no longer previous block");
       }
+      reset = updateRecent(previousBlock, block);
+    } finally {
+      bcsl.unlockWrite(stamp);
+    }
+    if (reset) {
+      loadRecent(block);
+    }
+  }
+
+  /*
+   * Keeps the recent blocks in line with the new last block: a pushed block is appended, when popping off
+   * or switching to a fork the blocks above the new last block are dropped. Anything else starts over
+   * from the new last block alone, returns true in that case.
+   */
+  private boolean updateRecent(Block previousLastBlock, Block block) {
+    if (block == null) {
+      clearRecent();
+      return false;
+    }
+    int height = block.getHeight();
+    if (previousLastBlock != null && previousLastBlock.getHeight() + 1 == height
+        && previousLastBlock.getId() == block.getPreviousBlockId() && recentById.containsKey(previousLastBlock.getId())) {
+      previousLastBlock.setNextBlockId(block.getId());
+      if (height - recentFirstHeight >= RECENT_BLOCKS) {
+        recentById.remove(recent[slot(recentFirstHeight)].getId());
+        recentFirstHeight++;
+      }
+      putRecent(block);
+      return false;
+    }
+    Block known = recentById.get(block.getId());
+    if (previousLastBlock != null && known != null) {
+      for (int h = previousLastBlock.getHeight(); h > height; h--) {
+        recentById.remove(recent[slot(h)].getId());
+        recent[slot(h)] = null;
+      }
+      block.setNextBlockId(0);
+      putRecent(block);
+      return false;
+    }
+    clearRecent();
+    recentFirstHeight = height;
+    putRecent(block);
+    return true;
+  }
+
+  private void putRecent(Block block) {
+    recent[slot(block.getHeight())] = block;
+    recentById.put(block.getId(), block);
+  }
+
+  private void clearRecent() {
+    Arrays.fill(recent, null);
+    recentById.clear();
+    recentFirstHeight = 0;
+  }
+
+  /*
+   * Fills the recent blocks below the given last block from the database, at startup and after
+   * a rollback deeper than the recent blocks.
+   */
+  private void loadRecent(Block block) {
+    Collection<Block> blocks = blockchainStore.getBlocks(1, RECENT_BLOCKS - 1);
+    if (blocks == null) {
+      return;
+    }
+    long stamp = bcsl.writeLock();
+    try {
+      if (lastBlock.get() != block || recentFirstHeight != block.getHeight()) {
+        // the chain moved meanwhile
+        return;
+      }
+      long nextPreviousId = block.getPreviousBlockId();
+      for (Block loaded : blocks) {
+        if (loaded.getId() != nextPreviousId || loaded.getHeight() != recentFirstHeight - 1) {
+          break;
+        }
+        putRecent(loaded);
+        recentFirstHeight--;
+        nextPreviousId = loaded.getPreviousBlockId();
+      }
     } finally {
       bcsl.unlockWrite(stamp);
     }
   }
 
+  private static int slot(int height) {
+    return height & (RECENT_BLOCKS - 1);
+  }
+
+  private Block getRecentBlock(long blockId) {
+    return recentRead(() -> recentById.get(blockId));
+  }
+
+  private Block getRecentBlockAtHeight(int height) {
+    return recentRead(() -> {
+      Block last = lastBlock.get();
+      if (last == null || height < recentFirstHeight || height > last.getHeight()) {
+        return null;
+      }
+      return recent[slot(height)];
+    });
+  }
+
   @Override
   public int getHeight() {
     Block last = getLastBlock();
@@ -75,13 +210,23 @@ public class BlockchainImpl implements Blockchain {
     if (timestamp >= block.getTimestamp()) {
       return block;
     }
-    return blockDb.findLastBlock(timestamp);
+    Block recentBlock = recentRead(() -> {
+      Block last = lastBlock.get();
+      for (int height = last.getHeight(); height >= recentFirstHeight; height--) {
+        Block candidate = recent[slot(height)];
+        if (timestamp >= candidate.getTimestamp()) {
+          return candidate;
+        }
+      }
+      return null;
+    });
+    return recentBlock != null ? recentBlock : blockDb.findLastBlock(timestamp);
   }
 
   @Override
   public Block getBlock(long blockId) {
-    Block block = getLastBlock();
-    if (block.getId() == blockId) {
+    Block block = getRecentBlock(blockId);
+    if (block != null) {
       return block;
     }
     return blockDb.findBlock(blockId);
@@ -89,7 +234,7 @@ public class BlockchainImpl implements Blockchain {
 
   @Override
   public boolean hasBlock(long blockId) {
-    return getLastBlock().getId() == blockId || blockDb.hasBlock(blockId);
+    return getRecentBlock(blockId) != null || blockDb.hasBlock(blockId);
   }
 
   @Override
@@ -131,6 +276,10 @@ public class BlockchainImpl implements Blockchain {
     if (height == block.getHeight()) {
       return block.getId();
     }
+    Block recentBlock = getRecentBlockAtHeight(height);
+    if (recentBlock != null) {
+      return recentBlock.getId();
+    }
     return blockDb.findBlockIdAtHeight(height);
   }
 
@@ -143,6 +292,10 @@ public class BlockchainImpl implements Blockchain {
     if (height == block.getHeight()) {
       return block;
     }
+    Block recentBlock = getRecentBlockAtHeight(height);
+    if (recentBlock != null) {
+      return recentBlock;
+    }
     return blockDb.findBlockAtHeight(height);
   }
 
@@ -262,6 +415,10 @@ public class BlockchainImpl implements Blockchain {
 
   @Override
   public long getCommittedAmount(long accountId, int height, int endHeight, Transaction skipTransaction) {
+    Long committedAmount = commitmentLedger.getCommittedAmount(accountId, height, endHeight, skipTransaction);
+    if (committedAmount != null) {
+      return committedAmount;
+    }
     return blockchainStore.getCommittedAmount(accountId, height, endHeight, skipTransaction);
   }
 }
@@ -1,5 +1,6 @@
 package brs;
 
+import brs.db.archive.BlockArchive;
 import brs.peer.Peer;
 import brs.util.JSON;
 import brs.util.Observable;
@@ -10,6 +11,8 @@ import java.util.List;
 public interface BlockchainProcessor extends Observable<Block, BlockchainProcessor.Event> {
 
   enum Event {
+    // while blocks are pushed in groups (DB.bulkSyncBlocks), BLOCK_PUSHED is fired for each block of
+    // a group once the whole group is committed, the other events as the blocks are applied
     BLOCK_PUSHED, BLOCK_POPPED, BLOCK_GENERATED, BLOCK_SCANNED,
     RESCAN_BEGIN, RESCAN_END,
     BEFORE_BLOCK_ACCEPT,
@@ -24,6 +27,16 @@ public interface BlockchainProcessor extends Observable<Block, BlockchainProcess
 
   int getMinRollbackHeight();
 
+  /**
+   * @return the number of derived tables the background trimming still has to go through
+   */
+  int getTrimBacklog();
+
+  /**
+   * @return the archive of the blocks' transfer bytes, null if DB.blockArchiveDir is not set
+   */
+  BlockArchive getBlockArchive();
+
   void processPeerBlock(JsonObject request, Peer peer) throws BurstException;
 
   void fullReset();
@@ -33,6 +46,13 @@ public interface BlockchainProcessor extends Observable<Block, BlockchainProcess
 
   List<Block> popOffTo(int height);
 
+  /**
+   * Exports the state at the current height, see {@link brs.db.sql.Snapshot}.
+   *
+   * @return the height and state hash of the snapshot
+   */
+  brs.db.sql.Snapshot.Export exportSnapshot(String filename) throws java.io.IOException;
+
   class BlockNotAcceptedException extends BurstException {
 
     BlockNotAcceptedException(String message) {
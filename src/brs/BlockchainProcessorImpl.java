@@ -3,6 +3,7 @@ package brs;
 import static brs.Constants.FEE_QUANT_SIP3;
 import static brs.Constants.ONE_BURST;
 
+import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -18,6 +19,10 @@ import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -45,11 +50,14 @@ import brs.crypto.Crypto;
 import brs.db.BlockDb;
 import brs.db.DerivedTable;
 import brs.db.TransactionDb;
+import brs.db.archive.BlockArchive;
 import brs.db.cache.DBCacheManagerImpl;
+import brs.db.sql.Snapshot;
 import brs.db.store.BlockchainStore;
 import brs.db.store.DerivedTableManager;
 import brs.db.store.Stores;
 import brs.fluxcapacitor.FluxValues;
+import brs.peer.BinaryBlocks;
 import brs.peer.Peer;
 import brs.peer.Peers;
 import brs.props.PropertyService;
@@ -99,14 +107,26 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
   private final long genesisBlockId;
 
   private static final int MAX_TIMESTAMP_DIFFERENCE = 15;
+  private static final int TRIM_THREAD_DELAY = 60;
+  private static final int ARCHIVE_THREAD_DELAY = 60;
   private boolean oclVerify;
   private final int oclUnverifiedQueue;
 
   private final Semaphore gpuUsage = new Semaphore(2);
 
+  private final int parallelDownloadPeers;
+  private final int parallelDownloadChunk;
+  private final boolean binaryProtocol;
+  private final int bulkSyncBlocks;
+  private final ExecutorService blockDownloadService;
+
   private final boolean trimDerivedTables;
+  private final DerivedTableTrimmer derivedTableTrimmer;
+  private final BlockGroupPusher blockGroupPusher;
   private final AtomicInteger lastTrimHeight = new AtomicInteger();
 
+  private final BlockArchive blockArchive;
+
   private final Listeners<Block, Event> blockListeners = new Listeners<>();
   private final AtomicReference<Peer> lastBlockchainFeeder = new AtomicReference<>();
   private final AtomicInteger lastBlockchainFeederHeight = new AtomicInteger();
@@ -161,7 +181,18 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
     oclUnverifiedQueue = propertyService.getInt(Props.GPU_UNVERIFIED_QUEUE);
 
     trimDerivedTables = propertyService.getBoolean(Props.DB_TRIM_DERIVED_TABLES);
+    // getBlocksFromHeight serves at most 1400 blocks per request
+    parallelDownloadPeers = Math.max(1, propertyService.getInt(Props.P2P_PARALLEL_DOWNLOAD_PEERS));
+    parallelDownloadChunk = Math.max(1, Math.min(1400, propertyService.getInt(Props.P2P_PARALLEL_DOWNLOAD_CHUNK)));
+    binaryProtocol = propertyService.getBoolean(Props.P2P_BINARY_PROTOCOL);
+    bulkSyncBlocks = propertyService.getInt(Props.DB_BULK_SYNC_BLOCKS);
+    blockDownloadService = parallelDownloadPeers > 1 ? Executors.newFixedThreadPool(parallelDownloadPeers, runnable -> {
+      Thread thread = new Thread(runnable, "BlockDownload");
+      thread.setDaemon(true);
+      return thread;
+    }) : null;
     genesisBlockId = Convert.parseUnsignedLong(propertyService.getString(Props.GENESIS_BLOCK_ID));
+    blockGroupPusher = new BlockGroupPusher(stores, blockchain, downloadCache, blockService, this::applyBlock);
 
     blockListeners.addListener(block -> {
       if (block.getHeight() % 5000 == 0) {
@@ -176,18 +207,43 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
       }
     }, Event.BLOCK_PUSHED);
 
+    blockListeners.addListener(blockchain.getCommitmentLedger()::blockPushed, Event.BLOCK_PUSHED);
+    blockListeners.addListener(blockchain.getCommitmentLedger()::blockPopped, Event.BLOCK_POPPED);
     blockListeners.addListener(block -> transactionProcessor.revalidateUnconfirmedTransactions(), Event.BLOCK_PUSHED);
     if (trimDerivedTables) {
-      blockListeners.addListener(block -> {
-        if (block.getHeight() % (Constants.MAX_ROLLBACK*10) == 0 && lastTrimHeight.get() > 0) {
-          logger.debug("Trimming derived tables...");
-          this.derivedTableManager.getDerivedTables().forEach(table -> table.trim(lastTrimHeight.get()));
-        }
-      }, Event.AFTER_BLOCK_APPLY);
+      derivedTableTrimmer = new DerivedTableTrimmer(derivedTableManager, transactionProcessor.getUnconfirmedTransactionsSyncObj(),
+          lastTrimHeight::get, () -> downloadCache.size() > 0 || isBulkSync(), propertyService.getInt(Props.DB_TRIM_CHUNK_SIZE));
+      threadPool.scheduleThread("TrimDerivedTables", derivedTableTrimmer, TRIM_THREAD_DELAY);
+    }
+    else {
+      derivedTableTrimmer = null;
+    }
+    String blockArchiveDir = propertyService.getString(Props.DB_BLOCK_ARCHIVE_DIR);
+    if (!blockArchiveDir.isEmpty()) {
+      try {
+        blockArchive = new BlockArchive(blockArchiveDir);
+      } catch (IOException e) {
+        throw new IllegalStateException("Cannot open the block archive " + blockArchiveDir, e);
+      }
+      blockListeners.addListener(block -> blockArchive.truncate(block.getHeight()), Event.BLOCK_POPPED);
+      threadPool.scheduleThread("ArchiveBlocks", new BlockArchiver(blockArchive, blockchain,
+          () -> downloadCache.size() > 0 || isBulkSync()), ARCHIVE_THREAD_DELAY);
+    }
+    else {
+      blockArchive = null;
     }
     addGenesisBlock();
-    if(Boolean.FALSE.equals(propertyService.getBoolean(Props.DB_SKIP_CHECK)) && checkDatabaseState() != 0) {
-      logger.warn("Database is inconsistent, try to pop off to block height {} or sync from empty.", getMinRollbackHeight());
+    if(Boolean.FALSE.equals(propertyService.getBoolean(Props.DB_SKIP_CHECK))) {
+      // sums all the balances, so it runs once the node is up, under the block locks for a fixed chain
+      threadPool.runAfterStart(() -> {
+        synchronized (downloadCache) {
+          synchronized (transactionProcessor.getUnconfirmedTransactionsSyncObj()) {
+            if (checkDatabaseState() != 0) {
+              logger.warn("Database is inconsistent, try to pop off to block height {} or sync from empty.", getMinRollbackHeight());
+            }
+          }
+        }
+      });
     }
 
     Runnable getMoreBlocksThread = new Runnable() {
@@ -232,8 +288,7 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
                   logger.debug("No peer connected.");
                   return;
                 }
-                if (!peer.isHigherOrEqualVersionThan(Burst.getFluxCapacitor().getValue(FluxValues.MIN_PEER_VERSION))
-                        || (peer.getNetworkName()!=null && !peer.getNetworkName().equals(propertyService.getString(Props.NETWORK_NAME)))) {
+                if (!isFeederCandidate(peer)) {
                   // ignore this peer, it will be removed by the peers discovery thread
                   continue;
                 }
@@ -310,76 +365,84 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
                 }
               }
 
-              JsonArray nextBlocks = getNextBlocks(peer, commonBlockId);
-              if (nextBlocks == null || nextBlocks.size() == 0) {
-                logger.debug("Peer did not feed us any blocks");
-                return;
-              }
-
-              // download blocks from peer
               Block lastBlock = downloadCache.getBlock(commonBlockId);
               if (lastBlock == null) {
                 logger.info("Error: lastBlock is null");
                 return;
               }
 
+              // download blocks from peer, or from several peers at once if we are far behind
+              List<BlocksChunk> nextBlocksChunks = Collections.emptyList();
+              int feederHeight = lastBlockchainFeederHeight.get();
+              if (saveInCache && blockDownloadService != null && feederHeight - lastBlock.getHeight() > parallelDownloadChunk) {
+                nextBlocksChunks = getNextBlocksInParallel(peer, lastBlock.getHeight(), feederHeight);
+              }
+              if (nextBlocksChunks.isEmpty()) {
+                BlocksChunk nextBlocks = getNextBlocks(peer, commonBlockId);
+                if (nextBlocks == null || nextBlocks.size() == 0) {
+                  logger.debug("Peer did not feed us any blocks");
+                  return;
+                }
+                nextBlocksChunks = Collections.singletonList(nextBlocks);
+              }
+
               // loop blocks and make sure they fit in chain
               Block block;
-              JsonObject blockData;
 
-              for (JsonElement o : nextBlocks) {
-                int height = lastBlock.getHeight() + 1;
-                blockData = JSON.getAsJsonObject(o);
-                try {
-                  if(Burst.getFluxCapacitor().getValue(FluxValues.POC_PLUS, height) && height - blockchain.getHeight() >= Constants.MAX_ROLLBACK) {
-                    logger.debug("GetMoreBlocks, wait for other threads to catch up");
-                    break;
-                  }
-                  block = Block.parseBlock(blockData, height);
-                  // Make sure it maps back to chain
-                  if (lastBlock.getId() != block.getPreviousBlockId()) {
-                    logger.debug("Discarding downloaded data. Last downloaded blocks is rubbish");
-                    logger.debug("DB blockID: {} DB blockheight: {} Downloaded previd: {}", lastBlock.getId(), lastBlock.getHeight(), block.getPreviousBlockId());
-                    return;
-                  }
-                  // set height and cumulative difficulty to block
-                  block.setHeight(height);
-                  block.setPeer(peer);
-                  block.setByteLength(JSON.toJsonString(blockData).length());
-                  blockService.calculateBaseTarget(block, lastBlock);
-                  if (saveInCache) {
-                    if (downloadCache.getLastBlockId() == block.getPreviousBlockId()) { //still maps back? we might have got announced/forged blocks
-                      if (!downloadCache.addBlock(block)) {
-                        //we stop the loop since cahce has been locked
-                        return;
-                      }
-                      if (logger.isDebugEnabled()) {
-                          logger.debug("Added from download: Id: {} Height: {}", block.getId(), block.getHeight());
+              downloadLoop:
+              for (BlocksChunk chunk : nextBlocksChunks) {
+                for (int i = 0; i < chunk.size(); i++) {
+                  int height = lastBlock.getHeight() + 1;
+                  try {
+                    if(Burst.getFluxCapacitor().getValue(FluxValues.POC_PLUS, height) && height - blockchain.getHeight() >= Constants.MAX_ROLLBACK) {
+                      logger.debug("GetMoreBlocks, wait for other threads to catch up");
+                      break downloadLoop;
+                    }
+                    block = chunk.parseBlock(i, height);
+                    // Make sure it maps back to chain
+                    if (lastBlock.getId() != block.getPreviousBlockId()) {
+                      logger.debug("Discarding downloaded data. Last downloaded blocks is rubbish");
+                      logger.debug("DB blockID: {} DB blockheight: {} Downloaded previd: {}", lastBlock.getId(), lastBlock.getHeight(), block.getPreviousBlockId());
+                      return;
+                    }
+                    // set height and cumulative difficulty to block
+                    block.setHeight(height);
+                    block.setPeer(chunk.peer);
+                    blockService.calculateBaseTarget(block, lastBlock);
+                    if (saveInCache) {
+                      if (downloadCache.getLastBlockId() == block.getPreviousBlockId()) { //still maps back? we might have got announced/forged blocks
+                        if (!downloadCache.addBlock(block)) {
+                          //we stop the loop since cache has been locked or is full
+                          return;
+                        }
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Added from download: Id: {} Height: {}", block.getId(), block.getHeight());
+                        }
                       }
+                    } else {
+                      downloadCache.addForkBlock(block);
                     }
-                  } else {
-                    downloadCache.addForkBlock(block);
-                  }
-                  lastBlock = block;
-                } catch (BlockOutOfOrderException e) {
-                  logger.info(e.toString() + " - autoflushing cache to get rid of it", e);
-                  downloadCache.resetCache();
-                  return;
-                } catch (RuntimeException | BurstException.ValidationException e) {
-                  logger.info("Failed to parse block: {}", e.getMessage());
-                  if(logger.isDebugEnabled()) {
-                    logger.debug("Failed to parse block trace: {}", Arrays.toString(e.getStackTrace()));
+                    lastBlock = block;
+                  } catch (BlockOutOfOrderException e) {
+                    logger.info(e.toString() + " - autoflushing cache to get rid of it", e);
+                    downloadCache.resetCache();
+                    return;
+                  } catch (RuntimeException | BurstException.ValidationException e) {
+                    logger.info("Failed to parse block: {}", e.getMessage());
+                    if(logger.isDebugEnabled()) {
+                      logger.debug("Failed to parse block trace: {}", Arrays.toString(e.getStackTrace()));
+                    }
+                    chunk.peer.blacklist(e, "pulled invalid data using getCumulativeDifficulty");
+                    return;
+                  } catch (Exception e) {
+                    logger.warn("Unhandled exception {}" + e.toString(), e);
+                    logger.warn("Unhandled exception trace: {}", Arrays.toString(e.getStackTrace()));
                   }
-                  peer.blacklist(e, "pulled invalid data using getCumulativeDifficulty");
-                  return;
-                } catch (Exception e) {
-                  logger.warn("Unhandled exception {}" + e.toString(), e);
-                  logger.warn("Unhandled exception trace: {}", Arrays.toString(e.getStackTrace()));
-                }
-                //executor shutdown?
-                if (Thread.currentThread().isInterrupted() || !ThreadPool.running.get())
-                  return;
-              } // end block loop
+                  //executor shutdown?
+                  if (Thread.currentThread().isInterrupted() || !ThreadPool.running.get())
+                    return;
+                } // end block loop
+              } // end chunk loop
 
               if (logger.isTraceEnabled()) {
                 logger.trace("Unverified blocks: {}", downloadCache.getUnverifiedSize());
@@ -498,7 +561,7 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
         throw new InterruptedException("interrupted");
       }
 
-      private JsonArray getNextBlocks(Peer peer, long curBlockId) {
+      private BlocksChunk getNextBlocks(Peer peer, long curBlockId) {
 
         JsonObject request = new JsonObject();
         request.addProperty("requestType", "getNextBlocks");
@@ -506,6 +569,16 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
         if (logger.isDebugEnabled()) {
           logger.debug("Getting next Blocks after {} from {}", Convert.toUnsignedLong(curBlockId), peer.getPeerAddress());
         }
+        if (binaryProtocol && peer.supportsBinaryProtocol()) {
+          BlocksChunk binaryBlocks = getBinaryBlocks(peer, request, 1440);
+          if (binaryBlocks != null) {
+            logger.debug("Got {} binary blocks after {} from {}", binaryBlocks.size(), curBlockId, peer.getPeerAddress());
+            return binaryBlocks;
+          }
+          if (peer.supportsBinaryProtocol()) {
+            return null;
+          }
+        }
         JsonObject response = peer.send(JSON.prepareRequest(request));
         if (response == null) {
           return null;
@@ -521,8 +594,127 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
           return null;
         }
         logger.debug("Got {} blocks after {} from {}", nextBlocks.size(), curBlockId, peer.getPeerAddress());
-        return nextBlocks;
+        return new BlocksChunk(peer, nextBlocks);
+
+      }
+
+      /*
+       * Splits the heights between our common block and the feeder height in chunks and
+       * requests them concurrently from the feeder and other connected peers. The chunks
+       * are returned in height order, stopping at the first one we could not get complete.
+       */
+      private List<BlocksChunk> getNextBlocksInParallel(Peer feeder, int commonHeight, int feederHeight) throws InterruptedException {
+        List<Peer> downloadPeers = new ArrayList<>();
+        downloadPeers.add(feeder);
+        for (Peer other : Peers.getPeers(Peer.State.CONNECTED)) {
+          if (downloadPeers.size() >= parallelDownloadPeers) {
+            break;
+          }
+          if (other != feeder && !other.isBlacklisted() && isFeederCandidate(other)) {
+            downloadPeers.add(other);
+          }
+        }
+
+        int toHeight = Math.min(feederHeight, commonHeight + downloadPeers.size() * parallelDownloadChunk * 2);
+        if (Burst.getFluxCapacitor().getValue(FluxValues.POC_PLUS, commonHeight)) {
+          // blocks beyond the rollback limit would be discarded anyway
+          toHeight = Math.min(toHeight, blockchain.getHeight() + Constants.MAX_ROLLBACK - 1);
+        }
+
+        List<Peer> chunkPeers = new ArrayList<>();
+        List<Future<BlocksChunk>> futures = new ArrayList<>();
+        for (int fromHeight = commonHeight; fromHeight < toHeight; fromHeight += parallelDownloadChunk) {
+          Peer chunkPeer = downloadPeers.get(chunkPeers.size() % downloadPeers.size());
+          int chunkHeight = fromHeight;
+          int numBlocks = Math.min(parallelDownloadChunk, toHeight - fromHeight);
+          chunkPeers.add(chunkPeer);
+          futures.add(blockDownloadService.submit(() -> getBlocksFromHeight(chunkPeer, chunkHeight, numBlocks)));
+        }
+        logger.debug("Downloading blocks {} to {} in {} chunks from {} peers", commonHeight + 1, toHeight, futures.size(), downloadPeers.size());
+
+        List<BlocksChunk> chunks = new ArrayList<>();
+        try {
+          for (int i = 0; i < futures.size(); i++) {
+            int fromHeight = commonHeight + i * parallelDownloadChunk;
+            int numBlocks = Math.min(parallelDownloadChunk, toHeight - fromHeight);
+            Peer chunkPeer = chunkPeers.get(i);
+            BlocksChunk blocks = getChunk(futures.get(i));
+            if ((blocks == null || blocks.size() == 0) && chunkPeer != feeder) {
+              // retry with the peer that claimed the better chain
+              blocks = getBlocksFromHeight(feeder, fromHeight, numBlocks);
+            }
+            if (blocks == null || blocks.size() == 0) {
+              break;
+            }
+            chunks.add(blocks);
+            if (blocks.size() < numBlocks) {
+              // the next chunk would not connect to this one
+              break;
+            }
+          }
+        } finally {
+          futures.forEach(future -> future.cancel(true));
+        }
+        return chunks;
+      }
+
+      private BlocksChunk getChunk(Future<BlocksChunk> future) throws InterruptedException {
+        try {
+          return future.get();
+        } catch (ExecutionException e) {
+          logger.debug("Error downloading blocks chunk", e);
+          return null;
+        }
+      }
 
+      private BlocksChunk getBlocksFromHeight(Peer peer, int height, int numBlocks) {
+        JsonObject request = new JsonObject();
+        request.addProperty("requestType", "getBlocksFromHeight");
+        request.addProperty("height", height);
+        request.addProperty("numBlocks", numBlocks);
+        if (binaryProtocol && peer.supportsBinaryProtocol()) {
+          BlocksChunk binaryBlocks = getBinaryBlocks(peer, request, numBlocks);
+          if (binaryBlocks != null) {
+            logger.debug("Got {} binary blocks after height {} from {}", binaryBlocks.size(), height, peer.getPeerAddress());
+            return binaryBlocks;
+          }
+          if (peer.supportsBinaryProtocol()) {
+            return null;
+          }
+        }
+        JsonObject response = peer.send(JSON.prepareRequest(request));
+        if (response == null) {
+          return null;
+        }
+
+        JsonArray nextBlocks = JSON.getAsJsonArray(response.get("nextBlocks"));
+        if (nextBlocks == null) {
+          return null;
+        }
+        if (nextBlocks.size() > numBlocks) {
+          peer.blacklist("peer sends more blocks than requested");
+          return null;
+        }
+        logger.debug("Got {} blocks after height {} from {}", nextBlocks.size(), height, peer.getPeerAddress());
+        return new BlocksChunk(peer, nextBlocks);
+      }
+
+      /*
+       * Requests the blocks with the binary protocol, returns null if the request failed, in which
+       * case the peer was marked by sendBinary, or if the peer turned out not to support the protocol,
+       * only then the caller falls back to JSON.
+       */
+      private BlocksChunk getBinaryBlocks(Peer peer, JsonObject request, int maxBlocks) {
+        byte[] response = peer.sendBinary(request);
+        if (response == null) {
+          return null;
+        }
+        try {
+          return new BlocksChunk(peer, BinaryBlocks.read(response, maxBlocks));
+        } catch (BurstException.NotValidException e) {
+          peer.blacklist(e, "sent invalid binary blocks");
+          return new BlocksChunk(peer, Collections.<byte[]>emptyList());
+        }
       }
 
       private void processFork(Peer peer, final List<Block> forkBlocks, long forkBlockId) {
@@ -622,6 +814,15 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
     Runnable blockImporterThread = () -> {
       while (!Thread.interrupted() && ThreadPool.running.get() && downloadCache.size() > 0) {
         try {
+          if (isBulkSync()) {
+            int pushedBlocks = pushBlocksInBulk();
+            if (pushedBlocks < 0) {
+              break;
+            }
+            if (pushedBlocks > 0) {
+              continue;
+            }
+          }
           Block lastBlock = blockchain.getLastBlock();
           Long lastId = lastBlock.getId();
           Block currentBlock = downloadCache.getNextBlock(lastId); /* this should fetch first block in cache */
@@ -675,24 +876,8 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
             verifyWithOcl = false;
           }
           if (verifyWithOcl) {
-            int poCVersion;
-            int pos = 0;
             HashMap<Block, Block> blocks = new HashMap<>();
-            poCVersion = downloadCache.getPoCVersion(downloadCache.getUnverifiedBlockIdFromPos(0));
-            while (!Thread.interrupted() && ThreadPool.running.get()
-                    && (downloadCache.getUnverifiedSize() - 1) > pos
-                    && blocks.size() < OCLPoC.getMaxItems()) {
-              long blockId = downloadCache.getUnverifiedBlockIdFromPos(pos);
-              if (downloadCache.getPoCVersion(blockId) != poCVersion) {
-                break;
-              }
-              Block block = downloadCache.getBlock(blockId);
-              Block prevBlock = downloadCache.getBlock(block.getPreviousBlockId());
-              if(prevBlock == null)
-                prevBlock = blockchain.getBlock(block.getPreviousBlockId());
-              blocks.put(block, prevBlock);
-              pos += 1;
-            }
+            int poCVersion = getUnverifiedBatch(blocks, OCLPoC.getMaxItems());
             try {
               OCLPoC.validatePoC(blocks, poCVersion, blockService);
               downloadCache.removeUnverifiedBatch(blocks.keySet());
@@ -706,6 +891,21 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
             } finally {
               gpuUsage.release();
             }
+          } else if (!oclVerify && unVerified > 1) { //verify a batch using all cores
+            HashMap<Block, Block> blocks = new HashMap<>();
+            int poCVersion = getUnverifiedBatch(blocks, CPUPoC.getMaxItems());
+            try {
+              CPUPoC.validatePoC(blocks, poCVersion, blockService);
+              downloadCache.removeUnverifiedBatch(blocks.keySet());
+            } catch (InterruptedException e) {
+              // the batch stays unverified
+              Thread.currentThread().interrupt();
+            } catch (OCLPoC.PreValidateFailException e) {
+              logger.info(e.toString(), e);
+              blacklistClean(e.getBlock(), e, "found invalid pull/push data during processing the pocVerification");
+            } catch (Exception e) {
+              logger.info("Unspecified CPU verification error: ", e);
+            }
           } else { //verify using java
             try {
               Block block = downloadCache.getFirstUnverifiedBlock();
@@ -726,12 +926,67 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
         }
       }
     };
-    if (propertyService.getBoolean(Props.GPU_ACCELERATION)) {
-      logger.debug("Starting preverifier thread in Open CL mode.");
-      threadPool.scheduleThread("VerifyPoc", pocVerificationThread, Constants.BLOCK_PROCESS_THREAD_DELAY, TimeUnit.MILLISECONDS);
-    } else {
-      logger.debug("Starting preverifier thread in CPU mode.");
-      threadPool.scheduleThreadCores(pocVerificationThread, Constants.BLOCK_PROCESS_THREAD_DELAY, TimeUnit.MILLISECONDS);
+    // a single thread in both modes, the CPU batches are spread over the cores by CPUPoC
+    logger.debug("Starting preverifier thread in {} mode.", propertyService.getBoolean(Props.GPU_ACCELERATION) ? "Open CL" : "CPU");
+    threadPool.scheduleThread("VerifyPoc", pocVerificationThread, Constants.BLOCK_PROCESS_THREAD_DELAY, TimeUnit.MILLISECONDS);
+  }
+
+  /*
+   * Collects up to maxItems unverified blocks of the same PoC version, together with their
+   * previous blocks, and returns the PoC version.
+   */
+  private int getUnverifiedBatch(Map<Block, Block> blocks, long maxItems) {
+    int pos = 0;
+    int poCVersion = downloadCache.getPoCVersion(downloadCache.getUnverifiedBlockIdFromPos(0));
+    while (!Thread.interrupted() && ThreadPool.running.get()
+            && (downloadCache.getUnverifiedSize() - 1) > pos
+            && blocks.size() < maxItems) {
+      long blockId = downloadCache.getUnverifiedBlockIdFromPos(pos);
+      if (downloadCache.getPoCVersion(blockId) != poCVersion) {
+        break;
+      }
+      Block block = downloadCache.getBlock(blockId);
+      Block prevBlock = downloadCache.getBlock(block.getPreviousBlockId());
+      if(prevBlock == null)
+        prevBlock = blockchain.getBlock(block.getPreviousBlockId());
+      blocks.put(block, prevBlock);
+      pos += 1;
+    }
+    return poCVersion;
+  }
+
+  private boolean isFeederCandidate(Peer peer) {
+    return peer.isHigherOrEqualVersionThan(Burst.getFluxCapacitor().getValue(FluxValues.MIN_PEER_VERSION))
+        && (peer.getNetworkName() == null || peer.getNetworkName().equals(propertyService.getString(Props.NETWORK_NAME)));
+  }
+
+  private static final class BlocksChunk {
+    private final Peer peer;
+    // either the JSON blocks or the binary ones
+    private final JsonArray blocks;
+    private final List<byte[]> binaryBlocks;
+
+    private BlocksChunk(Peer peer, JsonArray blocks) {
+      this.peer = peer;
+      this.blocks = blocks;
+      this.binaryBlocks = null;
+    }
+
+    private BlocksChunk(Peer peer, List<byte[]> binaryBlocks) {
+      this.peer = peer;
+      this.blocks = null;
+      this.binaryBlocks = binaryBlocks;
+    }
+
+    private int size() {
+      return blocks != null ? blocks.size() : binaryBlocks.size();
+    }
+
+    private Block parseBlock(int index, int height) throws BurstException.ValidationException {
+      if (blocks != null) {
+        return Block.parseBlock(JSON.getAsJsonObject(blocks.get(index)), height);
+      }
+      return Block.parseBlock(binaryBlocks.get(index), height);
     }
   }
 
@@ -794,6 +1049,16 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
     return isScanning.get();
   }
 
+  @Override
+  public int getTrimBacklog() {
+    return derivedTableTrimmer == null ? 0 : derivedTableTrimmer.getBacklog();
+  }
+
+  @Override
+  public BlockArchive getBlockArchive() {
+    return blockArchive;
+  }
+
   @Override
   public int getMinRollbackHeight() {
     int trimHeight = (lastTrimHeight.get() > 0
@@ -809,7 +1074,6 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
     Block chainblock = downloadCache.getLastBlock();
     if (chainblock != null && chainblock.getId() == newBlock.getPreviousBlockId()) {
       newBlock.setHeight(chainblock.getHeight() + 1);
-      newBlock.setByteLength(newBlock.toString().length());
       blockService.calculateBaseTarget(newBlock, chainblock);
       downloadCache.addBlock(newBlock);
       logger.debug("Peer {} added block from Announce: Id: {} Height: {}", peer.getPeerAddress(), newBlock.getId(), newBlock.getHeight());
@@ -829,14 +1093,24 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
 
   @Override
   public void fullReset() {
+    if (blockArchive != null) {
+      blockArchive.truncate(0);
+    }
     dbCacheManager.flushCache();
     downloadCache.resetCache();
     blockDb.deleteAll(false);
+    DerivedTableTrimmer.clearTrimmedHeights();
     addGenesisBlock();
     dbCacheManager.flushCache();
     downloadCache.resetCache();
   }
 
+  @Override
+  public Snapshot.Export exportSnapshot(String filename) throws IOException {
+    // reads a fixed state of the database on its own, so blocks keep being pushed meanwhile
+    return Snapshot.export(filename, derivedTableManager.getDerivedTables());
+  }
+
   void setGetMoreBlocks(boolean getMoreBlocks) {
     this.getMoreBlocks.set(getMoreBlocks);
   }
@@ -901,156 +1175,13 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
   private void pushBlock(final Block block) throws BlockNotAcceptedException {
     synchronized (transactionProcessor.getUnconfirmedTransactionsSyncObj()) {
       stores.beginTransaction();
-      int curTime = timeService.getEpochTime();
 
       Block previousLastBlock = null;
       try {
 
         previousLastBlock = blockchain.getLastBlock();
 
-        if (previousLastBlock.getId() != block.getPreviousBlockId()) {
-          throw new BlockOutOfOrderException(
-              "Previous block id doesn't match for block " + block.getHeight()
-                  + ((previousLastBlock.getHeight() + 1) == block.getHeight() ? "" : " invalid previous height " + previousLastBlock.getHeight())
-          );
-        }
-
-        if (block.getVersion() != getBlockVersion()) {
-          throw new BlockNotAcceptedException("Invalid version " + block.getVersion() + " for block " + block.getHeight());
-        }
-
-        if (block.getVersion() != 1
-            && !Arrays.equals(Crypto.sha256().digest(previousLastBlock.getBytes()),
-            block.getPreviousBlockHash())) {
-          throw new BlockNotAcceptedException("Previous block hash doesn't match for block " + block.getHeight());
-        }
-        if (block.getTimestamp() > curTime + MAX_TIMESTAMP_DIFFERENCE
-            || block.getTimestamp() <= previousLastBlock.getTimestamp()) {
-          throw new BlockOutOfOrderException("Invalid timestamp: " + block.getTimestamp()
-              + " current time is " + curTime
-              + ", previous block timestamp is " + previousLastBlock.getTimestamp() + ", peer is " +
-              (block.getPeer() != null ? block.getPeer().getAnnouncedAddress() : " null") );
-        }
-        if (block.getId() == 0L || blockDb.hasBlock(block.getId())) {
-          throw new BlockNotAcceptedException("Duplicate block or invalid id for block " + block.getHeight());
-        }
-        if (!blockService.verifyGenerationSignature(block)) {
-          throw new BlockNotAcceptedException("Generation signature verification failed for block " + block.getHeight());
-        }
-        if (!blockService.verifyBlockSignature(block)) {
-          throw new BlockNotAcceptedException("Block signature verification failed for block " + block.getHeight());
-        }
-
-        final TransactionDuplicatesCheckerImpl transactionDuplicatesChecker = new TransactionDuplicatesCheckerImpl();
-        long calculatedTotalAmount = 0;
-        long calculatedTotalFee = 0;
-        MessageDigest digest = Crypto.sha256();
-
-        long[] feeArray = new long[block.getTransactions().size()];
-        int slotIdx = 0;
-
-        int maxIndirects = Burst.getPropertyService().getInt(Props.MAX_INDIRECTS_PER_BLOCK);
-        int indirectsCount = 0;
-
-        for (Transaction transaction : block.getTransactions()) {
-          if (transaction.getTimestamp() > curTime + MAX_TIMESTAMP_DIFFERENCE) {
-            throw new BlockOutOfOrderException("Invalid transaction timestamp: "
-                + transaction.getTimestamp() + ", current time is " + curTime);
-          }
-          if (transaction.getTimestamp() > block.getTimestamp() + MAX_TIMESTAMP_DIFFERENCE
-              || transaction.getExpiration() < block.getTimestamp()) {
-            throw new TransactionNotAcceptedException("Invalid transaction timestamp "
-                + transaction.getTimestamp() + " for transaction " + transaction.getStringId()
-                + ", current time is " + curTime + ", block timestamp is " + block.getTimestamp(),
-                transaction);
-          }
-          if (transactionDb.hasTransaction(transaction.getId())) {
-            throw new TransactionNotAcceptedException(
-                "Transaction " + transaction.getStringId() + " is already in the blockchain",
-                transaction);
-          }
-            if (transaction.getReferencedTransactionFullHash() != null && ((!transactionDb.hasTransaction(
-                    Convert.fullHashToId(transaction.getReferencedTransactionFullHash())))
-                    || (!hasAllReferencedTransactions(transaction, transaction.getTimestamp(), 0)))) {
-                throw new TransactionNotAcceptedException("Missing or invalid referenced transaction "
-                        + transaction.getReferencedTransactionFullHash() + " for transaction "
-                        + transaction.getStringId(), transaction);
-            }
-          if (transaction.getVersion() != transactionProcessor.getTransactionVersion(previousLastBlock.getHeight())) {
-            throw new TransactionNotAcceptedException("Invalid transaction version "
-                + transaction.getVersion() + " at height " + previousLastBlock.getHeight(),
-                transaction);
-          }
-
-          if (!transactionService.verifyPublicKey(transaction)) {
-            throw new TransactionNotAcceptedException("Wrong public key in transaction "
-                + transaction.getStringId() + " at height " + previousLastBlock.getHeight(),
-                transaction);
-          }
-            if (Burst.getFluxCapacitor().getValue(FluxValues.AUTOMATED_TRANSACTION_BLOCK) && !economicClustering.verifyFork(transaction)) {
-                if (logger.isDebugEnabled()) {
-                    logger.debug("Block {} height {} contains transaction that was generated on a fork: {} ecBlockId {} ecBlockHeight {}", block.getStringId(), previousLastBlock.getHeight() + 1, transaction.getStringId(), transaction.getECBlockHeight(), Convert.toUnsignedLong(transaction.getECBlockId()));
-                }
-                throw new TransactionNotAcceptedException("Transaction belongs to a different fork",
-                        transaction);
-            }
-          if (transaction.getId() == 0L) {
-            throw new TransactionNotAcceptedException("Invalid transaction id", transaction);
-          }
-
-          if (transactionDuplicatesChecker.hasAnyDuplicate(transaction)) {
-            throw new TransactionNotAcceptedException("Transaction is a duplicate: " + transaction.getStringId(), transaction);
-          }
-
-          int txIndirects = transaction.getType().getIndirectIncomings(transaction).size();
-          if(indirectsCount + txIndirects > maxIndirects) {
-            throw new TransactionNotAcceptedException("Maximum indirects limit of " + maxIndirects + " reached: " + transaction.getStringId(), transaction);
-          }
-          indirectsCount += txIndirects;
-
-          try {
-            transactionService.validate(transaction);
-          } catch (BurstException.ValidationException e) {
-            throw new TransactionNotAcceptedException(e.getMessage(), transaction);
-          }
-
-          calculatedTotalAmount += transaction.getAmountNQT();
-          calculatedTotalFee += transaction.getFeeNQT();
-          digest.update(transaction.getBytes());
-          indirectIncomingService.processTransaction(transaction);
-          feeArray[slotIdx] = transaction.getFeeNQT();
-          slotIdx += 1;
-        }
-
-        if (calculatedTotalAmount > block.getTotalAmountNQT()
-            || calculatedTotalFee > block.getTotalFeeNQT()) {
-          throw new BlockNotAcceptedException("Total amount or fee don't match transaction totals for block " + block.getHeight());
-        }
-
-        if (Burst.getFluxCapacitor().getValue(FluxValues.SODIUM) && !Burst.getFluxCapacitor().getValue(FluxValues.SPEEDWAY)) {
-          Arrays.sort(feeArray);
-          for (int i = 0; i < feeArray.length; i++) {
-            if (feeArray[i] < Constants.FEE_QUANT_SIP3 * (i + 1)) {
-              throw new BlockNotAcceptedException("Transaction fee is not enough to be included in this block " + block.getHeight());
-            }
-          }
-        }
-
-        if (!Arrays.equals(digest.digest(), block.getPayloadHash())) {
-          throw new BlockNotAcceptedException("Payload hash doesn't match for block " + block.getHeight());
-        }
-
-        long remainingAmount = Convert.safeSubtract(block.getTotalAmountNQT(), calculatedTotalAmount);
-        long remainingFee = Convert.safeSubtract(block.getTotalFeeNQT(), calculatedTotalFee);
-
-        blockService.setPrevious(block, previousLastBlock);
-        blockListeners.notify(block, Event.BEFORE_BLOCK_ACCEPT);
-        transactionProcessor.removeForgedTransactions(block.getTransactions());
-        transactionProcessor.requeueAllUnconfirmedTransactions();
-        accountService.flushAccountTable();
-        addBlock(block);
-        accept(block, remainingAmount, remainingFee);
-        derivedTableManager.getDerivedTables().forEach(DerivedTable::finish);
+        applyBlock(block, previousLastBlock);
         stores.commitTransaction();
         // We make sure downloadCache do not have this block anymore, but only after all DBs have it
         downloadCache.removeBlock(block);
@@ -1072,16 +1203,216 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
       } finally {
         stores.endTransaction();
       }
-      logger.debug("Successfully pushed {} (height {})", block.getId(), block.getHeight());
-      statisticsManager.blockAdded();
-      blockListeners.notify(block, Event.BLOCK_PUSHED);
-      if (block.getTimestamp() >= timeService.getEpochTime() - MAX_TIMESTAMP_DIFFERENCE) {
-        Peers.sendToSomePeers(block);
+      blockPushed(block);
+    }
+  }
+
+  /*
+   * Pushes the following blocks of the download cache in a single DB transaction, as long as we are
+   * more than MAX_ROLLBACK blocks behind our feeder. None of these blocks can be rolled back to later,
+   * so the database state check is left for when we reach the tip.
+   * On failure the group is rolled back to the last good block. The BLOCK_PUSHED listeners are only
+   * notified once the group is committed.
+   *
+   * Returns the number of blocks pushed, or -1 if a block was not accepted.
+   */
+  private int pushBlocksInBulk() {
+    BlockGroupPusher.Result result;
+    synchronized (transactionProcessor.getUnconfirmedTransactionsSyncObj()) {
+      try {
+        result = blockGroupPusher.push(bulkSyncBlocks,
+            () -> isBulkSync() && !Thread.currentThread().isInterrupted() && ThreadPool.running.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return -1;
       }
-      if (block.getHeight() >= autoPopOffLastStuckHeight) {
-        autoPopOffNumberOfBlocks = 0;
+    }
+    List<Block> pushedBlocks = result.getPushedBlocks();
+    if (!pushedBlocks.isEmpty()) {
+      logger.debug("Pushed {} blocks up to height {} in one transaction", pushedBlocks.size(), blockchain.getHeight());
+    }
+    for (Block block : pushedBlocks) {
+      downloadCache.removeBlock(block);
+      blockPushed(block);
+    }
+    if (result.getFailedBlock() != null) {
+      logger.error("Block not accepted, rolled back to height {}", blockchain.getHeight(), result.getFailure());
+      blacklistClean(result.getFailedBlock(), result.getFailure(), "found invalid pull/push data during importing the block");
+      autoPopOff(result.getFailedBlock().getHeight());
+      return -1;
+    }
+    return pushedBlocks.size();
+  }
+
+  private boolean isBulkSync() {
+    return bulkSyncBlocks > 1 && lastBlockchainFeederHeight.get() - blockchain.getHeight() > Constants.MAX_ROLLBACK;
+  }
+
+  private void blockPushed(Block block) {
+    logger.debug("Successfully pushed {} (height {})", block.getId(), block.getHeight());
+    statisticsManager.blockAdded();
+    blockListeners.notify(block, Event.BLOCK_PUSHED);
+    if (block.getTimestamp() >= timeService.getEpochTime() - MAX_TIMESTAMP_DIFFERENCE) {
+      Peers.sendToSomePeers(block);
+    }
+    if (block.getHeight() >= autoPopOffLastStuckHeight) {
+      autoPopOffNumberOfBlocks = 0;
+    }
+  }
+
+  /*
+   * Validates the block against the current state and applies it, within the current DB transaction.
+   */
+  private void applyBlock(final Block block, final Block previousLastBlock) throws BlockNotAcceptedException {
+    int curTime = timeService.getEpochTime();
+
+    if (previousLastBlock.getId() != block.getPreviousBlockId()) {
+      throw new BlockOutOfOrderException(
+          "Previous block id doesn't match for block " + block.getHeight()
+              + ((previousLastBlock.getHeight() + 1) == block.getHeight() ? "" : " invalid previous height " + previousLastBlock.getHeight())
+      );
+    }
+
+    if (block.getVersion() != getBlockVersion()) {
+      throw new BlockNotAcceptedException("Invalid version " + block.getVersion() + " for block " + block.getHeight());
+    }
+
+    if (block.getVersion() != 1 && !block.isHashesVerified()
+        && !Arrays.equals(Crypto.sha256().digest(previousLastBlock.getBytes()),
+        block.getPreviousBlockHash())) {
+      throw new BlockNotAcceptedException("Previous block hash doesn't match for block " + block.getHeight());
+    }
+    if (block.getTimestamp() > curTime + MAX_TIMESTAMP_DIFFERENCE
+        || block.getTimestamp() <= previousLastBlock.getTimestamp()) {
+      throw new BlockOutOfOrderException("Invalid timestamp: " + block.getTimestamp()
+          + " current time is " + curTime
+          + ", previous block timestamp is " + previousLastBlock.getTimestamp() + ", peer is " +
+          (block.getPeer() != null ? block.getPeer().getAnnouncedAddress() : " null") );
+    }
+    if (block.getId() == 0L || blockDb.hasBlock(block.getId())) {
+      throw new BlockNotAcceptedException("Duplicate block or invalid id for block " + block.getHeight());
+    }
+    if (!blockService.verifyGenerationSignature(block)) {
+      throw new BlockNotAcceptedException("Generation signature verification failed for block " + block.getHeight());
+    }
+    if (!blockService.verifyBlockSignature(block)) {
+      throw new BlockNotAcceptedException("Block signature verification failed for block " + block.getHeight());
+    }
+
+    final TransactionDuplicatesCheckerImpl transactionDuplicatesChecker = new TransactionDuplicatesCheckerImpl();
+    long calculatedTotalAmount = 0;
+    long calculatedTotalFee = 0;
+    MessageDigest digest = Crypto.sha256();
+
+    long[] feeArray = new long[block.getTransactions().size()];
+    int slotIdx = 0;
+
+    int maxIndirects = Burst.getPropertyService().getInt(Props.MAX_INDIRECTS_PER_BLOCK);
+    int indirectsCount = 0;
+
+    for (Transaction transaction : block.getTransactions()) {
+      if (transaction.getTimestamp() > curTime + MAX_TIMESTAMP_DIFFERENCE) {
+        throw new BlockOutOfOrderException("Invalid transaction timestamp: "
+            + transaction.getTimestamp() + ", current time is " + curTime);
       }
+      if (transaction.getTimestamp() > block.getTimestamp() + MAX_TIMESTAMP_DIFFERENCE
+          || transaction.getExpiration() < block.getTimestamp()) {
+        throw new TransactionNotAcceptedException("Invalid transaction timestamp "
+            + transaction.getTimestamp() + " for transaction " + transaction.getStringId()
+            + ", current time is " + curTime + ", block timestamp is " + block.getTimestamp(),
+            transaction);
+      }
+      if (transactionDb.hasTransaction(transaction.getId())) {
+        throw new TransactionNotAcceptedException(
+            "Transaction " + transaction.getStringId() + " is already in the blockchain",
+            transaction);
+      }
+        if (transaction.getReferencedTransactionFullHash() != null && ((!transactionDb.hasTransaction(
+                Convert.fullHashToId(transaction.getReferencedTransactionFullHash())))
+                || (!hasAllReferencedTransactions(transaction, transaction.getTimestamp(), 0)))) {
+            throw new TransactionNotAcceptedException("Missing or invalid referenced transaction "
+                    + transaction.getReferencedTransactionFullHash() + " for transaction "
+                    + transaction.getStringId(), transaction);
+        }
+      if (transaction.getVersion() != transactionProcessor.getTransactionVersion(previousLastBlock.getHeight())) {
+        throw new TransactionNotAcceptedException("Invalid transaction version "
+            + transaction.getVersion() + " at height " + previousLastBlock.getHeight(),
+            transaction);
+      }
+
+      if (!transactionService.verifyPublicKey(transaction)) {
+        throw new TransactionNotAcceptedException("Wrong public key in transaction "
+            + transaction.getStringId() + " at height " + previousLastBlock.getHeight(),
+            transaction);
+      }
+        if (Burst.getFluxCapacitor().getValue(FluxValues.AUTOMATED_TRANSACTION_BLOCK) && !economicClustering.verifyFork(transaction)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Block {} height {} contains transaction that was generated on a fork: {} ecBlockId {} ecBlockHeight {}", block.getStringId(), previousLastBlock.getHeight() + 1, transaction.getStringId(), transaction.getECBlockHeight(), Convert.toUnsignedLong(transaction.getECBlockId()));
+            }
+            throw new TransactionNotAcceptedException("Transaction belongs to a different fork",
+                    transaction);
+        }
+      if (transaction.getId() == 0L) {
+        throw new TransactionNotAcceptedException("Invalid transaction id", transaction);
+      }
+
+      if (transactionDuplicatesChecker.hasAnyDuplicate(transaction)) {
+        throw new TransactionNotAcceptedException("Transaction is a duplicate: " + transaction.getStringId(), transaction);
+      }
+
+      int txIndirects = transaction.getType().getIndirectIncomings(transaction).size();
+      if(indirectsCount + txIndirects > maxIndirects) {
+        throw new TransactionNotAcceptedException("Maximum indirects limit of " + maxIndirects + " reached: " + transaction.getStringId(), transaction);
+      }
+      indirectsCount += txIndirects;
+
+      try {
+        transactionService.validate(transaction);
+      } catch (BurstException.ValidationException e) {
+        throw new TransactionNotAcceptedException(e.getMessage(), transaction);
+      }
+
+      calculatedTotalAmount += transaction.getAmountNQT();
+      calculatedTotalFee += transaction.getFeeNQT();
+      if (!block.isHashesVerified()) {
+        digest.update(transaction.getBytes());
+      }
+      indirectIncomingService.processTransaction(transaction);
+      feeArray[slotIdx] = transaction.getFeeNQT();
+      slotIdx += 1;
+    }
+
+    if (calculatedTotalAmount > block.getTotalAmountNQT()
+        || calculatedTotalFee > block.getTotalFeeNQT()) {
+      throw new BlockNotAcceptedException("Total amount or fee don't match transaction totals for block " + block.getHeight());
     }
+
+    if (Burst.getFluxCapacitor().getValue(FluxValues.SODIUM) && !Burst.getFluxCapacitor().getValue(FluxValues.SPEEDWAY)) {
+      Arrays.sort(feeArray);
+      for (int i = 0; i < feeArray.length; i++) {
+        if (feeArray[i] < Constants.FEE_QUANT_SIP3 * (i + 1)) {
+          throw new BlockNotAcceptedException("Transaction fee is not enough to be included in this block " + block.getHeight());
+        }
+      }
+    }
+
+    if (!block.isHashesVerified() && !Arrays.equals(digest.digest(), block.getPayloadHash())) {
+      throw new BlockNotAcceptedException("Payload hash doesn't match for block " + block.getHeight());
+    }
+
+    long remainingAmount = Convert.safeSubtract(block.getTotalAmountNQT(), calculatedTotalAmount);
+    long remainingFee = Convert.safeSubtract(block.getTotalFeeNQT(), calculatedTotalFee);
+
+    blockService.setPrevious(block, previousLastBlock);
+    blockListeners.notify(block, Event.BEFORE_BLOCK_ACCEPT);
+    transactionProcessor.removeForgedTransactions(block.getTransactions());
+    transactionProcessor.requeueAllUnconfirmedTransactions();
+    accountService.flushAccountTable();
+    // the batched writes so far belong to the previous height
+    derivedTableManager.getDerivedTables().forEach(DerivedTable::finish);
+    addBlock(block);
+    accept(block, remainingAmount, remainingFee);
+    derivedTableManager.getDerivedTables().forEach(DerivedTable::finish);
   }
 
   private void accept(Block block, Long remainingAmount, Long remainingFee)
@@ -1168,7 +1499,8 @@ public final class BlockchainProcessorImpl implements BlockchainProcessor {
             table.rollback(commonBlock.getHeight());
           }
           indirectIncomingService.rollback(commonBlock.getHeight());
-          dbCacheManager.flushCache();
+          DerivedTableTrimmer.rollbackTrimmedHeights(commonBlock.getHeight());
+          // the cached tables evicted what they rolled back
           stores.commitTransaction();
           downloadCache.resetCache();
         } catch (RuntimeException e) {
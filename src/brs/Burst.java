@@ -6,7 +6,9 @@ import brs.at.AT;
 import brs.db.BlockDb;
 import brs.db.TransactionDb;
 import brs.db.cache.DBCacheManagerImpl;
+import brs.db.cache.HotAccounts;
 import brs.db.sql.Db;
+import brs.db.sql.Snapshot;
 import brs.db.store.BlockchainStore;
 import brs.db.store.Dbs;
 import brs.db.store.DerivedTableManager;
@@ -215,12 +217,18 @@ public final class Burst {
       final DerivedTableManager derivedTableManager = new DerivedTableManager();
 
       final StatisticsManagerImpl statisticsManager = new StatisticsManagerImpl(timeService);
-      dbCacheManager = new DBCacheManagerImpl(statisticsManager);
+      dbCacheManager = new DBCacheManagerImpl(propertyService, statisticsManager);
 
       threadPool = new ThreadPool(propertyService);
 
+      long phaseStart = System.currentTimeMillis();
       Db.init(propertyService, dbCacheManager);
       dbs = Db.getDbsByDatabaseType();
+      int sqlProfilerLogInterval = propertyService.getInt(Props.DB_SQL_PROFILER_LOG_INTERVAL);
+      if (Db.getSqlProfiler() != null && sqlProfilerLogInterval > 0) {
+        threadPool.scheduleThread("SqlProfilerLog", Db.getSqlProfiler()::logStatistics, sqlProfilerLogInterval);
+      }
+      phaseStart = logPhase("database", phaseStart);
 
       stores = new Stores(derivedTableManager, dbCacheManager, timeService, propertyService, dbs.getTransactionDb(), params);
 
@@ -229,6 +237,12 @@ public final class Burst {
       final BlockchainStore blockchainStore = stores.getBlockchainStore();
       blockchain = new BlockchainImpl(transactionDb, blockDb, blockchainStore, propertyService);
 
+      String snapshotFile = propertyService.getString(Props.DB_SNAPSHOT_FILE);
+      if (!snapshotFile.isEmpty()) {
+        Snapshot.importFrom(snapshotFile, propertyService.getString(Props.DB_SNAPSHOT_HASH), derivedTableManager.getDerivedTables());
+      }
+      phaseStart = logPhase("stores", phaseStart);
+
       final AliasService aliasService = new AliasServiceImpl(stores.getAliasStore());
       fluxCapacitor = new FluxCapacitorImpl(blockchain, propertyService);
       aliasService.addDefaultTLDs();
@@ -266,6 +280,23 @@ public final class Burst {
           dbCacheManager, accountService, indirectIncomingService, aliasService);
 
       generator.generateForBlockchainProcessor(threadPool, blockchainProcessor);
+      // a scan of all the transaction ids, in the background so that it does not delay the start
+      threadPool.runAfterStart(transactionDb::buildIdFilters);
+      phaseStart = logPhase("blockchain", phaseStart);
+
+      String hotAccountsFile = propertyService.getString(Props.DB_HOT_ACCOUNTS_FILE);
+      if (!hotAccountsFile.isEmpty()) {
+        // once started, a chunk at a time under the lock of the block pushing and popping, so that no block
+        // changes an account being loaded and none waits for more than a chunk
+        threadPool.runAfterStart(() -> HotAccounts.warm(hotAccountsFile, ids -> {
+          synchronized (transactionProcessor.getUnconfirmedTransactionsSyncObj()) {
+            for (long id : ids) {
+              accountService.getAccount(id);
+              accountService.getAccountBalance(id);
+            }
+          }
+        }));
+      }
 
       final DeeplinkQRCodeGenerator deepLinkQRCodeGenerator = new DeeplinkQRCodeGenerator();
 
@@ -294,8 +325,10 @@ public final class Burst {
         DebugTrace.init(propertyService, blockchainProcessor, accountService, assetExchange, digitalGoodsStoreService);
 
       int timeMultiplier = (propertyService.getBoolean(Props.DEV_OFFLINE)) ? Math.max(propertyService.getInt(Props.DEV_TIMEWARP), 1) : 1;
+      phaseStart = logPhase("services", phaseStart);
 
       threadPool.start(timeMultiplier);
+      logPhase("start tasks", phaseStart);
       if (timeMultiplier > 1) {
         timeService.setTime(new Time.FasterTime(Math.max(timeService.getEpochTime(), getBlockchain().getLastBlock().getTimestamp()), timeMultiplier));
         logger.info("TIME WILL FLOW {} TIMES FASTER!", timeMultiplier);
@@ -312,6 +345,12 @@ public final class Burst {
     (new Thread(Burst::commandHandler)).start();
   }
 
+  private static long logPhase(String phase, long phaseStart) {
+    long now = System.currentTimeMillis();
+    logger.info("Startup phase {} took {} ms", phase, now - phaseStart);
+    return now;
+  }
+
   private static void addBlockchainListeners(BlockchainProcessor blockchainProcessor, AccountService accountService, AssetExchange assetExchange, DGSGoodsStoreService goodsService, Blockchain blockchain,
       TransactionDb transactionDb) {
 
@@ -368,8 +407,15 @@ public final class Burst {
       Db.shutdown();
     }
 
-    if (dbCacheManager != null)
+    if (dbCacheManager != null) {
+      String hotAccountsFile = propertyService.getString(Props.DB_HOT_ACCOUNTS_FILE);
+      if (!hotAccountsFile.isEmpty()) {
+        HotAccounts.save(dbCacheManager, hotAccountsFile);
+      }
       dbCacheManager.close();
+    }
+    if (blockchainProcessor != null && blockchainProcessor.getBlockArchive() != null)
+      blockchainProcessor.getBlockArchive().close();
     if (blockchainProcessor != null && blockchainProcessor.getOclVerify()) {
       OCLPoC.destroy();
     }
@@ -0,0 +1,98 @@
+package brs;
+
+import brs.props.PropertyService;
+import brs.props.Props;
+import brs.services.BlockService;
+import brs.util.MiningPlot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Batch PoC verification on the CPU, the counterpart of {@link OCLPoC} for nodes without a GPU.
+ * The blocks of a batch are split across a ForkJoin pool and every worker thread reuses its own plot buffers,
+ * only the scoop needed for the hit is extracted.
+ */
+final class CPUPoC {
+  private CPUPoC() {
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(CPUPoC.class);
+
+  private static final int ITEMS_PER_CORE = 32;
+
+  private static final ForkJoinPool pool;
+  private static final int maxItems;
+  private static final int checkPointHeight;
+
+  private static final ThreadLocal<MiningPlot> plots = ThreadLocal.withInitial(MiningPlot::new);
+
+  static {
+    PropertyService propertyService = Burst.getPropertyService();
+    int cores = propertyService.getInt(Props.CPU_NUM_CORES);
+    if (cores <= 0) {
+      cores = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+    pool = new ForkJoinPool(cores);
+    maxItems = cores * ITEMS_PER_CORE;
+    checkPointHeight = propertyService.getInt(Props.BRS_CHECKPOINT_HEIGHT);
+    logger.info("CPU PoC verification using {} cores", cores);
+  }
+
+  public static int getMaxItems() {
+    return maxItems;
+  }
+
+  /**
+   * Returns only once all blocks passed, the caller can then drop them from the unverified ones.
+   *
+   * @throws InterruptedException if interrupted while waiting, the blocks may not all be verified
+   */
+  public static void validatePoC(HashMap<Block, Block> blocks, int pocVersion, BlockService blockService) throws InterruptedException {
+    if (logger.isDebugEnabled()) {
+      logger.debug("starting cpu verify for: {}", blocks.size());
+    }
+    List<Block> toVerify = new ArrayList<>(blocks.keySet());
+    ForkJoinTask<?> task = pool.submit(() -> toVerify.parallelStream()
+        .forEach(block -> validatePoC(block, blocks.get(block), pocVersion, blockService)));
+    try {
+      task.get();
+    } catch (InterruptedException e) {
+      task.cancel(true);
+      throw e;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof OCLPoC.PreValidateFailException) {
+        throw (OCLPoC.PreValidateFailException) e.getCause();
+      }
+      throw new IllegalStateException("CPU PoC verification failed", e.getCause());
+    }
+    if (logger.isDebugEnabled()) {
+      logger.debug("finished cpu verify: {}", blocks.size());
+    }
+  }
+
+  private static void validatePoC(Block block, Block prevBlock, int pocVersion, BlockService blockService) {
+    try {
+      if (block.getHeight() < checkPointHeight) {
+        // the nonce is not checked up to the checkpoint, no need for a plot
+        blockService.preVerify(block, prevBlock);
+      } else {
+        byte[] scoopData = new byte[MiningPlot.SCOOP_SIZE];
+        plots.get().generateScoop(block.getGeneratorId(), block.getNonce(), blockService.getScoopNum(block), pocVersion == 2, scoopData);
+        blockService.preVerify(block, prevBlock, scoopData);
+      }
+    } catch (InterruptedException e) {
+      // fails the whole batch, a block left unverified must not be taken for a verified one. The worker
+      // threads are shared by the batches, so the interrupt is not kept on them.
+      throw new IllegalStateException("CPU PoC verification interrupted", e);
+    } catch (BlockchainProcessor.BlockNotAcceptedException e) {
+      throw new OCLPoC.PreValidateFailException("Block failed to prevalidate", e, block);
+    }
+  }
+}
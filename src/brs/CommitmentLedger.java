@@ -0,0 +1,173 @@
+package brs;
+
+import brs.Attachment.CommitmentAdd;
+import brs.Attachment.CommitmentRemove;
+import brs.db.store.BlockchainStore;
+import brs.fluxcapacitor.FluxValues;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The amounts committed by the accounts, as running totals by height, so that the committed amount
+ * at a height is a lookup instead of a scan of all the commitment transactions.
+ * <p>
+ * Loaded from the database with the first block pushed, then kept up to date as blocks are pushed and
+ * popped. Until then, or when a query goes past the last recorded block, the amount comes from the database.
+ */
+final class CommitmentLedger {
+
+  // the totals of the whole network are kept under this account
+  private static final long ALL_ACCOUNTS = 0L;
+
+  private final BlockchainStore blockchainStore;
+
+  private final Map<Long, Totals> totals = new HashMap<>();
+  private final Map<Long, Removal> removals = new HashMap<>();
+  // the height of the last recorded block, -1 if the ledger is not loaded or out of step with the chain
+  private int height = -1;
+
+  CommitmentLedger(BlockchainStore blockchainStore) {
+    this.blockchainStore = blockchainStore;
+  }
+
+  /**
+   * Same as {@link Blockchain#getCommittedAmount}, null if the ledger cannot tell.
+   */
+  synchronized Long getCommittedAmount(long accountId, int height, int endHeight, Transaction skipTransaction) {
+    if (this.height < 0 || endHeight > this.height) {
+      return null;
+    }
+    int commitmentWait = Burst.getFluxCapacitor().getValue(FluxValues.COMMITMENT_WAIT, height);
+    int commitmentHeight = Math.min(height - commitmentWait, endHeight);
+
+    Totals accountTotals = totals.get(accountId);
+    long amountCommitted = accountTotals == null ? 0L
+        : accountTotals.getAddedUpTo(commitmentHeight) - accountTotals.getRemovedUpTo(endHeight);
+    Removal skippedRemoval = skipTransaction != null ? removals.get(skipTransaction.getId()) : null;
+    if (skippedRemoval != null && skippedRemoval.height <= endHeight
+        && (accountId == ALL_ACCOUNTS || accountId == skippedRemoval.accountId)) {
+      amountCommitted += skippedRemoval.amount;
+    }
+    // should never be negative
+    return Math.max(amountCommitted, 0L);
+  }
+
+  synchronized void blockPushed(Block block) {
+    if (block.getHeight() != height + 1) {
+      load(block.getHeight());
+      return;
+    }
+    for (Transaction transaction : block.getTransactions()) {
+      record(transaction, block.getHeight());
+    }
+    height = block.getHeight();
+  }
+
+  synchronized void blockPopped(Block block) {
+    if (block.getHeight() != height) {
+      // reloaded with the next block pushed
+      height = -1;
+      return;
+    }
+    getTotals(ALL_ACCOUNTS).truncate(block.getHeight());
+    for (Transaction transaction : block.getTransactions()) {
+      if (transaction.getType() == TransactionType.BurstMining.COMMITMENT_ADD
+          || transaction.getType() == TransactionType.BurstMining.COMMITMENT_REMOVE) {
+        getTotals(transaction.getSenderId()).truncate(block.getHeight());
+        removals.remove(transaction.getId());
+      }
+    }
+    height--;
+  }
+
+  private void load(int height) {
+    totals.clear();
+    removals.clear();
+    for (Transaction transaction : blockchainStore.getCommitmentTransactions(height)) {
+      record(transaction, transaction.getHeight());
+    }
+    this.height = height;
+  }
+
+  private void record(Transaction transaction, int height) {
+    if (transaction.getType() == TransactionType.BurstMining.COMMITMENT_ADD) {
+      long amount = ((CommitmentAdd) transaction.getAttachment()).getAmountNQT();
+      getTotals(transaction.getSenderId()).add(height, amount, 0L);
+      getTotals(ALL_ACCOUNTS).add(height, amount, 0L);
+    }
+    else if (transaction.getType() == TransactionType.BurstMining.COMMITMENT_REMOVE) {
+      long amount = ((CommitmentRemove) transaction.getAttachment()).getAmountNQT();
+      getTotals(transaction.getSenderId()).add(height, 0L, amount);
+      getTotals(ALL_ACCOUNTS).add(height, 0L, amount);
+      removals.put(transaction.getId(), new Removal(transaction.getSenderId(), height, amount));
+    }
+  }
+
+  private Totals getTotals(long accountId) {
+    return totals.computeIfAbsent(accountId, id -> new Totals());
+  }
+
+  /**
+   * The amounts added and removed up to every height with a commitment transaction, in height order.
+   */
+  private static final class Totals {
+
+    private int[] heights = new int[4];
+    private long[] added = new long[4];
+    private long[] removed = new long[4];
+    private int size;
+
+    void add(int height, long addedAmount, long removedAmount) {
+      if (size > 0 && heights[size - 1] == height) {
+        added[size - 1] += addedAmount;
+        removed[size - 1] += removedAmount;
+        return;
+      }
+      if (size == heights.length) {
+        heights = Arrays.copyOf(heights, size * 2);
+        added = Arrays.copyOf(added, size * 2);
+        removed = Arrays.copyOf(removed, size * 2);
+      }
+      heights[size] = height;
+      added[size] = (size > 0 ? added[size - 1] : 0L) + addedAmount;
+      removed[size] = (size > 0 ? removed[size - 1] : 0L) + removedAmount;
+      size++;
+    }
+
+    void truncate(int height) {
+      while (size > 0 && heights[size - 1] >= height) {
+        size--;
+      }
+    }
+
+    long getAddedUpTo(int height) {
+      int index = indexUpTo(height);
+      return index < 0 ? 0L : added[index];
+    }
+
+    long getRemovedUpTo(int height) {
+      int index = indexUpTo(height);
+      return index < 0 ? 0L : removed[index];
+    }
+
+    private int indexUpTo(int height) {
+      int index = Arrays.binarySearch(heights, 0, size, height);
+      return index >= 0 ? index : -index - 2;
+    }
+  }
+
+  private static final class Removal {
+
+    private final long accountId;
+    private final int height;
+    private final long amount;
+
+    Removal(long accountId, int height, long amount) {
+      this.accountId = accountId;
+      this.height = height;
+      this.amount = amount;
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package brs;
+
+import brs.db.DerivedTable;
+import brs.db.sql.Db;
+import brs.db.store.DerivedTableManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntSupplier;
+
+import static brs.schema.Tables.TRIM_HEIGHT;
+
+/**
+ * Trims the old versions of the derived tables in the background, a few entities at a time.
+ * <p>
+ * Every chunk is its own database transaction under the block push lock, so blocks are pushed in
+ * between chunks. Trimming pauses entirely while blocks are being imported, and records per table
+ * up to which height it is done, so that the next round only looks at the entities changed since,
+ * also after a restart. The record goes with the database: a rollback lowers it, a full reset clears it.
+ */
+final class DerivedTableTrimmer implements Runnable {
+
+  private static final Logger logger = LoggerFactory.getLogger(DerivedTableTrimmer.class);
+
+  private static final long CHUNK_PAUSE_MS = 50;
+
+  private final DerivedTableManager derivedTableManager;
+  private final Object blockPushLock;
+  private final IntSupplier trimHeight;
+  private final BooleanSupplier importing;
+  private final int chunkKeys;
+
+  DerivedTableTrimmer(DerivedTableManager derivedTableManager, Object blockPushLock, IntSupplier trimHeight,
+                      BooleanSupplier importing, int chunkKeys) {
+    this.derivedTableManager = derivedTableManager;
+    this.blockPushLock = blockPushLock;
+    this.trimHeight = trimHeight;
+    this.importing = importing;
+    this.chunkKeys = Math.max(chunkKeys, 1);
+  }
+
+  /**
+   * The number of tables not yet trimmed to the current trim height.
+   */
+  int getBacklog() {
+    int height = trimHeight.getAsInt();
+    if (height <= 0) {
+      return 0;
+    }
+    Map<String, Integer> trimmedHeights = getTrimmedHeights();
+    return (int) derivedTableManager.getDerivedTables().stream()
+        .filter(table -> trimmedHeights.getOrDefault(table.getTable(), 0) < height)
+        .count();
+  }
+
+  @Override
+  public void run() {
+    int height = trimHeight.getAsInt();
+    if (height <= 0) {
+      return;
+    }
+    Map<String, Integer> trimmedHeights = getTrimmedHeights();
+    for (DerivedTable table : derivedTableManager.getDerivedTables()) {
+      int fromHeight = trimmedHeights.getOrDefault(table.getTable(), 0);
+      if (fromHeight >= height) {
+        continue;
+      }
+      long start = System.currentTimeMillis();
+      long trimmed = 0;
+      while (true) {
+        if (importing.getAsBoolean() || Thread.currentThread().isInterrupted()) {
+          // carry on from the same height on the next run
+          return;
+        }
+        int chunk = trimChunk(table, height, fromHeight);
+        if (chunk < 0) {
+          return;
+        }
+        trimmed += chunk;
+        if (chunk < chunkKeys) {
+          // the height is recorded with the last chunk
+          break;
+        }
+        try {
+          Thread.sleep(CHUNK_PAUSE_MS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+      if (trimmed > 0) {
+        logger.debug("Trimmed {} entities of {} to height {} in {} ms", trimmed, table.getTable(), height, System.currentTimeMillis() - start);
+      }
+    }
+  }
+
+  private int trimChunk(DerivedTable table, int height, int fromHeight) {
+    synchronized (blockPushLock) {
+      Db.beginTransaction();
+      try {
+        int trimmed = table.trim(height, fromHeight, chunkKeys);
+        if (trimmed < chunkKeys) {
+          setTrimmedHeight(table.getTable(), height);
+        }
+        Db.commitTransaction();
+        return trimmed;
+      } catch (RuntimeException e) {
+        Db.rollbackTransaction();
+        logger.warn("Error trimming {}", table.getTable(), e);
+        return -1;
+      } finally {
+        Db.endTransaction();
+      }
+    }
+  }
+
+  /**
+   * Lowers the recorded heights to the height the tables are rolled back to, so that the next round also looks
+   * at the entities changed again above it. Also without a trimmer, the records stay with the database.
+   */
+  static void rollbackTrimmedHeights(int height) {
+    Db.useDSLContext(ctx -> {
+      ctx.update(TRIM_HEIGHT).set(TRIM_HEIGHT.HEIGHT, height).where(TRIM_HEIGHT.HEIGHT.gt(height)).execute();
+    });
+  }
+
+  /**
+   * Forgets the recorded heights, for a database synced again from scratch.
+   */
+  static void clearTrimmedHeights() {
+    Db.useDSLContext(ctx -> {
+      ctx.deleteFrom(TRIM_HEIGHT).execute();
+    });
+  }
+
+  private static Map<String, Integer> getTrimmedHeights() {
+    return Db.useDSLContext(ctx -> {
+      return ctx.select(TRIM_HEIGHT.TABLE_NAME, TRIM_HEIGHT.HEIGHT).from(TRIM_HEIGHT).fetchMap(TRIM_HEIGHT.TABLE_NAME, TRIM_HEIGHT.HEIGHT);
+    });
+  }
+
+  private static void setTrimmedHeight(String table, int height) {
+    Db.useDSLContext(ctx -> {
+      ctx.mergeInto(TRIM_HEIGHT, TRIM_HEIGHT.TABLE_NAME, TRIM_HEIGHT.HEIGHT)
+          .key(TRIM_HEIGHT.TABLE_NAME)
+          .values(table, height)
+          .execute();
+    });
+  }
+}
@@ -25,6 +25,7 @@ import brs.util.Convert;
 import brs.util.DownloadCacheImpl;
 import brs.util.Listener;
 import brs.util.Listeners;
+import brs.util.MiningPlot;
 import brs.util.ThreadPool;
 import signumj.crypto.SignumCrypto;
 import signumj.entity.SignumID;
@@ -35,6 +36,7 @@ public class GeneratorImpl implements Generator {
   private final Listeners<GeneratorState, Event> listeners = new Listeners<>();
   private final ConcurrentMap<Long, GeneratorStateImpl> generators = new ConcurrentHashMap<>();
   private final SignumCrypto burstCrypto = SignumCrypto.getInstance();
+  private final ThreadLocal<MiningPlot> plots = ThreadLocal.withInitial(MiningPlot::new);
   private final Blockchain blockchain;
   private final DownloadCacheImpl downloadCache;
   private final TimeService timeService;
@@ -134,7 +136,9 @@ public class GeneratorImpl implements Generator {
 
   @Override
   public BigInteger calculateHit(long accountId, long nonce, byte[] genSig, int scoop, int blockHeight) {
-    return burstCrypto.calculateHit(accountId, nonce, genSig, scoop, getPocVersion(blockHeight));
+    byte[] scoopData = new byte[MiningPlot.SCOOP_SIZE];
+    plots.get().generateScoop(accountId, nonce, scoop, getPocVersion(blockHeight) == 2, scoopData);
+    return burstCrypto.calculateHit(genSig, scoopData);
   }
 
   @Override
@@ -35,6 +35,8 @@ public class Transaction implements Comparable<Transaction> {
     private final byte version;
     private final int timestamp;
     private final Attachment.AbstractAttachment attachment;
+    private final byte[] appendagesBytes;
+    private final int appendagesFlags;
 
     private long recipientId;
     private String referencedTransactionFullHash;
@@ -63,6 +65,27 @@ public class Transaction implements Comparable<Transaction> {
       this.feeNQT = feeNQT;
       this.attachment = attachment;
       this.type = attachment.getTransactionType();
+      this.appendagesBytes = null;
+      this.appendagesFlags = 0;
+    }
+
+    /**
+     * A transaction whose attachment and appendages are kept as stored, and only parsed when first used.
+     *
+     * @param appendagesFlags which appendages follow the attachment, as in the flags of {@link #getBytes()}
+     */
+    public Builder(byte version, byte[] senderPublicKey, long amountNQT, long feeNQT, int timestamp, short deadline,
+                   TransactionType type, byte[] appendagesBytes, int appendagesFlags) {
+      this.version = version;
+      this.timestamp = timestamp;
+      this.deadline = deadline;
+      this.senderPublicKey = senderPublicKey;
+      this.amountNQT = amountNQT;
+      this.feeNQT = feeNQT;
+      this.attachment = null;
+      this.type = type;
+      this.appendagesBytes = appendagesBytes;
+      this.appendagesFlags = appendagesFlags;
     }
 
     public Transaction build() throws BurstException.NotValidException {
@@ -177,15 +200,20 @@ public class Transaction implements Comparable<Transaction> {
   private final long cashBackId;
   private final byte version;
   private final int timestamp;
-  private final Attachment.AbstractAttachment attachment;
-  private final Appendix.Message message;
-  private final Appendix.EncryptedMessage encryptedMessage;
-  private final Appendix.EncryptToSelfMessage encryptToSelfMessage;
-  private final Appendix.PublicKeyAnnouncement publicKeyAnnouncement;
+  private Attachment.AbstractAttachment attachment;
+  private Appendix.Message message;
+  private Appendix.EncryptedMessage encryptedMessage;
+  private Appendix.EncryptToSelfMessage encryptToSelfMessage;
+  private Appendix.PublicKeyAnnouncement publicKeyAnnouncement;
 
-  private final List<Appendix.AbstractAppendix> appendages;
+  private List<Appendix.AbstractAppendix> appendages;
   private final int appendagesSize;
 
+  // the attachment and appendages of a transaction loaded from the database are parsed on first use
+  private final byte[] appendagesBytes;
+  private final int appendagesFlags;
+  private volatile boolean appendagesParsed;
+
   private final AtomicInteger height = new AtomicInteger();
   private final AtomicLong blockId = new AtomicLong();
   private final AtomicReference<Block> block = new AtomicReference<>();
@@ -217,20 +245,52 @@ public class Transaction implements Comparable<Transaction> {
     this.ecBlockId = builder.ecBlockId;
     this.cashBackId = builder.cashBackId;
 
+    this.appendagesBytes = builder.appendagesBytes;
+    this.appendagesFlags = builder.appendagesFlags;
+    if (builder.attachment != null) {
+      this.appendagesSize = setAppendages(builder.attachment, builder.message, builder.encryptedMessage,
+          builder.publicKeyAnnouncement, builder.encryptToSelfMessage);
+      this.appendagesParsed = true;
+    }
+    else {
+      this.appendagesSize = builder.appendagesBytes != null ? builder.appendagesBytes.length : 0;
+    }
+    feeNQT = builder.feeNQT;
+
+    if ((type == null || type.isSigned()) && (deadline < 1
+            || feeNQT > Constants.MAX_BALANCE_NQT
+            || amountNQT < 0
+            || amountNQT > Constants.MAX_BALANCE_NQT
+            || type == null)) {
+      throw new BurstException.NotValidException("Invalid transaction parameters:\n type: " + type + ", timestamp: " + timestamp
+              + ", deadline: " + deadline + ", fee: " + feeNQT + ", amount: " + amountNQT);
+    }
+
+    if (!type.hasRecipient() && !type.isIndirect() && (recipientId != 0 || getAmountNQT() != 0)) {
+      throw new BurstException.NotValidException("Transactions of this type must have recipient == Genesis, amount == 0");
+    }
+
+    if (appendagesParsed) {
+      verifyAppendages();
+    }
+  }
+
+  private int setAppendages(Attachment.AbstractAttachment attachment, Appendix.Message message, Appendix.EncryptedMessage encryptedMessage,
+                            Appendix.PublicKeyAnnouncement publicKeyAnnouncement, Appendix.EncryptToSelfMessage encryptToSelfMessage) {
     List<Appendix.AbstractAppendix> list = new ArrayList<>();
-    if ((this.attachment = builder.attachment) != null) {
+    if ((this.attachment = attachment) != null) {
       list.add(this.attachment);
     }
-    if ((this.message  = builder.message) != null) {
+    if ((this.message  = message) != null) {
       list.add(this.message);
     }
-    if ((this.encryptedMessage = builder.encryptedMessage) != null) {
+    if ((this.encryptedMessage = encryptedMessage) != null) {
       list.add(this.encryptedMessage);
     }
-    if ((this.publicKeyAnnouncement = builder.publicKeyAnnouncement) != null) {
+    if ((this.publicKeyAnnouncement = publicKeyAnnouncement) != null) {
       list.add(this.publicKeyAnnouncement);
     }
-    if ((this.encryptToSelfMessage = builder.encryptToSelfMessage) != null) {
+    if ((this.encryptToSelfMessage = encryptToSelfMessage) != null) {
       list.add(this.encryptToSelfMessage);
     }
     this.appendages = Collections.unmodifiableList(list);
@@ -238,33 +298,48 @@ public class Transaction implements Comparable<Transaction> {
     for (Appendix appendage : appendages) {
       countAppendeges += appendage.getSize();
     }
-    this.appendagesSize = countAppendeges;
-    feeNQT = builder.feeNQT;
-
-    if ((type == null || type.isSigned()) && (deadline < 1
-            || feeNQT > Constants.MAX_BALANCE_NQT
-            || amountNQT < 0
-            || amountNQT > Constants.MAX_BALANCE_NQT
-            || type == null)) {
-      throw new BurstException.NotValidException("Invalid transaction parameters:\n type: " + type + ", timestamp: " + timestamp
-              + ", deadline: " + deadline + ", fee: " + feeNQT + ", amount: " + amountNQT);
-    }
+    return countAppendeges;
+  }
 
+  private void verifyAppendages() throws BurstException.NotValidException {
     if (attachment == null || type != attachment.getTransactionType()) {
       throw new BurstException.NotValidException("Invalid attachment " + attachment + " for transaction of type " + type);
     }
 
-    if (!type.hasRecipient() && !attachment.getTransactionType().isIndirect() && (recipientId != 0 || getAmountNQT() != 0)) {
-      throw new BurstException.NotValidException("Transactions of this type must have recipient == Genesis, amount == 0");
-    }
-
     for (Appendix.AbstractAppendix appendage : appendages) {
       if (! appendage.verifyVersion(this.version)) {
         throw new BurstException.NotValidException("Invalid attachment version " + appendage.getVersion()
                                                  + " for transaction version " + this.version);
       }
     }
+  }
 
+  private void parseAppendages() {
+    if (appendagesParsed) {
+      return;
+    }
+    synchronized (this) {
+      if (appendagesParsed) {
+        return;
+      }
+      ByteBuffer buffer = null;
+      if (appendagesBytes != null) {
+        buffer = ByteBuffer.wrap(appendagesBytes);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+      }
+      try {
+        Attachment.AbstractAttachment parsedAttachment = type.parseAttachment(buffer, version);
+        Appendix.Message parsedMessage = (appendagesFlags & 1) != 0 ? new Appendix.Message(buffer, version) : null;
+        Appendix.EncryptedMessage parsedEncryptedMessage = (appendagesFlags & 2) != 0 ? new Appendix.EncryptedMessage(buffer, version) : null;
+        Appendix.PublicKeyAnnouncement parsedPublicKeyAnnouncement = (appendagesFlags & 4) != 0 ? new Appendix.PublicKeyAnnouncement(buffer, version) : null;
+        Appendix.EncryptToSelfMessage parsedEncryptToSelfMessage = (appendagesFlags & 8) != 0 ? new Appendix.EncryptToSelfMessage(buffer, version) : null;
+        setAppendages(parsedAttachment, parsedMessage, parsedEncryptedMessage, parsedPublicKeyAnnouncement, parsedEncryptToSelfMessage);
+        verifyAppendages();
+      } catch (BurstException.ValidationException e) {
+        throw new RuntimeException("Transaction already in database, id = " + Convert.toUnsignedLong(getId()) + ", does not pass validation!", e);
+      }
+      appendagesParsed = true;
+    }
   }
 
   public short getDeadline() {
@@ -347,10 +422,12 @@ public class Transaction implements Comparable<Transaction> {
   }
 
   public Attachment getAttachment() {
+    parseAppendages();
     return attachment;
   }
 
   public List<AbstractAppendix> getAppendages() {
+    parseAppendages();
     return appendages;
   }
 
@@ -408,18 +485,22 @@ public class Transaction implements Comparable<Transaction> {
   }
 
   public Appendix.Message getMessage() {
+    parseAppendages();
     return message;
   }
 
   public Appendix.EncryptedMessage getEncryptedMessage() {
+    parseAppendages();
     return encryptedMessage;
   }
 
   public Appendix.EncryptToSelfMessage getEncryptToSelfMessage() {
+    parseAppendages();
     return encryptToSelfMessage;
   }
 
   public Appendix.PublicKeyAnnouncement getPublicKeyAnnouncement() {
+    parseAppendages();
     return publicKeyAnnouncement;
   }
 
@@ -454,7 +535,12 @@ public class Transaction implements Comparable<Transaction> {
           buffer.putLong(cashBackId);
         }
       }
-      appendages.forEach(appendage -> appendage.putBytes(buffer));
+      if (appendagesParsed) {
+        appendages.forEach(appendage -> appendage.putBytes(buffer));
+      }
+      else if (appendagesBytes != null) {
+        buffer.put(appendagesBytes);
+      }
       return buffer.array();
     } catch (RuntimeException e) {
       e.printStackTrace();
@@ -548,7 +634,7 @@ public class Transaction implements Comparable<Transaction> {
     json.addProperty("cashBackId", Convert.toUnsignedLong(cashBackId));
     json.addProperty("signature", Convert.toHexString(signature.get()));
     JsonObject attachmentJSON = new JsonObject();
-    appendages.forEach(appendage -> JSON.addAll(attachmentJSON, appendage.getJsonObject()));
+    getAppendages().forEach(appendage -> JSON.addAll(attachmentJSON, appendage.getJsonObject()));
     json.add("attachment", attachmentJSON);
     json.addProperty("version", version);
     return json;
@@ -664,6 +750,9 @@ public class Transaction implements Comparable<Transaction> {
   }
 
   private int getFlags() {
+    if (!appendagesParsed) {
+      return appendagesFlags;
+    }
     int flags = 0;
     int position = 1;
     if (message != null) {
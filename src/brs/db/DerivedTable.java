@@ -7,7 +7,12 @@ public interface DerivedTable extends Table {
 
   void truncate();
 
-  void trim(int height);
+  /**
+   * Trims at most maxKeys entities, only looking at the entities changed since fromHeight.
+   *
+   * @return the number of entities trimmed, less than maxKeys once the table is trimmed to height
+   */
+  int trim(int height, int fromHeight, int maxKeys);
 
   void finish();
 }
@@ -13,6 +13,12 @@ public interface TransactionDb extends Table {
 
   boolean hasTransaction(long transactionId);
 
+  /**
+   * Loads the ids of the stored transactions, so that {@link #hasTransaction(long)} only queries the
+   * database for the known ones. Until then it queries it for every id.
+   */
+  void buildIdFilters();
+
   boolean hasTransactionByFullHash(String fullHash); // TODO add byte[] method
 
   Transaction loadTransaction(TransactionRecord transactionRecord) throws BurstException.ValidationException;
@@ -5,7 +5,4 @@ public interface VersionedEntityTable<T> extends DerivedTable, EntityTable<T> {
     void rollback(int height);
 
     boolean delete(T t);
-
-    @Override
-    void trim(int height);
 }
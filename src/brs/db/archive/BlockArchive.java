@@ -0,0 +1,266 @@
+package brs.db.archive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append-only archive of the blocks' transfer bytes, by height, so that syncing peers can be served
+ * straight from the files instead of rebuilding every block from the database.
+ * <p>
+ * Blocks are appended to segment files, each record being its length, block id and previous block id,
+ * followed by the bytes. Records are synced to disk before they are indexed, and the index is rebuilt by
+ * scanning the segments on startup. Segments are read with positional reads, not memory mappings, as a mapped
+ * file can't be truncated on every platform and a mapping can't be released on demand.
+ */
+public final class BlockArchive {
+
+  private static final Logger logger = LoggerFactory.getLogger(BlockArchive.class);
+
+  private static final int SEGMENT_SIZE = 256 * 1024 * 1024;
+  private static final int RECORD_HEADER_LENGTH = 4 + 8 + 8;
+  private static final int SEGMENT_SHIFT = 32;
+
+  private final Path directory;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final List<FileChannel> segments = new ArrayList<>();
+
+  // segment index in the high bits, offset of the record in the low bits
+  private long[] locations = new long[1024];
+  private long[] blockIds = new long[1024];
+  private long[] previousBlockIds = new long[1024];
+  private int count;
+
+  public BlockArchive(String directory) throws IOException {
+    this.directory = new File(directory).toPath();
+    Files.createDirectories(this.directory);
+    for (int segment = 0; Files.exists(segmentPath(segment)); segment++) {
+      segments.add(FileChannel.open(segmentPath(segment), StandardOpenOption.READ, StandardOpenOption.WRITE));
+      scan(segment);
+    }
+    logger.info("Block archive {} holds {} blocks", directory, count);
+  }
+
+  private Path segmentPath(int segment) {
+    return directory.resolve(String.format("blocks-%06d.dat", segment));
+  }
+
+  private void scan(int segment) throws IOException {
+    FileChannel channel = segments.get(segment);
+    long size = channel.size();
+    ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+    long offset = 0;
+    while (offset + RECORD_HEADER_LENGTH <= size) {
+      header.clear();
+      channel.read(header, offset);
+      header.flip();
+      int length = header.getInt();
+      if (length < 0 || offset + RECORD_HEADER_LENGTH + length > size) {
+        break;
+      }
+      addToIndex(((long) segment << SEGMENT_SHIFT) | offset, header.getLong(), header.getLong());
+      offset += RECORD_HEADER_LENGTH + length;
+    }
+    if (offset < size) {
+      // what is left of an interrupted append
+      logger.warn("Dropping {} bytes at the end of block archive segment {}", size - offset, segment);
+      channel.truncate(offset);
+    }
+  }
+
+  private void addToIndex(long location, long blockId, long previousBlockId) {
+    if (count == locations.length) {
+      locations = Arrays.copyOf(locations, count * 2);
+      blockIds = Arrays.copyOf(blockIds, count * 2);
+      previousBlockIds = Arrays.copyOf(previousBlockIds, count * 2);
+    }
+    locations[count] = location;
+    blockIds[count] = blockId;
+    previousBlockIds[count] = previousBlockId;
+    count++;
+  }
+
+  /**
+   * @return the height of the last archived block, -1 if there is none
+   */
+  public int getHeight() {
+    lock.readLock().lock();
+    try {
+      return count - 1;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public long getBlockId(int height) {
+    lock.readLock().lock();
+    try {
+      if (height < 0 || height >= count) {
+        throw new IllegalArgumentException("Block at height " + height + " is not archived");
+      }
+      return blockIds[height];
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Appends the block following the last archived one.
+   */
+  public void append(int height, long blockId, long previousBlockId, byte[] transferBytes) {
+    lock.writeLock().lock();
+    try {
+      if (height != count || (count > 0 && previousBlockId != blockIds[count - 1])) {
+        throw new IllegalArgumentException("Block at height " + height + " does not follow the archived blocks");
+      }
+      int segment = segments.size() - 1;
+      if (segment < 0 || segments.get(segment).size() + RECORD_HEADER_LENGTH + transferBytes.length > SEGMENT_SIZE) {
+        segment++;
+        segments.add(FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+      }
+      FileChannel channel = segments.get(segment);
+      long offset = channel.size();
+      ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_LENGTH + transferBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+      record.putInt(transferBytes.length);
+      record.putLong(blockId);
+      record.putLong(previousBlockId);
+      record.put(transferBytes);
+      record.flip();
+      while (record.hasRemaining()) {
+        channel.write(record, offset + record.position());
+      }
+      // served to peers as soon as it is indexed, so it must not be lost in a crash after that
+      channel.force(false);
+      addToIndex(((long) segment << SEGMENT_SHIFT) | offset, blockId, previousBlockId);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes the blocks from the height on.
+   */
+  public void truncate(int height) {
+    lock.writeLock().lock();
+    try {
+      if (height >= count) {
+        return;
+      }
+      height = Math.max(height, 0);
+      int segment = (int) (locations[height] >>> SEGMENT_SHIFT);
+      long offset = locations[height] & ((1L << SEGMENT_SHIFT) - 1);
+      // readers are kept out by the lock
+      for (int i = segments.size() - 1; i > segment; i--) {
+        segments.remove(i).close();
+        Files.delete(segmentPath(i));
+      }
+      segments.get(segment).truncate(offset);
+      count = height;
+      logger.info("Block archive truncated to {} blocks", count);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Copies the transfer bytes of the blocks from the height on, as long as they are archived, along with the id
+   * of the last one, read together so that a concurrent truncate can't remove it in between.
+   *
+   * @param previousBlockId the id the first block must follow, or nothing is returned
+   * @param maxLength the length after which no more blocks are added
+   */
+  public ArchivedBlocks getBlocks(int height, long previousBlockId, int maxBlocks, int maxLength) {
+    List<byte[]> blocksBytes = new ArrayList<>();
+    lock.readLock().lock();
+    try {
+      if (height < 0 || height >= count || previousBlockIds[height] != previousBlockId) {
+        return new ArchivedBlocks(blocksBytes, 0);
+      }
+      int totalLength = 0;
+      int i = height;
+      for (; i < count && blocksBytes.size() < maxBlocks && totalLength < maxLength; i++) {
+        byte[] bytes = read(locations[i]);
+        blocksBytes.add(bytes);
+        totalLength += bytes.length;
+      }
+      return new ArchivedBlocks(blocksBytes, blockIds[i - 1]);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private byte[] read(long location) throws IOException {
+    FileChannel channel = segments.get((int) (location >>> SEGMENT_SHIFT));
+    long offset = location & ((1L << SEGMENT_SHIFT) - 1);
+    ByteBuffer length = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+    readFully(channel, length, offset);
+    byte[] bytes = new byte[length.getInt(0)];
+    readFully(channel, ByteBuffer.wrap(bytes), offset + RECORD_HEADER_LENGTH);
+    return bytes;
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of block archive segment");
+      }
+    }
+  }
+
+  public void close() {
+    lock.writeLock().lock();
+    try {
+      for (FileChannel segment : segments) {
+        segment.close();
+      }
+      segments.clear();
+    } catch (IOException e) {
+      logger.warn("Error closing the block archive", e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public static final class ArchivedBlocks {
+
+    private final List<byte[]> transferBytes;
+    private final long lastBlockId;
+
+    private ArchivedBlocks(List<byte[]> transferBytes, long lastBlockId) {
+      this.transferBytes = transferBytes;
+      this.lastBlockId = lastBlockId;
+    }
+
+    public List<byte[]> getTransferBytes() {
+      return transferBytes;
+    }
+
+    /**
+     * @return the id of the last block, 0 if there is none
+     */
+    public long getLastBlockId() {
+      return lastBlockId;
+    }
+  }
+}
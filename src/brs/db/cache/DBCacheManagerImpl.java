@@ -2,20 +2,47 @@ package brs.db.cache;
 
 import brs.Account;
 import brs.db.BurstKey;
+import brs.props.Prop;
+import brs.props.PropertyService;
 import brs.statistics.StatisticsManagerImpl;
 import org.ehcache.Cache;
 import org.ehcache.CacheManager;
 import org.ehcache.Status;
 import org.ehcache.config.CacheConfiguration;
 import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheEventListenerConfigurationBuilder;
 import org.ehcache.config.builders.CacheManagerBuilder;
 import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.event.EventType;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
 public class DBCacheManagerImpl {
 
+  // the caches of the account tables, written through by the tables themselves
+  private static final Map<String, Class<?>> TABLE_CACHES = new LinkedHashMap<>();
+  // the caches of the tables only serving readers outside of Db transactions
+  private static final Map<String, Integer> ENTITY_CACHES = new LinkedHashMap<>();
+
+  static {
+    TABLE_CACHES.put("account", Account.class);
+    TABLE_CACHES.put("account_balance", Account.Balance.class);
+
+    ENTITY_CACHES.put("account_asset", 16384);
+    ENTITY_CACHES.put("asset", 4096);
+    ENTITY_CACHES.put("alias", 8192);
+    ENTITY_CACHES.put("subscription", 2048);
+    ENTITY_CACHES.put("ask_order", 4096);
+    ENTITY_CACHES.put("bid_order", 4096);
+  }
+
+  private static final int TABLE_CACHE_ENTRIES = 8192*4;
+
   private final CacheManager cacheManager;
 
   private final StatisticsManagerImpl statisticsManager;
@@ -23,21 +50,60 @@ public class DBCacheManagerImpl {
   private final boolean statisticsEnabled;
 
   private final HashMap<String, CacheConfiguration<BurstKey, ?>> caches = new HashMap<>();
+  private final Map<String, String> cacheLimits = new LinkedHashMap<>();
+  private final Map<String, EntityCache<?>> entityCaches = new HashMap<>();
 
-  public DBCacheManagerImpl(StatisticsManagerImpl statisticsManager) {
+  public DBCacheManagerImpl(PropertyService propertyService, StatisticsManagerImpl statisticsManager) {
     this.statisticsManager = statisticsManager;
     statisticsEnabled = true;
 
-    caches.put("account", CacheConfigurationBuilder.newCacheConfigurationBuilder(BurstKey.class, Account.class,
-        ResourcePoolsBuilder.heap(8192*4)).build());
-    caches.put("account_balance", CacheConfigurationBuilder.newCacheConfigurationBuilder(BurstKey.class, Account.Balance.class,
-        ResourcePoolsBuilder.heap(8192*4)).build());
+    for (Map.Entry<String, Class<?>> tableCache : TABLE_CACHES.entrySet()) {
+      addCache(propertyService, tableCache.getKey(), tableCache.getValue(), TABLE_CACHE_ENTRIES, false);
+    }
+    for (Map.Entry<String, Integer> entityCache : ENTITY_CACHES.entrySet()) {
+      addCache(propertyService, entityCache.getKey(), Object.class, entityCache.getValue(), true);
+    }
 
     CacheManagerBuilder<CacheManager> cacheBuilder = CacheManagerBuilder.newCacheManagerBuilder();
     for (Map.Entry<String, CacheConfiguration<BurstKey, ?>> cache : caches.entrySet()) {
       cacheBuilder = cacheBuilder.withCache(cache.getKey(), cache.getValue());
     }
     cacheManager = cacheBuilder.build(true);
+
+    for (String name : ENTITY_CACHES.keySet()) {
+      if (caches.containsKey(name)) {
+        entityCaches.put(name, new EntityCache<>(getCache(name, Object.class)));
+      }
+    }
+  }
+
+  /**
+   * A cache is limited by its number of entries, or by its heap size if DB.cache.[name].heapMB is set.
+   * The optional ones are disabled with DB.cache.[name].entries = 0.
+   */
+  private <V> void addCache(PropertyService propertyService, String name, Class<V> valueClass, int defaultEntries, boolean optional) {
+    int entries = propertyService.getInt(new Prop<>("DB.cache." + name + ".entries", defaultEntries));
+    int heapMB = propertyService.getInt(new Prop<>("DB.cache." + name + ".heapMB", 0));
+    if (entries <= 0 && heapMB <= 0) {
+      if (optional) {
+        return;
+      }
+      entries = defaultEntries;
+    }
+
+    ResourcePoolsBuilder resourcePools;
+    if (heapMB > 0) {
+      resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder().heap(heapMB, MemoryUnit.MB);
+      cacheLimits.put(name, heapMB + " MB");
+    } else {
+      resourcePools = ResourcePoolsBuilder.heap(entries);
+      cacheLimits.put(name, entries + " entries");
+    }
+    caches.put(name, CacheConfigurationBuilder.newCacheConfigurationBuilder(BurstKey.class, valueClass, resourcePools)
+        .withService(CacheEventListenerConfigurationBuilder
+            .newEventListenerConfiguration(event -> statisticsManager.evictedObjectFromCache(name), EventType.EVICTED)
+            .unordered().asynchronous())
+        .build());
   }
 
   public void close() {
@@ -55,8 +121,33 @@ public class DBCacheManagerImpl {
     return statisticsEnabled ? new StatisticsCache<>(cache, name, statisticsManager) : cache;
   }
 
+  /**
+   * @return the shared cache of the table, or null if it has none
+   */
+  public <V> EntityCache<V> getEntityCache(String name) {
+    //noinspection unchecked
+    return (EntityCache<V>) entityCaches.get(name);
+  }
+
+  public Set<String> getCacheNames() {
+    return Collections.unmodifiableSet(cacheLimits.keySet());
+  }
+
+  public String getCacheLimit(String name) {
+    return cacheLimits.get(name);
+  }
+
+  public StatisticsManagerImpl getStatisticsManager() {
+    return statisticsManager;
+  }
+
   public void flushCache() {
     for (Map.Entry<String, CacheConfiguration<BurstKey, ?>> cacheEntry : caches.entrySet()) {
+      EntityCache<?> entityCache = entityCaches.get(cacheEntry.getKey());
+      if (entityCache != null) {
+        entityCache.clear();
+        continue;
+      }
       Cache<?,?> cache = getEHCache(cacheEntry.getKey(), cacheEntry.getValue().getValueType());
       if ( cache != null )
         cache.clear();
@@ -0,0 +1,48 @@
+package brs.db.cache;
+
+import brs.db.BurstKey;
+import org.ehcache.Cache;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Committed entities shared by the readers outside of Db transactions.
+ * <p>
+ * Readers take the generation before going to the database and only keep what they loaded if
+ * no invalidation happened in between, so a row read just before a commit does not stay cached.
+ */
+public class EntityCache<V> {
+
+  private final Cache<BurstKey, V> cache;
+  private final AtomicLong generation = new AtomicLong();
+
+  EntityCache(Cache<BurstKey, V> cache) {
+    this.cache = cache;
+  }
+
+  public V get(BurstKey key) {
+    return cache.get(key);
+  }
+
+  public long getGeneration() {
+    return generation.get();
+  }
+
+  public void put(BurstKey key, V value, long loadedAtGeneration) {
+    cache.put(key, value);
+    if (generation.get() != loadedAtGeneration) {
+      cache.remove(key);
+    }
+  }
+
+  public void invalidate(Set<BurstKey> keys) {
+    generation.incrementAndGet();
+    cache.removeAll(keys);
+  }
+
+  public void clear() {
+    generation.incrementAndGet();
+    cache.clear();
+  }
+}
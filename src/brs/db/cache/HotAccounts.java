@@ -0,0 +1,88 @@
+package brs.db.cache;
+
+import brs.Account;
+import brs.db.BurstKey;
+import brs.util.Convert;
+import brs.util.ThreadPool;
+import org.ehcache.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * The ids of the accounts held by the account cache, saved on shutdown, one per line, so that the
+ * next start can load them again before they are asked for.
+ */
+public final class HotAccounts {
+
+  private static final Logger logger = LoggerFactory.getLogger(HotAccounts.class);
+
+  private static final int WARM_CHUNK = 1000;
+
+  private HotAccounts() {
+  }
+
+  public static void save(DBCacheManagerImpl dbCacheManager, String file) {
+    Path path = Paths.get(file);
+    Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+    int count = 0;
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(tmpPath, StandardCharsets.UTF_8)) {
+        for (Cache.Entry<BurstKey, Account> entry : dbCacheManager.getCache("account", Account.class)) {
+          writer.write(Convert.toUnsignedLong(entry.getKey().getPKValues()[0]));
+          writer.newLine();
+          count++;
+        }
+      }
+      Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING);
+      logger.info("Saved {} hot account ids to {}", count, file);
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Could not save the hot account ids to {}", file, e);
+    }
+  }
+
+  /**
+   * Passes the saved ids to the loader, a chunk at a time, until the node shuts down.
+   */
+  public static void warm(String file, Consumer<long[]> loader) {
+    Path path = Paths.get(file);
+    if (!Files.isRegularFile(path)) {
+      return;
+    }
+    long start = System.currentTimeMillis();
+    int count = 0;
+    long[] ids = new long[WARM_CHUNK];
+    int chunkSize = 0;
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null && ThreadPool.running.get()) {
+        if (line.isEmpty()) {
+          continue;
+        }
+        ids[chunkSize++] = Convert.parseUnsignedLong(line);
+        if (chunkSize == WARM_CHUNK) {
+          loader.accept(ids);
+          count += chunkSize;
+          chunkSize = 0;
+        }
+      }
+      if (chunkSize > 0 && ThreadPool.running.get()) {
+        loader.accept(Arrays.copyOf(ids, chunkSize));
+        count += chunkSize;
+      }
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Could not read the hot account ids from {}", file, e);
+    }
+    logger.info("Warmed the caches with {} hot accounts in {} ms", count, System.currentTimeMillis() - start);
+  }
+}
@@ -22,7 +22,15 @@ class StatisticsCache<K, V> implements Cache<K, V> {
 
   @Override
   public V get(K k) {
-    return wrappedCache.get(k);
+    final V result = wrappedCache.get(k);
+
+    if(result != null) {
+      statisticsManager.foundObjectInCache(cacheName);
+    } else {
+      statisticsManager.didNotFindObjectInCache(cacheName);
+    }
+
+    return result;
   }
 
   @Override
@@ -30,17 +38,10 @@ class StatisticsCache<K, V> implements Cache<K, V> {
     wrappedCache.put(k, v);
   }
 
+  // only get() counts a lookup, so a containsKey() followed by a get() is not counted twice
   @Override
   public boolean containsKey(K k) {
-    final boolean result = wrappedCache.containsKey(k);
-
-    if(result) {
-      statisticsManager.foundObjectInCache(cacheName);
-    } else {
-      statisticsManager.didNotFindObjectInCache(cacheName);
-    }
-
-    return result;
+    return wrappedCache.containsKey(k);
   }
 
   @Override
@@ -0,0 +1,230 @@
+package brs.db.sql;
+
+import brs.Account;
+import brs.Burst;
+import brs.db.BurstKey;
+import brs.db.cache.DBCacheManagerImpl;
+import brs.db.store.DerivedTableManager;
+import org.jooq.Cursor;
+import org.jooq.DSLContext;
+import org.jooq.Query;
+import org.jooq.Record;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static brs.schema.Tables.ACCOUNT_BALANCE;
+
+/**
+ * The account_balance table, optionally with all the latest balances held in a {@link BalanceLedger}.
+ * <p>
+ * With the ledger, a balance is read from the batch of the current transaction, then from what the transaction
+ * already wrote, then from the ledger, and never from the database. The rows are still written with every block,
+ * the ledger takes them once the transaction is committed. Until the ledger is loaded, after the first commit,
+ * the table works as without it.
+ */
+final class AccountBalanceSqlTable extends VersionedBatchEntitySqlTable<Account.Balance> {
+
+  private static final Logger logger = LoggerFactory.getLogger(AccountBalanceSqlTable.class);
+
+  private static final int FETCH_SIZE = 10_000;
+  private static final int RELOAD_CHUNK_SIZE = 1000;
+  // marks the accounts whose rows were all rolled back, in the written balances of a transaction
+  private static final Object REMOVED = new Object();
+
+  private final DbKey.LongKeyFactory<Account.Balance> keyFactory;
+  private final BalanceLedger ledger;
+  private final String writtenName;
+  private final Runnable applyWritten = this::applyWritten;
+  private final Runnable loadAfterCommit = this::loadLedger;
+
+  AccountBalanceSqlTable(DbKey.LongKeyFactory<Account.Balance> keyFactory, DerivedTableManager derivedTableManager,
+                         DBCacheManagerImpl dbCacheManager, boolean inMemory) {
+    super("account_balance", ACCOUNT_BALANCE, keyFactory, derivedTableManager, dbCacheManager, Account.Balance.class);
+    this.keyFactory = keyFactory;
+    this.ledger = inMemory ? new BalanceLedger() : null;
+    this.writtenName = table + ".written";
+  }
+
+  @Override
+  protected Account.Balance load(DSLContext ctx, Record record) {
+    Account.Balance balance = new Account.Balance(record.get(ACCOUNT_BALANCE.ID));
+    balance.setBalanceNQT(record.get(ACCOUNT_BALANCE.BALANCE));
+    balance.setUnconfirmedBalanceNQT(record.get(ACCOUNT_BALANCE.UNCONFIRMED_BALANCE));
+    balance.setForgedBalanceNQT(record.get(ACCOUNT_BALANCE.FORGED_BALANCE));
+    return balance;
+  }
+
+  @Override
+  protected void bulkInsert(DSLContext ctx, Collection<Account.Balance> accounts) {
+    List<Query> accountQueries = new ArrayList<>();
+    int height = Burst.getBlockchain().getHeight();
+    for (Account.Balance account: accounts) {
+      if (account == null) continue;
+      accountQueries.add(
+          ctx.insertInto(
+            ACCOUNT_BALANCE, ACCOUNT_BALANCE.ID, ACCOUNT_BALANCE.HEIGHT,
+              ACCOUNT_BALANCE.BALANCE, ACCOUNT_BALANCE.UNCONFIRMED_BALANCE, ACCOUNT_BALANCE.FORGED_BALANCE, ACCOUNT_BALANCE.LATEST)
+          .values(account.getId(), height,
+              account.getBalanceNQT(), account.getUnconfirmedBalanceNQT(), account.getForgedBalanceNQT(), true)
+          );
+    }
+    ctx.batch(accountQueries).execute();
+  }
+
+  @Override
+  public Account.Balance get(BurstKey dbKey) {
+    if (!isLedgerUsable()) {
+      return super.get(dbKey);
+    }
+    if (Db.isInTransaction()) {
+      Account.Balance balance = getBatch().get(dbKey);
+      if (balance != null) {
+        return balance;
+      }
+      Object written = getWritten().get(dbKey);
+      if (written != null) {
+        return written == REMOVED ? null : (Account.Balance) written;
+      }
+    }
+    return ledger.get(((DbKey.LongKey) dbKey).getId());
+  }
+
+  @Override
+  public void insert(Account.Balance balance) {
+    if (!isLedgerUsable()) {
+      super.insert(balance);
+      return;
+    }
+    if (!Db.isInTransaction()) {
+      throw new IllegalStateException("Not in transaction");
+    }
+    // the shared cache is left alone, the ledger takes the balance on commit
+    getBatch().put(dbKeyFactory.newKey(balance), balance);
+  }
+
+  @Override
+  public void finish() {
+    if (!isLedgerUsable()) {
+      super.finish();
+      return;
+    }
+    Map<BurstKey, Account.Balance> batch = getBatch();
+    if (batch.isEmpty()) {
+      return;
+    }
+    getWritten().putAll(batch);
+    Db.runAfterCommit(applyWritten);
+    super.finish();
+  }
+
+  @Override
+  public void rollback(int height) {
+    if (!isLedgerUsable()) {
+      super.rollback(height);
+      return;
+    }
+    List<Long> ids = Db.useDSLContext(ctx -> {
+      return ctx.selectDistinct(ACCOUNT_BALANCE.ID).from(ACCOUNT_BALANCE)
+          .where(ACCOUNT_BALANCE.HEIGHT.gt(height))
+          .fetch(ACCOUNT_BALANCE.ID);
+    });
+    super.rollback(height);
+    if (ids.isEmpty()) {
+      return;
+    }
+
+    // the balances of the accounts touched above the height are those of their remaining latest rows
+    Map<BurstKey, Object> written = getWritten();
+    for (Long id : ids) {
+      written.put(keyFactory.newKey(id), REMOVED);
+    }
+    Db.useDSLContext(ctx -> {
+      for (int i = 0; i < ids.size(); i += RELOAD_CHUNK_SIZE) {
+        List<Long> chunk = ids.subList(i, Math.min(i + RELOAD_CHUNK_SIZE, ids.size()));
+        for (Record record : ctx.selectFrom(ACCOUNT_BALANCE)
+            .where(ACCOUNT_BALANCE.ID.in(chunk)).and(ACCOUNT_BALANCE.LATEST.isTrue())
+            .fetch()) {
+          Account.Balance balance = load(ctx, record);
+          written.put(balance.nxtKey, balance);
+        }
+      }
+    });
+    Db.runAfterCommit(applyWritten);
+  }
+
+  @Override
+  public void truncate() {
+    super.truncate();
+    if (ledger != null && ledger.isLoaded()) {
+      synchronized (ledger) {
+        ledger.setLoaded(false);
+        // not kept up to date while the ledger was in use
+        flushCache();
+      }
+    }
+  }
+
+  private DbKeyMap<Object> getWritten() {
+    return Db.getCache(writtenName);
+  }
+
+  /**
+   * The ledger is loaded after the commit of the first transaction using the table, when the database holds
+   * only committed rows, and from the main pool, as reads outside of transactions may go to the read pool.
+   */
+  private boolean isLedgerUsable() {
+    if (ledger == null) {
+      return false;
+    }
+    if (ledger.isLoaded()) {
+      return true;
+    }
+    if (Db.isInTransaction()) {
+      Db.runAfterCommit(loadAfterCommit);
+    }
+    return false;
+  }
+
+  private void loadLedger() {
+    synchronized (ledger) {
+      if (ledger.isLoaded()) {
+        return;
+      }
+      long start = System.currentTimeMillis();
+      try (Cursor<? extends Record> cursor = Db.useDSLContext(ctx -> {
+        return ctx.selectFrom(ACCOUNT_BALANCE).where(ACCOUNT_BALANCE.LATEST.isTrue()).fetchSize(FETCH_SIZE).fetchLazy();
+      })) {
+        for (Record record : cursor) {
+          ledger.put(record.get(ACCOUNT_BALANCE.ID), record.get(ACCOUNT_BALANCE.BALANCE),
+              record.get(ACCOUNT_BALANCE.UNCONFIRMED_BALANCE), record.get(ACCOUNT_BALANCE.FORGED_BALANCE));
+        }
+      }
+      ledger.setLoaded(true);
+      logger.info("Loaded the balances of {} accounts in memory in {} ms", ledger.size(), System.currentTimeMillis() - start);
+    }
+  }
+
+  private void applyWritten() {
+    synchronized (ledger) {
+      if (!ledger.isLoaded()) {
+        return;
+      }
+      DbKeyMap<Object> written = getWritten();
+      for (Map.Entry<BurstKey, Object> entry : written.entrySet()) {
+        long id = ((DbKey.LongKey) entry.getKey()).getId();
+        if (entry.getValue() == REMOVED) {
+          ledger.remove(id);
+        }
+        else {
+          Account.Balance balance = (Account.Balance) entry.getValue();
+          ledger.put(id, balance.getBalanceNQT(), balance.getUnconfirmedBalanceNQT(), balance.getForgedBalanceNQT());
+        }
+      }
+    }
+  }
+}
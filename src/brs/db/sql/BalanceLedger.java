@@ -0,0 +1,148 @@
+package brs.db.sql;
+
+import brs.Account;
+
+/**
+ * The latest committed balances of all accounts, in open addressing arrays of longs.
+ * <p>
+ * About 40 bytes per account, so that the whole account_balance table can be held in memory and
+ * a balance lookup never reaches the database.
+ */
+final class BalanceLedger {
+
+  private static final int MIN_CAPACITY = 1024;
+
+  private long[] ids;
+  private long[] balances;
+  private long[] unconfirmedBalances;
+  private long[] forgedBalances;
+  private boolean[] used;
+  private int mask;
+  private int size;
+  private boolean loaded;
+
+  BalanceLedger() {
+    allocate(MIN_CAPACITY);
+  }
+
+  synchronized boolean isLoaded() {
+    return loaded;
+  }
+
+  synchronized void setLoaded(boolean loaded) {
+    this.loaded = loaded;
+    if (!loaded) {
+      allocate(MIN_CAPACITY);
+      size = 0;
+    }
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  /**
+   * @return a copy of the balances of the account, null if it has none
+   */
+  synchronized Account.Balance get(long id) {
+    int index = indexOf(id);
+    if (index < 0) {
+      return null;
+    }
+    Account.Balance balance = new Account.Balance(id);
+    balance.setBalanceNQT(balances[index]);
+    balance.setUnconfirmedBalanceNQT(unconfirmedBalances[index]);
+    balance.setForgedBalanceNQT(forgedBalances[index]);
+    return balance;
+  }
+
+  synchronized void put(long id, long balance, long unconfirmedBalance, long forgedBalance) {
+    int index = hash(id) & mask;
+    while (used[index] && ids[index] != id) {
+      index = (index + 1) & mask;
+    }
+    if (!used[index]) {
+      used[index] = true;
+      ids[index] = id;
+      size++;
+    }
+    balances[index] = balance;
+    unconfirmedBalances[index] = unconfirmedBalance;
+    forgedBalances[index] = forgedBalance;
+    if (size * 4 > used.length * 3) {
+      rehash(used.length * 2);
+    }
+  }
+
+  synchronized void remove(long id) {
+    int index = indexOf(id);
+    if (index < 0) {
+      return;
+    }
+    // shifts the following entries back, so that no lookup stops at the freed slot before reaching them
+    int next = index;
+    while (true) {
+      next = (next + 1) & mask;
+      if (!used[next]) {
+        break;
+      }
+      int home = hash(ids[next]) & mask;
+      if (((next - home) & mask) >= ((next - index) & mask)) {
+        ids[index] = ids[next];
+        balances[index] = balances[next];
+        unconfirmedBalances[index] = unconfirmedBalances[next];
+        forgedBalances[index] = forgedBalances[next];
+        index = next;
+      }
+    }
+    used[index] = false;
+    size--;
+  }
+
+  private int indexOf(long id) {
+    int index = hash(id) & mask;
+    while (used[index]) {
+      if (ids[index] == id) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldIds = ids;
+    long[] oldBalances = balances;
+    long[] oldUnconfirmedBalances = unconfirmedBalances;
+    long[] oldForgedBalances = forgedBalances;
+    boolean[] oldUsed = used;
+    allocate(capacity);
+    for (int i = 0; i < oldUsed.length; i++) {
+      if (oldUsed[i]) {
+        int index = hash(oldIds[i]) & mask;
+        while (used[index]) {
+          index = (index + 1) & mask;
+        }
+        used[index] = true;
+        ids[index] = oldIds[i];
+        balances[index] = oldBalances[i];
+        unconfirmedBalances[index] = oldUnconfirmedBalances[i];
+        forgedBalances[index] = oldForgedBalances[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    ids = new long[capacity];
+    balances = new long[capacity];
+    unconfirmedBalances = new long[capacity];
+    forgedBalances = new long[capacity];
+    used = new boolean[capacity];
+    mask = capacity - 1;
+  }
+
+  static int hash(long id) {
+    long h = id * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+}
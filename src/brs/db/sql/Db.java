@@ -1,8 +1,8 @@
 package brs.db.sql;
 
 import brs.Burst;
-import brs.db.BurstKey;
 import brs.db.cache.DBCacheManagerImpl;
+import brs.db.cache.EntityCache;
 import brs.db.store.Dbs;
 import brs.props.PropertyService;
 import brs.props.Props;
@@ -21,13 +21,20 @@ import org.mariadb.jdbc.UrlParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -36,15 +43,25 @@ public final class Db {
   private static final Logger logger = LoggerFactory.getLogger(Db.class);
 
   private static HikariDataSource cp;
+  // the optional pool of the API and peer reads, so that they do not hold up the block import
+  private static HikariDataSource readCp;
   private static SQLDialect dialect;
   private static final ThreadLocal<Connection> localConnection = new ThreadLocal<>();
-  private static final ThreadLocal<Map<String, Map<BurstKey, Object>>> transactionCaches = new ThreadLocal<>();
-  private static final ThreadLocal<Map<String, Map<BurstKey, Object>>> transactionBatches = new ThreadLocal<>();
+  private static final ThreadLocal<Boolean> localReadOnly = new ThreadLocal<>();
+  private static final ThreadLocal<Integer> localReadHeight = new ThreadLocal<>();
+  private static final ThreadLocal<Boolean> localUncachedReads = new ThreadLocal<>();
+  // kept by the thread between transactions, cleared at the end of each
+  private static final ThreadLocal<Map<String, DbKeyMap<?>>> transactionCaches = ThreadLocal.withInitial(HashMap::new);
+  private static final ThreadLocal<Map<String, DbKeyMap<?>>> transactionBatches = ThreadLocal.withInitial(HashMap::new);
+  private static final ThreadLocal<Map<String, Runnable>> transactionFlushes = new ThreadLocal<>();
+  private static final ThreadLocal<Set<Runnable>> transactionCommitListeners = new ThreadLocal<>();
 
   private static DBCacheManagerImpl dbCacheManager;
 
   private static Flyway flyway;
 
+  private static SqlProfiler sqlProfiler;
+
   public static void init(PropertyService propertyService, DBCacheManagerImpl dbCacheManager) {
     Db.dbCacheManager = dbCacheManager;
 
@@ -57,6 +74,11 @@ public final class Db {
     dbPassword = propertyService.getString(Props.DB_PASSWORD);
     dialect = JDBCUtils.dialect(dbUrl);
 
+    if (propertyService.getBoolean(Props.DB_SQL_PROFILER)) {
+      sqlProfiler = new SqlProfiler();
+      logger.info("Profiling the SQL statements, see the getSqlStatistics API call");
+    }
+
     logger.debug("Database jdbc url set to: {}", dbUrl);
     try {
       HikariConfig config = new HikariConfig();
@@ -67,6 +89,7 @@ public final class Db {
         config.setPassword(dbPassword);
 
       config.setMaximumPoolSize(propertyService.getInt(Props.DB_CONNECTIONS));
+      config.setPoolName("main");
 
       FluentConfiguration flywayBuilder = Flyway.configure()
               .dataSource(dbUrl, dbUsername, dbPassword)
@@ -129,9 +152,36 @@ public final class Db {
       flywayBuilder.locations(location, locationDialect);
       cp = new HikariDataSource(config);
 
-      logger.info("Running flyway migration");
+      int readConnections = propertyService.getInt(Props.DB_READ_CONNECTIONS);
+      if (readConnections > 0) {
+        HikariConfig readConfig = new HikariConfig();
+        config.copyStateTo(readConfig);
+        readConfig.setDataSourceProperties(config.getDataSourceProperties());
+        String readUrl = propertyService.getString(Props.DB_READ_URL);
+        if (!readUrl.isEmpty()) {
+          readConfig.setJdbcUrl(readUrl);
+          readConfig.setUsername(propertyService.getString(Props.DB_READ_USERNAME));
+          readConfig.setPassword(propertyService.getString(Props.DB_READ_PASSWORD));
+        }
+        readConfig.setMaximumPoolSize(readConnections);
+        readConfig.setConnectionTimeout(propertyService.getInt(Props.DB_READ_CONNECTION_TIMEOUT_MS));
+        readConfig.setReadOnly(true);
+        readConfig.setPoolName("read");
+        readCp = new HikariDataSource(readConfig);
+        logger.info("Using a read pool of {} connections to {}", readConnections, readConfig.getJdbcUrl());
+      }
+
       flyway = flywayBuilder.load();
-      flyway.migrate();
+      // info resolves the migrations on the classpath with their checksums, as migrate does,
+      // but without locking the schema history, validate still fails on a changed checksum or a failed migration
+      if (flyway.info().pending().length == 0) {
+        flyway.validate();
+        logger.info("No pending flyway migration, database schema is up to date");
+      }
+      else {
+        logger.info("Running flyway migration");
+        flyway.migrate();
+      }
     } catch (Exception e) {
       throw new RuntimeException(e.toString(), e);
     }
@@ -149,6 +199,13 @@ public final class Db {
   private Db() {
   } // never
 
+  /**
+   * @return the profiler of the SQL statements, null unless DB.sqlProfiler is set
+   */
+  public static SqlProfiler getSqlProfiler() {
+    return sqlProfiler;
+  }
+
   public static Dbs getDbsByDatabaseType() {
     logger.info("Using SQL Backend with Dialect {}", dialect.getName());
     return new SqlDbs();
@@ -167,6 +224,9 @@ public final class Db {
   }
 
   public static void shutdown() {
+    if (readCp != null && !readCp.isClosed()) {
+      readCp.close();
+    }
     if (cp == null || cp.isClosed() ) {
       return;
     }
@@ -213,7 +273,72 @@ public final class Db {
   }
 
   private static Connection getPooledConnection() throws SQLException {
-      return cp.getConnection();
+      return getPool().getConnection();
+  }
+
+  private static HikariDataSource getPool() {
+    return readCp != null && localReadOnly.get() != null ? readCp : cp;
+  }
+
+  /**
+   * Sends the reads of this thread outside of transactions to the read pool, if there is one,
+   * until {@link #endReadOnly()}. Transactions always use the main pool.
+   */
+  public static void beginReadOnly() {
+    if (readCp != null) {
+      localReadOnly.set(Boolean.TRUE);
+    }
+  }
+
+  public static void endReadOnly() {
+    localReadOnly.remove();
+  }
+
+  /**
+   * Keeps what this thread loads outside of transactions out of the caches shared with the block processing,
+   * until {@link #endUncachedReads()}. For the threads working ahead of the import, whose instances may be
+   * older than those the import thread just cached.
+   */
+  public static void beginUncachedReads() {
+    localUncachedReads.set(Boolean.TRUE);
+  }
+
+  public static void endUncachedReads() {
+    localUncachedReads.remove();
+  }
+
+  /**
+   * @return true if what this thread loads must not be put in the caches shared with the block processing,
+   * because its reads go to the read pool, which may lag behind the main database, or it asked for uncached reads
+   */
+  static boolean isBypassingSharedCaches() {
+    return !isInTransaction() && (localReadOnly.get() != null || localUncachedReads.get() != null);
+  }
+
+  /**
+   * Pins the reads of this thread outside of transactions to the state as of the given height,
+   * until {@link #endReadAtHeight()}, so that the pages of a list do not shift when blocks are pushed.
+   */
+  public static void beginReadAtHeight(int height) {
+    localReadHeight.set(height);
+  }
+
+  public static void endReadAtHeight() {
+    localReadHeight.remove();
+  }
+
+  /**
+   * @return the height the reads of this thread are pinned to, null if they read the latest state
+   */
+  public static Integer getReadHeight() {
+    return isInTransaction() ? null : localReadHeight.get();
+  }
+
+  /**
+   * @return the main pool, then the read pool if there is one
+   */
+  public static List<HikariDataSource> getPools() {
+    return readCp != null ? Arrays.asList(cp, readCp) : Collections.singletonList(cp);
   }
 
   public static Connection getConnection() throws SQLException {
@@ -241,29 +366,99 @@ public final class Db {
     Settings settings = new Settings();
     settings.setRenderSchema(Boolean.FALSE);
 
+    DSLContext ctx;
     if (con == null) {
-      return DSL.using(cp, dialect, settings);
+      ctx = DSL.using(getPool(), dialect, settings);
     }
     else {
       settings.setStatementType(StatementType.STATIC_STATEMENT);
-      return DSL.using(con, dialect, settings);
+      ctx = DSL.using(con, dialect, settings);
+    }
+    return sqlProfiler != null ? DSL.using(ctx.configuration().derive(sqlProfiler.getProvider())) : ctx;
+  }
+
+  /**
+   * Runs the function in a repeatable read transaction of its own on the main pool, for the long readers that
+   * must see a single state of the database while blocks are pushed and popped. Nothing is written.
+   */
+  static <T> T useSnapshotDSLContext(SnapshotFunction<T> function) throws IOException {
+    try (Connection con = cp.getConnection()) {
+      con.setAutoCommit(false);
+      con.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+      try {
+        Settings settings = new Settings();
+        settings.setRenderSchema(Boolean.FALSE);
+        return function.apply(DSL.using(con, dialect, settings));
+      } finally {
+        con.rollback();
+      }
+    } catch (SQLException e) {
+      throw new IOException(e.toString(), e);
     }
   }
 
-  static <V> Map<BurstKey, V> getCache(String tableName) {
+  @FunctionalInterface
+  interface SnapshotFunction<T> {
+    T apply(DSLContext ctx) throws IOException;
+  }
+
+  static <V> DbKeyMap<V> getCache(String tableName) {
     if (!isInTransaction()) {
       throw new IllegalStateException("Not in transaction");
     }
     //noinspection unchecked
-    return (Map<BurstKey, V>) transactionCaches.get().computeIfAbsent(tableName, k -> new HashMap<>());
+    return (DbKeyMap<V>) getTableMap(transactionCaches.get(), tableName);
   }
 
-  static <V> Map<BurstKey, V> getBatch(String tableName) {
+  static <V> DbKeyMap<V> getBatch(String tableName) {
     if (!isInTransaction()) {
       throw new IllegalStateException("Not in transaction");
     }
     //noinspection unchecked
-    return (Map<BurstKey, V>) transactionBatches.get().computeIfAbsent(tableName, k -> new HashMap<>());
+    return (DbKeyMap<V>) getTableMap(transactionBatches.get(), tableName);
+  }
+
+  private static DbKeyMap<?> getTableMap(Map<String, DbKeyMap<?>> tableMaps, String tableName) {
+    DbKeyMap<?> tableMap = tableMaps.get(tableName);
+    if (tableMap == null) {
+      tableMap = new DbKeyMap<>();
+      tableMaps.put(tableName, tableMap);
+    }
+    return tableMap;
+  }
+
+  private static void clearTableMaps(ThreadLocal<Map<String, DbKeyMap<?>>> tableMaps) {
+    for (DbKeyMap<?> tableMap : tableMaps.get().values()) {
+      tableMap.clear();
+    }
+  }
+
+  /**
+   * Registers the write of a table's pending batch, run every time the current transaction is committed.
+   */
+  static void flushOnCommit(String tableName, Runnable flush) {
+    if (!isInTransaction()) {
+      throw new IllegalStateException("Not in transaction");
+    }
+    transactionFlushes.get().putIfAbsent(tableName, flush);
+  }
+
+  /**
+   * Registers something to run once the current transaction is committed, at most once per commit.
+   */
+  static void runAfterCommit(Runnable listener) {
+    if (!isInTransaction()) {
+      throw new IllegalStateException("Not in transaction");
+    }
+    transactionCommitListeners.get().add(listener);
+  }
+
+  static <V> EntityCache<V> getEntityCache(String tableName) {
+    return dbCacheManager != null ? dbCacheManager.getEntityCache(tableName) : null;
+  }
+
+  public static DBCacheManagerImpl getDbCacheManager() {
+    return dbCacheManager;
   }
 
   public static boolean isInTransaction() {
@@ -279,8 +474,8 @@ public final class Db {
       con.setAutoCommit(false);
 
       localConnection.set(con);
-      transactionCaches.set(new HashMap<>());
-      transactionBatches.set(new HashMap<>());
+      transactionFlushes.set(new LinkedHashMap<>());
+      transactionCommitListeners.set(new LinkedHashSet<>());
 
       return con;
     }
@@ -294,11 +489,15 @@ public final class Db {
     if (con == null) {
       throw new IllegalStateException("Not in transaction");
     }
+    transactionFlushes.get().values().forEach(Runnable::run);
     try {
       con.commit();
     } catch (SQLException e) {
         throw new RuntimeException(e.toString(), e);
     }
+    Set<Runnable> commitListeners = transactionCommitListeners.get();
+    commitListeners.forEach(Runnable::run);
+    commitListeners.clear();
   }
 
   public static void rollbackTransaction() {
@@ -312,8 +511,10 @@ public final class Db {
     catch (SQLException e) {
       throw new RuntimeException(e.toString(), e);
     }
-    transactionCaches.get().clear();
-    transactionBatches.get().clear();
+    clearTableMaps(transactionCaches);
+    clearTableMaps(transactionBatches);
+    transactionFlushes.get().clear();
+    transactionCommitListeners.get().clear();
     dbCacheManager.flushCache();
   }
 
@@ -323,10 +524,10 @@ public final class Db {
       throw new IllegalStateException("Not in transaction");
     }
     localConnection.set(null);
-    transactionCaches.get().clear();
-    transactionCaches.set(null);
-    transactionBatches.get().clear();
-    transactionBatches.set(null);
+    clearTableMaps(transactionCaches);
+    clearTableMaps(transactionBatches);
+    transactionFlushes.set(null);
+    transactionCommitListeners.set(null);
     DbUtils.close(con);
   }
 
@@ -176,6 +176,10 @@ public interface DbKey extends BurstKey {
         return new long[]{id};
     }
 
+    long getId() {
+      return id;
+    }
+
     @Override
     public boolean equals(Object o) {
       return o instanceof LongKey && ((LongKey) o).id == id;
@@ -214,6 +218,14 @@ public interface DbKey extends BurstKey {
         return new long[]{idA, idB};
     }
 
+    long getIdA() {
+      return idA;
+    }
+
+    long getIdB() {
+      return idB;
+    }
+
     @Override
     public boolean equals(Object o) {
       return o instanceof LinkKey && ((LinkKey) o).idA == idA && ((LinkKey) o).idB == idB;
@@ -256,6 +268,18 @@ public interface DbKey extends BurstKey {
         return new long[]{idA, idB, idC};
     }
 
+    long getIdA() {
+      return idA;
+    }
+
+    long getIdB() {
+      return idB;
+    }
+
+    long getIdC() {
+      return idC;
+    }
+
     @Override
     public boolean equals(Object o) {
       return o instanceof LinkKey3 && ((LinkKey3) o).idA == idA && ((LinkKey3) o).idB == idB && ((LinkKey3) o).idC == idC;
@@ -0,0 +1,310 @@
+package brs.db.sql;
+
+import brs.db.BurstKey;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The entities of a table by key, for the caches and batches of a database transaction.
+ * <p>
+ * The keys are hashed and compared by their ids, kept in open addressing arrays of longs, so that a lookup
+ * allocates nothing and a put allocates only when the arrays grow.
+ * {@link #clear()} keeps the arrays, so that the next transaction of the thread starts with them.
+ */
+final class DbKeyMap<V> extends AbstractMap<BurstKey, V> {
+
+  private static final int MIN_CAPACITY = 16;
+  // larger arrays are dropped by clear(), a transaction rarely needs them
+  private static final int MAX_RETAINED_CAPACITY = 4096;
+
+  private long[] idsA;
+  private long[] idsB;
+  private long[] idsC;
+  private BurstKey[] keys;
+  private Object[] values;
+  private int mask;
+  private int size;
+
+  DbKeyMap() {
+    allocate(MIN_CAPACITY);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return key instanceof BurstKey && indexOf((BurstKey) key) >= 0;
+  }
+
+  @Override
+  public V get(Object key) {
+    return key instanceof BurstKey ? valueAt(indexOf((BurstKey) key)) : null;
+  }
+
+  @Override
+  public V put(BurstKey key, V value) {
+    long idA;
+    long idB = 0L;
+    long idC = 0L;
+    if (key instanceof DbKey.LongKey) {
+      idA = ((DbKey.LongKey) key).getId();
+    }
+    else if (key instanceof DbKey.LinkKey) {
+      idA = ((DbKey.LinkKey) key).getIdA();
+      idB = ((DbKey.LinkKey) key).getIdB();
+    }
+    else if (key instanceof DbKey.LinkKey3) {
+      idA = ((DbKey.LinkKey3) key).getIdA();
+      idB = ((DbKey.LinkKey3) key).getIdB();
+      idC = ((DbKey.LinkKey3) key).getIdC();
+    }
+    else {
+      long[] ids = key.getPKValues();
+      idA = ids[0];
+      idB = ids.length > 1 ? ids[1] : 0L;
+      idC = ids.length > 2 ? ids[2] : 0L;
+    }
+
+    int index = hash(idA, idB, idC) & mask;
+    while (keys[index] != null) {
+      if (idsA[index] == idA && idsB[index] == idB && idsC[index] == idC) {
+        V previous = valueAt(index);
+        keys[index] = key;
+        values[index] = value;
+        return previous;
+      }
+      index = (index + 1) & mask;
+    }
+    idsA[index] = idA;
+    idsB[index] = idB;
+    idsC[index] = idC;
+    keys[index] = key;
+    values[index] = value;
+    if (++size * 2 > keys.length) {
+      rehash(keys.length * 2);
+    }
+    return null;
+  }
+
+  @Override
+  public V remove(Object key) {
+    if (!(key instanceof BurstKey)) {
+      return null;
+    }
+    int index = indexOf((BurstKey) key);
+    if (index < 0) {
+      return null;
+    }
+    V previous = valueAt(index);
+    removeAt(index);
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    if (keys.length > MAX_RETAINED_CAPACITY) {
+      allocate(MIN_CAPACITY);
+    }
+    else if (size > 0) {
+      Arrays.fill(keys, null);
+      Arrays.fill(values, null);
+    }
+    size = 0;
+  }
+
+  @Override
+  public Set<BurstKey> keySet() {
+    return new AbstractSet<BurstKey>() {
+      @Override
+      public Iterator<BurstKey> iterator() {
+        return new SlotIterator<BurstKey>() {
+          @Override
+          BurstKey at(int index) {
+            return keys[index];
+          }
+        };
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return containsKey(o);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  @Override
+  public Collection<V> values() {
+    return new AbstractCollection<V>() {
+      @Override
+      public Iterator<V> iterator() {
+        return new SlotIterator<V>() {
+          @Override
+          V at(int index) {
+            return valueAt(index);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  @Override
+  public Set<Entry<BurstKey, V>> entrySet() {
+    return new AbstractSet<Entry<BurstKey, V>>() {
+      @Override
+      public Iterator<Entry<BurstKey, V>> iterator() {
+        return new SlotIterator<Entry<BurstKey, V>>() {
+          @Override
+          Entry<BurstKey, V> at(int index) {
+            return new SimpleImmutableEntry<>(keys[index], valueAt(index));
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  private int indexOf(BurstKey key) {
+    if (key instanceof DbKey.LongKey) {
+      return indexOf(((DbKey.LongKey) key).getId(), 0L, 0L);
+    }
+    if (key instanceof DbKey.LinkKey) {
+      return indexOf(((DbKey.LinkKey) key).getIdA(), ((DbKey.LinkKey) key).getIdB(), 0L);
+    }
+    if (key instanceof DbKey.LinkKey3) {
+      return indexOf(((DbKey.LinkKey3) key).getIdA(), ((DbKey.LinkKey3) key).getIdB(), ((DbKey.LinkKey3) key).getIdC());
+    }
+    long[] ids = key.getPKValues();
+    return indexOf(ids[0], ids.length > 1 ? ids[1] : 0L, ids.length > 2 ? ids[2] : 0L);
+  }
+
+  private int indexOf(long idA, long idB, long idC) {
+    int index = hash(idA, idB, idC) & mask;
+    while (keys[index] != null) {
+      if (idsA[index] == idA && idsB[index] == idB && idsC[index] == idC) {
+        return index;
+      }
+      index = (index + 1) & mask;
+    }
+    return -1;
+  }
+
+  @SuppressWarnings("unchecked")
+  private V valueAt(int index) {
+    return index < 0 ? null : (V) values[index];
+  }
+
+  // shifts the following entries back, so that no lookup stops at the freed slot before reaching them
+  private void removeAt(int index) {
+    int next = index;
+    while (true) {
+      next = (next + 1) & mask;
+      if (keys[next] == null) {
+        break;
+      }
+      int home = hash(idsA[next], idsB[next], idsC[next]) & mask;
+      if (((next - home) & mask) >= ((next - index) & mask)) {
+        idsA[index] = idsA[next];
+        idsB[index] = idsB[next];
+        idsC[index] = idsC[next];
+        keys[index] = keys[next];
+        values[index] = values[next];
+        index = next;
+      }
+    }
+    keys[index] = null;
+    values[index] = null;
+    size--;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldIdsA = idsA;
+    long[] oldIdsB = idsB;
+    long[] oldIdsC = idsC;
+    BurstKey[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(capacity);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != null) {
+        int index = hash(oldIdsA[i], oldIdsB[i], oldIdsC[i]) & mask;
+        while (keys[index] != null) {
+          index = (index + 1) & mask;
+        }
+        idsA[index] = oldIdsA[i];
+        idsB[index] = oldIdsB[i];
+        idsC[index] = oldIdsC[i];
+        keys[index] = oldKeys[i];
+        values[index] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    idsA = new long[capacity];
+    idsB = new long[capacity];
+    idsC = new long[capacity];
+    keys = new BurstKey[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+  }
+
+  static int hash(long idA, long idB, long idC) {
+    // ids are mostly random already, the multiplications spread the link keys with small ids
+    long h = (idA * 0x9E3779B97F4A7C15L + idB) * 0x9E3779B97F4A7C15L + idC;
+    h *= 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private abstract class SlotIterator<E> implements Iterator<E> {
+
+    private int index = nextSlot(0);
+
+    abstract E at(int index);
+
+    @Override
+    public boolean hasNext() {
+      return index < keys.length;
+    }
+
+    @Override
+    public E next() {
+      if (index >= keys.length) {
+        throw new NoSuchElementException();
+      }
+      E element = at(index);
+      index = nextSlot(index + 1);
+      return element;
+    }
+
+    private int nextSlot(int from) {
+      int slot = from;
+      while (slot < keys.length && keys[slot] == null) {
+        slot++;
+      }
+      return slot;
+    }
+  }
+}
@@ -50,8 +50,9 @@ public abstract class DerivedSqlTable implements DerivedTable {
   }
 
   @Override
-  public void trim(int height) {
+  public int trim(int height, int fromHeight, int maxKeys) {
     //nothing to trim
+    return 0;
   }
 
   @Override
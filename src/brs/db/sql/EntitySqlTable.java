@@ -3,6 +3,7 @@ package brs.db.sql;
 import brs.Burst;
 import brs.db.BurstKey;
 import brs.db.EntityTable;
+import brs.db.cache.EntityCache;
 import brs.db.store.DerivedTableManager;
 import org.jooq.*;
 import org.jooq.impl.DSL;
@@ -10,8 +11,10 @@ import org.jooq.impl.TableImpl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public abstract class EntitySqlTable<T> extends DerivedSqlTable implements EntityTable<T> {
   final DbKey.Factory<T> dbKeyFactory;
@@ -21,6 +24,11 @@ public abstract class EntitySqlTable<T> extends DerivedSqlTable implements Entit
   final Field<Integer> heightField;
   final Field<Boolean> latestField;
 
+  private final EntityCache<T> sharedCache;
+  private final ThreadLocal<Set<BurstKey>> changedKeys = ThreadLocal.withInitial(HashSet::new);
+  private final Runnable invalidateChangedKeys = this::invalidateChangedKeys;
+  private final Runnable clearSharedCache = this::clearSharedCache;
+
   EntitySqlTable(String table, TableImpl<?> tableClass, BurstKey.Factory<T> dbKeyFactory, DerivedTableManager derivedTableManager) {
     this(table, tableClass, dbKeyFactory, false, derivedTableManager);
   }
@@ -38,6 +46,7 @@ public abstract class EntitySqlTable<T> extends DerivedSqlTable implements Entit
       }
     }
     defaultSort.add(heightField.desc());
+    this.sharedCache = Db.getEntityCache(table);
   }
 
   private Map<BurstKey, T> getCache() {
@@ -55,6 +64,12 @@ public abstract class EntitySqlTable<T> extends DerivedSqlTable implements Entit
     }
   }
 
+  /**
+   * Writes the rows a table holds back until the end of the transaction, called before reading from SQL.
+   */
+  void flushPendingWrites() {
+  }
+
   List<SortField<?>> defaultSort() {
     return defaultSort;
   }
@@ -75,7 +90,15 @@ public abstract class EntitySqlTable<T> extends DerivedSqlTable implements Entit
         return t;
       }
     }
-    return Db.useDSLContext(ctx -> {
+    long sharedCacheGeneration = 0;
+    if (sharedCache != null && !Db.isInTransaction()) {
+      T t = sharedCache.get(dbKey);
+      if (t != null) {
+        return t;
+      }
+      sharedCacheGeneration = sharedCache.getGeneration();
+    }
+    T t = Db.useDSLContext(ctx -> {
       SelectQuery<Record> query = ctx.selectQuery();
       query.addFrom(tableClass);
       query.addConditions(dbKey.getPKConditions(tableClass));
@@ -86,11 +109,18 @@ public abstract class EntitySqlTable<T> extends DerivedSqlTable implements Entit
 
       return get(ctx, query, true);
     });
+    // the instances read in a transaction may be changed by it, so only the others are shared,
+    // and not those of the read pool or of uncached reads, which may be older than what an invalidation already dropped
+    if (t != null && sharedCache != null && !Db.isInTransaction() && !Db.isBypassingSharedCaches()) {
+      sharedCache.put(dbKey, t, sharedCacheGeneration);
+    }
+    return t;
   }
 
   @Override
   public T get(BurstKey nxtKey, int height) {
     DbKey dbKey = (DbKey) nxtKey;
+    flushPendingWrites();
 
     return Db.useDSLContext(ctx -> {
       SelectQuery<Record> query = ctx.selectQuery();
@@ -106,6 +136,7 @@ public abstract class EntitySqlTable<T> extends DerivedSqlTable implements Entit
 
   @Override
   public T getBy(Condition condition) {
+    flushPendingWrites();
     return Db.useDSLContext(ctx -> {
       SelectQuery<Record> query = ctx.selectQuery();
       query.addFrom(tableClass);
@@ -122,6 +153,7 @@ public abstract class EntitySqlTable<T> extends DerivedSqlTable implements Entit
   @Override
   public T getBy(Condition condition, int height) {
     checkAvailable(height);
+    flushPendingWrites();
 
     return Db.useDSLContext(ctx -> {
       SelectQuery<Record> query = ctx.selectQuery();
@@ -172,6 +204,11 @@ public abstract class EntitySqlTable<T> extends DerivedSqlTable implements Entit
 
   @Override
   public Collection<T> getManyBy(Condition condition, int from, int to, List<SortField<?>> sort) {
+    Integer readHeight = Db.getReadHeight();
+    if (readHeight != null) {
+      return getManyBy(condition, readHeight, from, to, sort);
+    }
+    flushPendingWrites();
     return Db.useDSLContext(ctx -> {
       SelectQuery<Record> query = ctx.selectQuery();
       query.addFrom(tableClass);
@@ -193,6 +230,7 @@ public abstract class EntitySqlTable<T> extends DerivedSqlTable implements Entit
   @Override
   public Collection<T> getManyBy(Condition condition, int height, int from, int to, List<SortField<?>> sort) {
     checkAvailable(height);
+    flushPendingWrites();
     return Db.useDSLContext(ctx -> {
       SelectQuery<Record> query = ctx.selectQuery();
       query.addFrom(tableClass);
@@ -230,6 +268,7 @@ public abstract class EntitySqlTable<T> extends DerivedSqlTable implements Entit
 
   @Override
   public Collection<T> getManyBy(DSLContext ctx, SelectQuery<? extends Record> query, boolean cache) {
+    flushPendingWrites();
     final boolean doCache = cache && Db.isInTransaction();
     return query.fetch(record -> {
       T t = null;
@@ -255,6 +294,11 @@ public abstract class EntitySqlTable<T> extends DerivedSqlTable implements Entit
 
   @Override
   public Collection<T> getAll(int from, int to, List<SortField<?>> sort) {
+    Integer readHeight = Db.getReadHeight();
+    if (readHeight != null) {
+      return getAll(readHeight, from, to, sort);
+    }
+    flushPendingWrites();
     return Db.useDSLContext(ctx -> {
       SelectQuery<Record> query = ctx.selectQuery();
       query.addFrom(tableClass);
@@ -275,6 +319,7 @@ public abstract class EntitySqlTable<T> extends DerivedSqlTable implements Entit
   @Override
   public Collection<T> getAll(int height, int from, int to, List<SortField<?>> sort) {
     checkAvailable(height);
+    flushPendingWrites();
     return Db.useDSLContext(ctx -> {
       SelectQuery<Record> query = ctx.selectQuery();
       query.addFrom(tableClass);
@@ -303,13 +348,14 @@ public abstract class EntitySqlTable<T> extends DerivedSqlTable implements Entit
         );
       }
       query.addOrderBy(sort);
-      query.addLimit(from, to);
+      DbUtils.applyLimits(query, from, to);
       return getManyBy(ctx, query, true);
     });
   }
 
   @Override
   public int getCount() {
+    flushPendingWrites();
     return Db.useDSLContext(ctx -> {
       SelectJoinStep<?> r = ctx.selectCount().from(tableClass);
       return (multiversion ? r.where(latestField.isTrue()) : r).fetchOne(0, int.class);
@@ -318,6 +364,7 @@ public abstract class EntitySqlTable<T> extends DerivedSqlTable implements Entit
 
   @Override
   public int getRowCount() {
+    flushPendingWrites();
     return Db.useDSLContext(ctx -> {
       return ctx.selectCount().from(tableClass).fetchOne(0, int.class);
     });
@@ -329,13 +376,8 @@ public abstract class EntitySqlTable<T> extends DerivedSqlTable implements Entit
       throw new IllegalStateException("Not in transaction");
     }
     DbKey dbKey = (DbKey) dbKeyFactory.newKey(t);
-    T cachedT = getCache().get(dbKey);
-    if (cachedT == null) {
-      Db.getCache(table).put(dbKey, t);
-    } else if (t != cachedT) { // not a bug
-      throw new IllegalStateException("Different instance found in Db cache, perhaps trying to save an object "
-                                      + "that was read outside the current transaction");
-    }
+    putInCache(dbKey, t);
+    sharedCacheChanged(dbKey);
     Db.useDSLContext(ctx -> {
       if (multiversion) {
         UpdateQuery<?> query = ctx.updateQuery(tableClass);
@@ -351,15 +393,54 @@ public abstract class EntitySqlTable<T> extends DerivedSqlTable implements Entit
     });
   }
 
+  /**
+   * The readers outside of transactions keep getting the shared cached entity until the change is committed.
+   */
+  void sharedCacheChanged(BurstKey dbKey) {
+    if (sharedCache != null) {
+      changedKeys.get().add(dbKey);
+      Db.runAfterCommit(invalidateChangedKeys);
+    }
+  }
+
+  void sharedCacheCleared() {
+    if (sharedCache != null) {
+      Db.runAfterCommit(clearSharedCache);
+    }
+  }
+
+  private void invalidateChangedKeys() {
+    Set<BurstKey> keys = changedKeys.get();
+    sharedCache.invalidate(keys);
+    keys.clear();
+  }
+
+  private void clearSharedCache() {
+    changedKeys.get().clear();
+    sharedCache.clear();
+  }
+
+  void putInCache(DbKey dbKey, T t) {
+    T cachedT = getCache().get(dbKey);
+    if (cachedT == null) {
+      Db.getCache(table).put(dbKey, t);
+    } else if (t != cachedT) { // not a bug
+      throw new IllegalStateException("Different instance found in Db cache, perhaps trying to save an object "
+                                      + "that was read outside the current transaction");
+    }
+  }
+
   @Override
   public void rollback(int height) {
     super.rollback(height);
     Db.getCache(table).clear();
+    sharedCacheCleared();
   }
 
   @Override
   public void truncate() {
     super.truncate();
     Db.getCache(table).clear();
+    sharedCacheCleared();
   }
 }
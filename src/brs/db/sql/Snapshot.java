@@ -0,0 +1,366 @@
+package brs.db.sql;
+
+import brs.Constants;
+import brs.crypto.Crypto;
+import brs.db.DerivedTable;
+import brs.util.Convert;
+import org.jooq.BatchBindStep;
+import org.jooq.Condition;
+import org.jooq.Cursor;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Record2;
+import org.jooq.SelectField;
+import org.jooq.SelectQuery;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.impl.TableImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static brs.schema.Tables.BLOCK;
+import static brs.schema.Tables.TRANSACTION;
+
+/**
+ * State snapshots, to bootstrap a node at a given height instead of replaying all blocks from genesis.
+ * <p>
+ * A snapshot holds the block and transaction tables up to the snapshot height and the rows of every
+ * derived table needed to roll back as far as the exporting node could. Tables are streamed one after the other into a gzip file, followed by the
+ * SHA-256 of the uncompressed content, which is the state hash checked on import.
+ * <p>
+ * The state hash only covers the file, nothing in the chain commits to it: the imported rows are not checked
+ * against the blocks, so a snapshot must come from a source the node operator trusts, as must the expected hash.
+ */
+public final class Snapshot {
+
+  private static final Logger logger = LoggerFactory.getLogger(Snapshot.class);
+
+  private static final String MAGIC = "SIGNUM-SNAPSHOT";
+  private static final int FORMAT_VERSION = 1;
+  private static final int FETCH_SIZE = 1000;
+  private static final int ROWS_PER_BATCH = 10_000;
+
+  private static final byte NULL = 0;
+  private static final byte LONG = 1;
+  private static final byte INTEGER = 2;
+  private static final byte BOOLEAN = 3;
+  private static final byte BYTES = 4;
+  private static final byte STRING = 5;
+  private static final byte SHORT = 6;
+  private static final byte BYTE = 7;
+  private static final byte DECIMAL = 8;
+
+  private Snapshot() {
+  }
+
+  /**
+   * Writes the state as of the last block to the file. The export reads in a repeatable read transaction of its
+   * own, so blocks can be pushed, popped and trimmed meanwhile without changing what it sees or waiting for it.
+   */
+  public static Export export(String filename, List<DerivedTable> derivedTables) throws IOException {
+    return Db.useSnapshotDSLContext(ctx -> {
+      Record2<Integer, Long> lastBlock = ctx.select(BLOCK.HEIGHT, BLOCK.ID).from(BLOCK)
+          .orderBy(BLOCK.HEIGHT.desc()).limit(1).fetchOne();
+      int height = lastBlock.value1();
+      logger.info("Exporting snapshot at height {} to {}, it might take a while.", height, filename);
+      MessageDigest digest = Crypto.sha256();
+      try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(filename)));
+           DataOutputStream out = new DataOutputStream(new DigestOutputStream(new BufferedOutputStream(gzipOutputStream), digest))) {
+        out.writeUTF(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(height);
+        out.writeLong(lastBlock.value2());
+
+        exportTable(ctx, out, BLOCK, Arrays.asList(BLOCK.fields()), BLOCK.HEIGHT.le(height));
+        exportTable(ctx, out, TRANSACTION, Arrays.asList(TRANSACTION.fields()), TRANSACTION.HEIGHT.le(height));
+        for (DerivedTable derivedTable : derivedTables) {
+          exportDerivedTable(ctx, out, (DerivedSqlTable) derivedTable, height);
+        }
+        out.writeBoolean(false);
+        out.flush();
+
+        byte[] stateHash = digest.digest();
+        // written past the digest stream, so not part of the hash
+        gzipOutputStream.write(stateHash);
+        logger.info("Snapshot at height {} exported, state hash {}", height, Convert.toHexString(stateHash));
+        return new Export(height, stateHash);
+      }
+    });
+  }
+
+  /**
+   * Versioned tables are exported with the version of every entity as of the lowest height the node can roll
+   * back to and all the versions above it, so that the importing node can roll back as far as the exporting one.
+   * The latest flags are those as of the snapshot height.
+   */
+  private static void exportDerivedTable(DSLContext ctx, DataOutputStream out, DerivedSqlTable table, int height) throws IOException {
+    TableImpl<?> tableClass = table.tableClass;
+    DbKey.Factory<?> keyFactory = getKeyFactory(table);
+    if (table.latestField == null || keyFactory == null) {
+      exportTable(ctx, out, tableClass, Arrays.asList(tableClass.fields()), table.heightField.le(height));
+      return;
+    }
+    int minRollbackHeight = Math.max(height - Constants.MAX_ROLLBACK, 0);
+
+    List<SelectField<?>> selectFields = new ArrayList<>();
+    for (Field<?> field : tableClass.fields()) {
+      if (field.getName().equals(table.latestField.getName())) {
+        selectFields.add(DSL.field(DSL.notExists(newerVersion(ctx, table, keyFactory, height))).as(field.getName()));
+      } else {
+        selectFields.add(field);
+      }
+    }
+    exportTable(ctx, out, tableClass, selectFields, table.heightField.le(height)
+        .and(table.heightField.gt(minRollbackHeight).or(DSL.notExists(newerVersion(ctx, table, keyFactory, minRollbackHeight)))));
+  }
+
+  // a version of the same entity newer than the row of the outer query, at or below the height
+  private static SelectQuery<Record> newerVersion(DSLContext ctx, DerivedSqlTable table, DbKey.Factory<?> keyFactory, int height) {
+    Table<?> newer = table.tableClass.as("newer");
+    SelectQuery<Record> query = ctx.selectQuery();
+    query.addSelect(DSL.one());
+    query.addFrom(newer);
+    keyFactory.applySelfJoin(query, newer, table.tableClass);
+    query.addConditions(newer.field(table.heightField).gt(table.heightField), newer.field(table.heightField).le(height));
+    return query;
+  }
+
+  private static DbKey.Factory<?> getKeyFactory(DerivedSqlTable table) {
+    if (table instanceof EntitySqlTable) {
+      return ((EntitySqlTable<?>) table).dbKeyFactory;
+    }
+    if (table instanceof ValuesSqlTable) {
+      return ((ValuesSqlTable<?, ?>) table).dbKeyFactory;
+    }
+    return null;
+  }
+
+  private static void exportTable(DSLContext ctx, DataOutputStream out, TableImpl<?> table, List<? extends SelectField<?>> selectFields,
+                                  Condition condition) throws IOException {
+    Field<?>[] fields = table.fields();
+    out.writeBoolean(true);
+    out.writeUTF(table.getName());
+    out.writeInt(fields.length);
+    for (Field<?> field : fields) {
+      out.writeUTF(field.getName());
+    }
+    long rows = 0;
+    try (Cursor<Record> cursor = ctx.select(selectFields).from(table).where(condition).fetchSize(FETCH_SIZE).fetchLazy()) {
+      for (Record record : cursor) {
+        out.writeBoolean(true);
+        for (int i = 0; i < fields.length; i++) {
+          writeValue(out, record.get(i));
+        }
+        rows++;
+      }
+    }
+    out.writeBoolean(false);
+    logger.info("Exported {} rows of table {}", rows, table.getName());
+  }
+
+  /**
+   * Loads a snapshot into an empty database, nothing is done if the database already has blocks.
+   * The whole import is a single transaction, so a failed or interrupted import leaves the database empty.
+   *
+   * @param expectedStateHash the trusted state hash in hex, or empty to only check the file integrity
+   * @return the height of the snapshot, or -1 if it was not imported
+   */
+  public static int importFrom(String filename, String expectedStateHash, List<DerivedTable> derivedTables) throws IOException {
+    if (Db.useDSLContext(ctx -> {
+      return ctx.fetchExists(BLOCK);
+    })) {
+      logger.info("Database is not empty, snapshot {} not imported", filename);
+      return -1;
+    }
+    Map<String, TableImpl<?>> tables = new LinkedHashMap<>();
+    tables.put(BLOCK.getName().toLowerCase(), BLOCK);
+    tables.put(TRANSACTION.getName().toLowerCase(), TRANSACTION);
+    for (DerivedTable derivedTable : derivedTables) {
+      TableImpl<?> table = ((DerivedSqlTable) derivedTable).tableClass;
+      tables.put(table.getName().toLowerCase(), table);
+    }
+
+    logger.info("Importing snapshot from {}, it might take a while.", filename);
+    MessageDigest digest = Crypto.sha256();
+    try (GZIPInputStream gzipInputStream = new GZIPInputStream(new BufferedInputStream(new FileInputStream(filename)));
+         DataInputStream in = new DataInputStream(new DigestInputStream(gzipInputStream, digest))) {
+      if (!MAGIC.equals(in.readUTF()) || in.readInt() != FORMAT_VERSION) {
+        throw new IOException("Not a supported snapshot file: " + filename);
+      }
+      int height = in.readInt();
+      long lastBlockId = in.readLong();
+
+      Db.beginTransaction();
+      try {
+        while (in.readBoolean()) {
+          importTable(in, tables);
+        }
+        byte[] stateHash = digest.digest();
+        byte[] storedStateHash = new byte[stateHash.length];
+        new DataInputStream(gzipInputStream).readFully(storedStateHash);
+        if (!Arrays.equals(stateHash, storedStateHash)) {
+          throw new IOException("Snapshot file is corrupted, state hash does not match");
+        }
+        if (!expectedStateHash.isEmpty() && !Arrays.equals(stateHash, Convert.parseHexString(expectedStateHash))) {
+          throw new IOException("Snapshot state hash " + Convert.toHexString(stateHash) + " is not the expected one");
+        }
+        Db.commitTransaction();
+        logger.info("Snapshot imported up to height {}, last block {}", height, Convert.toUnsignedLong(lastBlockId));
+        return height;
+      } catch (IOException | RuntimeException e) {
+        Db.rollbackTransaction();
+        throw e;
+      } finally {
+        Db.endTransaction();
+      }
+    }
+  }
+
+  private static void importTable(DataInputStream in, Map<String, TableImpl<?>> tables) throws IOException {
+    String tableName = in.readUTF();
+    Table<?> table = tables.get(tableName.toLowerCase());
+    if (table == null) {
+      throw new IOException("Unknown table in snapshot: " + tableName);
+    }
+    int columns = in.readInt();
+    List<Field<?>> fields = new ArrayList<>(columns);
+    for (int i = 0; i < columns; i++) {
+      String columnName = in.readUTF();
+      Field<?> field = table.field(columnName);
+      if (field == null) {
+        throw new IOException("Unknown column " + columnName + " in table " + tableName);
+      }
+      fields.add(field);
+    }
+
+    long rows = 0;
+    Object[] values = new Object[columns];
+    BatchBindStep batch = null;
+    while (in.readBoolean()) {
+      for (int i = 0; i < columns; i++) {
+        values[i] = readValue(in);
+      }
+      if (batch == null) {
+        batch = Db.useDSLContext(ctx -> {
+          return ctx.batch(ctx.insertInto(table, fields).values(new Object[columns]));
+        });
+      }
+      batch.bind(values);
+      rows++;
+      if (rows % ROWS_PER_BATCH == 0) {
+        batch.execute();
+        batch = null;
+      }
+    }
+    if (batch != null) {
+      batch.execute();
+    }
+    logger.info("Imported {} rows of table {}", rows, tableName);
+  }
+
+  private static void writeValue(DataOutputStream out, Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(NULL);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long) value);
+    } else if (value instanceof Integer) {
+      out.writeByte(INTEGER);
+      out.writeInt((Integer) value);
+    } else if (value instanceof Boolean) {
+      out.writeByte(BOOLEAN);
+      out.writeBoolean((Boolean) value);
+    } else if (value instanceof byte[]) {
+      out.writeByte(BYTES);
+      out.writeInt(((byte[]) value).length);
+      out.write((byte[]) value);
+    } else if (value instanceof Short) {
+      out.writeByte(SHORT);
+      out.writeShort((Short) value);
+    } else if (value instanceof Byte) {
+      out.writeByte(BYTE);
+      out.writeByte((Byte) value);
+    } else if (value instanceof BigDecimal) {
+      out.writeByte(DECIMAL);
+      writeString(out, value.toString());
+    } else {
+      out.writeByte(STRING);
+      writeString(out, value.toString());
+    }
+  }
+
+  private static Object readValue(DataInputStream in) throws IOException {
+    byte type = in.readByte();
+    switch (type) {
+      case NULL:
+        return null;
+      case LONG:
+        return in.readLong();
+      case INTEGER:
+        return in.readInt();
+      case BOOLEAN:
+        return in.readBoolean();
+      case BYTES:
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+      case SHORT:
+        return in.readShort();
+      case BYTE:
+        return in.readByte();
+      case DECIMAL:
+        return new BigDecimal(readString(in));
+      case STRING:
+        return readString(in);
+      default:
+        throw new IOException("Unknown value type " + type);
+    }
+  }
+
+  // writeUTF is limited to 64k, which some text columns may exceed
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  public static final class Export {
+
+    private final int height;
+    private final byte[] stateHash;
+
+    private Export(int height, byte[] stateHash) {
+      this.height = height;
+      this.stateHash = stateHash;
+    }
+
+    public int getHeight() {
+      return height;
+    }
+
+    public byte[] getStateHash() {
+      return stateHash;
+    }
+  }
+}
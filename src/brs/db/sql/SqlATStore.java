@@ -74,7 +74,7 @@ public class SqlATStore implements ATStore {
       }
     };
 
-    atStateTable = new VersionedEntitySqlTable<brs.at.AT.ATState>("at_state", brs.schema.Tables.AT_STATE, atStateDbKeyFactory, derivedTableManager) {
+    atStateTable = new VersionedEntitySqlTable<brs.at.AT.ATState>("at_state", brs.schema.Tables.AT_STATE, atStateDbKeyFactory, derivedTableManager, true) {
       @Override
       protected brs.at.AT.ATState load(DSLContext ctx, Record rs) {
         return new SqlATState(rs);
@@ -82,7 +82,16 @@ public class SqlATStore implements ATStore {
 
       @Override
       protected void save(DSLContext ctx, brs.at.AT.ATState atState) {
-        saveATState(ctx, atState);
+        saveATState(ctx, atState).execute();
+      }
+
+      @Override
+      void save(DSLContext ctx, Collection<brs.at.AT.ATState> atStates) {
+        List<Query> atStateQueries = new ArrayList<>();
+        for (brs.at.AT.ATState atState : atStates) {
+          atStateQueries.add(saveATState(ctx, atState));
+        }
+        ctx.batch(atStateQueries).execute();
       }
 
       @Override
@@ -95,7 +104,7 @@ public class SqlATStore implements ATStore {
       }
     };
 
-    atMapTable = new VersionedEntitySqlTable<brs.at.AT.AtMapEntry>("at_map", brs.schema.Tables.AT_MAP, atMapKeyFactory, derivedTableManager) {
+    atMapTable = new VersionedEntitySqlTable<brs.at.AT.AtMapEntry>("at_map", brs.schema.Tables.AT_MAP, atMapKeyFactory, derivedTableManager, true) {
       @Override
       protected brs.at.AT.AtMapEntry load(DSLContext ctx, Record rs) {
         return new SqlAtMapEntry(rs);
@@ -103,7 +112,16 @@ public class SqlATStore implements ATStore {
 
       @Override
       protected void save(DSLContext ctx, brs.at.AT.AtMapEntry atDbEntry) {
-        saveATMapEntry(ctx, atDbEntry);
+        saveATMapEntry(ctx, atDbEntry).execute();
+      }
+
+      @Override
+      void save(DSLContext ctx, Collection<brs.at.AT.AtMapEntry> atDbEntries) {
+        List<Query> atMapQueries = new ArrayList<>();
+        for (brs.at.AT.AtMapEntry atDbEntry : atDbEntries) {
+          atMapQueries.add(saveATMapEntry(ctx, atDbEntry));
+        }
+        ctx.batch(atMapQueries).execute();
       }
 
       @Override
@@ -117,18 +135,16 @@ public class SqlATStore implements ATStore {
     };
   }
 
-  private void saveATState(DSLContext ctx, brs.at.AT.ATState atState) {
-    ctx.insertInto( // .mergeInto(
+  private Query saveATState(DSLContext ctx, brs.at.AT.ATState atState) {
+    return ctx.insertInto( // .mergeInto(
       AT_STATE, AT_STATE.AT_ID, AT_STATE.STATE, AT_STATE.PREV_HEIGHT, AT_STATE.NEXT_HEIGHT, AT_STATE.SLEEP_BETWEEN, AT_STATE.PREV_BALANCE, AT_STATE.FREEZE_WHEN_SAME_BALANCE, AT_STATE.MIN_ACTIVATE_AMOUNT, AT_STATE.HEIGHT, AT_STATE.LATEST)
             //.key(AT_STATE.AT_ID, AT_STATE.HEIGHT)
-            .values(atState.getATId(), brs.at.AT.compressState(atState.getState()), atState.getPrevHeight(), atState.getNextHeight(), atState.getSleepBetween(), atState.getPrevBalance(), atState.getFreezeWhenSameBalance(), atState.getMinActivationAmount(), Burst.getBlockchain().getHeight(), true)
-            .execute();
+            .values(atState.getATId(), brs.at.AT.compressState(atState.getState()), atState.getPrevHeight(), atState.getNextHeight(), atState.getSleepBetween(), atState.getPrevBalance(), atState.getFreezeWhenSameBalance(), atState.getMinActivationAmount(), Burst.getBlockchain().getHeight(), true);
   }
 
-  private void saveATMapEntry(DSLContext ctx, brs.at.AT.AtMapEntry atEntry) {
-    ctx.insertInto(AT_MAP, AT_MAP.AT_ID, AT_MAP.KEY1, AT_MAP.KEY2, AT_MAP.VALUE, AT_STATE.HEIGHT, AT_STATE.LATEST)
-            .values(atEntry.getAtId(), atEntry.getKey1(), atEntry.getKey2(), atEntry.getValue(), Burst.getBlockchain().getHeight(), true)
-            .execute();
+  private Query saveATMapEntry(DSLContext ctx, brs.at.AT.AtMapEntry atEntry) {
+    return ctx.insertInto(AT_MAP, AT_MAP.AT_ID, AT_MAP.KEY1, AT_MAP.KEY2, AT_MAP.VALUE, AT_STATE.HEIGHT, AT_STATE.LATEST)
+            .values(atEntry.getAtId(), atEntry.getKey1(), atEntry.getKey2(), atEntry.getValue(), Burst.getBlockchain().getHeight(), true);
   }
 
   private void saveAT(DSLContext ctx, brs.at.AT at) {
@@ -155,6 +171,7 @@ public class SqlATStore implements ATStore {
 
   @Override
   public List<Long> getOrderedATs() {
+    atStateTable.finish();
     return Db.useDSLContext(ctx -> {
       AtConstants atConstants = AtConstants.getInstance();
       return ctx.selectFrom(
@@ -189,6 +206,7 @@ public class SqlATStore implements ATStore {
 
   @Override
   public brs.at.AT getAT(Long id, int height) {
+    atStateTable.finish();
     return Db.useDSLContext(ctx -> {
       SelectJoinStep<Record> select = ctx.select(AT.fields()).select(AT_STATE.fields()).from(AT.join(AT_STATE)
           .on(AT.ID.eq(AT_STATE.AT_ID)));
@@ -226,6 +244,7 @@ public class SqlATStore implements ATStore {
 
   @Override
   public Collection<brs.at.AT.AtMapEntry> getMapValues(long atId, long key1, Long value) {
+    atMapTable.finish();
     Result<Record> result = Db.useDSLContext(ctx -> {
       SelectConditionStep<Record> request = ctx.select(AT_MAP.fields()).from(AT_MAP).where(AT_MAP.LATEST.isTrue()).and(AT_MAP.AT_ID.eq(atId))
           .and(AT_MAP.KEY1.eq(key1));
@@ -75,7 +75,7 @@ public class SqlAccountStore implements AccountStore {
       }
     };
 
-    accountAssetTable = new VersionedEntitySqlTable<Account.AccountAsset>("account_asset", brs.schema.Tables.ACCOUNT_ASSET, accountAssetDbKeyFactory, derivedTableManager) {
+    accountAssetTable = new VersionedEntitySqlTable<Account.AccountAsset>("account_asset", brs.schema.Tables.ACCOUNT_ASSET, accountAssetDbKeyFactory, derivedTableManager, true) {
       private final List<SortField<?>> sort = initializeSort();
 
       private List<SortField<?>> initializeSort() {
@@ -93,10 +93,16 @@ public class SqlAccountStore implements AccountStore {
 
       @Override
       protected void save(DSLContext ctx, Account.AccountAsset accountAsset) {
-        ctx.mergeInto(ACCOUNT_ASSET, ACCOUNT_ASSET.ACCOUNT_ID, ACCOUNT_ASSET.ASSET_ID, ACCOUNT_ASSET.QUANTITY, ACCOUNT_ASSET.UNCONFIRMED_QUANTITY, ACCOUNT_ASSET.HEIGHT, ACCOUNT_ASSET.LATEST)
-                .key(ACCOUNT_ASSET.ACCOUNT_ID, ACCOUNT_ASSET.ASSET_ID, ACCOUNT_ASSET.HEIGHT)
-                .values(accountAsset.accountId, accountAsset.assetId, accountAsset.getQuantityQNT(), accountAsset.getUnconfirmedQuantityQNT(), Burst.getBlockchain().getHeight(), true)
-                .execute();
+        saveAccountAsset(ctx, accountAsset).execute();
+      }
+
+      @Override
+      void save(DSLContext ctx, Collection<Account.AccountAsset> accountAssets) {
+        List<Query> accountAssetQueries = new ArrayList<>();
+        for (Account.AccountAsset accountAsset : accountAssets) {
+          accountAssetQueries.add(saveAccountAsset(ctx, accountAsset));
+        }
+        ctx.batch(accountAssetQueries).execute();
       }
 
       @Override
@@ -131,29 +137,14 @@ public class SqlAccountStore implements AccountStore {
       }
     };
 
-    accountBalanceTable = new VersionedBatchEntitySqlTable<Account.Balance>("account_balance", brs.schema.Tables.ACCOUNT_BALANCE, accountBalanceDbKeyFactory, derivedTableManager, dbCacheManager, Account.Balance.class) {
-      @Override
-      protected Account.Balance load(DSLContext ctx, Record rs) {
-        return new SqlAccountBalance(rs);
-      }
+    accountBalanceTable = new AccountBalanceSqlTable(accountBalanceDbKeyFactory, derivedTableManager, dbCacheManager,
+        Burst.getPropertyService().getBoolean(Props.DB_BALANCES_IN_MEMORY));
+  }
 
-      @Override
-      protected void bulkInsert(DSLContext ctx, Collection<Account.Balance> accounts) {
-        List<Query> accountQueries = new ArrayList<>();
-        int height = Burst.getBlockchain().getHeight();
-        for (Account.Balance account: accounts) {
-          if (account == null) continue;
-          accountQueries.add(
-              ctx.insertInto(
-                ACCOUNT_BALANCE, ACCOUNT_BALANCE.ID, ACCOUNT_BALANCE.HEIGHT,
-                  ACCOUNT_BALANCE.BALANCE, ACCOUNT_BALANCE.UNCONFIRMED_BALANCE, ACCOUNT_BALANCE.FORGED_BALANCE, ACCOUNT.LATEST)
-              .values(account.getId(), height,
-                  account.getBalanceNQT(), account.getUnconfirmedBalanceNQT(), account.getForgedBalanceNQT(), true)
-              );
-        }
-        ctx.batch(accountQueries).execute();
-      }
-    };
+  private static Query saveAccountAsset(DSLContext ctx, Account.AccountAsset accountAsset) {
+    return ctx.mergeInto(ACCOUNT_ASSET, ACCOUNT_ASSET.ACCOUNT_ID, ACCOUNT_ASSET.ASSET_ID, ACCOUNT_ASSET.QUANTITY, ACCOUNT_ASSET.UNCONFIRMED_QUANTITY, ACCOUNT_ASSET.HEIGHT, ACCOUNT_ASSET.LATEST)
+            .key(ACCOUNT_ASSET.ACCOUNT_ID, ACCOUNT_ASSET.ASSET_ID, ACCOUNT_ASSET.HEIGHT)
+            .values(accountAsset.accountId, accountAsset.assetId, accountAsset.getQuantityQNT(), accountAsset.getUnconfirmedQuantityQNT(), Burst.getBlockchain().getHeight(), true);
   }
 
   private static Condition getAccountsWithRewardRecipientClause(final long id, final int height) {
@@ -209,6 +200,7 @@ public class SqlAccountStore implements AccountStore {
 
   @Override
   public int getAssetAccountsCount(Asset asset, long minimumQuantity, boolean ignoreTreasury, boolean unconfirmed) {
+    accountAssetTable.finish();
     return Db.useDSLContext(ctx -> {
 
       SelectConditionStep<Record1<Integer>> select = ctx.selectCount().from(ACCOUNT_ASSET)
@@ -234,6 +226,7 @@ public class SqlAccountStore implements AccountStore {
 
   @Override
   public long getAssetCirculatingSupply(Asset asset, boolean ignoreTreasury, boolean unconfirmed) {
+    accountAssetTable.finish();
     return Db.useDSLContext(ctx -> {
 
       SelectConditionStep<Record1<BigDecimal>> select = ctx.select(DSL.sum(
@@ -388,15 +381,6 @@ public class SqlAccountStore implements AccountStore {
     }
   }
 
-  class SqlAccountBalance extends Account.Balance {
-    SqlAccountBalance(Record record) {
-      super(record.get(ACCOUNT_BALANCE.ID));
-      this.balanceNQT = record.get(ACCOUNT_BALANCE.BALANCE);
-      this.unconfirmedBalanceNQT = record.get(ACCOUNT_BALANCE.UNCONFIRMED_BALANCE);
-      this.forgedBalanceNQT = record.get(ACCOUNT_BALANCE.FORGED_BALANCE);
-    }
-  }
-
   class SqlRewardRecipientAssignment extends Account.RewardRecipientAssignment {
     SqlRewardRecipientAssignment(Record record) {
       super(
@@ -41,7 +41,8 @@ public class SqlBlockchainStore implements BlockchainStore {
   @Override
   public Collection<Block> getBlocks(int from, int to) {
     return Db.useDSLContext(ctx -> {
-      int blockchainHeight = Burst.getBlockchain().getHeight();
+      Integer readHeight = Db.getReadHeight();
+      int blockchainHeight = readHeight != null ? readHeight : Burst.getBlockchain().getHeight();
       return
         getBlocks(ctx.selectFrom(BLOCK)
                 .where(BLOCK.HEIGHT.between(blockchainHeight - Math.max(to, 0)).and(blockchainHeight - Math.max(from, 0)))
@@ -170,6 +171,10 @@ public class SqlBlockchainStore implements BlockchainStore {
       if (height < Integer.MAX_VALUE) {
         conditions.add(TRANSACTION.HEIGHT.le(height));
       }
+      Integer readHeight = Db.getReadHeight();
+      if (readHeight != null) {
+        conditions.add(TRANSACTION.HEIGHT.le(readHeight));
+      }
 
       SelectOrderByStep<TransactionRecord> select = ctx.selectFrom(TRANSACTION).where(conditions).and(
           account == null ? TRANSACTION.RECIPIENT_ID.isNull() :
@@ -364,6 +369,17 @@ public class SqlBlockchainStore implements BlockchainStore {
     return amountCommitted.longValue();
   }
 
+  @Override
+  public Collection<Transaction> getCommitmentTransactions(int height) {
+    return Db.useDSLContext(ctx -> {
+      return getTransactions(ctx, ctx.selectFrom(TRANSACTION).where(TRANSACTION.TYPE.eq(TransactionType.TYPE_BURST_MINING.getType()))
+          .and(TRANSACTION.SUBTYPE.in(TransactionType.SUBTYPE_BURST_MINING_COMMITMENT_ADD, TransactionType.SUBTYPE_BURST_MINING_COMMITMENT_REMOVE))
+          .and(TRANSACTION.HEIGHT.le(height))
+          .orderBy(TRANSACTION.HEIGHT.asc())
+          .fetch());
+    });
+  }
+
   @Override
   public Collection<Long> getTransactionIds(Long sender, Long recipient, int numberOfConfirmations, byte type,
       byte subtype, int blockTimestamp, int from, int to, boolean includeIndirectIncoming) {
@@ -8,6 +8,7 @@ import brs.db.VersionedEntityTable;
 import brs.db.store.DerivedTableManager;
 import brs.db.store.EscrowStore;
 import org.jooq.DSLContext;
+import org.jooq.Query;
 import org.jooq.Record;
 
 import java.util.ArrayList;
@@ -38,7 +39,7 @@ public class SqlEscrowStore implements EscrowStore {
 
 
   public SqlEscrowStore(DerivedTableManager derivedTableManager) {
-    escrowTable = new VersionedEntitySqlTable<Escrow>("escrow", brs.schema.Tables.ESCROW, escrowDbKeyFactory, derivedTableManager) {
+    escrowTable = new VersionedEntitySqlTable<Escrow>("escrow", brs.schema.Tables.ESCROW, escrowDbKeyFactory, derivedTableManager, true) {
       @Override
       protected Escrow load(DSLContext ctx, Record rs) {
         return new SqlEscrow(rs);
@@ -46,7 +47,16 @@ public class SqlEscrowStore implements EscrowStore {
 
       @Override
       protected void save(DSLContext ctx, Escrow escrow) {
-        saveEscrow(ctx, escrow);
+        saveEscrow(ctx, escrow).execute();
+      }
+
+      @Override
+      void save(DSLContext ctx, Collection<Escrow> escrows) {
+        List<Query> escrowQueries = new ArrayList<>();
+        for (Escrow escrow : escrows) {
+          escrowQueries.add(saveEscrow(ctx, escrow));
+        }
+        ctx.batch(escrowQueries).execute();
       }
     };
 
@@ -107,11 +117,10 @@ public class SqlEscrowStore implements EscrowStore {
     return resultTransactions;
   }
 
-  private void saveEscrow(DSLContext ctx, Escrow escrow) {
-    ctx.mergeInto(ESCROW, ESCROW.ID, ESCROW.SENDER_ID, ESCROW.RECIPIENT_ID, ESCROW.AMOUNT, ESCROW.REQUIRED_SIGNERS, ESCROW.DEADLINE, ESCROW.DEADLINE_ACTION, ESCROW.HEIGHT, ESCROW.LATEST)
+  private Query saveEscrow(DSLContext ctx, Escrow escrow) {
+    return ctx.mergeInto(ESCROW, ESCROW.ID, ESCROW.SENDER_ID, ESCROW.RECIPIENT_ID, ESCROW.AMOUNT, ESCROW.REQUIRED_SIGNERS, ESCROW.DEADLINE, ESCROW.DEADLINE_ACTION, ESCROW.HEIGHT, ESCROW.LATEST)
             .key(ESCROW.ID, ESCROW.HEIGHT)
-            .values(escrow.id, escrow.senderId, escrow.recipientId, escrow.amountNQT, escrow.requiredSigners, escrow.deadline, (int) Escrow.decisionToByte(escrow.deadlineAction), Burst.getBlockchain().getHeight(), true)
-            .execute();
+            .values(escrow.id, escrow.senderId, escrow.recipientId, escrow.amountNQT, escrow.requiredSigners, escrow.deadline, (int) Escrow.decisionToByte(escrow.deadlineAction), Burst.getBlockchain().getHeight(), true);
   }
 
   private class SqlDecision extends Escrow.Decision {
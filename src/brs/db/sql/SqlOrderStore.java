@@ -9,6 +9,7 @@ import brs.db.store.OrderStore;
 import brs.schema.tables.records.AskOrderRecord;
 import brs.schema.tables.records.BidOrderRecord;
 import org.jooq.DSLContext;
+import org.jooq.Query;
 import org.jooq.Record;
 import org.jooq.SelectQuery;
 import org.jooq.SortField;
@@ -41,7 +42,7 @@ public class SqlOrderStore implements OrderStore {
   };
 
   public SqlOrderStore(DerivedTableManager derivedTableManager) {
-    askOrderTable = new VersionedEntitySqlTable<Order.Ask>("ask_order", ASK_ORDER, askOrderDbKeyFactory, derivedTableManager) {
+    askOrderTable = new VersionedEntitySqlTable<Order.Ask>("ask_order", ASK_ORDER, askOrderDbKeyFactory, derivedTableManager, true) {
       @Override
       protected Order.Ask load(DSLContext ctx, Record record) {
         return new SqlAsk(record);
@@ -49,7 +50,16 @@ public class SqlOrderStore implements OrderStore {
 
       @Override
       protected void save(DSLContext ctx, Order.Ask ask) {
-        saveAsk(ctx, ask);
+        saveAsk(ctx, ask).execute();
+      }
+
+      @Override
+      void save(DSLContext ctx, Collection<Order.Ask> asks) {
+        List<Query> askQueries = new ArrayList<>();
+        for (Order.Ask ask : asks) {
+          askQueries.add(saveAsk(ctx, ask));
+        }
+        ctx.batch(askQueries).execute();
       }
 
       @Override
@@ -60,7 +70,7 @@ public class SqlOrderStore implements OrderStore {
       }
     };
 
-    bidOrderTable = new VersionedEntitySqlTable<Order.Bid>("bid_order", BID_ORDER, bidOrderDbKeyFactory, derivedTableManager) {
+    bidOrderTable = new VersionedEntitySqlTable<Order.Bid>("bid_order", BID_ORDER, bidOrderDbKeyFactory, derivedTableManager, true) {
 
       @Override
       protected Order.Bid load(DSLContext ctx, Record rs) {
@@ -69,7 +79,16 @@ public class SqlOrderStore implements OrderStore {
 
       @Override
       protected void save(DSLContext ctx, Order.Bid bid) {
-        saveBid(ctx, bid);
+        saveBid(ctx, bid).execute();
+      }
+
+      @Override
+      void save(DSLContext ctx, Collection<Order.Bid> bids) {
+        List<Query> bidQueries = new ArrayList<>();
+        for (Order.Bid bid : bids) {
+          bidQueries.add(saveBid(ctx, bid));
+        }
+        ctx.batch(bidQueries).execute();
       }
 
       @Override
@@ -139,11 +158,10 @@ public class SqlOrderStore implements OrderStore {
     return askOrderTable.getManyBy(ASK_ORDER.ASSET_ID.eq(assetId), from, to);
   }
 
-  private void saveAsk(DSLContext ctx, Order.Ask ask) {
-    ctx.mergeInto(ASK_ORDER, ASK_ORDER.ID, ASK_ORDER.ACCOUNT_ID, ASK_ORDER.ASSET_ID, ASK_ORDER.PRICE, ASK_ORDER.QUANTITY, ASK_ORDER.CREATION_HEIGHT, ASK_ORDER.HEIGHT, ASK_ORDER.LATEST)
+  private Query saveAsk(DSLContext ctx, Order.Ask ask) {
+    return ctx.mergeInto(ASK_ORDER, ASK_ORDER.ID, ASK_ORDER.ACCOUNT_ID, ASK_ORDER.ASSET_ID, ASK_ORDER.PRICE, ASK_ORDER.QUANTITY, ASK_ORDER.CREATION_HEIGHT, ASK_ORDER.HEIGHT, ASK_ORDER.LATEST)
             .key(ASK_ORDER.ID, ASK_ORDER.HEIGHT)
-            .values(ask.getId(), ask.getAccountId(), ask.getAssetId(), ask.getPriceNQT(), ask.getQuantityQNT(), ask.getHeight(), Burst.getBlockchain().getHeight(), true)
-            .execute();
+            .values(ask.getId(), ask.getAccountId(), ask.getAssetId(), ask.getPriceNQT(), ask.getQuantityQNT(), ask.getHeight(), Burst.getBlockchain().getHeight(), true);
   }
 
   @Override
@@ -207,11 +225,10 @@ public class SqlOrderStore implements OrderStore {
     });
   }
 
-  private void saveBid(DSLContext ctx, Order.Bid bid) {
-    ctx.mergeInto(BID_ORDER, BID_ORDER.ID, BID_ORDER.ACCOUNT_ID, BID_ORDER.ASSET_ID, BID_ORDER.PRICE, BID_ORDER.QUANTITY, BID_ORDER.CREATION_HEIGHT, BID_ORDER.HEIGHT, BID_ORDER.LATEST)
+  private Query saveBid(DSLContext ctx, Order.Bid bid) {
+    return ctx.mergeInto(BID_ORDER, BID_ORDER.ID, BID_ORDER.ACCOUNT_ID, BID_ORDER.ASSET_ID, BID_ORDER.PRICE, BID_ORDER.QUANTITY, BID_ORDER.CREATION_HEIGHT, BID_ORDER.HEIGHT, BID_ORDER.LATEST)
             .key(BID_ORDER.ID, BID_ORDER.HEIGHT)
-            .values(bid.getId(), bid.getAccountId(), bid.getAssetId(), bid.getPriceNQT(), bid.getQuantityQNT(), bid.getHeight(), Burst.getBlockchain().getHeight(), true)
-            .execute();
+            .values(bid.getId(), bid.getAccountId(), bid.getAssetId(), bid.getPriceNQT(), bid.getQuantityQNT(), bid.getHeight(), Burst.getBlockchain().getHeight(), true);
   }
 
   class SqlAsk extends Order.Ask {
@@ -0,0 +1,234 @@
+package brs.db.sql;
+
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListenerProvider;
+import org.jooq.impl.DefaultExecuteListener;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Calls, latencies and fetched rows of the SQL statements run through {@link Db#useDSLContext}, enabled with DB.sqlProfiler.
+ * <p>
+ * The statements are told apart by their text with the literals and bind values replaced by ?, so that
+ * the static statements of the transactions and the prepared ones of the readers add up the same way.
+ * The latency of a statement runs from its rendering to the end of its fetch.
+ */
+public final class SqlProfiler extends DefaultExecuteListener {
+
+  private static final Logger logger = LoggerFactory.getLogger(SqlProfiler.class);
+
+  private static final int MAX_STATEMENTS = 1000;
+  private static final int MAX_SQL_LENGTH = 2000;
+  private static final int LOGGED_STATEMENTS = 20;
+  private static final String OTHER_STATEMENTS = "(other statements)";
+
+  // 4 buckets per power of 2 of the microseconds, up to about 12 days
+  private static final int SUB_BUCKETS = 4;
+  private static final int BUCKETS = 40 * SUB_BUCKETS;
+
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+  private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.\"`])-?\\d+(?:\\.\\d+)?(?![\\w\"`])");
+  private static final Pattern VALUE_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+  private static final Pattern REPEATED_ROWS = Pattern.compile("(\\(\\?(?:, \\?)*\\)|\\(\\?, \\.\\.\\.\\))(?:\\s*,\\s*\\1)+");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private static final Object START_KEY = new Object();
+  private static final Object ROWS_KEY = new Object();
+
+  private final ConcurrentHashMap<String, Recorder> recorders = new ConcurrentHashMap<>();
+  private final ExecuteListenerProvider provider = new DefaultExecuteListenerProvider(this);
+
+  ExecuteListenerProvider getProvider() {
+    return provider;
+  }
+
+  @Override
+  public void start(ExecuteContext ctx) {
+    ctx.data(START_KEY, System.nanoTime());
+  }
+
+  @Override
+  public void recordEnd(ExecuteContext ctx) {
+    long[] rows = (long[]) ctx.data(ROWS_KEY);
+    if (rows == null) {
+      ctx.data(ROWS_KEY, new long[] {1});
+    }
+    else {
+      rows[0]++;
+    }
+  }
+
+  @Override
+  public void end(ExecuteContext ctx) {
+    Long start = (Long) ctx.data(START_KEY);
+    if (start == null) {
+      return;
+    }
+    long nanos = System.nanoTime() - start;
+    String sql = ctx.sql();
+    if (sql == null) {
+      String[] batchSql = ctx.batchSQL();
+      if (batchSql.length == 0) {
+        return;
+      }
+      sql = "batch: " + batchSql[0];
+    }
+    long[] rows = (long[]) ctx.data(ROWS_KEY);
+    getRecorder(normalize(sql)).add(nanos, rows != null ? rows[0] : 0);
+  }
+
+  /**
+   * @return the statistics of the statements, the ones taking the most time in total first
+   */
+  public List<Statistics> getStatistics() {
+    List<Statistics> statistics = new ArrayList<>(recorders.size());
+    for (Recorder recorder : recorders.values()) {
+      statistics.add(recorder.snapshot());
+    }
+    statistics.sort(Comparator.comparingLong(Statistics::getTotalMicros).reversed());
+    return statistics;
+  }
+
+  public void reset() {
+    recorders.clear();
+  }
+
+  public void logStatistics() {
+    List<Statistics> statistics = getStatistics();
+    if (statistics.isEmpty()) {
+      return;
+    }
+    logger.info("Top {} of {} SQL statements by total time:", Math.min(LOGGED_STATEMENTS, statistics.size()), statistics.size());
+    for (Statistics statement : statistics.subList(0, Math.min(LOGGED_STATEMENTS, statistics.size()))) {
+      logger.info("{} calls, {} ms total, p50 {} us, p99 {} us, {} rows: {}", statement.getCalls(),
+          statement.getTotalMicros() / 1000, statement.getP50Micros(), statement.getP99Micros(), statement.getRows(),
+          statement.getSql());
+    }
+  }
+
+  private Recorder getRecorder(String sql) {
+    Recorder recorder = recorders.get(sql);
+    if (recorder != null) {
+      return recorder;
+    }
+    if (recorders.size() >= MAX_STATEMENTS) {
+      sql = OTHER_STATEMENTS;
+    }
+    return recorders.computeIfAbsent(sql, Recorder::new);
+  }
+
+  static String normalize(String sql) {
+    String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+    normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+    normalized = WHITESPACE.matcher(normalized).replaceAll(" ");
+    normalized = VALUE_LIST.matcher(normalized).replaceAll("(?, ...)");
+    normalized = REPEATED_ROWS.matcher(normalized).replaceAll("$1, ...").trim();
+    return normalized.length() > MAX_SQL_LENGTH ? normalized.substring(0, MAX_SQL_LENGTH) : normalized;
+  }
+
+  private static int bucket(long micros) {
+    long value = Math.max(micros, 1);
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = exponent >= 2 ? (int) (value >>> (exponent - 2)) & 3 : (int) (value << (2 - exponent)) & 3;
+    return Math.min(exponent * SUB_BUCKETS + subBucket, BUCKETS - 1);
+  }
+
+  private static long bucketLimit(int bucket) {
+    int exponent = bucket / SUB_BUCKETS;
+    return ((SUB_BUCKETS + bucket % SUB_BUCKETS + 1L) << exponent) / SUB_BUCKETS;
+  }
+
+  private static final class Recorder {
+
+    private final String sql;
+    private final long[] histogram = new long[BUCKETS];
+    private long calls;
+    private long totalNanos;
+    private long maxNanos;
+    private long rows;
+
+    private Recorder(String sql) {
+      this.sql = sql;
+    }
+
+    private synchronized void add(long nanos, long fetchedRows) {
+      calls++;
+      totalNanos += nanos;
+      maxNanos = Math.max(maxNanos, nanos);
+      rows += fetchedRows;
+      histogram[bucket(nanos / 1000)]++;
+    }
+
+    private synchronized Statistics snapshot() {
+      return new Statistics(sql, calls, totalNanos / 1000, percentile(0.5), percentile(0.99), maxNanos / 1000, rows);
+    }
+
+    private long percentile(double quantile) {
+      long rank = (long) Math.ceil(quantile * calls);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += histogram[i];
+        if (seen >= rank && histogram[i] > 0) {
+          return Math.min(bucketLimit(i), maxNanos / 1000);
+        }
+      }
+      return maxNanos / 1000;
+    }
+  }
+
+  public static final class Statistics {
+
+    private final String sql;
+    private final long calls;
+    private final long totalMicros;
+    private final long p50Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+    private final long rows;
+
+    private Statistics(String sql, long calls, long totalMicros, long p50Micros, long p99Micros, long maxMicros, long rows) {
+      this.sql = sql;
+      this.calls = calls;
+      this.totalMicros = totalMicros;
+      this.p50Micros = p50Micros;
+      this.p99Micros = p99Micros;
+      this.maxMicros = maxMicros;
+      this.rows = rows;
+    }
+
+    public String getSql() {
+      return sql;
+    }
+
+    public long getCalls() {
+      return calls;
+    }
+
+    public long getTotalMicros() {
+      return totalMicros;
+    }
+
+    public long getP50Micros() {
+      return p50Micros;
+    }
+
+    public long getP99Micros() {
+      return p99Micros;
+    }
+
+    public long getMaxMicros() {
+      return maxMicros;
+    }
+
+    public long getRows() {
+      return rows;
+    }
+  }
+}
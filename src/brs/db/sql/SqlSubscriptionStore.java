@@ -29,10 +29,10 @@ public class SqlSubscriptionStore implements SubscriptionStore {
       }
     };
 
-  private final VersionedEntityTable<Subscription> subscriptionTable;
+  private final VersionedEntitySqlTable<Subscription> subscriptionTable;
 
   public SqlSubscriptionStore(DerivedTableManager derivedTableManager) {
-    subscriptionTable = new VersionedEntitySqlTable<Subscription>("subscription", brs.schema.Tables.SUBSCRIPTION, subscriptionDbKeyFactory, derivedTableManager) {
+    subscriptionTable = new VersionedEntitySqlTable<Subscription>("subscription", brs.schema.Tables.SUBSCRIPTION, subscriptionDbKeyFactory, derivedTableManager, true) {
       @Override
       protected Subscription load(DSLContext ctx, Record rs) {
         return new SqlSubscription(rs);
@@ -43,6 +43,15 @@ public class SqlSubscriptionStore implements SubscriptionStore {
         insertSubscription(ctx, subscription).execute();
       }
 
+      @Override
+      void save(DSLContext ctx, Collection<Subscription> subscriptions) {
+        List<Query> subscriptionQueries = new ArrayList<>();
+        for (Subscription subscription : subscriptions) {
+          subscriptionQueries.add(insertSubscription(ctx, subscription));
+        }
+        ctx.batch(subscriptionQueries).execute();
+      }
+
       @Override
       protected List<SortField<?>> defaultSort() {
         List<SortField<?>> sort = new ArrayList<>();
@@ -113,11 +122,14 @@ public class SqlSubscriptionStore implements SubscriptionStore {
   @Override
   public void saveSubscriptions(Collection<Subscription> subscriptions) {
     if (!subscriptions.isEmpty()) {
+      // the pending inserts of the table go before these
+      subscriptionTable.finish();
       Db.useDSLContext(ctx -> {
 
         // remove the latest flag for past entries
         ctx.batched(c -> {
           for (Subscription s : subscriptions) {
+              subscriptionTable.sharedCacheChanged(subscriptionDbKeyFactory.newKey(s));
               c.dsl().update(SUBSCRIPTION)
                      .set(SUBSCRIPTION.LATEST, false)
                      .where(SUBSCRIPTION.ID.eq(s.id).and(SUBSCRIPTION.LATEST.isTrue()))
@@ -5,6 +5,7 @@ import brs.db.BurstKey;
 import brs.db.store.DerivedTableManager;
 import brs.db.store.TradeStore;
 import brs.schema.tables.records.TradeRecord;
+import org.jooq.Condition;
 import org.jooq.DSLContext;
 import org.jooq.Record;
 import org.jooq.SelectQuery;
@@ -112,15 +113,16 @@ public class SqlTradeStore implements TradeStore {
   @Override
   public Collection<Trade> getAccountTrades(long accountId, int from, int to) {
     return Db.useDSLContext(ctx -> {
+      Condition atHeight = readHeightCondition();
       SelectQuery<TradeRecord> selectQuery = ctx
               .selectFrom(TRADE).where(
-                      TRADE.SELLER_ID.eq(accountId)
+                      TRADE.SELLER_ID.eq(accountId).and(atHeight)
               )
               .unionAll(
                       ctx.selectFrom(TRADE).where(
                               TRADE.BUYER_ID.eq(accountId).and(
                                       TRADE.SELLER_ID.ne(accountId)
-                              )
+                              ).and(atHeight)
                       )
               )
               .orderBy(TRADE.HEIGHT.desc())
@@ -134,15 +136,16 @@ public class SqlTradeStore implements TradeStore {
   @Override
   public Collection<Trade> getAccountAssetTrades(long accountId, long assetId, int from, int to) {
     return Db.useDSLContext(ctx -> {
+      Condition atHeight = readHeightCondition();
       SelectQuery<TradeRecord> selectQuery = ctx
               .selectFrom(TRADE).where(
-                      TRADE.SELLER_ID.eq(accountId).and(TRADE.ASSET_ID.eq(assetId))
+                      TRADE.SELLER_ID.eq(accountId).and(TRADE.ASSET_ID.eq(assetId)).and(atHeight)
               )
               .unionAll(
                       ctx.selectFrom(TRADE).where(
                               TRADE.BUYER_ID.eq(accountId)).and(
                               TRADE.SELLER_ID.ne(accountId)
-                      ).and(TRADE.ASSET_ID.eq(assetId))
+                      ).and(TRADE.ASSET_ID.eq(assetId)).and(atHeight)
               )
               .orderBy(TRADE.HEIGHT.desc())
               .getQuery();
@@ -152,6 +155,12 @@ public class SqlTradeStore implements TradeStore {
     });
   }
   
+  // the trades of the union queries are not read through the table, so they are pinned here
+  private static Condition readHeightCondition() {
+    Integer readHeight = Db.getReadHeight();
+    return readHeight != null ? TRADE.HEIGHT.le(readHeight) : DSL.trueCondition();
+  }
+
   @Override
   public Collection<Trade> getOrderTrades(long orderId) {
     return Db.useDSLContext(ctx -> {
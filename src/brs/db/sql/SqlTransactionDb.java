@@ -7,19 +7,46 @@ import brs.TransactionType;
 import brs.db.TransactionDb;
 import brs.schema.tables.records.TransactionRecord;
 import brs.util.Convert;
+import brs.util.LongBloomFilter;
 
 import org.jooq.BatchBindStep;
+import org.jooq.Cursor;
+import org.jooq.Record1;
 import org.jooq.SelectConditionStep;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static brs.schema.Tables.TRANSACTION;
 
 public class SqlTransactionDb implements TransactionDb {
 
+  private static final Logger logger = LoggerFactory.getLogger(SqlTransactionDb.class);
+
+  private static final long MIN_ID_FILTER_CAPACITY = 1_000_000;
+
+  /*
+   * Filters over all ids in the transaction table, so that the lookup for a new transaction, by far
+   * the common case, does not need to reach the database. They are built in the background at startup,
+   * when one gets full a new one is added for the following ids. Ids of removed transactions stay in,
+   * they only cost a query.
+   */
+  private volatile List<LongBloomFilter> idFilters = null;
+  private final AtomicLong lastIdFilterSize = new AtomicLong();
+  // ids saved while the filters are built, each one is in there or in the filters once they are published
+  private final Set<Long> unfilteredIds = ConcurrentHashMap.newKeySet();
+  private final ReentrantLock idFilterLock = new ReentrantLock();
+
   @Override
   public Transaction findTransaction(long transactionId) {
     return Db.useDSLContext(ctx -> {
@@ -46,11 +73,79 @@ public class SqlTransactionDb implements TransactionDb {
 
   @Override
   public boolean hasTransaction(long transactionId) {
+    List<LongBloomFilter> filters = idFilters;
+    if (filters != null && !unfilteredIds.contains(transactionId) && filters.stream().noneMatch(filter -> filter.mightContain(transactionId))) {
+      return false;
+    }
     return Db.useDSLContext(ctx -> {
       return ctx.fetchExists(ctx.selectFrom(TRANSACTION).where(TRANSACTION.ID.eq(transactionId)));
     });
   }
 
+  @Override
+  public void buildIdFilters() {
+    idFilterLock.lock();
+    try {
+      if (idFilters != null) {
+        return;
+      }
+      long start = System.currentTimeMillis();
+      int count = Db.useDSLContext(ctx -> {
+        return ctx.fetchCount(TRANSACTION);
+      });
+      LongBloomFilter filter = new LongBloomFilter(Math.max(count * 2L, MIN_ID_FILTER_CAPACITY));
+      try (Cursor<Record1<Long>> cursor = Db.useDSLContext(ctx -> {
+        return ctx.select(TRANSACTION.ID).from(TRANSACTION).fetchSize(10_000).fetchLazy();
+      })) {
+        for (Record1<Long> record : cursor) {
+          filter.add(record.value1());
+        }
+      }
+      lastIdFilterSize.set(count);
+      idFilters = Collections.singletonList(filter);
+      // transactions saved during the scan may not have been committed yet, so they were not part of it
+      for (Long id : unfilteredIds) {
+        filter.add(id);
+        unfilteredIds.remove(id);
+      }
+      logger.info("Transaction id filter built for {} transactions in {} ms", count, System.currentTimeMillis() - start);
+    } finally {
+      idFilterLock.unlock();
+    }
+  }
+
+  private void addToIdFilters(List<Transaction> transactions) {
+    List<LongBloomFilter> filters = idFilters;
+    boolean unfiltered = false;
+    if (filters == null) {
+      transactions.forEach(transaction -> unfilteredIds.add(transaction.getId()));
+      filters = idFilters;
+      if (filters == null) {
+        return;
+      }
+      // published meanwhile, maybe after the ids were drained
+      unfiltered = true;
+    }
+    LongBloomFilter filter = filters.get(filters.size() - 1);
+    transactions.forEach(transaction -> filter.add(transaction.getId()));
+    if (unfiltered) {
+      transactions.forEach(transaction -> unfilteredIds.remove(transaction.getId()));
+    }
+    if (lastIdFilterSize.addAndGet(transactions.size()) > filter.getCapacity()) {
+      idFilterLock.lock();
+      try {
+        List<LongBloomFilter> moreFilters = new ArrayList<>(idFilters);
+        if (moreFilters.get(moreFilters.size() - 1) == filter) {
+          moreFilters.add(new LongBloomFilter(filter.getCapacity()));
+          lastIdFilterSize.set(0);
+          idFilters = Collections.unmodifiableList(moreFilters);
+        }
+      } finally {
+        idFilterLock.unlock();
+      }
+    }
+  }
+
   @Override
   public boolean hasTransactionByFullHash(String fullHash) {
     return Db.useDSLContext(ctx -> {
@@ -64,16 +159,16 @@ public class SqlTransactionDb implements TransactionDb {
       return null;
     }
 
-    ByteBuffer buffer = null;
-    if (tr.getAttachmentBytes() != null) {
-      buffer = ByteBuffer.wrap(tr.getAttachmentBytes());
-      buffer.order(ByteOrder.LITTLE_ENDIAN);
-    }
+    // the attachment and appendages are only parsed when used, listings mostly need the columns
+    int appendagesFlags = (tr.getHasMessage() ? 1 : 0)
+        | (tr.getHasEncryptedMessage() ? 2 : 0)
+        | (tr.getHasPublicKeyAnnouncement() ? 4 : 0)
+        | (tr.getHasEncrypttoselfMessage() ? 8 : 0);
 
     TransactionType transactionType = TransactionType.findTransactionType(tr.getType(), tr.getSubtype());
     Transaction.Builder builder = new Transaction.Builder(tr.getVersion(), tr.getSenderPublicKey(),
             tr.getAmount(), tr.getFee(), tr.getTimestamp(), tr.getDeadline(),
-            transactionType.parseAttachment(buffer, tr.getVersion()))
+            transactionType, tr.getAttachmentBytes(), appendagesFlags)
             .referencedTransactionFullHash(tr.getReferencedTransactionFullhash())
             .signature(tr.getSignature())
             .blockId(tr.getBlockId())
@@ -85,18 +180,6 @@ public class SqlTransactionDb implements TransactionDb {
     if (transactionType.hasRecipient()) {
       builder.recipientId(Optional.ofNullable(tr.getRecipientId()).orElse(0L));
     }
-    if (tr.getHasMessage()) {
-      builder.message(new Appendix.Message(buffer, tr.getVersion()));
-    }
-    if (tr.getHasEncryptedMessage()) {
-      builder.encryptedMessage(new Appendix.EncryptedMessage(buffer, tr.getVersion()));
-    }
-    if (tr.getHasPublicKeyAnnouncement()) {
-      builder.publicKeyAnnouncement(new Appendix.PublicKeyAnnouncement(buffer, tr.getVersion()));
-    }
-    if (tr.getHasEncrypttoselfMessage()) {
-      builder.encryptToSelfMessage(new Appendix.EncryptToSelfMessage(buffer, tr.getVersion()));
-    }
     if (tr.getVersion() > 0) {
       builder.ecBlockHeight(tr.getEcBlockHeight());
       builder.ecBlockId(Optional.ofNullable(tr.getEcBlockId()).orElse(0L));
@@ -192,6 +275,7 @@ public class SqlTransactionDb implements TransactionDb {
         }
         insertBatch.execute();
       });
+      addToIdFilters(transactions);
     }
   }
 
@@ -0,0 +1,57 @@
+package brs.db.sql;
+
+import brs.Constants;
+import brs.db.BurstKey;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The keys written to a table at each of the last {@link Constants#MAX_ROLLBACK} heights.
+ * <p>
+ * Tells a rollback which entities it changes without querying the table, so that their cached values
+ * can be evicted instead of flushing the whole cache, and a table that was not written to above the
+ * rollback height can be left alone. Only the keys are kept, the entities themselves are mutable and
+ * shared with the cache, so they can not serve as before-images.
+ */
+final class UndoJournal {
+
+  private final NavigableMap<Integer, Set<BurstKey>> keysByHeight = new TreeMap<>();
+  // heights from here on are all recorded
+  private int coveredFromHeight = Integer.MAX_VALUE;
+
+  synchronized void record(int height, Collection<BurstKey> keys) {
+    if (coveredFromHeight == Integer.MAX_VALUE) {
+      coveredFromHeight = height;
+    }
+    keysByHeight.computeIfAbsent(height, h -> new HashSet<>()).addAll(keys);
+    int oldestHeight = height - Constants.MAX_ROLLBACK;
+    keysByHeight.headMap(oldestHeight, false).clear();
+    coveredFromHeight = Math.max(coveredFromHeight, oldestHeight);
+  }
+
+  /**
+   * The keys written above the height. They stay recorded in case the database transaction of the rollback
+   * fails, keys of undone heights only cost a few cache misses later.
+   *
+   * @return null if the journal does not cover all heights above the height
+   */
+  synchronized Set<BurstKey> getKeysAbove(int height) {
+    if (height + 1 < coveredFromHeight) {
+      return null;
+    }
+    Set<BurstKey> keys = new HashSet<>();
+    for (Set<BurstKey> heightKeys : keysByHeight.tailMap(height, false).values()) {
+      keys.addAll(heightKeys);
+    }
+    return keys;
+  }
+
+  synchronized void clear() {
+    keysByHeight.clear();
+    coveredFromHeight = Integer.MAX_VALUE;
+  }
+}
@@ -1,5 +1,6 @@
 package brs.db.sql;
 
+import brs.Burst;
 import brs.db.BurstKey;
 import brs.db.VersionedBatchEntityTable;
 import brs.db.cache.DBCacheManagerImpl;
@@ -14,6 +15,7 @@ public abstract class VersionedBatchEntitySqlTable<T> extends VersionedEntitySql
 
   private final DBCacheManagerImpl dbCacheManager;
   private final Class<T> tClass;
+  private final UndoJournal undoJournal = new UndoJournal();
 
   VersionedBatchEntitySqlTable(String table, TableImpl<?> tableClass, DbKey.Factory<T> dbKeyFactory, DerivedTableManager derivedTableManager, DBCacheManagerImpl dbCacheManager, Class<T> tClass) {
     super(table, tableClass, dbKeyFactory, derivedTableManager);
@@ -46,14 +48,19 @@ public abstract class VersionedBatchEntitySqlTable<T> extends VersionedEntitySql
 
   @Override
   public T get(BurstKey dbKey) {
-    if (getCache().containsKey(dbKey)) {
-      return getCache().get(dbKey);
-    }
-    else if (Db.isInTransaction() && getBatch().containsKey(dbKey)) {
-      return getBatch().get(dbKey);
+    // what the transaction wrote is found by the ids alone, before asking the shared cache
+    if (Db.isInTransaction()) {
+      T item = getBatch().get(dbKey);
+      if (item != null) {
+        return item;
+      }
     }
-    T item = super.get(dbKey);
+    T item = getCache().get(dbKey);
     if (item != null) {
+      return item;
+    }
+    item = super.get(dbKey);
+    if (item != null && !Db.isBypassingSharedCaches()) {
       getCache().put(dbKey, item);
     }
     return item;
@@ -95,6 +102,7 @@ public abstract class VersionedBatchEntitySqlTable<T> extends VersionedEntitySql
       updateBatch.execute();
 
       bulkInsert(ctx, getBatch().values());
+      undoJournal.record(Burst.getBlockchain().getHeight(), keySet);
       getBatch().clear();
     });
   }
@@ -183,15 +191,28 @@ public abstract class VersionedBatchEntitySqlTable<T> extends VersionedEntitySql
     return super.getRowCount();
   }
 
+  /**
+   * Only the cached entities written above the height are evicted, and the table is not touched
+   * at all when none were, unless the journal does not go back that far.
+   */
   @Override
   public void rollback(int height) {
-    super.rollback(height);
+    Set<BurstKey> undoneKeys = undoJournal.getKeysAbove(height);
+    if (undoneKeys == null) {
+      super.rollback(height);
+      flushCache();
+    }
+    else if (!undoneKeys.isEmpty()) {
+      super.rollback(height);
+      getCache().removeAll(undoneKeys);
+    }
     getBatch().clear();
   }
 
   @Override
   public void truncate() {
     super.truncate();
+    undoJournal.clear();
     getBatch().clear();
   }
 
@@ -12,18 +12,104 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public abstract class VersionedEntitySqlTable<T> extends EntitySqlTable<T> implements VersionedEntityTable<T> {
     
   private static final Logger logger = LoggerFactory.getLogger(VersionedEntitySqlTable.class);
 
+  private final boolean writeBehind;
+  private final ThreadLocal<Integer> batchHeight = new ThreadLocal<>();
+
   VersionedEntitySqlTable(String table, TableImpl<?> tableClass, BurstKey.Factory<T> dbKeyFactory, DerivedTableManager derivedTableManager) {
+    this(table, tableClass, dbKeyFactory, derivedTableManager, false);
+  }
+
+  /**
+   * @param writeBehind hold the inserted entities back and write them in one batch, when the table
+   *                    is read from SQL, on {@link #finish()} or at the latest on commit
+   */
+  VersionedEntitySqlTable(String table, TableImpl<?> tableClass, BurstKey.Factory<T> dbKeyFactory, DerivedTableManager derivedTableManager, boolean writeBehind) {
     super(table, tableClass, dbKeyFactory, true, derivedTableManager);
+    this.writeBehind = writeBehind;
+  }
+
+  @Override
+  public void insert(T t) {
+    if (!writeBehind) {
+      super.insert(t);
+      return;
+    }
+    if (!Db.isInTransaction()) {
+      throw new IllegalStateException("Not in transaction");
+    }
+    DbKey dbKey = (DbKey) dbKeyFactory.newKey(t);
+    putInCache(dbKey, t);
+    sharedCacheChanged(dbKey);
+
+    Map<BurstKey, T> batch = Db.getBatch(table);
+    int height = Burst.getBlockchain().getHeight();
+    if (!batch.isEmpty() && batchHeight.get() != height) {
+      // rows are saved with the current height, so the ones of the previous height go first
+      flushPendingWrites();
+    }
+    if (batch.isEmpty()) {
+      batchHeight.set(height);
+      Db.flushOnCommit(table, this::flushPendingWrites);
+    }
+    batch.put(dbKey, t);
+  }
+
+  @Override
+  void flushPendingWrites() {
+    if (!writeBehind || !Db.isInTransaction()) {
+      return;
+    }
+    Map<BurstKey, T> batch = Db.getBatch(table);
+    if (batch.isEmpty()) {
+      return;
+    }
+    Db.useDSLContext(ctx -> {
+      UpdateQuery<?> updateQuery = ctx.updateQuery(tableClass);
+      updateQuery.addValue(latestField, false);
+      for (String column : dbKeyFactory.getPKColumns()) {
+        updateQuery.addConditions(tableClass.field(column, Long.class).eq((Long) null));
+      }
+      updateQuery.addConditions(latestField.isTrue());
+      BatchBindStep updateBatch = ctx.batch(updateQuery);
+      for (BurstKey dbKey : batch.keySet()) {
+        List<Object> bindValues = new ArrayList<>();
+        bindValues.add(false);
+        for (long pkValue : dbKey.getPKValues()) {
+          bindValues.add(pkValue);
+        }
+        updateBatch.bind(bindValues.toArray());
+      }
+      updateBatch.execute();
+
+      save(ctx, batch.values());
+    });
+    batch.clear();
+  }
+
+  @Override
+  public void finish() {
+    flushPendingWrites();
   }
 
   @Override
   public void rollback(int height) {
+    flushPendingWrites();
     rollback(table, tableClass, heightField, latestField, height, dbKeyFactory);
+    sharedCacheCleared();
+  }
+
+  @Override
+  public void truncate() {
+    if (writeBehind && Db.isInTransaction()) {
+      Db.getBatch(table).clear();
+    }
+    super.truncate();
   }
 
   static void rollback(final String table, final TableImpl<?> tableClass, Field<Integer> heightField, Field<Boolean> latestField, final int height, final DbKey.Factory<?> dbKeyFactory) {
@@ -32,55 +118,72 @@ public abstract class VersionedEntitySqlTable<T> extends EntitySqlTable<T> imple
     }
 
     Db.useDSLContext(ctx -> {
-      // get dbKey's for entries whose stuff newer than height would be deleted, to allow fixing
-      // their latest flag of the "potential" remaining newest entry
+      // the entries that will be the latest of their dbKey once everything newer than height is deleted,
+      // for all the dbKeys having such newer entries, fetched in one go before the delete
       SelectQuery<Record> selectForDeleteQuery = ctx.selectQuery();
       selectForDeleteQuery.addFrom(tableClass);
       selectForDeleteQuery.addConditions(heightField.gt(height));
-      for (String column : dbKeyFactory.getPKColumns()) {
-        selectForDeleteQuery.addSelect(tableClass.field(column, Long.class));
+      Field<?>[] pkFields = new Field<?>[dbKeyFactory.getPKColumns().length];
+      for (int i = 0; i < pkFields.length; i++) {
+        pkFields[i] = tableClass.field(dbKeyFactory.getPKColumns()[i], Long.class);
+        selectForDeleteQuery.addSelect(pkFields[i]);
       }
-      selectForDeleteQuery.setDistinct(true);
-      List<DbKey> dbKeys = selectForDeleteQuery.fetch(r -> (DbKey) dbKeyFactory.newKey(r));
+
+      SelectQuery<Record> selectMaxHeightQuery = ctx.selectQuery();
+      selectMaxHeightQuery.addFrom(tableClass);
+      selectMaxHeightQuery.addSelect(DSL.max(heightField).as("max_height"));
+      for (Field<?> pkField : pkFields) {
+        selectMaxHeightQuery.addSelect(pkField);
+        selectMaxHeightQuery.addGroupBy(pkField);
+      }
+      selectMaxHeightQuery.addConditions(heightField.le(height));
+      selectMaxHeightQuery.addConditions(DSL.row(pkFields).in(selectForDeleteQuery));
+      Result<Record> newLatest = selectMaxHeightQuery.fetch();
 
       // delete all entries > height
       DeleteQuery deleteQuery = ctx.deleteQuery(tableClass);
       deleteQuery.addConditions(heightField.gt(height));
       deleteQuery.execute();
 
-      // update latest flags for remaining entries, if there any remaining (per deleted dbKey)
-      for (DbKey dbKey : dbKeys) {
-        SelectQuery<Record> selectMaxHeightQuery = ctx.selectQuery();
-        selectMaxHeightQuery.addFrom(tableClass);
-        selectMaxHeightQuery.addConditions(dbKey.getPKConditions(tableClass));
-        selectMaxHeightQuery.addSelect(DSL.max(heightField));
-        Integer maxHeight = selectMaxHeightQuery.fetchOne().get(DSL.max(heightField));
-
-        if (maxHeight != null) {
-          UpdateQuery setLatestQuery = ctx.updateQuery(tableClass);
-          setLatestQuery.addConditions(dbKey.getPKConditions(tableClass));
-          setLatestQuery.addConditions(heightField.eq(maxHeight));
-          setLatestQuery.addValue(latestField, true);
-          setLatestQuery.execute();
+      // update latest flags for the remaining entries, in a single batch
+      if (newLatest.isNotEmpty()) {
+        UpdateQuery setLatestQuery = ctx.updateQuery(tableClass);
+        setLatestQuery.addValue(latestField, true);
+        setLatestQuery.addConditions(heightField.eq((Integer) null));
+        for (String column : dbKeyFactory.getPKColumns()) {
+          setLatestQuery.addConditions(tableClass.field(column, Long.class).eq((Long) null));
         }
+        BatchBindStep setLatestBatch = ctx.batch(setLatestQuery);
+        for (Record record : newLatest) {
+          DbKey dbKey = (DbKey) dbKeyFactory.newKey(record);
+          List<Object> bindValues = new ArrayList<>();
+          bindValues.add(true);
+          bindValues.add(record.get("max_height", Integer.class));
+          for (Long pkValue : dbKey.getPKValues()) {
+            bindValues.add(pkValue);
+          }
+          setLatestBatch.bind(bindValues.toArray());
+        }
+        logger.debug("Rolling back {} to height {}, {} entries back to latest", tableClass, height, setLatestBatch.size());
+        setLatestBatch.execute();
       }
     });
     Db.getCache(table).clear();
   }
 
   @Override
-  public final void trim(int height) {
-    trim(tableClass, heightField, height, dbKeyFactory);
+  public final int trim(int height, int fromHeight, int maxKeys) {
+    return trim(tableClass, heightField, height, fromHeight, dbKeyFactory, maxKeys);
   }
 
-  static void trim(final TableImpl<?> tableClass, Field<Integer> heightField, final int height, final DbKey.Factory dbKeyFactory) {
+  static int trim(final TableImpl<?> tableClass, Field<Integer> heightField, final int height, final int fromHeight, final DbKey.Factory dbKeyFactory, final int maxKeys) {
     if (!Db.isInTransaction()) {
       throw new IllegalStateException("Not in transaction");
     }
 
     // "accounts" is just an example to make it easier to understand what the code does
     // select all accounts with multiple entries where height < trimToHeight[current height - 1440]
-    Db.useDSLContext(ctx -> {
+    return Db.useDSLContext(ctx -> {
       SelectQuery<Record> selectMaxHeightQuery = ctx.selectQuery();
       selectMaxHeightQuery.addFrom(tableClass);
       selectMaxHeightQuery.addSelect(DSL.max(heightField).as("max_height"));
@@ -90,9 +193,22 @@ public abstract class VersionedEntitySqlTable<T> extends EntitySqlTable<T> imple
         selectMaxHeightQuery.addGroupBy(pkField);
       }
       selectMaxHeightQuery.addConditions(heightField.lt(height));
+      if (fromHeight > 0) {
+        // accounts trimmed before fromHeight have a single entry below it, only the ones changed since can have more
+        SelectQuery<Record> selectChangedQuery = ctx.selectQuery();
+        selectChangedQuery.addFrom(tableClass);
+        Field<?>[] pkFields = new Field<?>[dbKeyFactory.getPKColumns().length];
+        for (int i = 0; i < pkFields.length; i++) {
+          pkFields[i] = tableClass.field(dbKeyFactory.getPKColumns()[i], Long.class);
+          selectChangedQuery.addSelect(pkFields[i]);
+        }
+        selectChangedQuery.addConditions(heightField.ge(fromHeight));
+        selectChangedQuery.addConditions(heightField.lt(height));
+        selectMaxHeightQuery.addConditions(DSL.row(pkFields).in(selectChangedQuery));
+      }
       selectMaxHeightQuery.addHaving(DSL.countDistinct(heightField).gt(1));
       // to avoid problems if trimming is enable after sync
-      selectMaxHeightQuery.addLimit(50000);
+      selectMaxHeightQuery.addLimit(maxKeys);
 
       // delete all fetched accounts, except if it's height is the max height we figured out
       DeleteQuery deleteLowerHeightQuery = ctx.deleteQuery(tableClass);
@@ -117,6 +233,7 @@ public abstract class VersionedEntitySqlTable<T> extends EntitySqlTable<T> imple
       if (deleteBatch.size() > 0) {
         deleteBatch.execute();
       }
+      return deleteBatch.size();
     });
   }
 
@@ -128,7 +245,9 @@ public abstract class VersionedEntitySqlTable<T> extends EntitySqlTable<T> imple
     if (!Db.isInTransaction()) {
       throw new IllegalStateException("Not in transaction");
     }
+    flushPendingWrites();
     DbKey dbKey = (DbKey) dbKeyFactory.newKey(t);
+    sharedCacheChanged(dbKey);
     return Db.useDSLContext(ctx -> {
       try {
         SelectQuery<Record> countQuery = ctx.selectQuery();
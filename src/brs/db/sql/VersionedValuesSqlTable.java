@@ -15,7 +15,7 @@ public abstract class VersionedValuesSqlTable<T, V> extends ValuesSqlTable<T, V>
   }
 
   @Override
-  public final void trim(int height) {
-    VersionedEntitySqlTable.trim(tableClass, heightField, height, dbKeyFactory);
+  public final int trim(int height, int fromHeight, int maxKeys) {
+    return VersionedEntitySqlTable.trim(tableClass, heightField, height, fromHeight, dbKeyFactory, maxKeys);
   }
 }
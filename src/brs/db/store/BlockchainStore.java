@@ -54,4 +54,9 @@ public interface BlockchainStore {
   Collection<Block> getLatestBlocks(int amountBlocks);
 
   long getCommittedAmount(long accountId, int height, int endHeight, Transaction skipTransaction);
+
+  /**
+   * The commitment add and remove transactions up to the height, in height order.
+   */
+  Collection<Transaction> getCommitmentTransactions(int height);
 }
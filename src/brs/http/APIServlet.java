@@ -2,6 +2,7 @@ package brs.http;
 
 import brs.*;
 import brs.assetexchange.AssetExchange;
+import brs.db.sql.Db;
 import brs.deeplink.DeeplinkQRCodeGenerator;
 import brs.feesuggestions.FeeSuggestionCalculator;
 import brs.props.PropertyService;
@@ -86,11 +87,11 @@ public final class APIServlet extends HttpServlet {
     map.put("getAssetsByIssuer", new GetAssetsByIssuer(parameterService, assetExchange, accountService));
     map.put("getAssetsByOwner", new GetAssetsByOwner(parameterService, assetExchange, accountService));
     map.put("getAssetsByName", new GetAssetsByName(assetExchange, accountService));
-    map.put("getAssetAccounts", new GetAssetAccounts(parameterService, assetExchange));
+    map.put("getAssetAccounts", new GetAssetAccounts(parameterService, assetExchange, blockchain));
     map.put("getBalance", new GetBalance(parameterService));
     map.put("getBlock", new GetBlock(blockchain, blockService));
     map.put("getBlockId", new GetBlockId(blockchain));
-    map.put("getBlocks", new GetBlocks(blockchain, blockService));
+    map.put("getBlocks", new GetBlocks(blockchain, blockService, parameterService));
     map.put("getBlockchainStatus", new GetBlockchainStatus(blockchainProcessor, blockchain, timeService));
     map.put("getConstants", GetConstants.instance);
     map.put("getDGSGoods", new GetDGSGoods(digitalGoodsStoreService));
@@ -105,7 +106,7 @@ public final class APIServlet extends HttpServlet {
     map.put("getPeers", GetPeers.instance);
     map.put("getState", new GetState(blockchain, assetExchange, accountService, escrowService, aliasService, timeService, atService, generator, propertyService));
     map.put("getTime", new GetTime(timeService));
-    map.put("getTrades", new GetTrades(parameterService, assetExchange));
+    map.put("getTrades", new GetTrades(parameterService, assetExchange, blockchain));
     map.put("getTradeJournal", new GetTradeJournal(parameterService, assetExchange));
     map.put("getAllTrades", new GetAllTrades(assetExchange));
     map.put("getAssetTransfers", new GetAssetTransfers(parameterService, accountService, assetExchange));
@@ -184,6 +185,10 @@ public final class APIServlet extends HttpServlet {
     map.put("fullReset", new FullReset(blockchainProcessor, propertyService));
     map.put("popOff", new PopOff(blockchainProcessor, blockchain, blockService, propertyService));
     map.put("backupDB", new BackupDB(propertyService));
+    map.put("exportSnapshot", new ExportSnapshot(blockchainProcessor, propertyService));
+    map.put("getCacheStatistics", new GetCacheStatistics(propertyService));
+    map.put("getConnectionPoolStatistics", new GetConnectionPoolStatistics(propertyService));
+    map.put("getSqlStatistics", new GetSqlStatistics(propertyService));
 
     // Extra api for the custom network parameters
     if(params != null) {
@@ -348,7 +353,15 @@ public final class APIServlet extends HttpServlet {
 
     try {
       if (!acceptSurplusParams) apiRequestHandler.validateParams(req);
-      apiRequestHandler.processRequest(req, resp);
+      // the handlers not changing anything read from the read pool, when there is one
+      if (!apiRequestHandler.requirePost()) {
+        Db.beginReadOnly();
+      }
+      try {
+        apiRequestHandler.processRequest(req, resp);
+      } finally {
+        Db.endReadOnly();
+      }
     } catch (ParameterException e) {
       writeJsonToResponse(resp, e.getErrorResponse());
     } catch (RuntimeException e) {
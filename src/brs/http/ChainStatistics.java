@@ -0,0 +1,141 @@
+package brs.http;
+
+import brs.Block;
+import brs.Blockchain;
+import brs.TransactionType;
+import brs.assetexchange.AssetExchange;
+import brs.services.ATService;
+import brs.services.AccountService;
+import brs.services.AliasService;
+import brs.services.TimeService;
+
+import java.util.function.Function;
+
+/**
+ * The counts of getState, which are aggregates over whole tables, computed again only once they are
+ * both out of date and older than {@link #MAX_AGE_MILLIS}.
+ * <p>
+ * Whoever asks first pays for the queries, everyone else gets the cached counts, so getState can be
+ * polled, and a node pushing blocks fast while syncing does not recompute them for every block.
+ * The counts and the admin only balance counts have locks of their own, so the slower balance
+ * aggregates never hold up the public counts.
+ */
+final class ChainStatistics {
+
+  static final long MAX_AGE_MILLIS = 30_000;
+
+  private final Blockchain blockchain;
+  private final AccountService accountService;
+  private final AssetExchange assetExchange;
+  private final AliasService aliasService;
+  private final ATService atService;
+  private final TimeService timeService;
+
+  private final Cached<Counts> counts = new Cached<>(lastBlock -> new Counts());
+  private final Cached<BalanceCounts> balanceCounts = new Cached<>(lastBlock -> new BalanceCounts(lastBlock.getHeight()));
+
+  ChainStatistics(Blockchain blockchain, AccountService accountService, AssetExchange assetExchange,
+                  AliasService aliasService, ATService atService, TimeService timeService) {
+    this.blockchain = blockchain;
+    this.accountService = accountService;
+    this.assetExchange = assetExchange;
+    this.aliasService = aliasService;
+    this.atService = atService;
+    this.timeService = timeService;
+  }
+
+  Counts getCounts() {
+    return counts.get();
+  }
+
+  BalanceCounts getBalanceCounts() {
+    return balanceCounts.get();
+  }
+
+  private final class Cached<T> {
+
+    private final Function<Block, T> compute;
+
+    private volatile Entry<T> entry;
+
+    private Cached(Function<Block, T> compute) {
+      this.compute = compute;
+    }
+
+    private T get() {
+      Block lastBlock = blockchain.getLastBlock();
+      Entry<T> current = entry;
+      if (isValid(current, lastBlock)) {
+        return current.value;
+      }
+      synchronized (this) {
+        current = entry;
+        if (!isValid(current, lastBlock)) {
+          current = new Entry<>(compute.apply(lastBlock), lastBlock.getId(), timeService.getEpochTimeMillis());
+          entry = current;
+        }
+        return current.value;
+      }
+    }
+
+    private boolean isValid(Entry<T> current, Block lastBlock) {
+      return current != null
+          && (current.blockId == lastBlock.getId() || timeService.getEpochTimeMillis() - current.computedAt < MAX_AGE_MILLIS);
+    }
+  }
+
+  private static final class Entry<T> {
+
+    private final T value;
+    private final long blockId;
+    private final long computedAt;
+
+    private Entry(T value, long blockId, long computedAt) {
+      this.value = value;
+      this.blockId = blockId;
+      this.computedAt = computedAt;
+    }
+  }
+
+  final class Counts {
+
+    final int numberOfTransactions;
+    final int numberOfATs;
+    final int numberOfAssets;
+    final int numberOfAskOrders;
+    final int numberOfBidOrders;
+    final int numberOfTrades;
+    final int numberOfTransfers;
+    final int numberOfAliases;
+    final int numberOfSubscriptions;
+    final int numberOfSubscriptionPayments;
+
+    private Counts() {
+      numberOfTransactions = blockchain.getTransactionCount();
+      numberOfATs = atService.getAllATIds(null).size();
+      numberOfAssets = assetExchange.getAssetsCount();
+      numberOfAskOrders = assetExchange.getAskCount();
+      numberOfBidOrders = assetExchange.getBidCount();
+      numberOfTrades = assetExchange.getTradesCount();
+      numberOfTransfers = assetExchange.getAssetTransferCount();
+      numberOfAliases = aliasService.getAliasCount();
+      numberOfSubscriptions = blockchain.countTransactions(TransactionType.TYPE_ADVANCED_PAYMENT.getType(),
+          TransactionType.SUBTYPE_ADVANCED_PAYMENT_SUBSCRIPTION_SUBSCRIBE, TransactionType.SUBTYPE_ADVANCED_PAYMENT_SUBSCRIPTION_SUBSCRIBE);
+      numberOfSubscriptionPayments = blockchain.countTransactions(TransactionType.TYPE_ADVANCED_PAYMENT.getType(),
+          TransactionType.SUBTYPE_ADVANCED_PAYMENT_SUBSCRIPTION_PAYMENT, TransactionType.SUBTYPE_ADVANCED_PAYMENT_SUBSCRIPTION_PAYMENT);
+    }
+  }
+
+  final class BalanceCounts {
+
+    final long totalEffectiveBalanceNQT;
+    final long totalCommittedNQT;
+    final int numberOfAccounts;
+
+    private BalanceCounts(int height) {
+      totalEffectiveBalanceNQT = accountService.getAllAccountsBalance();
+      totalCommittedNQT = blockchain.getCommittedAmount(0L, height, height, null);
+      numberOfAccounts = accountService.getCount();
+    }
+  }
+}
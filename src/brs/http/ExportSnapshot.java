@@ -0,0 +1,70 @@
+package brs.http;
+
+import static brs.http.common.Parameters.FILENAME_PARAMETER;
+import static brs.http.JSONResponses.ERROR_NOT_ALLOWED;
+import static brs.http.common.Parameters.API_KEY_PARAMETER;
+import static brs.http.common.ResultFields.ERROR_RESPONSE;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import brs.BlockchainProcessor;
+import brs.db.sql.Snapshot;
+import brs.props.PropertyService;
+import brs.props.Props;
+import brs.util.Convert;
+
+/**
+ * Exports a state snapshot at the current height, use popOff before to get one at a lower height.
+ */
+final class ExportSnapshot extends APIServlet.JsonRequestHandler {
+
+  private final BlockchainProcessor blockchainProcessor;
+  private final List<String> apiAdminKeyList;
+
+  ExportSnapshot(BlockchainProcessor blockchainProcessor, PropertyService propertyService) {
+    super(new APITag[] {APITag.ADMIN}, FILENAME_PARAMETER, API_KEY_PARAMETER);
+    this.blockchainProcessor = blockchainProcessor;
+
+    apiAdminKeyList = propertyService.getStringList(Props.API_ADMIN_KEY_LIST);
+  }
+
+  @Override
+  protected
+  JsonElement processRequest(HttpServletRequest req) {
+
+    JsonObject response = new JsonObject();
+    String filename = req.getParameter(FILENAME_PARAMETER);
+    String apiKey = req.getParameter(API_KEY_PARAMETER);
+
+    if(!apiAdminKeyList.contains(apiKey)) {
+      return ERROR_NOT_ALLOWED;
+    }
+
+    if(filename == null || filename.length() == 0) {
+      response.addProperty(ERROR_RESPONSE, "invalid filename");
+      return response;
+    }
+
+    try {
+      Snapshot.Export export = blockchainProcessor.exportSnapshot(filename);
+      response.addProperty("height", export.getHeight());
+      response.addProperty("stateHash", Convert.toHexString(export.getStateHash()));
+    } catch (IOException e) {
+      response.addProperty(ERROR_RESPONSE, "snapshot export failed: " + e.getMessage());
+    }
+
+    return response;
+  }
+
+  @Override
+  final boolean requirePost() {
+    return true;
+  }
+
+}
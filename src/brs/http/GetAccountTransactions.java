@@ -14,6 +14,7 @@ import com.google.gson.JsonObject;
 import javax.servlet.http.HttpServletRequest;
 
 import static brs.http.common.Parameters.*;
+import static brs.http.common.ResultFields.HEIGHT_RESPONSE;
 import static brs.http.common.ResultFields.NEXT_INDEX_RESPONSE;
 import static brs.http.common.ResultFields.TRANSACTIONS_RESPONSE;
 
@@ -25,7 +26,7 @@ final class GetAccountTransactions extends APIServlet.JsonRequestHandler {
   private final Blockchain blockchain;
 
   GetAccountTransactions(ParameterService parameterService, Blockchain blockchain) {
-    super(new APITag[] {APITag.ACCOUNTS}, ACCOUNT_PARAMETER, TIMESTAMP_PARAMETER, TYPE_PARAMETER, SUBTYPE_PARAMETER, FIRST_INDEX_PARAMETER, LAST_INDEX_PARAMETER, NUMBER_OF_CONFIRMATIONS_PARAMETER, INCLUDE_INDIRECT_PARAMETER);
+    super(new APITag[] {APITag.ACCOUNTS}, ACCOUNT_PARAMETER, TIMESTAMP_PARAMETER, TYPE_PARAMETER, SUBTYPE_PARAMETER, FIRST_INDEX_PARAMETER, LAST_INDEX_PARAMETER, NUMBER_OF_CONFIRMATIONS_PARAMETER, HEIGHT_PARAMETER, INCLUDE_INDIRECT_PARAMETER);
     this.parameterService = parameterService;
     this.blockchain = blockchain;
   }
@@ -59,14 +60,20 @@ final class GetAccountTransactions extends APIServlet.JsonRequestHandler {
       throw new IllegalArgumentException("lastIndex must be greater or equal to firstIndex");
     }
 
+    int height = ReadAtHeight.getHeight(req, parameterService, blockchain);
+
     JsonArray transactions = new JsonArray();
-    CollectionWithIndex<Transaction> accountTransactions = blockchain.getTransactions(account, numberOfConfirmations, type, subtype, timestamp, firstIndex, lastIndex, parameterService.getIncludeIndirect(req));
+    byte transactionType = type;
+    byte transactionSubtype = subtype;
+    CollectionWithIndex<Transaction> accountTransactions = ReadAtHeight.read(height,
+        () -> blockchain.getTransactions(account, numberOfConfirmations, transactionType, transactionSubtype, timestamp, firstIndex, lastIndex, parameterService.getIncludeIndirect(req)));
     for (Transaction transaction : accountTransactions) {
       transactions.add(JSONData.transaction(transaction, blockchain.getHeight()));
     }
 
     JsonObject response = new JsonObject();
     response.add(TRANSACTIONS_RESPONSE, transactions);
+    response.addProperty(HEIGHT_RESPONSE, height);
     
     if(accountTransactions.hasNextIndex()) {
       response.addProperty(NEXT_INDEX_RESPONSE, accountTransactions.nextIndex());
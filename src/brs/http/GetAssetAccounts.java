@@ -3,6 +3,7 @@ package brs.http;
 import brs.Account;
 import brs.Account.AccountAsset;
 import brs.Asset;
+import brs.Blockchain;
 import brs.Burst;
 import brs.BurstException;
 import brs.assetexchange.AssetExchange;
@@ -18,17 +19,20 @@ import com.google.gson.JsonObject;
 import javax.servlet.http.HttpServletRequest;
 
 import static brs.http.common.Parameters.*;
+import static brs.http.common.ResultFields.HEIGHT_RESPONSE;
 import static brs.http.common.ResultFields.NEXT_INDEX_RESPONSE;
 
 final class GetAssetAccounts extends APIServlet.JsonRequestHandler {
 
   private final ParameterService parameterService;
   private final AssetExchange assetExchange;
+  private final Blockchain blockchain;
 
-  GetAssetAccounts(ParameterService parameterService, AssetExchange assetExchange) {
-    super(new APITag[]{APITag.AE}, ASSET_PARAMETER, ASSET_IGNORE_TREASURY_PARAMETER, QUANTITY_MININUM_QNT_PARAMETER, FIRST_INDEX_PARAMETER, LAST_INDEX_PARAMETER);
+  GetAssetAccounts(ParameterService parameterService, AssetExchange assetExchange, Blockchain blockchain) {
+    super(new APITag[]{APITag.AE}, ASSET_PARAMETER, ASSET_IGNORE_TREASURY_PARAMETER, QUANTITY_MININUM_QNT_PARAMETER, FIRST_INDEX_PARAMETER, LAST_INDEX_PARAMETER, HEIGHT_PARAMETER);
     this.parameterService = parameterService;
     this.assetExchange = assetExchange;
+    this.blockchain = blockchain;
   }
 
   @Override
@@ -41,17 +45,19 @@ final class GetAssetAccounts extends APIServlet.JsonRequestHandler {
     long minimumQuantity = Convert.parseUnsignedLong(req.getParameter(QUANTITY_MININUM_QNT_PARAMETER));
     // default is to filter out ignored accounts
     boolean filterTreasury = "false".equals(req.getParameter(ASSET_IGNORE_TREASURY_PARAMETER)) ? false : true;
+    int height = ReadAtHeight.getHeight(req, parameterService, blockchain);
 
     JsonArray accountAssetsArray = new JsonArray();
     boolean unconfirmed = !Burst.getFluxCapacitor().getValue(FluxValues.DISTRIBUTION_FIX);
-    CollectionWithIndex<AccountAsset> accountAssets = assetExchange.getAssetAccounts(asset,
-        filterTreasury, minimumQuantity, unconfirmed, firstIndex, lastIndex);
+    CollectionWithIndex<AccountAsset> accountAssets = ReadAtHeight.read(height,
+        () -> assetExchange.getAssetAccounts(asset, filterTreasury, minimumQuantity, unconfirmed, firstIndex, lastIndex));
     for (Account.AccountAsset accountAsset : accountAssets) {
       accountAssetsArray.add(JSONData.accountAsset(accountAsset));
     }
 
     JsonObject response = new JsonObject();
     response.add("accountAssets", accountAssetsArray);
+    response.addProperty(HEIGHT_RESPONSE, height);
     
     if(accountAssets.hasNextIndex()) {
       response.addProperty(NEXT_INDEX_RESPONSE, accountAssets.nextIndex());
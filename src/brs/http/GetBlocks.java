@@ -4,6 +4,7 @@ import brs.Block;
 import brs.Blockchain;
 import brs.http.common.Parameters;
 import brs.services.BlockService;
+import brs.services.ParameterService;
 import brs.util.CollectionWithIndex;
 
 import com.google.gson.JsonArray;
@@ -13,22 +14,25 @@ import com.google.gson.JsonObject;
 import javax.servlet.http.HttpServletRequest;
 
 import static brs.http.common.Parameters.*;
+import static brs.http.common.ResultFields.HEIGHT_RESPONSE;
 import static brs.http.common.ResultFields.NEXT_INDEX_RESPONSE;
 
 final class GetBlocks extends APIServlet.JsonRequestHandler {
 
   private final Blockchain blockchain;
   private final BlockService blockService;
+  private final ParameterService parameterService;
 
-  GetBlocks(Blockchain blockchain, BlockService blockService) {
-    super(new APITag[] {APITag.BLOCKS}, FIRST_INDEX_PARAMETER, LAST_INDEX_PARAMETER, INCLUDE_TRANSACTIONS_PARAMETER);
+  GetBlocks(Blockchain blockchain, BlockService blockService, ParameterService parameterService) {
+    super(new APITag[] {APITag.BLOCKS}, FIRST_INDEX_PARAMETER, LAST_INDEX_PARAMETER, HEIGHT_PARAMETER, INCLUDE_TRANSACTIONS_PARAMETER);
     this.blockchain = blockchain;
     this.blockService = blockService;
+    this.parameterService = parameterService;
   }
 
   @Override
   protected
-  JsonElement processRequest(HttpServletRequest req) {
+  JsonElement processRequest(HttpServletRequest req) throws ParameterException {
 
     int firstIndex = ParameterParser.getFirstIndex(req);
     int lastIndex = ParameterParser.getLastIndex(req);
@@ -37,15 +41,20 @@ final class GetBlocks extends APIServlet.JsonRequestHandler {
     }
 
     boolean includeTransactions = Parameters.isTrue(req.getParameter(Parameters.INCLUDE_TRANSACTIONS_PARAMETER));
+    int height = ReadAtHeight.getHeight(req, parameterService, blockchain);
 
     JsonArray blocksArray = new JsonArray();
-    CollectionWithIndex<Block> blocks = new CollectionWithIndex<Block>(blockchain.getBlocks(firstIndex, lastIndex), firstIndex, lastIndex);
+    int from = firstIndex;
+    int to = lastIndex;
+    CollectionWithIndex<Block> blocks = ReadAtHeight.read(height,
+        () -> new CollectionWithIndex<Block>(blockchain.getBlocks(from, to), from, to));
     for (Block block : blocks) {
       blocksArray.add(JSONData.block(block, includeTransactions, blockchain.getHeight(), blockService.getBlockReward(block), blockService.getScoopNum(block)));
     }
 
     JsonObject response = new JsonObject();
     response.add("blocks", blocksArray);
+    response.addProperty(HEIGHT_RESPONSE, height);
     
     if(blocks.hasNextIndex()) {
       response.addProperty(NEXT_INDEX_RESPONSE, blocks.nextIndex());
@@ -0,0 +1,62 @@
+package brs.http;
+
+import static brs.http.JSONResponses.ERROR_NOT_ALLOWED;
+import static brs.http.common.Parameters.API_KEY_PARAMETER;
+
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import brs.db.cache.DBCacheManagerImpl;
+import brs.db.sql.Db;
+import brs.props.PropertyService;
+import brs.props.Props;
+import brs.statistics.StatisticsManagerImpl;
+
+/**
+ * Hits, misses and evictions of the database caches since startup, to size them with DB.cache.* properties.
+ */
+final class GetCacheStatistics extends APIServlet.JsonRequestHandler {
+
+  private final List<String> apiAdminKeyList;
+
+  GetCacheStatistics(PropertyService propertyService) {
+    super(new APITag[] {APITag.ADMIN}, API_KEY_PARAMETER);
+
+    apiAdminKeyList = propertyService.getStringList(Props.API_ADMIN_KEY_LIST);
+  }
+
+  @Override
+  protected
+  JsonElement processRequest(HttpServletRequest req) {
+    String apiKey = req.getParameter(API_KEY_PARAMETER);
+
+    if(!apiAdminKeyList.contains(apiKey)) {
+      return ERROR_NOT_ALLOWED;
+    }
+
+    DBCacheManagerImpl dbCacheManager = Db.getDbCacheManager();
+    JsonArray caches = new JsonArray();
+    for (String cacheName : dbCacheManager.getCacheNames()) {
+      JsonObject cache = new JsonObject();
+      cache.addProperty("name", cacheName);
+      cache.addProperty("limit", dbCacheManager.getCacheLimit(cacheName));
+
+      StatisticsManagerImpl.CacheStatisticsOverview statistics = dbCacheManager.getStatisticsManager().getCacheStatistics(cacheName);
+      cache.addProperty("hits", statistics != null ? statistics.getHits() : 0);
+      cache.addProperty("misses", statistics != null ? statistics.getMisses() : 0);
+      cache.addProperty("evictions", statistics != null ? statistics.getEvictions() : 0);
+      cache.addProperty("hitRatio", statistics != null ? statistics.getHitRatio() : 0);
+      caches.add(cache);
+    }
+
+    JsonObject response = new JsonObject();
+    response.add("caches", caches);
+    return response;
+  }
+
+}
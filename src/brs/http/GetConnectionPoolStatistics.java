@@ -0,0 +1,65 @@
+package brs.http;
+
+import static brs.http.JSONResponses.ERROR_NOT_ALLOWED;
+import static brs.http.common.Parameters.API_KEY_PARAMETER;
+
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import brs.db.sql.Db;
+import brs.props.PropertyService;
+import brs.props.Props;
+
+/**
+ * The connections in use and the threads waiting for one, of the main pool and of the read pool set with DB.ReadConnections.
+ */
+final class GetConnectionPoolStatistics extends APIServlet.JsonRequestHandler {
+
+  private final List<String> apiAdminKeyList;
+
+  GetConnectionPoolStatistics(PropertyService propertyService) {
+    super(new APITag[] {APITag.ADMIN}, API_KEY_PARAMETER);
+
+    apiAdminKeyList = propertyService.getStringList(Props.API_ADMIN_KEY_LIST);
+  }
+
+  @Override
+  protected
+  JsonElement processRequest(HttpServletRequest req) {
+    String apiKey = req.getParameter(API_KEY_PARAMETER);
+
+    if(!apiAdminKeyList.contains(apiKey)) {
+      return ERROR_NOT_ALLOWED;
+    }
+
+    JsonArray pools = new JsonArray();
+    for (HikariDataSource dataSource : Db.getPools()) {
+      JsonObject pool = new JsonObject();
+      pool.addProperty("name", dataSource.getPoolName());
+      pool.addProperty("readOnly", dataSource.isReadOnly());
+      pool.addProperty("maximumPoolSize", dataSource.getMaximumPoolSize());
+      pool.addProperty("connectionTimeoutMs", dataSource.getConnectionTimeout());
+
+      HikariPoolMXBean statistics = dataSource.getHikariPoolMXBean();
+      if (statistics != null) {
+        pool.addProperty("activeConnections", statistics.getActiveConnections());
+        pool.addProperty("idleConnections", statistics.getIdleConnections());
+        pool.addProperty("totalConnections", statistics.getTotalConnections());
+        pool.addProperty("threadsAwaitingConnection", statistics.getThreadsAwaitingConnection());
+      }
+      pools.add(pool);
+    }
+
+    JsonObject response = new JsonObject();
+    response.add("pools", pools);
+    return response;
+  }
+
+}
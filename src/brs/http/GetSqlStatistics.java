@@ -0,0 +1,71 @@
+package brs.http;
+
+import static brs.http.JSONResponses.ERROR_NOT_ALLOWED;
+import static brs.http.JSONResponses.FEATURE_NOT_AVAILABLE;
+import static brs.http.common.Parameters.API_KEY_PARAMETER;
+import static brs.http.common.Parameters.RESET_PARAMETER;
+import static brs.http.common.Parameters.isTrue;
+
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import brs.db.sql.Db;
+import brs.db.sql.SqlProfiler;
+import brs.props.PropertyService;
+import brs.props.Props;
+
+/**
+ * Calls, latencies and fetched rows per SQL statement, the ones taking the most time first, when DB.sqlProfiler is set.
+ * With reset=true the statistics start over after being returned.
+ */
+final class GetSqlStatistics extends APIServlet.JsonRequestHandler {
+
+  private final List<String> apiAdminKeyList;
+
+  GetSqlStatistics(PropertyService propertyService) {
+    super(new APITag[] {APITag.ADMIN}, API_KEY_PARAMETER, RESET_PARAMETER);
+
+    apiAdminKeyList = propertyService.getStringList(Props.API_ADMIN_KEY_LIST);
+  }
+
+  @Override
+  protected
+  JsonElement processRequest(HttpServletRequest req) {
+    String apiKey = req.getParameter(API_KEY_PARAMETER);
+
+    if(!apiAdminKeyList.contains(apiKey)) {
+      return ERROR_NOT_ALLOWED;
+    }
+
+    SqlProfiler sqlProfiler = Db.getSqlProfiler();
+    if (sqlProfiler == null) {
+      return FEATURE_NOT_AVAILABLE;
+    }
+
+    JsonArray statements = new JsonArray();
+    for (SqlProfiler.Statistics statistics : sqlProfiler.getStatistics()) {
+      JsonObject statement = new JsonObject();
+      statement.addProperty("sql", statistics.getSql());
+      statement.addProperty("calls", statistics.getCalls());
+      statement.addProperty("totalMs", statistics.getTotalMicros() / 1000);
+      statement.addProperty("p50Us", statistics.getP50Micros());
+      statement.addProperty("p99Us", statistics.getP99Micros());
+      statement.addProperty("maxUs", statistics.getMaxMicros());
+      statement.addProperty("rows", statistics.getRows());
+      statements.add(statement);
+    }
+    if (isTrue(req.getParameter(RESET_PARAMETER))) {
+      sqlProfiler.reset();
+    }
+
+    JsonObject response = new JsonObject();
+    response.add("statements", statements);
+    return response;
+  }
+
+}
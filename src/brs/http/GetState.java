@@ -27,12 +27,9 @@ import java.util.List;
 final class GetState extends APIServlet.JsonRequestHandler {
 
   private final Blockchain blockchain;
-  private final AssetExchange assetExchange;
-  private final AccountService accountService;
-  private final AliasService aliasService;
   private final TimeService timeService;
-  private final ATService atService;
   private final Generator generator;
+  private final ChainStatistics chainStatistics;
   private final PropertyService propertyService;
   private final List<String> apiAdminKeyList;
 
@@ -40,12 +37,9 @@ final class GetState extends APIServlet.JsonRequestHandler {
            AliasService aliasService, TimeService timeService, ATService atService, Generator generator, PropertyService propertyService) {
     super(new APITag[] {APITag.INFO}, INCLUDE_COUNTS_PARAMETER, API_KEY_PARAMETER);
     this.blockchain = blockchain;
-    this.assetExchange = assetExchange;
-    this.accountService = accountService;
-    this.aliasService = aliasService;
     this.timeService = timeService;
-    this.atService = atService;
     this.generator = generator;
+    this.chainStatistics = new ChainStatistics(blockchain, accountService, assetExchange, aliasService, atService, timeService);
     this.propertyService = propertyService;
     
     apiAdminKeyList = propertyService.getStringList(Props.API_ADMIN_KEY_LIST);
@@ -75,33 +69,30 @@ final class GetState extends APIServlet.JsonRequestHandler {
         return ERROR_NOT_ALLOWED;
       }
       
-      long totalEffectiveBalance = accountService.getAllAccountsBalance();
+      ChainStatistics.BalanceCounts balanceCounts = chainStatistics.getBalanceCounts();
+      long totalEffectiveBalance = balanceCounts.totalEffectiveBalanceNQT;
       response.addProperty("totalEffectiveBalance", totalEffectiveBalance / propertyService.getInt(Props.ONE_COIN_NQT));
       response.addProperty("totalEffectiveBalanceNQT", totalEffectiveBalance);
       
-      long totalCommitted = blockchain.getCommittedAmount(0L, blockchain.getHeight(), blockchain.getHeight(), null);
-      response.addProperty("totalCommittedNQT", totalCommitted);
+      response.addProperty("totalCommittedNQT", balanceCounts.totalCommittedNQT);
       
-      response.addProperty("numberOfAccounts", accountService.getCount());
+      response.addProperty("numberOfAccounts", balanceCounts.numberOfAccounts);
     }
 
+    ChainStatistics.Counts counts = chainStatistics.getCounts();
     response.addProperty("numberOfBlocks", blockchain.getHeight() + 1);
-    response.addProperty("numberOfTransactions", blockchain.getTransactionCount());
-    response.addProperty("numberOfATs", atService.getAllATIds(null).size());
-    response.addProperty("numberOfAssets", assetExchange.getAssetsCount());
-    int askCount = assetExchange.getAskCount();
-    int bidCount = assetExchange.getBidCount();
-    response.addProperty("numberOfOrders", askCount + bidCount);
-    response.addProperty("numberOfAskOrders", askCount);
-    response.addProperty("numberOfBidOrders", bidCount);
-    response.addProperty("numberOfTrades", assetExchange.getTradesCount());
-    response.addProperty("numberOfTransfers", assetExchange.getAssetTransferCount());
-    response.addProperty("numberOfAliases", aliasService.getAliasCount());
-
-    response.addProperty("numberOfSubscriptions", blockchain.countTransactions(TransactionType.TYPE_ADVANCED_PAYMENT.getType(),
-            TransactionType.SUBTYPE_ADVANCED_PAYMENT_SUBSCRIPTION_SUBSCRIBE, TransactionType.SUBTYPE_ADVANCED_PAYMENT_SUBSCRIPTION_SUBSCRIBE));
-    response.addProperty("numberOfSubscriptionPayments", blockchain.countTransactions(TransactionType.TYPE_ADVANCED_PAYMENT.getType(),
-            TransactionType.SUBTYPE_ADVANCED_PAYMENT_SUBSCRIPTION_PAYMENT, TransactionType.SUBTYPE_ADVANCED_PAYMENT_SUBSCRIPTION_PAYMENT));
+    response.addProperty("numberOfTransactions", counts.numberOfTransactions);
+    response.addProperty("numberOfATs", counts.numberOfATs);
+    response.addProperty("numberOfAssets", counts.numberOfAssets);
+    response.addProperty("numberOfOrders", counts.numberOfAskOrders + counts.numberOfBidOrders);
+    response.addProperty("numberOfAskOrders", counts.numberOfAskOrders);
+    response.addProperty("numberOfBidOrders", counts.numberOfBidOrders);
+    response.addProperty("numberOfTrades", counts.numberOfTrades);
+    response.addProperty("numberOfTransfers", counts.numberOfTransfers);
+    response.addProperty("numberOfAliases", counts.numberOfAliases);
+
+    response.addProperty("numberOfSubscriptions", counts.numberOfSubscriptions);
+    response.addProperty("numberOfSubscriptionPayments", counts.numberOfSubscriptionPayments);
 
     response.addProperty("numberOfPeers", Peers.getAllPeers().size());
     response.addProperty("numberOfUnlockedAccounts", generator.getAllGenerators().size());
@@ -115,6 +106,7 @@ final class GetState extends APIServlet.JsonRequestHandler {
     response.addProperty("freeMemory", Runtime.getRuntime().freeMemory());
     response.addProperty("indirectIncomingServiceEnabled", propertyService.getBoolean(Props.INDIRECT_INCOMING_SERVICE_ENABLE));
     response.addProperty("databaseTrimmingEnabled", propertyService.getBoolean(Props.DB_TRIM_DERIVED_TABLES));
+    response.addProperty("databaseTrimmingBacklog", Burst.getBlockchainProcessor().getTrimBacklog());
 
     return response;
   }
@@ -2,6 +2,7 @@ package brs.http;
 
 import brs.Account;
 import brs.Asset;
+import brs.Blockchain;
 import brs.BurstException;
 import brs.Trade;
 import brs.assetexchange.AssetExchange;
@@ -17,6 +18,7 @@ import com.google.gson.JsonObject;
 import javax.servlet.http.HttpServletRequest;
 
 import static brs.http.common.Parameters.*;
+import static brs.http.common.ResultFields.HEIGHT_RESPONSE;
 import static brs.http.common.ResultFields.NEXT_INDEX_RESPONSE;
 import static brs.http.common.ResultFields.TRADES_RESPONSE;
 
@@ -24,11 +26,13 @@ public final class GetTrades extends APIServlet.JsonRequestHandler {
 
   private final ParameterService parameterService;
   private final AssetExchange assetExchange;
+  private final Blockchain blockchain;
 
-  GetTrades(ParameterService parameterService, AssetExchange assetExchange) {
-    super(new APITag[] {APITag.AE}, ASSET_PARAMETER, ACCOUNT_PARAMETER, FIRST_INDEX_PARAMETER, LAST_INDEX_PARAMETER, INCLUDE_ASSET_INFO_PARAMETER);
+  GetTrades(ParameterService parameterService, AssetExchange assetExchange, Blockchain blockchain) {
+    super(new APITag[] {APITag.AE}, ASSET_PARAMETER, ACCOUNT_PARAMETER, FIRST_INDEX_PARAMETER, LAST_INDEX_PARAMETER, HEIGHT_PARAMETER, INCLUDE_ASSET_INFO_PARAMETER);
     this.parameterService = parameterService;
     this.assetExchange = assetExchange;
+    this.blockchain = blockchain;
   }
 
   @Override
@@ -41,25 +45,22 @@ public final class GetTrades extends APIServlet.JsonRequestHandler {
     int firstIndex = ParameterParser.getFirstIndex(req);
     int lastIndex = ParameterParser.getLastIndex(req);
     boolean includeAssetInfo = !Parameters.isFalse(req.getParameter(INCLUDE_ASSET_INFO_PARAMETER));
+    int height = ReadAtHeight.getHeight(req, parameterService, blockchain);
 
     JsonObject response = new JsonObject();
     JsonArray tradesData = new JsonArray();
-    CollectionWithIndex<Trade> trades;
-    Asset asset = null;
-    if (accountId == null) {
-      asset = parameterService.getAsset(req);
-      trades = assetExchange.getTrades(asset.getId(), firstIndex, lastIndex);
-    } else if (assetId == null) {
-      Account account = parameterService.getAccount(req);
-      trades = assetExchange.getAccountTrades(account.getId(), firstIndex, lastIndex);
-    } else {
-      asset = parameterService.getAsset(req);
-      Account account = parameterService.getAccount(req);
-      trades = assetExchange.getAccountAssetTrades(account.getId(), asset.getId(), firstIndex, lastIndex);
-    }
-    if(!includeAssetInfo) {
-      asset = null;
-    }
+    Asset requestAsset = accountId == null || assetId != null ? parameterService.getAsset(req) : null;
+    Account account = accountId != null ? parameterService.getAccount(req) : null;
+    CollectionWithIndex<Trade> trades = ReadAtHeight.read(height, () -> {
+      if (account == null) {
+        return assetExchange.getTrades(requestAsset.getId(), firstIndex, lastIndex);
+      } else if (requestAsset == null) {
+        return assetExchange.getAccountTrades(account.getId(), firstIndex, lastIndex);
+      } else {
+        return assetExchange.getAccountAssetTrades(account.getId(), requestAsset.getId(), firstIndex, lastIndex);
+      }
+    });
+    Asset asset = includeAssetInfo ? requestAsset : null;
     for (Trade trade : trades) {
       if(includeAssetInfo && (asset == null || asset.getId() != trade.getAssetId())) {
         asset = assetExchange.getAsset(trade.getAssetId());
@@ -67,6 +68,7 @@ public final class GetTrades extends APIServlet.JsonRequestHandler {
       tradesData.add(JSONData.trade(trade, asset));
     }
     response.add(TRADES_RESPONSE, tradesData);
+    response.addProperty(HEIGHT_RESPONSE, height);
     if(trades.hasNextIndex()) {
       response.addProperty(NEXT_INDEX_RESPONSE, trades.nextIndex());
     }
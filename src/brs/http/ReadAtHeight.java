@@ -0,0 +1,40 @@
+package brs.http;
+
+import brs.Blockchain;
+import brs.BurstException;
+import brs.db.sql.Db;
+import brs.services.ParameterService;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Reads the pages of a list as of one height, so that they do not shift when blocks are pushed in between.
+ * The first page is read at the current height, which is returned with it, and the client passes that height
+ * for the next pages.
+ */
+final class ReadAtHeight {
+
+  interface Read<T> {
+    T read() throws BurstException;
+  }
+
+  private ReadAtHeight() {
+  }
+
+  /**
+   * @return the height passed by the client, or the current height for a first page
+   */
+  static int getHeight(HttpServletRequest req, ParameterService parameterService, Blockchain blockchain) throws ParameterException {
+    int height = parameterService.getHeight(req);
+    return height >= 0 ? height : blockchain.getHeight();
+  }
+
+  static <T> T read(int height, Read<T> read) throws BurstException {
+    Db.beginReadAtHeight(height);
+    try {
+      return read.read();
+    } finally {
+      Db.endReadAtHeight();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package brs.peer;
+
+import brs.Block;
+import brs.BurstException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Framing of the block lists sent with the binary "B2" protocol: the number of blocks followed by
+ * every block's {@link Block#getTransferBytes()}, each prefixed with its length.
+ */
+public final class BinaryBlocks {
+
+  public static final String PROTOCOL_VERSION = "B2";
+  public static final String CONTENT_TYPE = "application/octet-stream";
+
+  private BinaryBlocks() {
+  }
+
+  public static byte[] write(Collection<? extends Block> blocks) {
+    List<byte[]> blocksBytes = new ArrayList<>(blocks.size());
+    for (Block block : blocks) {
+      blocksBytes.add(block.getTransferBytes());
+    }
+    return writeTransferBytes(blocksBytes);
+  }
+
+  /**
+   * Frames blocks already in their transfer bytes, as kept by the {@link brs.db.archive.BlockArchive}.
+   */
+  public static byte[] writeTransferBytes(List<byte[]> blocksBytes) {
+    int length = 4;
+    for (byte[] blockBytes : blocksBytes) {
+      length += 4 + blockBytes.length;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(blocksBytes.size());
+    for (byte[] blockBytes : blocksBytes) {
+      buffer.putInt(blockBytes.length);
+      buffer.put(blockBytes);
+    }
+    return buffer.array();
+  }
+
+  public static List<byte[]> read(byte[] data, int maxBlocks) throws BurstException.NotValidException {
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(data);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      int count = buffer.getInt();
+      if (count < 0 || count > maxBlocks) {
+        throw new BurstException.NotValidException("Invalid number of blocks " + count);
+      }
+      List<byte[]> blocksBytes = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+          throw new BurstException.NotValidException("Invalid block length " + length);
+        }
+        byte[] blockBytes = new byte[length];
+        buffer.get(blockBytes);
+        blocksBytes.add(blockBytes);
+      }
+      return blocksBytes;
+    } catch (BufferUnderflowException e) {
+      throw new BurstException.NotValidException("Truncated blocks data");
+    }
+  }
+}
@@ -9,7 +9,7 @@ import com.google.gson.JsonObject;
 
 import java.util.Collection;
 
-final class GetBlocksFromHeight implements PeerServlet.PeerRequestHandler {
+final class GetBlocksFromHeight implements PeerServlet.BinaryPeerRequestHandler {
 
   private final Blockchain blockchain;
 
@@ -21,6 +21,20 @@ final class GetBlocksFromHeight implements PeerServlet.PeerRequestHandler {
   @Override
   public JsonElement processRequest(JsonObject request, Peer peer) {
     JsonObject response = new JsonObject();
+    JsonArray nextBlocksArray = new JsonArray();
+    for (Block nextBlock : getBlocks(request)) {
+      nextBlocksArray.add(nextBlock.getJsonObject());
+    }
+    response.add("nextBlocks", nextBlocksArray);
+    return response;
+  }
+
+  @Override
+  public byte[] processBinaryRequest(JsonObject request, Peer peer) {
+    return BinaryBlocks.write(getBlocks(request));
+  }
+
+  private Collection<? extends Block> getBlocks(JsonObject request) {
     int blockHeight = JSON.getAsInt(request.get("height"));
     int numBlocks = 100;
 
@@ -38,13 +52,7 @@ final class GetBlocksFromHeight implements PeerServlet.PeerRequestHandler {
     }
     	    
     long blockId =  blockchain.getBlockIdAtHeight(blockHeight);
-    Collection<? extends Block> blocks = blockchain.getBlocksAfter(blockId, numBlocks);
-    JsonArray nextBlocksArray = new JsonArray();
-    for (Block nextBlock : blocks) {
-      nextBlocksArray.add(nextBlock.getJsonObject());
-    }
-    response.add("nextBlocks", nextBlocksArray);
-    return response;
+    return blockchain.getBlocksAfter(blockId, numBlocks);
   }
 
 }
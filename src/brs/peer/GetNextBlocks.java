@@ -3,6 +3,7 @@ package brs.peer;
 import brs.Block;
 import brs.Blockchain;
 import brs.Constants;
+import brs.db.archive.BlockArchive;
 import brs.props.PropertyService;
 import brs.props.Props;
 import brs.util.Convert;
@@ -13,22 +14,29 @@ import com.google.gson.JsonObject;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-final class GetNextBlocks implements PeerServlet.PeerRequestHandler {
+final class GetNextBlocks implements PeerServlet.BinaryPeerRequestHandler {
   
   private static final Logger logger = LoggerFactory.getLogger(GetNextBlocks.class);
 
   private final Blockchain blockchain;
+  private final BlockArchive blockArchive;
   private static final int MAX_LENGHT = 1048576;
   private static final int MAX_BLOCKS = 1440 / 2; // maxRollback must be at least 1440 and we are using half of that
   private final int maxBlocks;
 
   GetNextBlocks(Blockchain blockchain, PropertyService propertyService) {
+    this(blockchain, null, propertyService);
+  }
+
+  GetNextBlocks(Blockchain blockchain, BlockArchive blockArchive, PropertyService propertyService) {
     this.blockchain = blockchain;
+    this.blockArchive = blockArchive;
     
     maxBlocks = Math.min(MAX_BLOCKS, propertyService.getInt(Props.P2P_MAX_BLOCKS));
     logger.info("P2P max number of blocks: {}", maxBlocks);
@@ -40,6 +48,48 @@ final class GetNextBlocks implements PeerServlet.PeerRequestHandler {
 
     JsonObject response = new JsonObject();
 
+    JsonArray nextBlocksArray = new JsonArray();
+    for (Block nextBlock : getNextBlocks(request)) {
+      nextBlocksArray.add(nextBlock.getJsonObject());
+    }
+    response.add("nextBlocks", nextBlocksArray);
+
+    return response;
+  }
+
+  @Override
+  public byte[] processBinaryRequest(JsonObject request, Peer peer) {
+    if (blockArchive != null) {
+      List<byte[]> archivedBlocks = getArchivedNextBlocks(request);
+      if (!archivedBlocks.isEmpty()) {
+        return BinaryBlocks.writeTransferBytes(archivedBlocks);
+      }
+    }
+    return BinaryBlocks.write(getNextBlocks(request));
+  }
+
+  /**
+   * The next blocks as far as they are archived, nothing if the block asked for is not on our chain
+   * or the archive is behind a pop off.
+   */
+  private List<byte[]> getArchivedNextBlocks(JsonObject request) {
+    long blockId = Convert.parseUnsignedLong(JSON.getAsString(request.get("blockId")));
+    Block block = blockchain.getBlock(blockId);
+    if (block == null) {
+      return Collections.emptyList();
+    }
+    int height = block.getHeight() + 1;
+    BlockArchive.ArchivedBlocks archivedBlocks = blockArchive.getBlocks(height, blockId, maxBlocks, MAX_LENGHT);
+    List<byte[]> transferBytes = archivedBlocks.getTransferBytes();
+    int lastHeight = height + transferBytes.size() - 1;
+    if (transferBytes.isEmpty() || lastHeight > blockchain.getHeight()
+        || archivedBlocks.getLastBlockId() != blockchain.getBlockIdAtHeight(lastHeight)) {
+      return Collections.emptyList();
+    }
+    return transferBytes;
+  }
+
+  private List<Block> getNextBlocks(JsonObject request) {
     List<Block> nextBlocks = new ArrayList<>();
     int totalLength = 0;
     long blockId = Convert.parseUnsignedLong(JSON.getAsString(request.get("blockId")));
@@ -60,14 +110,7 @@ final class GetNextBlocks implements PeerServlet.PeerRequestHandler {
         blockId = block.getId();
       }      
     }
-
-    JsonArray nextBlocksArray = new JsonArray();
-    for (Block nextBlock : nextBlocks) {
-      nextBlocksArray.add(nextBlock.getJsonObject());
-    }
-    response.add("nextBlocks", nextBlocksArray);
-
-    return response;
+    return nextBlocks;
   }
 
 }
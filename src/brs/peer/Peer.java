@@ -70,6 +70,18 @@ public interface Peer extends Comparable<Peer> {
 
   JsonObject send(JsonElement request);
 
+  /**
+   * Sends the request with the binary "B2" protocol. A failed request marks the peer as {@link #send} does.
+   * @return the binary response, or null if the request failed or the peer does not support the protocol,
+   * which {@link #supportsBinaryProtocol()} tells apart
+   */
+  byte[] sendBinary(JsonObject request);
+
+  /**
+   * @return false once the peer answered a binary request as an older peer does, JSON must be used with it
+   */
+  boolean supportsBinaryProtocol();
+
   static boolean isHigherOrEqualVersion(Version ourVersion, Version possiblyLowerVersion) {
     if (ourVersion == null || possiblyLowerVersion == null) {
       return false;
@@ -42,6 +42,7 @@ final class PeerImpl implements Peer {
   private final AtomicLong downloadedVolume = new AtomicLong();
   private final AtomicLong uploadedVolume = new AtomicLong();
   private final AtomicInteger lastUpdated = new AtomicInteger();
+  private final AtomicBoolean binaryUnsupported = new AtomicBoolean(false);
   private byte[] lastDownloadedTransactionsDigest;
   private final Object lastDownloadedTransactionsLock = new Object();
 
@@ -314,15 +315,7 @@ final class PeerImpl implements Peer {
 
     try {
 
-      String address = announcedAddress.get() != null ? announcedAddress.get() : peerAddress;
-      StringBuilder buf = new StringBuilder(Constants.HTTP);
-      buf.append(address);
-      if (port.get() <= 0) {
-        buf.append(':');
-        buf.append(Burst.getPropertyService().getInt(Props.P2P_PORT));
-      }
-      buf.append("/burst");
-      URL url = new URL(buf.toString());
+      URL url = getUrl();
 
       if (Peers.communicationLoggingMask != 0) {
         StringWriter stringWriter = new StringWriter();
@@ -330,20 +323,7 @@ final class PeerImpl implements Peer {
         log = "\"" + url.toString() + "\": " + stringWriter.toString();
       }
 
-      connection = (HttpURLConnection)url.openConnection();
-      connection.setRequestMethod("POST");
-      connection.setDoOutput(true);
-      connection.setConnectTimeout(Peers.connectTimeout);
-      connection.setReadTimeout(Peers.readTimeout);
-      connection.addRequestProperty("User-Agent", "BRS/" + Burst.VERSION.toString());
-      connection.setRequestProperty("Accept-Encoding", "gzip");
-      connection.setRequestProperty("Connection", "close");
-
-      CountingOutputStream cos = new CountingOutputStream(connection.getOutputStream());
-      try (Writer writer = new BufferedWriter(new OutputStreamWriter(cos, StandardCharsets.UTF_8))) {
-        JSON.writeTo(request, writer);
-      } // rico666: no catch?
-      updateUploadedVolume(cos.getCount());
+      connection = openConnection(url, request);
 
       if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
         CountingInputStream cis = new CountingInputStream(connection.getInputStream());
@@ -415,6 +395,94 @@ final class PeerImpl implements Peer {
 
   }
 
+  @Override
+  public byte[] sendBinary(final JsonObject request) {
+    if (binaryUnsupported.get()) {
+      return null;
+    }
+    request.addProperty(Constants.PROTOCOL, BinaryBlocks.PROTOCOL_VERSION);
+    HttpURLConnection connection = null;
+    try {
+      connection = openConnection(getUrl(), request);
+      if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+        if (state.get() == State.CONNECTED) {
+          setState(State.DISCONNECTED);
+        } else {
+          setState(State.NON_CONNECTED);
+        }
+        return null;
+      }
+      CountingInputStream cis = new CountingInputStream(connection.getInputStream());
+      InputStream responseStream = cis;
+      if ("gzip".equals(connection.getHeaderField("Content-Encoding"))) {
+        responseStream = new GZIPInputStream(cis);
+      }
+      byte[] response;
+      try (InputStream inputStream = responseStream) {
+        response = inputStream.readAllBytes();
+      }
+      updateDownloadedVolume(cis.getCount());
+      String contentType = connection.getContentType();
+      if (contentType != null && contentType.startsWith(BinaryBlocks.CONTENT_TYPE)) {
+        return response;
+      }
+      // older peers answer the unknown protocol with a JSON error, use JSON with them from now on
+      JsonObject jsonResponse = JSON.getAsJsonObject(JSON.parse(new String(response, StandardCharsets.UTF_8)));
+      if (jsonResponse != null && "Unsupported protocol!".equals(JSON.getAsString(jsonResponse.get("error")))) {
+        logger.debug("Peer {} does not support the binary protocol: {}", peerAddress, JSON.getAsString(jsonResponse.get("error")));
+        binaryUnsupported.set(true);
+      }
+      return null;
+    } catch (RuntimeException|IOException e) {
+      if (!isConnectionException(e)) {
+        logger.debug("Error sending binary request", e);
+      }
+      if (state.get() == State.CONNECTED) {
+        setState(State.DISCONNECTED);
+      }
+      return null;
+    } finally {
+      if (connection != null) {
+        connection.disconnect();
+      }
+    }
+  }
+
+  @Override
+  public boolean supportsBinaryProtocol() {
+    return !binaryUnsupported.get();
+  }
+
+  private URL getUrl() throws MalformedURLException {
+    String address = announcedAddress.get() != null ? announcedAddress.get() : peerAddress;
+    StringBuilder buf = new StringBuilder(Constants.HTTP);
+    buf.append(address);
+    if (port.get() <= 0) {
+      buf.append(':');
+      buf.append(Burst.getPropertyService().getInt(Props.P2P_PORT));
+    }
+    buf.append("/burst");
+    return new URL(buf.toString());
+  }
+
+  private HttpURLConnection openConnection(URL url, JsonElement request) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+    connection.setRequestMethod("POST");
+    connection.setDoOutput(true);
+    connection.setConnectTimeout(Peers.connectTimeout);
+    connection.setReadTimeout(Peers.readTimeout);
+    connection.addRequestProperty("User-Agent", "BRS/" + Burst.VERSION.toString());
+    connection.setRequestProperty("Accept-Encoding", "gzip");
+    connection.setRequestProperty("Connection", "close");
+
+    CountingOutputStream cos = new CountingOutputStream(connection.getOutputStream());
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(cos, StandardCharsets.UTF_8))) {
+      JSON.writeTo(request, writer);
+    } // rico666: no catch?
+    updateUploadedVolume(cos.getCount());
+    return connection;
+  }
+
   private boolean isConnectionException(Throwable e) {
     if (e instanceof UnknownHostException || e instanceof SocketTimeoutException || e instanceof SocketException) return true;
     if (e.getCause() == null) return false;
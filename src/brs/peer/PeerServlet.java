@@ -3,6 +3,7 @@ package brs.peer;
 import brs.Blockchain;
 import brs.BlockchainProcessor;
 import brs.TransactionProcessor;
+import brs.db.sql.Db;
 import brs.props.PropertyService;
 import brs.services.AccountService;
 import brs.services.TimeService;
@@ -21,9 +22,12 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import static brs.Constants.PROTOCOL;
 
@@ -35,6 +39,13 @@ public final class PeerServlet extends HttpServlet {
     JsonElement processRequest(JsonObject request, Peer peer);
   }
 
+  /**
+   * Handler that can also answer with a binary body, when the request uses the "B2" protocol.
+   */
+  interface BinaryPeerRequestHandler extends PeerRequestHandler {
+    byte[] processBinaryRequest(JsonObject request, Peer peer);
+  }
+
   abstract static class ExtendedPeerRequestHandler implements PeerRequestHandler {
     @Override
     public JsonElement processRequest(JsonObject request, Peer peer) { return null; }
@@ -57,6 +68,10 @@ public final class PeerServlet extends HttpServlet {
 
   private final Map<String,PeerRequestHandler> peerRequestHandlers;
 
+  // the requests served from the database read pool, when there is one
+  private static final Set<String> READ_ONLY_REQUESTS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+      "getCumulativeDifficulty", "getMilestoneBlockIds", "getNextBlockIds", "getBlocksFromHeight", "getNextBlocks")));
+
   public PeerServlet(TimeService timeService, AccountService accountService,
                      Blockchain blockchain,
                      TransactionProcessor transactionProcessor,
@@ -69,7 +84,7 @@ public final class PeerServlet extends HttpServlet {
     map.put("getMilestoneBlockIds", new GetMilestoneBlockIds(blockchain));
     map.put("getNextBlockIds", new GetNextBlockIds(blockchain));
     map.put("getBlocksFromHeight", new GetBlocksFromHeight(blockchain));
-    map.put("getNextBlocks", new GetNextBlocks(blockchain, propertyService));
+    map.put("getNextBlocks", new GetNextBlocks(blockchain, blockchainProcessor.getBlockArchive(), propertyService));
     map.put("getPeers", GetPeers.instance);
     map.put("getUnconfirmedTransactions", new GetUnconfirmedTransactions(transactionProcessor));
     map.put("processBlock", new ProcessBlock(blockchain, blockchainProcessor));
@@ -111,7 +126,8 @@ public final class PeerServlet extends HttpServlet {
 
   private void process(HttpServletRequest req, HttpServletResponse resp) throws IOException {
     Peer peer = null;
-    JsonElement response;
+    JsonElement response = null;
+    byte[] binaryResponse = null;
 
     ExtendedProcessRequest extendedProcessRequest = null;
 
@@ -139,15 +155,25 @@ public final class PeerServlet extends HttpServlet {
       }
       peer.updateDownloadedVolume(cis.getCount());
 
-      if (request.get(PROTOCOL) != null && JSON.getAsString(request.get(PROTOCOL)).equals("B1")) {
+      String protocol = request.get(PROTOCOL) != null ? JSON.getAsString(request.get(PROTOCOL)) : null;
+      if ("B1".equals(protocol) || BinaryBlocks.PROTOCOL_VERSION.equals(protocol)) {
         requestType = "" + JSON.getAsString(request.get("requestType"));
         PeerRequestHandler peerRequestHandler = peerRequestHandlers.get(JSON.getAsString(request.get("requestType")));
         if (peerRequestHandler != null) {
-          if(peerRequestHandler instanceof ExtendedPeerRequestHandler) {
-            extendedProcessRequest = ((ExtendedPeerRequestHandler) peerRequestHandler).extendedProcessRequest(request, peer);
-            response = extendedProcessRequest.response;
-          } else {
-            response = peerRequestHandler.processRequest(request, peer);
+          if (READ_ONLY_REQUESTS.contains(requestType)) {
+            Db.beginReadOnly();
+          }
+          try {
+            if (BinaryBlocks.PROTOCOL_VERSION.equals(protocol) && peerRequestHandler instanceof BinaryPeerRequestHandler) {
+              binaryResponse = ((BinaryPeerRequestHandler) peerRequestHandler).processBinaryRequest(request, peer);
+            } else if(peerRequestHandler instanceof ExtendedPeerRequestHandler) {
+              extendedProcessRequest = ((ExtendedPeerRequestHandler) peerRequestHandler).extendedProcessRequest(request, peer);
+              response = extendedProcessRequest.response;
+            } else {
+              response = peerRequestHandler.processRequest(request, peer);
+            }
+          } finally {
+            Db.endReadOnly();
           }
         }
         else {
@@ -168,15 +194,23 @@ public final class PeerServlet extends HttpServlet {
       response = json;
     }
 
-    resp.setContentType("text/plain; charset=UTF-8");
     try {
       long byteCount;
 
-      CountingOutputStream cos = new CountingOutputStream(resp.getOutputStream());
-      try (Writer writer = new OutputStreamWriter(cos, StandardCharsets.UTF_8)) {
-        JSON.writeTo(response, writer);
+      if (binaryResponse != null) {
+        resp.setContentType(BinaryBlocks.CONTENT_TYPE);
+        try (OutputStream outputStream = resp.getOutputStream()) {
+          outputStream.write(binaryResponse);
+        }
+        byteCount = binaryResponse.length;
+      } else {
+        resp.setContentType("text/plain; charset=UTF-8");
+        CountingOutputStream cos = new CountingOutputStream(resp.getOutputStream());
+        try (Writer writer = new OutputStreamWriter(cos, StandardCharsets.UTF_8)) {
+          JSON.writeTo(response, writer);
+        }
+        byteCount = cos.getCount();
       }
-      byteCount = cos.getCount();
       if (peer != null) {
         peer.updateUploadedVolume(byteCount);
       }
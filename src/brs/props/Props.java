@@ -110,8 +110,22 @@ public class Props {
   public static final Prop<String> DB_PASSWORD     = new Prop<>("DB.Password", "");
   public static final Prop<Integer> DB_CONNECTIONS  = new Prop<>("DB.Connections", 30);
   public static final Prop<Integer> DB_LOCK_TIMEOUT = new Prop<>("DB.LockTimeout", 60);
+  public static final Prop<Integer> DB_READ_CONNECTIONS = new Prop<>("DB.ReadConnections", 0);
+  public static final Prop<String> DB_READ_URL = new Prop<>("DB.ReadUrl", "");
+  public static final Prop<String> DB_READ_USERNAME = new Prop<>("DB.ReadUsername", "");
+  public static final Prop<String> DB_READ_PASSWORD = new Prop<>("DB.ReadPassword", "");
+  public static final Prop<Integer> DB_READ_CONNECTION_TIMEOUT_MS = new Prop<>("DB.ReadConnectionTimeoutMs", 30000);
 
   public static final Prop<Boolean> DB_TRIM_DERIVED_TABLES = new Prop<>("DB.trimDerivedTables", true);
+  public static final Prop<Integer> DB_TRIM_CHUNK_SIZE = new Prop<>("DB.trimChunkSize", 1000);
+  public static final Prop<Integer> DB_BULK_SYNC_BLOCKS = new Prop<>("DB.bulkSyncBlocks", 50);
+  public static final Prop<String> DB_SNAPSHOT_FILE = new Prop<>("DB.snapshotFile", "");
+  public static final Prop<String> DB_SNAPSHOT_HASH = new Prop<>("DB.snapshotHash", "");
+  public static final Prop<String> DB_BLOCK_ARCHIVE_DIR = new Prop<>("DB.blockArchiveDir", "");
+  public static final Prop<Boolean> DB_BALANCES_IN_MEMORY = new Prop<>("DB.balancesInMemory", false);
+  public static final Prop<String> DB_HOT_ACCOUNTS_FILE = new Prop<>("DB.hotAccountsFile", "");
+  public static final Prop<Boolean> DB_SQL_PROFILER = new Prop<>("DB.sqlProfiler", false);
+  public static final Prop<Integer> DB_SQL_PROFILER_LOG_INTERVAL = new Prop<>("DB.sqlProfilerLogInterval", 0);
 
   public static final Prop<Boolean> BRS_TEST_UNCONFIRMED_TRANSACTIONS = new Prop<>("brs.testUnconfirmedTransactions", false);
 
@@ -138,6 +152,9 @@ public class Props {
   public static final Prop<Integer> P2P_TIMEOUT_READ_MS = new Prop<>("P2P.TimeoutRead_ms", 8000);
   public static final Prop<Integer> P2P_BLACKLISTING_TIME_MS = new Prop<>("P2P.BlacklistingTime_ms", 600000);
   public static final Prop<Integer> P2P_MAX_BLOCKS = new Prop<>("P2P.MaxBlocks", 720);
+  public static final Prop<Integer> P2P_PARALLEL_DOWNLOAD_PEERS = new Prop<>("P2P.parallelDownloadPeers", 4);
+  public static final Prop<Integer> P2P_PARALLEL_DOWNLOAD_CHUNK = new Prop<>("P2P.parallelDownloadChunk", 100);
+  public static final Prop<Boolean> P2P_BINARY_PROTOCOL = new Prop<>("P2P.binaryProtocol", true);
 
   public static final Prop<Integer> P2P_TIMEOUT_IDLE_MS = new Prop<>("P2P.TimeoutIdle_ms", 30000);
 
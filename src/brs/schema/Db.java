@@ -30,6 +30,7 @@ import brs.schema.tables.RewardRecipAssign;
 import brs.schema.tables.Subscription;
 import brs.schema.tables.Trade;
 import brs.schema.tables.Transaction;
+import brs.schema.tables.TrimHeight;
 import brs.schema.tables.UnconfirmedTransaction;
 
 import java.util.Arrays;
@@ -183,6 +184,11 @@ public class Db extends SchemaImpl {
      */
     public final Transaction TRANSACTION = Transaction.TRANSACTION;
 
+    /**
+     * The table <code>DB.trim_height</code>.
+     */
+    public final TrimHeight TRIM_HEIGHT = TrimHeight.TRIM_HEIGHT;
+
     /**
      * The table <code>DB.unconfirmed_transaction</code>.
      */
@@ -230,6 +236,7 @@ public class Db extends SchemaImpl {
             Subscription.SUBSCRIPTION,
             Trade.TRADE,
             Transaction.TRANSACTION,
+            TrimHeight.TRIM_HEIGHT,
             UnconfirmedTransaction.UNCONFIRMED_TRANSACTION
         );
     }
@@ -30,6 +30,7 @@ import brs.schema.tables.RewardRecipAssign;
 import brs.schema.tables.Subscription;
 import brs.schema.tables.Trade;
 import brs.schema.tables.Transaction;
+import brs.schema.tables.TrimHeight;
 import brs.schema.tables.UnconfirmedTransaction;
 import brs.schema.tables.records.AccountAssetRecord;
 import brs.schema.tables.records.AccountBalanceRecord;
@@ -57,6 +58,7 @@ import brs.schema.tables.records.RewardRecipAssignRecord;
 import brs.schema.tables.records.SubscriptionRecord;
 import brs.schema.tables.records.TradeRecord;
 import brs.schema.tables.records.TransactionRecord;
+import brs.schema.tables.records.TrimHeightRecord;
 import brs.schema.tables.records.UnconfirmedTransactionRecord;
 
 import org.jooq.ForeignKey;
@@ -125,6 +127,7 @@ public class Keys {
     public static final UniqueKey<TransactionRecord> KEY_TRANSACTION_PRIMARY = Internal.createUniqueKey(Transaction.TRANSACTION, DSL.name("KEY_transaction_PRIMARY"), new TableField[] { Transaction.TRANSACTION.DB_ID }, true);
     public static final UniqueKey<TransactionRecord> KEY_TRANSACTION_TRANSACTION_FULL_HASH_IDX = Internal.createUniqueKey(Transaction.TRANSACTION, DSL.name("KEY_transaction_transaction_full_hash_idx"), new TableField[] { Transaction.TRANSACTION.FULL_HASH }, true);
     public static final UniqueKey<TransactionRecord> KEY_TRANSACTION_TRANSACTION_ID_IDX = Internal.createUniqueKey(Transaction.TRANSACTION, DSL.name("KEY_transaction_transaction_id_idx"), new TableField[] { Transaction.TRANSACTION.ID }, true);
+    public static final UniqueKey<TrimHeightRecord> KEY_TRIM_HEIGHT_PRIMARY = Internal.createUniqueKey(TrimHeight.TRIM_HEIGHT, DSL.name("KEY_trim_height_PRIMARY"), new TableField[] { TrimHeight.TRIM_HEIGHT.TABLE_NAME }, true);
     public static final UniqueKey<UnconfirmedTransactionRecord> KEY_UNCONFIRMED_TRANSACTION_PRIMARY = Internal.createUniqueKey(UnconfirmedTransaction.UNCONFIRMED_TRANSACTION, DSL.name("KEY_unconfirmed_transaction_PRIMARY"), new TableField[] { UnconfirmedTransaction.UNCONFIRMED_TRANSACTION.DB_ID }, true);
     public static final UniqueKey<UnconfirmedTransactionRecord> KEY_UNCONFIRMED_TRANSACTION_UNCONFIRMED_TRANSACTION_ID_IDX = Internal.createUniqueKey(UnconfirmedTransaction.UNCONFIRMED_TRANSACTION, DSL.name("KEY_unconfirmed_transaction_unconfirmed_transaction_id_idx"), new TableField[] { UnconfirmedTransaction.UNCONFIRMED_TRANSACTION.ID }, true);
 
@@ -30,6 +30,7 @@ import brs.schema.tables.RewardRecipAssign;
 import brs.schema.tables.Subscription;
 import brs.schema.tables.Trade;
 import brs.schema.tables.Transaction;
+import brs.schema.tables.TrimHeight;
 import brs.schema.tables.UnconfirmedTransaction;
 
 
@@ -169,6 +170,11 @@ public class Tables {
      */
     public static final Transaction TRANSACTION = Transaction.TRANSACTION;
 
+    /**
+     * The table <code>DB.trim_height</code>.
+     */
+    public static final TrimHeight TRIM_HEIGHT = TrimHeight.TRIM_HEIGHT;
+
     /**
      * The table <code>DB.unconfirmed_transaction</code>.
      */
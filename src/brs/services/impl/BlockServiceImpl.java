@@ -3,6 +3,7 @@ package brs.services.impl;
 import brs.*;
 import brs.BlockchainProcessor.BlockOutOfOrderException;
 import brs.crypto.Crypto;
+import brs.db.sql.Db;
 import brs.fluxcapacitor.FluxValues;
 import brs.props.Props;
 import brs.services.AccountService;
@@ -18,6 +19,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -72,6 +74,10 @@ public class BlockServiceImpl implements BlockService {
         publicKey = rewardAccount.getPublicKey();
       }
 
+      if (Arrays.equals(publicKey, block.getSignatureVerifiedKey())) {
+        // already verified ahead of the import for this key
+        return true;
+      }
       return Crypto.verify(block.getBlockSignature(), data2, publicKey, block.getVersion() >= 3);
 
     } catch (RuntimeException e) {
@@ -115,15 +121,19 @@ public class BlockServiceImpl implements BlockService {
 	if(rewardAccount.getPublicKey() == null) {
 	  rewardAccount.setPublicKey(block.getGeneratorPublicKey());
 	}
-    Account.RewardRecipientAssignment rewardAssignment = accountService.getRewardRecipientAssignment(rewardAccount);
-    if (rewardAssignment != null) {
-      if (block.getHeight() >= rewardAssignment.getFromHeight()) {
-        rewardAccount = accountService.getAccount(rewardAssignment.getRecipientId());
-      } else {
-        rewardAccount = accountService.getAccount(rewardAssignment.getPrevRecipientId());
-      }
+    return getRewardRecipient(rewardAccount, block);
+  }
+
+  private Account getRewardRecipient(Account generatorAccount, Block block) {
+    Account.RewardRecipientAssignment rewardAssignment = accountService.getRewardRecipientAssignment(generatorAccount);
+    if (rewardAssignment == null) {
+      return generatorAccount;
+    }
+    if (block.getHeight() >= rewardAssignment.getFromHeight()) {
+      return accountService.getAccount(rewardAssignment.getRecipientId());
+    } else {
+      return accountService.getAccount(rewardAssignment.getPrevRecipientId());
     }
-    return rewardAccount;
   }
 
   @Override
@@ -189,6 +199,54 @@ public class BlockServiceImpl implements BlockService {
         throw new InterruptedException();
     }
 
+    // Stateless checks, so the import thread is left with the stateful ones only
+    preVerifyHashes(block, prevBlock);
+    preVerifyBlockSignature(block);
+  }
+
+  private void preVerifyHashes(Block block, Block prevBlock) {
+    if (block.getVersion() != 1
+        && !Arrays.equals(Crypto.sha256().digest(prevBlock.getBytes()), block.getPreviousBlockHash())) {
+      // pushBlock will reject it
+      return;
+    }
+    MessageDigest digest = Crypto.sha256();
+    for (Transaction transaction : block.getTransactions()) {
+      digest.update(transaction.getBytes());
+    }
+    block.setHashesVerified(Arrays.equals(digest.digest(), block.getPayloadHash()));
+  }
+
+  private void preVerifyBlockSignature(Block block) {
+    // The signing key depends on the reward recipient at import time, so this is only a guess.
+    // verifyBlockSignature skips the crypto check only if it resolves to the same key.
+    // What is loaded here may be older than what the import thread cached, so it is kept out of the caches.
+    Db.beginUncachedReads();
+    try {
+      byte[] publicKey = block.getGeneratorPublicKey();
+      Account account = accountService.getAccount(publicKey);
+      if (account != null) {
+        // the generator account itself is not changed here, it is shared with the import thread
+        Account rewardAccount = getRewardRecipient(account, block);
+        if (rewardAccount != account) {
+          if (rewardAccount == null || rewardAccount.getPublicKey() == null) {
+            return;
+          }
+          publicKey = rewardAccount.getPublicKey();
+        }
+      }
+
+      byte[] data = block.getBytes();
+      byte[] data2 = new byte[data.length - 64];
+      System.arraycopy(data, 0, data2, 0, data2.length);
+      if (Crypto.verify(block.getBlockSignature(), data2, publicKey, block.getVersion() >= 3)) {
+        block.setSignatureVerifiedKey(publicKey);
+      }
+    } catch (RuntimeException e) {
+      logger.debug("Could not pre-verify block signature", e);
+    } finally {
+      Db.endUncachedReads();
+    }
   }
 
   @Override
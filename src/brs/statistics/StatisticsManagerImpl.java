@@ -4,8 +4,11 @@ import brs.services.TimeService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 public class StatisticsManagerImpl {
@@ -17,7 +20,7 @@ public class StatisticsManagerImpl {
   private int addedBlockCount;
   private int firstBlockAdded;
 
-  private final Map<String, CacheStatisticsOverview> cacheStatistics = new HashMap<>();
+  private final Map<String, CacheStatisticsOverview> cacheStatistics = new ConcurrentHashMap<>();
 
   public StatisticsManagerImpl(TimeService timeService) {
     this.timeService = timeService;
@@ -31,14 +34,25 @@ public class StatisticsManagerImpl {
     getCacheStatisticsOverview(cacheName).cacheMiss();
   }
 
+  public void evictedObjectFromCache(String cacheName) {
+    getCacheStatisticsOverview(cacheName).cacheEviction();
+  }
+
   private CacheStatisticsOverview getCacheStatisticsOverview(String cacheName) {
-    if(! this.cacheStatistics.containsKey(cacheName)) {
-      this.cacheStatistics.put(cacheName, new CacheStatisticsOverview(cacheName));
-    }
+    return cacheStatistics.computeIfAbsent(cacheName, CacheStatisticsOverview::new);
+  }
 
+  /**
+   * @return the statistics of the cache since startup, or null if it was not used yet
+   */
+  public CacheStatisticsOverview getCacheStatistics(String cacheName) {
     return cacheStatistics.get(cacheName);
   }
 
+  public Collection<CacheStatisticsOverview> getCacheStatistics() {
+    return Collections.unmodifiableCollection(cacheStatistics.values());
+  }
+
   public void blockAdded() {
     if (addedBlockCount++ == 0 ) {
       firstBlockAdded = timeService.getEpochTime();
@@ -54,37 +68,62 @@ public class StatisticsManagerImpl {
     }
   }
 
-  private class CacheStatisticsOverview {
+  public static class CacheStatisticsOverview {
     private final String cacheName;
 
-    private long cacheHits;
-    private long cacheMisses;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
 
-    private long totalCacheHits;
-    private long totalCacheMisses;
+    private final LongAdder totalCacheHits = new LongAdder();
+    private final LongAdder totalCacheMisses = new LongAdder();
+    private final LongAdder totalCacheEvictions = new LongAdder();
 
     CacheStatisticsOverview(String cacheName) {
       this.cacheName = cacheName;
     }
 
     private String getCacheInfoAndReset() {
-      final Float hitRatio = (cacheHits + cacheMisses) > 0 ? (float) cacheHits / (cacheHits + cacheMisses) : null;
-      final Float totalHitRatio = (totalCacheHits + totalCacheMisses) > 0 ? (float) totalCacheHits / (totalCacheHits + totalCacheMisses) : null;
-
-      cacheHits = 0;
-      cacheMisses = 0;
+      long hits = cacheHits.sumThenReset();
+      long misses = cacheMisses.sumThenReset();
+      final float hitRatio = (hits + misses) > 0 ? (float) hits / (hits + misses) : 0;
 
-      return String.format("%s cache hit ratio now/total:%.2f%%/%.2f%%", cacheName, hitRatio * 100, totalHitRatio * 100);
+      return String.format("%s cache hit ratio now/total:%.2f%%/%.2f%%", cacheName, hitRatio * 100, getHitRatio() * 100);
     }
 
     private void cacheHit() {
-      cacheHits++;
-      totalCacheHits++;
+      cacheHits.increment();
+      totalCacheHits.increment();
     }
 
     private void cacheMiss() {
-      cacheMisses++;
-      totalCacheMisses++;
+      cacheMisses.increment();
+      totalCacheMisses.increment();
+    }
+
+    private void cacheEviction() {
+      totalCacheEvictions.increment();
+    }
+
+    public String getCacheName() {
+      return cacheName;
+    }
+
+    public long getHits() {
+      return totalCacheHits.sum();
+    }
+
+    public long getMisses() {
+      return totalCacheMisses.sum();
+    }
+
+    public long getEvictions() {
+      return totalCacheEvictions.sum();
+    }
+
+    public float getHitRatio() {
+      long hits = getHits();
+      long misses = getMisses();
+      return (hits + misses) > 0 ? (float) hits / (hits + misses) : 0;
     }
   }
 }
@@ -15,198 +15,96 @@ import java.util.*;
 import java.util.concurrent.locks.StampedLock;
 import java.util.function.Supplier;
 
+/**
+ * Blocks downloaded ahead of the chain, by id and by previous block id.
+ * <p>
+ * Structural changes happen under the write lock, while the last block, the cumulative difficulty,
+ * the byte size and the unverified count are published in volatile fields and read without locking.
+ * The cache is bounded by node.blockCacheMB, the blocks are refused once it is reached. The bound is on the
+ * serialized size of the blocks, which is exact, not on the heap they take: they are held parsed, with their
+ * pre-verification results, so the heap used is a multiple of it that depends on the kind of transactions.
+ */
 public final class DownloadCacheImpl {
-  private final int blockCacheMB;
+  private final long blockCacheBytes;
 
   private final Map<Long, Block> blockCache = new LinkedHashMap<>();
+  private final Map<Long, Long> reverseCache = new HashMap<>();
+  // the ids of the unverified blocks in the order they were added, indexed by position
+  private final List<Long> unverified = new ArrayList<>();
   private final List<Block> forkCache = new ArrayList<>();
-  private final Map<Long, Long> reverseCache = new LinkedHashMap<>();
-  private final List<Long> unverified = new LinkedList<>();
 
   private final Logger logger = LoggerFactory.getLogger(DownloadCacheImpl.class);
 
   private final Blockchain blockchain;
   private final FluxCapacitor fluxCapacitor;
 
-  private int blockCacheSize = 0;
-
-  private Long lastBlockId = null;
-  private int lastHeight = -1;
-  private BigInteger highestCumulativeDifficulty = BigInteger.ZERO;
+  // only written while holding the write lock
+  private volatile Block lastBlock = null;
+  private volatile int size = 0;
+  private volatile int unverifiedSize = 0;
+  private volatile long blockCacheSize = 0;
+  private volatile boolean lockedCache = false;
 
   private final StampedLock dcsl = new StampedLock();
-  
-  private boolean lockedCache = false;
-  
-  
+
   public DownloadCacheImpl(PropertyService propertyService, FluxCapacitor fluxCapacitor, Blockchain blockchain) {
-    this.blockCacheMB = propertyService.getInt(Props.BRS_BLOCK_CACHE_MB);
+    this.blockCacheBytes = propertyService.getInt(Props.BRS_BLOCK_CACHE_MB) * 1024L * 1024L;
     this.fluxCapacitor = fluxCapacitor;
     this.blockchain = blockchain;
   }
 
   private int getChainHeight() {
-    long stamp = dcsl.tryOptimisticRead();
-    int retVal = lastHeight;
-    if (!dcsl.validate(stamp)) {
-     
-      stamp = dcsl.readLock();
-      try {
-        retVal = lastHeight;
-      } finally {
-         dcsl.unlockRead(stamp);
-      }
-   }
-   if (retVal > -1) {
-      return retVal;
-    }
-    return blockchain.getHeight();
+    Block last = lastBlock;
+    return last != null ? last.getHeight() : blockchain.getHeight();
   }
+
   public void lockCache() {
     long stamp = dcsl.writeLock();
-	try {
-	  lockedCache = true;
-	} finally {
-	  dcsl.unlockWrite(stamp);
-	}
-	setLastVars();
+    try {
+      lockedCache = true;
+    } finally {
+      dcsl.unlockWrite(stamp);
+    }
   }
+
   public void unlockCache() {
-    long stamp = dcsl.tryOptimisticRead();
-	boolean retVal = lockedCache;
-	if (!dcsl.validate(stamp)) {
-	  stamp = dcsl.readLock();
-	  try {
-	    retVal = lockedCache;
-	  } finally {
-	    dcsl.unlockRead(stamp);
-	  }
-	}
-	
-	if(retVal) {
-	  stamp = dcsl.writeLock();
-	  try {
-	    lockedCache = false;
-	  } finally {
-		dcsl.unlockWrite(stamp);
-      }	
-	}
-  }
-  private boolean getLockState() {
-    long stamp = dcsl.tryOptimisticRead();
-	boolean retVal = lockedCache;
-	if (!dcsl.validate(stamp)) {
-	  stamp = dcsl.readLock();
-	  try {
-	    retVal = lockedCache;
+    if (lockedCache) {
+      long stamp = dcsl.writeLock();
+      try {
+        lockedCache = false;
       } finally {
-		dcsl.unlockRead(stamp);
+        dcsl.unlockWrite(stamp);
       }
     }
-	return retVal;
   }
-  
-  public int getBlockCacheSize() {
-    long stamp = dcsl.tryOptimisticRead();
-    int retVal = blockCacheSize;
-    if (!dcsl.validate(stamp)) {
-     
-      stamp = dcsl.readLock();
-      try {
-        retVal = blockCacheSize;
-      } finally {
-         dcsl.unlockRead(stamp);
-      }
-   }
-    return retVal;
+
+  public long getBlockCacheSize() {
+    return blockCacheSize;
   }
- 
-  
+
   public boolean isFull() {
-    long stamp = dcsl.tryOptimisticRead();
-    int retVal = blockCacheSize;
-    if (!dcsl.validate(stamp)) {
-     
-      stamp = dcsl.readLock();
-      try {
-        retVal = blockCacheSize;
-      } finally {
-         dcsl.unlockRead(stamp);
-      }
-    }
-    return retVal > blockCacheMB * 1024 * 1024;
+    return blockCacheSize >= blockCacheBytes;
   }
 
   public int getUnverifiedSize() {
-    long stamp = dcsl.tryOptimisticRead();
-    int retVal = unverified.size();
-    if (!dcsl.validate(stamp)) {
-      stamp = dcsl.readLock();
-      try {
-        retVal = unverified.size();
-      } finally {
-         dcsl.unlockRead(stamp);
-      }
-    }
-    return retVal;
+    return unverifiedSize;
   }
 
   public BigInteger getCumulativeDifficulty() {
-    long stamp = dcsl.tryOptimisticRead();
-    Long lbID = lastBlockId;
-    BigInteger retVal = highestCumulativeDifficulty;
-    
-   
-    if (!dcsl.validate(stamp)) {
-     
-      stamp = dcsl.readLock();
-      try {
-        lbID = lastBlockId;
-        retVal = highestCumulativeDifficulty;
-      } finally {
-         dcsl.unlockRead(stamp);
-      }
-    }
-    if (lbID != null) {
-      return retVal;
-    }
-    setLastVars();
-    stamp = dcsl.tryOptimisticRead();
-    retVal = highestCumulativeDifficulty;
-    if (!dcsl.validate(stamp)) {
-      stamp = dcsl.readLock();
-      try {
-        retVal = highestCumulativeDifficulty;
-      } finally {
-         dcsl.unlockRead(stamp);
-      }
-    }
-    return retVal;
+    return getLastBlock().getCumulativeDifficulty();
   }
 
   public long getUnverifiedBlockIdFromPos(int pos) {
-    long stamp = dcsl.tryOptimisticRead();
-    long reVal = unverified.get(pos);
-    
-    if (!dcsl.validate(stamp)) {
-     
-      stamp = dcsl.readLock();
-      try {
-        reVal = unverified.get(pos);
-      } finally {
-         dcsl.unlockRead(stamp);
-      }
-    }
-    return reVal;
+    return dcslRead(() -> unverified.get(pos));
   }
+
   public Block getFirstUnverifiedBlock() {
-	 long stamp = dcsl.writeLock();
-	 try {
-		 long blockId = unverified.get(0);
-		 Block block = blockCache.get(blockId);
-		 unverified.remove(blockId);
-		 return block;
-	 } finally {
+    long stamp = dcsl.writeLock();
+    try {
+      long blockId = unverified.remove(0);
+      unverifiedSize = unverified.size();
+      return blockCache.get(blockId);
+    } finally {
       dcsl.unlockWrite(stamp);
     }
   }
@@ -215,17 +113,22 @@ public final class DownloadCacheImpl {
     long stamp = dcsl.writeLock();
     try {
       unverified.remove(blockId);
+      unverifiedSize = unverified.size();
     } finally {
       dcsl.unlockWrite(stamp);
     }
   }
-  
+
   public void removeUnverifiedBatch(Collection<Block> blocks) {
+    Set<Long> blockIds = new HashSet<>();
+    for (Block block : blocks) {
+      blockIds.add(block.getId());
+    }
     long stamp = dcsl.writeLock();
     try {
-      for (Block block : blocks) {
-        unverified.remove(block.getId());
-      }
+      // a single pass over the list, however many blocks of it are removed
+      unverified.removeIf(blockIds::contains);
+      unverifiedSize = unverified.size();
     } finally {
       dcsl.unlockWrite(stamp);
     }
@@ -237,34 +140,27 @@ public final class DownloadCacheImpl {
       blockCache.clear();
       reverseCache.clear();
       unverified.clear();
+      size = 0;
+      unverifiedSize = 0;
       blockCacheSize = 0;
+      lastBlock = null;
       lockedCache = true;
     } finally {
-     dcsl.unlockWrite(stamp);
+      dcsl.unlockWrite(stamp);
     }
-    setLastVars();
   }
 
   public Block getBlock(long blockId) {
-	//search the forkCache if we have a forkList
-    if(!forkCache.isEmpty()) {
+    //search the forkCache if we have a forkList
+    if (!forkCache.isEmpty()) {
       for (Block block : forkCache) {
-        if(block.getId() == blockId) {
-        	return block;
+        if (block.getId() == blockId) {
+          return block;
         }
       }
     }
-    long stamp = dcsl.tryOptimisticRead();
-    Block retVal = getBlockInt(blockId);
-    if (!dcsl.validate(stamp)) {
-      stamp = dcsl.readLock();
-      try {
-        retVal = getBlockInt(blockId);
-      } finally {
-         dcsl.unlockRead(stamp);
-      }
-    }
-    if(retVal != null) {
+    Block retVal = dcslRead(() -> getBlockInt(blockId));
+    if (retVal != null) {
       return retVal;
     }
     if (blockchain.hasBlock(blockId)) {
@@ -272,48 +168,20 @@ public final class DownloadCacheImpl {
     }
     return null;
   }
+
   private Block getBlockInt(long blockId) {
-    if (blockCache.containsKey(blockId)) {
-      return blockCache.get(blockId);
-    }
-    return null;
+    return blockCache.get(blockId);
   }
 
   public Block getNextBlock(long prevBlockId) {
-    long stamp = dcsl.tryOptimisticRead();
-    Block retVal = getNextBlockInt(prevBlockId);
-    if (!dcsl.validate(stamp)) {
-     
-      stamp = dcsl.readLock();
-      try {
-        retVal = getNextBlockInt(prevBlockId);
-      } finally {
-        dcsl.unlockRead(stamp);
-      }
-    }
-    return retVal;
-  }
-
-  private Block getNextBlockInt(long prevBlockId) {
-    if (reverseCache.containsKey(prevBlockId)) {
-      return blockCache.get(reverseCache.get(prevBlockId));
-    }
-    return null;
+    return dcslRead(() -> {
+      Long blockId = reverseCache.get(prevBlockId);
+      return blockId != null ? blockCache.get(blockId) : null;
+    });
   }
 
   public boolean hasBlock(long blockId) {
-    long stamp = dcsl.tryOptimisticRead();
-    boolean retVal =  blockCache.containsKey(blockId);
-    if (!dcsl.validate(stamp)) {
-     
-      stamp = dcsl.readLock();
-      try {
-        retVal =  blockCache.containsKey(blockId);
-      } finally {
-        dcsl.unlockRead(stamp);
-      }
-    }
-    if (retVal) {
+    if (dcslRead(() -> blockCache.containsKey(blockId))) {
       return true;
     }
     return blockchain.hasBlock(blockId);
@@ -331,139 +199,118 @@ public final class DownloadCacheImpl {
     return (curHeight - block.getHeight()) <= Constants.MAX_ROLLBACK;
   }
 
+  /**
+   * Adds the block as the last one of the cache.
+   *
+   * @return false if the cache is locked or already full
+   */
   public boolean addBlock(Block block) {
-    if(!getLockState()) {
-	  long stamp = dcsl.writeLock();
-      try {
-        blockCache.put(block.getId(), block);
-        reverseCache.put(block.getPreviousBlockId(), block.getId());
-        unverified.add(block.getId());
-        blockCacheSize += block.getByteLength();
-        lastBlockId = block.getId();
-        lastHeight = block.getHeight();
-        highestCumulativeDifficulty = block.getCumulativeDifficulty();
-        return true;
-      } finally {
-        dcsl.unlockWrite(stamp);
+    if (lockedCache) {
+      return false;
+    }
+    long stamp = dcsl.writeLock();
+    try {
+      if (lockedCache || blockCacheSize >= blockCacheBytes) {
+        return false;
+      }
+      Block replaced = blockCache.put(block.getId(), block);
+      if (replaced != null) {
+        blockCacheSize -= replaced.getByteLength();
+        unverified.remove(block.getId());
       }
+      reverseCache.put(block.getPreviousBlockId(), block.getId());
+      unverified.add(block.getId());
+      block.setByteLength(getSerializedSize(block));
+      blockCacheSize += block.getByteLength();
+      size = blockCache.size();
+      unverifiedSize = unverified.size();
+      lastBlock = block;
+      return true;
+    } finally {
+      dcsl.unlockWrite(stamp);
     }
-    return false;
   }
+
   public void addForkBlock(Block block) {
     forkCache.add(block);
   }
+
   public void resetForkBlocks() {
-    forkCache.clear();  
+    forkCache.clear();
   }
-  public List<Block> getForkList(){
+
+  public List<Block> getForkList() {
     return forkCache;
   }
 
   public boolean removeBlock(Block block) {
-    long stamp = dcsl.tryOptimisticRead();
-    boolean chkVal = blockCache.containsKey(block.getId());
-    long lastId = lastBlockId;
-    
-    if (!dcsl.validate(stamp)) {
-      stamp = dcsl.readLock();
-      try {
-        chkVal = blockCache.containsKey(block.getId());
-      } finally {
-         dcsl.unlockRead(stamp);
-      }
+    if (!dcslRead(() -> blockCache.containsKey(block.getId()))) {
+      return false;
     }
-    
-    if (chkVal) { // make sure there is something to remove
-      stamp = dcsl.writeLock();
-      try {
-    	unverified.remove(block.getId());
-        reverseCache.remove(block.getPreviousBlockId());
-        blockCache.remove(block.getId());
-        blockCacheSize -= block.getByteLength();
-      } finally {
-        dcsl.unlockWrite(stamp);
+    long stamp = dcsl.writeLock();
+    try {
+      Block removed = blockCache.remove(block.getId());
+      if (removed == null) {
+        return false;
       }
-      if (block.getId() == lastId) {
-        setLastVars();
+      unverified.remove(removed.getId());
+      reverseCache.remove(removed.getPreviousBlockId());
+      blockCacheSize -= removed.getByteLength();
+      size = blockCache.size();
+      unverifiedSize = unverified.size();
+      if (removed == lastBlock) {
+        // the last one added of those left, only scanned when the last block itself is removed
+        Block last = null;
+        for (Block cached : blockCache.values()) {
+          last = cached;
+        }
+        lastBlock = last;
       }
       return true;
+    } finally {
+      dcsl.unlockWrite(stamp);
     }
-    return false;
   }
 
   public int getPoCVersion(long blockId) {
     Block blockImpl = getBlock(blockId);
     return (blockImpl == null || ! fluxCapacitor.getValue(FluxValues.POC2, blockImpl.getHeight()) ) ? 1 : 2;
   }
-  
+
   public long getLastBlockId() {
-    Long lId = getLastCacheId();
-    if (lId != null) {
-      return lId;
-    }
-    return blockchain.getLastBlock().getId();
-  }
-  private Long getLastCacheId() {
-    long stamp = dcsl.tryOptimisticRead();
-    Long lId = lastBlockId;
-    if (!dcsl.validate(stamp)) {
-     
-      stamp = dcsl.readLock();
-      try {
-        lId = lastBlockId;
-      } finally {
-        dcsl.unlockRead(stamp);
-      }
-    }
-    return lId;
+    return getLastBlock().getId();
   }
 
   private <T> T dcslRead(Supplier<T> supplier) {
-    return StampedLockUtils.stampedLockRead(dcsl, supplier);
+    long stamp = dcsl.readLock();
+    try {
+      return supplier.get();
+    } finally {
+      dcsl.unlockRead(stamp);
+    }
   }
-    
+
   public Block getLastBlock() {
-    Long iLd = getLastCacheId();
-    if (iLd != null && blockCache.containsKey(iLd)) {
-      return dcslRead(() -> blockCache.get(iLd));
-    }
-    return blockchain.getLastBlock();
+    Block last = lastBlock;
+    return last != null ? last : blockchain.getLastBlock();
   }
 
   public int size() {
-    return dcslRead(blockCache::size);
+    return size;
   }
 
   public void printDebug() {
-    logger.info("BlockCache size: {}", blockCache.size());
-    logger.info("Unverified size: {}", unverified.size());
-    logger.info("Verified size: {}", (blockCache.size() - unverified.size()));
-    
+    logger.info("BlockCache size: {}", size);
+    logger.info("Unverified size: {}", unverifiedSize);
+    logger.info("Verified size: {}", (size - unverifiedSize));
+    logger.info("BlockCache bytes: {} of {}", blockCacheSize, blockCacheBytes);
   }
-  private void printLastVars() {
-	logger.debug("Cache LastId: {}", lastBlockId);
-	logger.debug("Cache lastHeight: {}", lastHeight);
-  }
-    
 
-  private void setLastVars() {
-    long stamp = dcsl.writeLock();
-    try {
-      if (! blockCache.isEmpty()) {
-        lastBlockId = blockCache.get(blockCache.keySet().toArray(new Long[0])[blockCache.keySet().size() - 1]).getId();
-        lastHeight = blockCache.get(lastBlockId).getHeight();
-        highestCumulativeDifficulty = blockCache.get(lastBlockId).getCumulativeDifficulty();
-        logger.debug("Cache set to CacheData");
-        printLastVars();
-      } else {
-        lastBlockId = blockchain.getLastBlock().getId();
-        lastHeight = blockchain.getHeight();
-        highestCumulativeDifficulty = blockchain.getLastBlock().getCumulativeDifficulty();
-        logger.debug("Cache set to ChainData");
-        printLastVars();
-      }
-    } finally {
-      dcsl.unlockWrite(stamp);
-    }
+  /*
+   * Serialized size of the block header and its transactions, as received from the peers,
+   * computed once when the block is added so that removing it gives back exactly the same amount.
+   */
+  private static int getSerializedSize(Block block) {
+    return block.getBytes().length + block.getPayloadLength();
   }
 }
@@ -0,0 +1,68 @@
+package brs.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe Bloom filter over long keys, such as entity ids.
+ * <p>
+ * {@link #mightContain} never gives a false negative for a key that has been {@link #add added} before,
+ * but may give a false positive, so a positive answer has to be checked against the real set.
+ * Keys can not be removed.
+ */
+public final class LongBloomFilter {
+
+  private static final int BITS_PER_KEY = 10;
+  private static final int HASHES = 7;
+
+  private final AtomicLongArray bits;
+  private final long numBits;
+  private final long capacity;
+
+  /**
+   * @param capacity the number of keys the filter is sized for, about 1% false positives up to that many keys
+   */
+  public LongBloomFilter(long capacity) {
+    this.capacity = Math.max(capacity, 1024);
+    int words = (int) Math.min(Integer.MAX_VALUE - 8L, (this.capacity * BITS_PER_KEY + 63) / 64);
+    this.bits = new AtomicLongArray(words);
+    this.numBits = words * 64L;
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  public void add(long key) {
+    long hash1 = mix(key);
+    long hash2 = mix(hash1) | 1;
+    for (int i = 0; i < HASHES; i++) {
+      long bit = Math.floorMod(hash1 + i * hash2, numBits);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current;
+      do {
+        current = bits.get(word);
+      } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  public boolean mightContain(long key) {
+    long hash1 = mix(key);
+    long hash2 = mix(hash1) | 1;
+    for (int i = 0; i < HASHES; i++) {
+      long bit = Math.floorMod(hash1 + i * hash2, numBits);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // the finalizer of SplitMix64, ids are already well distributed but sequential keys are not
+  private static long mix(long key) {
+    long z = key + 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
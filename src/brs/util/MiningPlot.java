@@ -4,7 +4,7 @@ import brs.crypto.Crypto;
 import brs.fluxcapacitor.FluxCapacitor;
 import brs.fluxcapacitor.FluxValues;
 
-import java.nio.ByteBuffer;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.util.Arrays;
 
@@ -17,46 +17,101 @@ public class MiningPlot {
 
   private static final int HASH_CAP = 4096;
 
-  private final byte[] data = new byte[PLOT_SIZE];
-
-    public MiningPlot(long addr, long nonce, int blockHeight, FluxCapacitor fluxCapacitor) {
-      ByteBuffer baseBuffer = ByteBuffer.allocate(16);
-    baseBuffer.putLong(addr);
-    baseBuffer.putLong(nonce);
-    byte[] base = baseBuffer.array();
-    MessageDigest shabal256 = Crypto.shabal256();
-    byte[] gendata = new byte[PLOT_SIZE + base.length];
-    System.arraycopy(base, 0, gendata, PLOT_SIZE, base.length);
-    for (int i = PLOT_SIZE; i > 0; i -= HASH_SIZE) {
-      int len = PLOT_SIZE + base.length - i;
-      if (len > HASH_CAP) {
-        len = HASH_CAP;
-      }
-      shabal256.update(gendata, i, len);
-      System.arraycopy(shabal256.digest(), 0, gendata, i - HASH_SIZE, HASH_SIZE);
+  private final byte[] gendata = new byte[PLOT_SIZE + 16];
+  private final byte[] finalHash = new byte[HASH_SIZE];
+  private final MessageDigest shabal256 = Crypto.shabal256();
+  // the full (xor-ed and rearranged) plot, only allocated when the whole plot is asked for
+  private byte[] data;
+  // whether data holds the plot of the last nonce generated
+  private boolean plotGenerated;
+
+  /**
+   * Creates an empty plot, to be filled with {@link #generate(long, long, boolean)} or
+   * {@link #generateScoop(long, long, int, boolean, byte[])}.
+   * The buffers are kept between calls, so one instance can be reused per thread.
+   */
+  public MiningPlot() {
+  }
+
+  public MiningPlot(long addr, long nonce, int blockHeight, FluxCapacitor fluxCapacitor) {
+    generate(addr, nonce, fluxCapacitor.getValue(FluxValues.POC2, blockHeight));
+  }
+
+  public void generate(long addr, long nonce, boolean poc2) {
+    generateHashes(addr, nonce);
+    if (data == null) {
+      data = new byte[PLOT_SIZE];
     }
-    byte[] finalhash = shabal256.digest(gendata);
     for (int i = 0; i < PLOT_SIZE; i++) {
-      data[i] = (byte) (gendata[i] ^ finalhash[i % HASH_SIZE]);
+      data[i] = (byte) (gendata[i] ^ finalHash[i % HASH_SIZE]);
     }
     //PoC2 Rearrangement
-    if (fluxCapacitor.getValue(FluxValues.POC2, blockHeight)) {
-      byte[] hashBuffer = new byte[HASH_SIZE];
+    if (poc2) {
       int revPos = PLOT_SIZE - HASH_SIZE; //Start at second hash in last scoop
       for (int pos = 32; pos < (PLOT_SIZE / 2); pos += 64) { //Start at second hash in first scoop
-        System.arraycopy(data, pos, hashBuffer, 0, HASH_SIZE); //Copy low scoop second hash to buffer
-        System.arraycopy(data, revPos, data, pos, HASH_SIZE); //Copy high scoop second hash to low scoop second hash
-        System.arraycopy(hashBuffer, 0, data, revPos, HASH_SIZE); //Copy buffer to high scoop second hash
+        for (int j = 0; j < HASH_SIZE; j++) { //Swap low scoop second hash with high scoop second hash
+          byte b = data[pos + j];
+          data[pos + j] = data[revPos + j];
+          data[revPos + j] = b;
+        }
         revPos -= 64; //move backwards
       }
     }
+    plotGenerated = true;
+  }
+
+  /**
+   * Generates the nonce and writes only the given scoop into {@code scoopOut}, which is all
+   * {@code calculateHit} needs. The rest of the plot is neither xor-ed nor rearranged, so
+   * {@link #getScoop(int)} and {@link #hashScoop(MessageDigest, int)} can't be used until the next {@link #generate}.
+   */
+  public void generateScoop(long addr, long nonce, int scoop, boolean poc2, byte[] scoopOut) {
+    plotGenerated = false;
+    generateHashes(addr, nonce);
+    int firstHash = scoop * SCOOP_SIZE;
+    // with PoC2 the second hash comes from the mirrored scoop
+    int secondHash = (poc2 ? SCOOPS_PER_PLOT - 1 - scoop : scoop) * SCOOP_SIZE + HASH_SIZE;
+    for (int j = 0; j < HASH_SIZE; j++) {
+      scoopOut[j] = (byte) (gendata[firstHash + j] ^ finalHash[j]);
+      scoopOut[HASH_SIZE + j] = (byte) (gendata[secondHash + j] ^ finalHash[j]);
+    }
+  }
+
+  private void generateHashes(long addr, long nonce) {
+    for (int j = 0; j < 8; j++) {
+      gendata[PLOT_SIZE + j] = (byte) (addr >>> (56 - 8 * j));
+      gendata[PLOT_SIZE + 8 + j] = (byte) (nonce >>> (56 - 8 * j));
+    }
+    shabal256.reset();
+    try {
+      for (int i = PLOT_SIZE; i > 0; i -= HASH_SIZE) {
+        int len = gendata.length - i;
+        if (len > HASH_CAP) {
+          len = HASH_CAP;
+        }
+        shabal256.update(gendata, i, len);
+        shabal256.digest(gendata, i - HASH_SIZE, HASH_SIZE);
+      }
+      shabal256.update(gendata);
+      shabal256.digest(finalHash, 0, HASH_SIZE);
+    } catch (DigestException e) {
+      throw new IllegalStateException(e);
+    }
   }
 
   public byte[] getScoop(int pos) {
+    checkPlotGenerated();
     return Arrays.copyOfRange(data, pos * SCOOP_SIZE, (pos + 1) * SCOOP_SIZE);
   }
 
   public void hashScoop(MessageDigest shabal256, int pos) {
+    checkPlotGenerated();
     shabal256.update(data, pos * SCOOP_SIZE, SCOOP_SIZE);
   }
+
+  private void checkPlotGenerated() {
+    if (!plotGenerated) {
+      throw new IllegalStateException("The whole plot was not generated, only a scoop");
+    }
+  }
 }
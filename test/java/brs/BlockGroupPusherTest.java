@@ -0,0 +1,184 @@
+package brs;
+
+import brs.BlockchainProcessor.BlockNotAcceptedException;
+import brs.common.QuickMocker;
+import brs.db.store.Stores;
+import brs.props.PropertyServiceImpl;
+import brs.services.BlockService;
+import brs.util.DownloadCacheImpl;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.mockito.InOrder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(JUnit4.class)
+public class BlockGroupPusherTest {
+
+  private final List<Block> applied = new ArrayList<>();
+
+  private Stores stores;
+  private BlockService blockService;
+  private DownloadCacheImpl downloadCache;
+  private Block startBlock;
+  private Block lastBlock;
+  private Block failingBlock;
+  private BlockGroupPusher t;
+
+  @Before
+  public void setUp() {
+    startBlock = block(10, false);
+    lastBlock = startBlock;
+    BlockchainImpl blockchain = mock(BlockchainImpl.class);
+    when(blockchain.getLastBlock()).thenAnswer(invocation -> lastBlock);
+    when(blockchain.getHeight()).thenAnswer(invocation -> lastBlock.getHeight());
+    doAnswer(invocation -> {
+      lastBlock = invocation.getArgument(0);
+      return null;
+    }).when(blockchain).setLastBlock(any(Block.class));
+
+    stores = mock(Stores.class);
+    blockService = mock(BlockService.class);
+    downloadCache = new DownloadCacheImpl(new PropertyServiceImpl(new Properties()), QuickMocker.fluxCapacitorEnabledFunctionalities(), blockchain);
+    t = new BlockGroupPusher(stores, blockchain, downloadCache, blockService, (block, previousBlock) -> {
+      assertSame(lastBlock, previousBlock);
+      if (block == failingBlock) {
+        throw new BlockNotAcceptedException("invalid");
+      }
+      applied.add(block);
+      blockchain.setLastBlock(block);
+    });
+  }
+
+  @Test
+  public void groupIsCommittedInOneTransaction() throws InterruptedException {
+    List<Block> blocks = download(11, 5, true);
+
+    BlockGroupPusher.Result result = t.push(10, () -> true);
+
+    assertEquals(blocks, result.getPushedBlocks());
+    assertNull(result.getFailedBlock());
+    assertSame(blocks.get(4), lastBlock);
+    InOrder inOrder = inOrder(stores);
+    inOrder.verify(stores).beginTransaction();
+    inOrder.verify(stores).commitTransaction();
+    inOrder.verify(stores).endTransaction();
+    verify(stores, never()).rollbackTransaction();
+  }
+
+  @Test
+  public void groupStopsAtTheMaximumOrWhenToldTo() throws InterruptedException {
+    List<Block> blocks = download(11, 5, true);
+
+    assertEquals(blocks.subList(0, 2), t.push(2, () -> true).getPushedBlocks());
+    assertEquals(Collections.emptyList(), t.push(10, () -> false).getPushedBlocks());
+    assertSame(blocks.get(1), lastBlock);
+  }
+
+  @Test
+  public void failingBlockInTheMiddleRollsBackToTheLastGoodBlock() throws InterruptedException {
+    List<Block> blocks = download(11, 5, true);
+    failingBlock = blocks.get(2);
+
+    BlockGroupPusher.Result result = t.push(10, () -> true);
+
+    assertEquals(blocks.subList(0, 2), result.getPushedBlocks());
+    assertSame(failingBlock, result.getFailedBlock());
+    assertTrue(result.getFailure() instanceof BlockNotAcceptedException);
+    assertSame(blocks.get(1), lastBlock);
+    // applied in the rolled back transaction, then again in the committed one
+    assertEquals(Arrays.asList(blocks.get(0), blocks.get(1), blocks.get(0), blocks.get(1)), applied);
+    InOrder inOrder = inOrder(stores);
+    inOrder.verify(stores).beginTransaction();
+    inOrder.verify(stores).rollbackTransaction();
+    inOrder.verify(stores).commitTransaction();
+    inOrder.verify(stores).endTransaction();
+    // the blocks after the failing one are dropped with the cache
+    assertEquals(0, downloadCache.size());
+  }
+
+  @Test
+  public void failingFirstBlockCommitsNothing() throws InterruptedException {
+    List<Block> blocks = download(11, 3, true);
+    failingBlock = blocks.get(0);
+
+    BlockGroupPusher.Result result = t.push(10, () -> true);
+
+    assertEquals(Collections.emptyList(), result.getPushedBlocks());
+    assertSame(failingBlock, result.getFailedBlock());
+    assertSame(startBlock, lastBlock);
+    verify(stores).rollbackTransaction();
+    verify(stores, never()).commitTransaction();
+    verify(stores).endTransaction();
+  }
+
+  @Test
+  public void interruptedVerificationRollsBackTheWholeGroup() throws Exception {
+    List<Block> blocks = download(11, 3, false);
+    doThrow(new InterruptedException()).when(blockService).preVerify(blocks.get(2), blocks.get(1));
+
+    try {
+      t.push(10, () -> true);
+      fail();
+    } catch (InterruptedException e) {
+      // expected
+    }
+
+    assertSame(startBlock, lastBlock);
+    verify(stores).rollbackTransaction();
+    verify(stores, never()).commitTransaction();
+    verify(stores).endTransaction();
+  }
+
+  @Test
+  public void unverifiedBlocksAreVerifiedBeforeBeingApplied() throws Exception {
+    List<Block> blocks = download(11, 2, false);
+
+    t.push(10, () -> true);
+
+    verify(blockService).preVerify(blocks.get(0), startBlock);
+    verify(blockService).preVerify(blocks.get(1), blocks.get(0));
+    assertEquals(0, downloadCache.getUnverifiedSize());
+  }
+
+  private List<Block> download(int fromHeight, int count, boolean verified) {
+    List<Block> blocks = new ArrayList<>();
+    for (int height = fromHeight; height < fromHeight + count; height++) {
+      Block block = block(height, verified);
+      downloadCache.addBlock(block);
+      blocks.add(block);
+    }
+    return blocks;
+  }
+
+  private static Block block(int height, boolean verified) {
+    Block block = mock(Block.class);
+    when(block.getId()).thenReturn(1000L + height);
+    when(block.getPreviousBlockId()).thenReturn(1000L + height - 1);
+    when(block.getHeight()).thenReturn(height);
+    when(block.isVerified()).thenReturn(verified);
+    when(block.getBytes()).thenReturn(new byte[100]);
+    when(block.getTransactions()).thenReturn(Collections.emptyList());
+    doCallRealMethod().when(block).setByteLength(anyInt());
+    doCallRealMethod().when(block).getByteLength();
+    return block;
+  }
+}
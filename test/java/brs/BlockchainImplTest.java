@@ -0,0 +1,98 @@
+package brs;
+
+import brs.db.BlockDb;
+import brs.db.TransactionDb;
+import brs.db.store.BlockchainStore;
+import brs.props.PropertyService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(JUnit4.class)
+public class BlockchainImplTest {
+
+  private BlockchainImpl t;
+
+  private BlockDb blockDb;
+  private BlockchainStore blockchainStore;
+
+  @Before
+  public void setUp() {
+    blockDb = mock(BlockDb.class);
+    blockchainStore = mock(BlockchainStore.class);
+    doReturn(Collections.emptyList()).when(blockchainStore).getBlocks(anyInt(), anyInt());
+
+    t = new BlockchainImpl(mock(TransactionDb.class), blockDb, blockchainStore, mock(PropertyService.class));
+  }
+
+  private static Block mockBlock(long id, long previousId, int height) {
+    Block block = mock(Block.class);
+    doReturn(id).when(block).getId();
+    doReturn(previousId).when(block).getPreviousBlockId();
+    doReturn(height).when(block).getHeight();
+    return block;
+  }
+
+  @Test
+  public void recentBlocksAreServedWithoutDatabase() {
+    Block block1 = mockBlock(11, 10, 1);
+    Block block2 = mockBlock(12, 11, 2);
+    Block block3 = mockBlock(13, 12, 3);
+    t.setLastBlock(block1);
+    t.setLastBlock(block2);
+    t.setLastBlock(block3);
+
+    assertSame(block1, t.getBlock(11));
+    assertSame(block2, t.getBlockAtHeight(2));
+    assertEquals(11, t.getBlockIdAtHeight(1));
+    assertTrue(t.hasBlock(12));
+    verify(block2).setNextBlockId(13);
+    verifyZeroInteractions(blockDb);
+  }
+
+  @Test
+  public void poppedOffBlocksAreDropped() {
+    Block block1 = mockBlock(11, 10, 1);
+    Block block2 = mockBlock(12, 11, 2);
+    Block block3 = mockBlock(13, 12, 3);
+    t.setLastBlock(block1);
+    t.setLastBlock(block2);
+    t.setLastBlock(block3);
+
+    t.setLastBlock(block3, block1);
+
+    assertSame(block1, t.getLastBlock());
+    assertFalse(t.hasBlock(13));
+    assertNull(t.getBlock(12));
+    verify(blockDb).findBlock(12);
+
+    Block fork2 = mockBlock(22, 11, 2);
+    t.setLastBlock(fork2);
+    assertSame(fork2, t.getBlockAtHeight(2));
+    verify(blockDb, never()).findBlockAtHeight(anyInt());
+  }
+
+  @Test
+  public void olderBlocksAreLoadedOnReset() {
+    Block block1 = mockBlock(11, 10, 1);
+    Block block2 = mockBlock(12, 11, 2);
+    Block block3 = mockBlock(13, 12, 3);
+    doReturn(Arrays.asList(block2, block1)).when(blockchainStore).getBlocks(eq(1), anyInt());
+
+    t.setLastBlock(block3);
+
+    assertSame(block1, t.getBlockAtHeight(1));
+    assertSame(block2, t.getBlock(12));
+    verify(blockDb, never()).findBlock(anyLong());
+  }
+}
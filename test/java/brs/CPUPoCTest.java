@@ -0,0 +1,117 @@
+package brs;
+
+import brs.props.PropertyService;
+import brs.props.PropertyServiceImpl;
+import brs.props.Props;
+import brs.services.BlockService;
+import brs.util.MiningPlot;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.HashMap;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(Burst.class)
+public class CPUPoCTest {
+
+  private static final int CHECKPOINT_HEIGHT = 1000;
+
+  private BlockService blockService;
+
+  @Before
+  public void setUp() {
+    Properties properties = new Properties();
+    properties.setProperty(Props.CPU_NUM_CORES.getName(), "2");
+    properties.setProperty(Props.BRS_CHECKPOINT_HEIGHT.getName(), String.valueOf(CHECKPOINT_HEIGHT));
+    PropertyService propertyService = new PropertyServiceImpl(properties);
+    mockStatic(Burst.class);
+    when(Burst.getPropertyService()).thenReturn(propertyService);
+
+    blockService = mock(BlockService.class);
+  }
+
+  @Test
+  public void allBlocksOfTheBatchAreVerified() throws Exception {
+    HashMap<Block, Block> blocks = blocks(100, 10);
+
+    CPUPoC.validatePoC(blocks, 2, blockService);
+
+    for (Block block : blocks.keySet()) {
+      verify(blockService).preVerify(block, blocks.get(block));
+    }
+  }
+
+  @Test
+  public void scoopIsGeneratedAboveTheCheckpoint() throws Exception {
+    HashMap<Block, Block> blocks = blocks(CHECKPOINT_HEIGHT, 2);
+
+    CPUPoC.validatePoC(blocks, 2, blockService);
+
+    for (Block block : blocks.keySet()) {
+      verify(blockService).preVerify(eq(block), eq(blocks.get(block)), argThat(scoop -> scoop.length == MiningPlot.SCOOP_SIZE));
+    }
+  }
+
+  @Test
+  public void failingBlockIsReported() throws Exception {
+    HashMap<Block, Block> blocks = blocks(100, 10);
+    Block failing = blocks.keySet().iterator().next();
+    doThrow(new BlockchainProcessor.BlockNotAcceptedException("invalid")).when(blockService).preVerify(failing, blocks.get(failing));
+
+    try {
+      CPUPoC.validatePoC(blocks, 2, blockService);
+      fail();
+    } catch (OCLPoC.PreValidateFailException e) {
+      assertSame(failing, e.getBlock());
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void interruptedVerificationFailsTheBatch() throws Exception {
+    HashMap<Block, Block> blocks = blocks(100, 10);
+    Block interrupted = blocks.keySet().iterator().next();
+    doThrow(new InterruptedException()).when(blockService).preVerify(interrupted, blocks.get(interrupted));
+
+    CPUPoC.validatePoC(blocks, 2, blockService);
+  }
+
+  @Test
+  public void interruptedCallerDoesNotReturnNormally() throws Exception {
+    HashMap<Block, Block> blocks = blocks(100, 10);
+
+    Thread.currentThread().interrupt();
+    try {
+      CPUPoC.validatePoC(blocks, 2, blockService);
+      fail();
+    } catch (InterruptedException e) {
+      // expected
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  private static HashMap<Block, Block> blocks(int fromHeight, int count) {
+    HashMap<Block, Block> blocks = new HashMap<>();
+    Block previous = mock(Block.class);
+    for (int i = 0; i < count; i++) {
+      Block block = mock(Block.class);
+      when(block.getHeight()).thenReturn(fromHeight + i);
+      blocks.put(block, previous);
+      previous = block;
+    }
+    return blocks;
+  }
+}
@@ -0,0 +1,248 @@
+package brs;
+
+import brs.common.TestDatabase;
+import brs.db.sql.Db;
+import brs.db.sql.SqlBlockchainStore;
+import brs.db.store.BlockchainStore;
+import brs.db.store.Dbs;
+import brs.fluxcapacitor.FluxCapacitor;
+import brs.fluxcapacitor.FluxValues;
+import brs.props.PropertyService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static brs.schema.Tables.BLOCK;
+import static brs.schema.Tables.TRANSACTION;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+
+/**
+ * Checks the ledger against the committed amounts computed from the transaction table.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(Burst.class)
+@PowerMockIgnore("javax.management.*")
+public class CommitmentLedgerTest {
+
+  private static final int COMMITMENT_WAIT = 3;
+
+  private static final long ACCOUNT_A = 1L;
+  private static final long ACCOUNT_B = 2L;
+  private static final long NO_COMMITMENTS = 3L;
+  private static final long[] ACCOUNTS = {0L, ACCOUNT_A, ACCOUNT_B, NO_COMMITMENTS};
+
+  private final List<Transaction> transactions = new ArrayList<>();
+  private final List<Block> blocks = new ArrayList<>();
+  private long nextTransactionId = 100L;
+
+  private SqlBlockchainStore sqlStore;
+  private CommitmentLedger t;
+
+  @Before
+  public void setUp() {
+    PropertyService propertyService = TestDatabase.init();
+    FluxCapacitor fluxCapacitor = mock(FluxCapacitor.class);
+    when(fluxCapacitor.getValue(eq(FluxValues.COMMITMENT_WAIT), anyInt())).thenReturn(COMMITMENT_WAIT);
+    mockStatic(Burst.class);
+    when(Burst.getPropertyService()).thenReturn(propertyService);
+    when(Burst.getFluxCapacitor()).thenReturn(fluxCapacitor);
+    when(Burst.getDbs()).thenReturn(mock(Dbs.class));
+
+    sqlStore = new SqlBlockchainStore();
+    BlockchainStore blockchainStore = mock(BlockchainStore.class);
+    when(blockchainStore.getCommitmentTransactions(anyInt())).thenAnswer(invocation -> {
+      int height = invocation.getArgument(0);
+      return transactions.stream().filter(transaction -> transaction.getHeight() <= height).collect(Collectors.toList());
+    });
+    t = new CommitmentLedger(blockchainStore);
+  }
+
+  @After
+  public void tearDown() {
+    TestDatabase.shutdown();
+  }
+
+  @Test
+  public void notLoadedLedgerCannotTell() {
+    block(0);
+    assertNull(t.getCommittedAmount(0L, 10, 0, null));
+  }
+
+  @Test
+  public void loadedAndPushedAmountsMatchTheDatabase() {
+    chain();
+    assertMatchesTheDatabase();
+  }
+
+  @Test
+  public void queryPastTheLastBlockCannotTell() {
+    chain();
+    assertNull(t.getCommittedAmount(ACCOUNT_A, 14, 11, null));
+  }
+
+  @Test
+  public void poppedBlocksAreForgotten() {
+    chain();
+
+    pop();
+    assertMatchesTheDatabase();
+    pop();
+    pop();
+    assertMatchesTheDatabase();
+
+    // a fork on top of the popped blocks
+    block(8, add(ACCOUNT_B, 11), remove(ACCOUNT_A, 3));
+    block(9, remove(ACCOUNT_B, 60));
+    assertMatchesTheDatabase();
+  }
+
+  @Test
+  public void blockPoppedOutOfStepIsReloadedWithTheNextPush() {
+    chain();
+
+    Block last = blocks.get(blocks.size() - 1);
+    pop();
+    // popped twice, as when the listener and the chain disagree
+    t.blockPopped(last);
+    assertNull(t.getCommittedAmount(0L, 9, 9, null));
+
+    block(10, add(ACCOUNT_A, 1));
+    assertMatchesTheDatabase();
+  }
+
+  private void chain() {
+    block(0);
+    block(1, add(ACCOUNT_A, 100));
+    block(2, add(ACCOUNT_B, 50));
+    block(3, add(ACCOUNT_A, 30), remove(ACCOUNT_A, 20));
+    block(4);
+    block(5, remove(ACCOUNT_B, 10));
+    block(6, add(ACCOUNT_A, 5), add(ACCOUNT_B, 5));
+    // loaded from the store with the first block pushed
+    block(7);
+    block(8, remove(ACCOUNT_A, 40));
+    block(9, add(ACCOUNT_B, 7), add(ACCOUNT_A, 1), remove(ACCOUNT_B, 1));
+    // more removed than added within the wait
+    block(10, remove(ACCOUNT_A, 200));
+  }
+
+  private void assertMatchesTheDatabase() {
+    int height = blocks.get(blocks.size() - 1).getHeight();
+    // only the skipped removals change the amount, one addition checks that the others are ignored
+    List<Transaction> skipped = transactions.stream()
+        .filter(transaction -> transaction.getType() == TransactionType.BurstMining.COMMITMENT_REMOVE)
+        .collect(Collectors.toList());
+    skipped.add(transactions.get(0));
+    skipped.add(null);
+    for (long accountId : ACCOUNTS) {
+      for (int endHeight = 0; endHeight <= height; endHeight++) {
+        for (int atHeight = endHeight; atHeight <= height + COMMITMENT_WAIT; atHeight++) {
+          for (Transaction skipTransaction : skipped) {
+            long expected = sqlStore.getCommittedAmount(accountId, atHeight, endHeight, skipTransaction);
+            Long actual = t.getCommittedAmount(accountId, atHeight, endHeight, skipTransaction);
+            assertEquals("account " + accountId + " at " + atHeight + " up to " + endHeight + " skipping "
+                + (skipTransaction == null ? null : skipTransaction.getId()), Long.valueOf(expected), actual);
+          }
+        }
+      }
+    }
+  }
+
+  private Block block(int height, Transaction... blockTransactions) {
+    long blockId = 1000L + height;
+    Db.useDSLContext(ctx -> {
+      ctx.insertInto(BLOCK, BLOCK.ID, BLOCK.VERSION, BLOCK.TIMESTAMP, BLOCK.TOTAL_AMOUNT, BLOCK.TOTAL_FEE, BLOCK.PAYLOAD_LENGTH,
+          BLOCK.GENERATOR_PUBLIC_KEY, BLOCK.CUMULATIVE_DIFFICULTY, BLOCK.BASE_TARGET, BLOCK.HEIGHT, BLOCK.GENERATION_SIGNATURE,
+          BLOCK.BLOCK_SIGNATURE, BLOCK.PAYLOAD_HASH, BLOCK.GENERATOR_ID, BLOCK.NONCE)
+          .values(blockId, 3, height * 240, 0L, 0L, 0, new byte[32], new byte[] {0}, 18325193796L, height, new byte[32],
+              new byte[64], new byte[32], 1L, 0L)
+          .execute();
+      for (Transaction transaction : blockTransactions) {
+        byte[] attachmentBytes = attachmentBytes(transaction);
+        ctx.insertInto(TRANSACTION, TRANSACTION.ID, TRANSACTION.DEADLINE, TRANSACTION.SENDER_PUBLIC_KEY, TRANSACTION.AMOUNT,
+            TRANSACTION.FEE, TRANSACTION.HEIGHT, TRANSACTION.BLOCK_ID, TRANSACTION.TIMESTAMP, TRANSACTION.TYPE,
+            TRANSACTION.SUBTYPE, TRANSACTION.SENDER_ID, TRANSACTION.BLOCK_TIMESTAMP, TRANSACTION.FULL_HASH,
+            TRANSACTION.ATTACHMENT_BYTES, TRANSACTION.VERSION, TRANSACTION.HAS_MESSAGE, TRANSACTION.HAS_ENCRYPTED_MESSAGE,
+            TRANSACTION.HAS_PUBLIC_KEY_ANNOUNCEMENT, TRANSACTION.HAS_ENCRYPTTOSELF_MESSAGE)
+            .values(transaction.getId(), (short) 1440, new byte[32], 0L, 0L, height, blockId, height * 240,
+                transaction.getType().getType(), transaction.getType().getSubtype(), transaction.getSenderId(), height * 240,
+                ByteBuffer.allocate(32).putLong(transaction.getId()).array(), attachmentBytes, (byte) 1, false, false, false, false)
+            .execute();
+      }
+    });
+    for (Transaction transaction : blockTransactions) {
+      when(transaction.getHeight()).thenReturn(height);
+      transactions.add(transaction);
+    }
+
+    Block block = mock(Block.class);
+    when(block.getHeight()).thenReturn(height);
+    when(block.getTransactions()).thenReturn(Arrays.asList(blockTransactions));
+    blocks.add(block);
+    // as after a restart, the ledger only sees the blocks from the middle of the chain on
+    if (height >= 7) {
+      t.blockPushed(block);
+    }
+    return block;
+  }
+
+  private void pop() {
+    Block block = blocks.remove(blocks.size() - 1);
+    Db.useDSLContext(ctx -> {
+      ctx.deleteFrom(BLOCK).where(BLOCK.HEIGHT.eq(block.getHeight())).execute();
+    });
+    transactions.removeIf(transaction -> transaction.getHeight() >= block.getHeight());
+    t.blockPopped(block);
+  }
+
+  private Transaction add(long senderId, long amount) {
+    return transaction(TransactionType.BurstMining.COMMITMENT_ADD, senderId, new Attachment.CommitmentAdd(buffer(amount), (byte) 1));
+  }
+
+  private Transaction remove(long senderId, long amount) {
+    return transaction(TransactionType.BurstMining.COMMITMENT_REMOVE, senderId, new Attachment.CommitmentRemove(buffer(amount), (byte) 1));
+  }
+
+  private Transaction transaction(TransactionType type, long senderId, Attachment attachment) {
+    Transaction transaction = mock(Transaction.class);
+    when(transaction.getId()).thenReturn(nextTransactionId++);
+    when(transaction.getType()).thenReturn(type);
+    when(transaction.getSenderId()).thenReturn(senderId);
+    when(transaction.getAttachment()).thenReturn(attachment);
+    return transaction;
+  }
+
+  private static ByteBuffer buffer(long amount) {
+    ByteBuffer buffer = ByteBuffer.wrap(attachmentBytes((byte) 1, amount));
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    return buffer;
+  }
+
+  private static byte[] attachmentBytes(Transaction transaction) {
+    Attachment attachment = transaction.getAttachment();
+    long amount = attachment instanceof Attachment.CommitmentAdd ? ((Attachment.CommitmentAdd) attachment).getAmountNQT()
+        : ((Attachment.CommitmentRemove) attachment).getAmountNQT();
+    return attachmentBytes(attachment.getVersion(), amount);
+  }
+
+  // the version byte then the amount, as read back with the transaction version 1
+  private static byte[] attachmentBytes(byte version, long amount) {
+    return ByteBuffer.allocate(9).order(ByteOrder.LITTLE_ENDIAN).put(version).putLong(amount).array();
+  }
+}
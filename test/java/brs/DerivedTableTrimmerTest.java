@@ -0,0 +1,190 @@
+package brs;
+
+import brs.common.TestDatabase;
+import brs.db.DerivedTable;
+import brs.db.store.DerivedTableManager;
+import brs.props.PropertyService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(Burst.class)
+@PowerMockIgnore("javax.management.*")
+public class DerivedTableTrimmerTest {
+
+  private static final int CHUNK_KEYS = 2;
+
+  private DerivedTableManager derivedTableManager;
+  private DerivedTable table;
+  private DerivedTable otherTable;
+  private int trimHeight;
+  private boolean importing;
+
+  @Before
+  public void setUp() {
+    PropertyService propertyService = TestDatabase.init();
+    mockStatic(Burst.class);
+    when(Burst.getPropertyService()).thenReturn(propertyService);
+
+    table = mock(DerivedTable.class);
+    when(table.getTable()).thenReturn("table");
+    otherTable = mock(DerivedTable.class);
+    when(otherTable.getTable()).thenReturn("other_table");
+    derivedTableManager = new DerivedTableManager();
+    derivedTableManager.registerDerivedTable(table);
+    derivedTableManager.registerDerivedTable(otherTable);
+  }
+
+  @After
+  public void tearDown() {
+    TestDatabase.shutdown();
+  }
+
+  @Test
+  public void nothingIsTrimmedBeforeATrimHeight() {
+    DerivedTableTrimmer t = trimmer();
+
+    t.run();
+
+    assertEquals(0, t.getBacklog());
+    verify(table, never()).trim(anyInt(), anyInt(), anyInt());
+  }
+
+  @Test
+  public void tableIsTrimmedInChunksUntilAChunkIsShort() {
+    when(table.trim(1000, 0, CHUNK_KEYS)).thenReturn(2, 2, 1);
+    DerivedTableTrimmer t = trimmer();
+    trimHeight = 1000;
+    assertEquals(2, t.getBacklog());
+
+    t.run();
+
+    verify(table, times(3)).trim(1000, 0, CHUNK_KEYS);
+    verify(otherTable).trim(1000, 0, CHUNK_KEYS);
+    assertEquals(0, t.getBacklog());
+
+    // already trimmed to that height
+    t.run();
+    verify(table, times(3)).trim(anyInt(), anyInt(), anyInt());
+  }
+
+  @Test
+  public void nextRoundOnlyLooksAtTheEntitiesChangedSince() {
+    DerivedTableTrimmer t = trimmer();
+    trimHeight = 1000;
+    t.run();
+
+    trimHeight = 2440;
+    assertEquals(2, t.getBacklog());
+    t.run();
+
+    verify(table).trim(2440, 1000, CHUNK_KEYS);
+    verify(otherTable).trim(2440, 1000, CHUNK_KEYS);
+  }
+
+  @Test
+  public void trimmedHeightsSurviveARestart() {
+    trimHeight = 1000;
+    trimmer().run();
+
+    // a new trimmer on the same database, as after a restart
+    DerivedTableTrimmer t = trimmer();
+    assertEquals(0, t.getBacklog());
+    trimHeight = 2440;
+    t.run();
+
+    verify(table).trim(2440, 1000, CHUNK_KEYS);
+  }
+
+  @Test
+  public void failedChunkLeavesTheTableToTheNextRound() {
+    when(table.trim(1000, 0, CHUNK_KEYS)).thenThrow(new RuntimeException("failed")).thenReturn(0);
+    DerivedTableTrimmer t = trimmer();
+    trimHeight = 1000;
+
+    t.run();
+    assertEquals(2, t.getBacklog());
+    verify(otherTable, never()).trim(anyInt(), anyInt(), anyInt());
+
+    t.run();
+    assertEquals(0, t.getBacklog());
+    verify(table, times(2)).trim(1000, 0, CHUNK_KEYS);
+  }
+
+  @Test
+  public void importingPausesTrimmingWithoutRecordingTheHeight() {
+    when(table.trim(1000, 0, CHUNK_KEYS)).thenAnswer(invocation -> {
+      importing = true;
+      return CHUNK_KEYS;
+    });
+    DerivedTableTrimmer t = trimmer();
+    trimHeight = 1000;
+
+    t.run();
+    assertEquals(2, t.getBacklog());
+
+    doReturn(0).when(table).trim(1000, 0, CHUNK_KEYS);
+    importing = false;
+    t.run();
+    // started over from the same height
+    verify(table, times(2)).trim(1000, 0, CHUNK_KEYS);
+    assertEquals(0, t.getBacklog());
+  }
+
+  @Test
+  public void rollbackBelowTheTrimmedHeightLooksAtTheEntitiesChangedSinceAgain() {
+    DerivedTableTrimmer t = trimmer();
+    trimHeight = 1000;
+    t.run();
+
+    DerivedTableTrimmer.rollbackTrimmedHeights(800);
+    assertEquals(2, t.getBacklog());
+    t.run();
+
+    verify(table).trim(1000, 800, CHUNK_KEYS);
+    verify(otherTable).trim(1000, 800, CHUNK_KEYS);
+  }
+
+  @Test
+  public void rollbackAboveTheTrimmedHeightKeepsIt() {
+    DerivedTableTrimmer t = trimmer();
+    trimHeight = 1000;
+    t.run();
+
+    DerivedTableTrimmer.rollbackTrimmedHeights(1200);
+    assertEquals(0, t.getBacklog());
+  }
+
+  @Test
+  public void clearedTrimmedHeightsStartOverFromScratch() {
+    DerivedTableTrimmer t = trimmer();
+    trimHeight = 1000;
+    t.run();
+
+    DerivedTableTrimmer.clearTrimmedHeights();
+    trimHeight = 2440;
+    t.run();
+
+    verify(table).trim(2440, 0, CHUNK_KEYS);
+    verify(otherTable).trim(2440, 0, CHUNK_KEYS);
+  }
+
+  private DerivedTableTrimmer trimmer() {
+    return new DerivedTableTrimmer(derivedTableManager, new Object(), () -> trimHeight, () -> importing, CHUNK_KEYS);
+  }
+}
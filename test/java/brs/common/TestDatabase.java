@@ -0,0 +1,38 @@
+package brs.common;
+
+import brs.db.cache.DBCacheManagerImpl;
+import brs.db.sql.Db;
+import brs.props.PropertyService;
+import brs.props.PropertyServiceImpl;
+import brs.props.Props;
+import brs.services.impl.TimeServiceImpl;
+import brs.statistics.StatisticsManagerImpl;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A migrated in-memory database for the tests of the SQL tables, a new one on each {@link #init()}.
+ * The tests stub Burst.getPropertyService() with the returned service, {@link Db#shutdown()} reads it.
+ */
+public final class TestDatabase {
+
+  private static final AtomicInteger databases = new AtomicInteger();
+
+  private TestDatabase() {
+  }
+
+  public static PropertyService init() {
+    Properties properties = new Properties();
+    properties.setProperty(Props.DB_URL.getName(), "jdbc:h2:mem:test" + databases.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+    properties.setProperty(Props.DB_CONNECTIONS.getName(), "2");
+    properties.setProperty(Props.DB_H2_DEFRAG_ON_SHUTDOWN.getName(), "false");
+    PropertyService propertyService = new PropertyServiceImpl(properties);
+    Db.init(propertyService, new DBCacheManagerImpl(propertyService, new StatisticsManagerImpl(new TimeServiceImpl())));
+    return propertyService;
+  }
+
+  public static void shutdown() {
+    Db.shutdown();
+  }
+}
@@ -0,0 +1,116 @@
+package brs.db.archive;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class BlockArchiveTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void blocksAreReadBackAfterReopening() throws IOException {
+    String directory = folder.getRoot().getPath();
+    BlockArchive t = new BlockArchive(directory);
+    t.append(0, 10, 0, new byte[] {1});
+    t.append(1, 11, 10, new byte[] {2, 2});
+    t.append(2, 12, 11, new byte[] {3, 3, 3});
+    t.close();
+
+    t = new BlockArchive(directory);
+    assertEquals(2, t.getHeight());
+    assertEquals(11, t.getBlockId(1));
+    List<byte[]> blocksBytes = t.getBlocks(1, 10, 10, 1000).getTransferBytes();
+    assertEquals(2, blocksBytes.size());
+    assertArrayEquals(new byte[] {2, 2}, blocksBytes.get(0));
+    assertArrayEquals(new byte[] {3, 3, 3}, blocksBytes.get(1));
+    t.close();
+  }
+
+  @Test
+  public void nothingIsReturnedForAnotherPreviousBlock() throws IOException {
+    BlockArchive t = new BlockArchive(folder.getRoot().getPath());
+    t.append(0, 10, 0, new byte[] {1});
+    t.append(1, 11, 10, new byte[] {2});
+
+    assertTrue(t.getBlocks(1, 99, 10, 1000).getTransferBytes().isEmpty());
+    t.close();
+  }
+
+  @Test
+  public void truncatedBlocksAreReplaced() throws IOException {
+    BlockArchive t = new BlockArchive(folder.getRoot().getPath());
+    t.append(0, 10, 0, new byte[] {1});
+    t.append(1, 11, 10, new byte[] {2});
+    t.append(2, 12, 11, new byte[] {3});
+
+    t.truncate(1);
+    assertEquals(0, t.getHeight());
+    t.append(1, 21, 10, new byte[] {4, 4});
+
+    assertArrayEquals(new byte[] {4, 4}, t.getBlocks(1, 10, 10, 1000).getTransferBytes().get(0));
+    t.close();
+  }
+
+  @Test
+  public void lastBlockIdIsReadWithTheBlocks() throws IOException {
+    BlockArchive t = new BlockArchive(folder.getRoot().getPath());
+    t.append(0, 10, 0, new byte[] {1});
+    t.append(1, 11, 10, new byte[] {2});
+    t.append(2, 12, 11, new byte[] {3});
+
+    assertEquals(12, t.getBlocks(1, 10, 10, 1000).getLastBlockId());
+    assertEquals(11, t.getBlocks(1, 10, 1, 1000).getLastBlockId());
+    t.close();
+  }
+
+  @Test
+  public void truncateToZeroAfterReadingEmptiesTheArchive() throws IOException {
+    String directory = folder.getRoot().getPath();
+    BlockArchive t = new BlockArchive(directory);
+    t.append(0, 10, 0, new byte[] {1});
+    t.append(1, 11, 10, new byte[] {2});
+    assertEquals(2, t.getBlocks(0, 0, 10, 1000).getTransferBytes().size());
+
+    t.truncate(0);
+    assertEquals(-1, t.getHeight());
+    assertEquals(0, new File(directory, "blocks-000000.dat").length());
+    t.close();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void blockNotFollowingTheLastOneIsRejected() throws IOException {
+    BlockArchive t = new BlockArchive(folder.getRoot().getPath());
+    t.append(0, 10, 0, new byte[] {1});
+    t.append(1, 11, 99, new byte[] {2});
+  }
+
+  @Test
+  public void interruptedAppendIsDropped() throws IOException {
+    String directory = folder.getRoot().getPath();
+    BlockArchive t = new BlockArchive(directory);
+    t.append(0, 10, 0, new byte[] {1});
+    t.close();
+    try (RandomAccessFile segment = new RandomAccessFile(new File(directory, "blocks-000000.dat"), "rw")) {
+      segment.seek(segment.length());
+      segment.write(new byte[] {5, 0, 0, 0, 1});
+    }
+
+    t = new BlockArchive(directory);
+    assertEquals(0, t.getHeight());
+    t.append(1, 11, 10, new byte[] {2});
+    assertArrayEquals(new byte[] {2}, t.getBlocks(1, 10, 10, 1000).getTransferBytes().get(0));
+    t.close();
+  }
+}
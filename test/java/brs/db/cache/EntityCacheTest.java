@@ -0,0 +1,50 @@
+package brs.db.cache;
+
+import brs.db.BurstKey;
+import org.ehcache.Cache;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Collections;
+
+import static org.mockito.Mockito.*;
+
+@RunWith(JUnit4.class)
+public class EntityCacheTest {
+
+  private EntityCache<Object> t;
+
+  private Cache<BurstKey, Object> cache;
+
+  @Before
+  public void setUp() {
+    cache = mock(Cache.class);
+    t = new EntityCache<>(cache);
+  }
+
+  @Test
+  public void loadedEntityIsKept() {
+    BurstKey key = mock(BurstKey.class);
+    Object entity = new Object();
+
+    t.put(key, entity, t.getGeneration());
+
+    verify(cache).put(key, entity);
+    verify(cache, never()).remove(key);
+  }
+
+  @Test
+  public void entityLoadedBeforeAnInvalidationIsDropped() {
+    BurstKey key = mock(BurstKey.class);
+    Object entity = new Object();
+    long generation = t.getGeneration();
+
+    t.invalidate(Collections.singleton(key));
+    t.put(key, entity, generation);
+
+    verify(cache).put(key, entity);
+    verify(cache).remove(key);
+  }
+}
@@ -0,0 +1,58 @@
+package brs.db.cache;
+
+import brs.db.BurstKey;
+import brs.statistics.StatisticsManagerImpl;
+import org.ehcache.Cache;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(JUnit4.class)
+public class StatisticsCacheTest {
+
+  private static final String CACHE_NAME = "account";
+
+  private StatisticsCache<BurstKey, Object> t;
+
+  private Cache<BurstKey, Object> cache;
+  private StatisticsManagerImpl statisticsManager;
+
+  @Before
+  public void setUp() {
+    cache = mock(Cache.class);
+    statisticsManager = mock(StatisticsManagerImpl.class);
+    t = new StatisticsCache<>(cache, CACHE_NAME, statisticsManager);
+  }
+
+  @Test
+  public void getCountsAHitOrAMiss() {
+    BurstKey cachedKey = mock(BurstKey.class);
+    BurstKey missingKey = mock(BurstKey.class);
+    Object entity = new Object();
+    when(cache.get(cachedKey)).thenReturn(entity);
+
+    assertSame(entity, t.get(cachedKey));
+    assertNull(t.get(missingKey));
+
+    verify(statisticsManager).foundObjectInCache(CACHE_NAME);
+    verify(statisticsManager).didNotFindObjectInCache(CACHE_NAME);
+  }
+
+  @Test
+  public void containsKeyThenGetCountsOnce() {
+    BurstKey key = mock(BurstKey.class);
+    Object entity = new Object();
+    when(cache.containsKey(key)).thenReturn(true);
+    when(cache.get(key)).thenReturn(entity);
+
+    assertTrue(t.containsKey(key));
+    assertSame(entity, t.get(key));
+
+    verify(statisticsManager, times(1)).foundObjectInCache(CACHE_NAME);
+    verify(statisticsManager, never()).didNotFindObjectInCache(CACHE_NAME);
+  }
+}
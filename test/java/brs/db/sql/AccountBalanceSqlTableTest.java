@@ -0,0 +1,180 @@
+package brs.db.sql;
+
+import brs.Account;
+import brs.Blockchain;
+import brs.Burst;
+import brs.common.TestDatabase;
+import brs.db.BurstKey;
+import brs.db.store.AccountStore;
+import brs.db.store.DerivedTableManager;
+import brs.db.store.Stores;
+import brs.props.PropertyService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import static brs.schema.Tables.ACCOUNT;
+import static brs.schema.Tables.ACCOUNT_BALANCE;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(Burst.class)
+@PowerMockIgnore("javax.management.*")
+public class AccountBalanceSqlTableTest {
+
+  private static final DbKey.LongKeyFactory<Account.Balance> KEY_FACTORY = new DbKey.LongKeyFactory<Account.Balance>(ACCOUNT_BALANCE.ID) {
+    @Override
+    public BurstKey newKey(Account.Balance balance) {
+      return balance.nxtKey;
+    }
+  };
+
+  private static final long ACCOUNT_A = 1L;
+  private static final long ACCOUNT_B = 2L;
+  private static final long ACCOUNT_C = 3L;
+
+  private int height;
+  private AccountBalanceSqlTable t;
+
+  @Before
+  public void setUp() {
+    PropertyService propertyService = TestDatabase.init();
+    Blockchain blockchain = mock(Blockchain.class);
+    when(blockchain.getHeight()).thenAnswer(invocation -> height);
+    AccountStore accountStore = mock(AccountStore.class);
+    when(accountStore.getAccountKeyFactory()).thenReturn(new DbKey.LongKeyFactory<Account>(ACCOUNT.ID) {
+      @Override
+      public BurstKey newKey(Account account) {
+        return newKey(account.getId());
+      }
+    });
+    Stores stores = mock(Stores.class);
+    when(stores.getAccountStore()).thenReturn(accountStore);
+    mockStatic(Burst.class);
+    when(Burst.getBlockchain()).thenReturn(blockchain);
+    when(Burst.getPropertyService()).thenReturn(propertyService);
+    when(Burst.getStores()).thenReturn(stores);
+
+    t = new AccountBalanceSqlTable(KEY_FACTORY, new DerivedTableManager(), Db.getDbCacheManager(), true);
+  }
+
+  @After
+  public void tearDown() {
+    TestDatabase.shutdown();
+  }
+
+  @Test
+  public void balancesAreReadFromTheLedgerOnceLoaded() {
+    push(1, balance(ACCOUNT_A, 10L));
+    // the rows stay the only source until the ledger is loaded
+    assertEquals(10L, t.get(KEY_FACTORY.newKey(ACCOUNT_A)).getBalanceNQT());
+
+    push(2, balance(ACCOUNT_A, 11L), balance(ACCOUNT_B, 20L));
+    deleteRows();
+    assertEquals(11L, t.get(KEY_FACTORY.newKey(ACCOUNT_A)).getBalanceNQT());
+    assertEquals(20L, t.get(KEY_FACTORY.newKey(ACCOUNT_B)).getBalanceNQT());
+    assertNull(t.get(KEY_FACTORY.newKey(ACCOUNT_C)));
+  }
+
+  @Test
+  public void rollbackReloadsTheRemainingLatestBalances() {
+    push(1, balance(ACCOUNT_A, 10L), balance(ACCOUNT_B, 20L));
+    push(2, balance(ACCOUNT_A, 11L), balance(ACCOUNT_C, 30L));
+    push(3, balance(ACCOUNT_A, 12L));
+
+    Db.beginTransaction();
+    try {
+      t.rollback(1);
+      // what the rollback reloaded is seen by the rest of the transaction
+      assertEquals(10L, t.get(KEY_FACTORY.newKey(ACCOUNT_A)).getBalanceNQT());
+      assertNull(t.get(KEY_FACTORY.newKey(ACCOUNT_C)));
+      Db.commitTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+
+    assertEquals(10L, t.get(KEY_FACTORY.newKey(ACCOUNT_A)).getBalanceNQT());
+    assertEquals(20L, t.get(KEY_FACTORY.newKey(ACCOUNT_B)).getBalanceNQT());
+    assertNull(t.get(KEY_FACTORY.newKey(ACCOUNT_C)));
+
+    // pushed again on top of the rollback
+    push(2, balance(ACCOUNT_C, 31L));
+    assertEquals(31L, t.get(KEY_FACTORY.newKey(ACCOUNT_C)).getBalanceNQT());
+    assertEquals(10L, t.get(KEY_FACTORY.newKey(ACCOUNT_A)).getBalanceNQT());
+  }
+
+  @Test
+  public void rolledBackTransactionLeavesTheLedgerAlone() {
+    push(1, balance(ACCOUNT_A, 10L));
+    push(2, balance(ACCOUNT_A, 11L));
+
+    height = 3;
+    Db.beginTransaction();
+    try {
+      t.insert(balance(ACCOUNT_A, 99L));
+      t.insert(balance(ACCOUNT_B, 20L));
+      t.finish();
+      assertEquals(99L, t.get(KEY_FACTORY.newKey(ACCOUNT_A)).getBalanceNQT());
+      Db.rollbackTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+
+    assertEquals(11L, t.get(KEY_FACTORY.newKey(ACCOUNT_A)).getBalanceNQT());
+    assertNull(t.get(KEY_FACTORY.newKey(ACCOUNT_B)));
+  }
+
+  @Test
+  public void transactionReadsItsOwnBalancesFirst() {
+    push(1, balance(ACCOUNT_A, 10L));
+    push(2, balance(ACCOUNT_A, 11L));
+
+    height = 3;
+    Db.beginTransaction();
+    try {
+      t.insert(balance(ACCOUNT_A, 12L));
+      assertEquals(12L, t.get(KEY_FACTORY.newKey(ACCOUNT_A)).getBalanceNQT());
+      t.finish();
+      assertEquals(12L, t.get(KEY_FACTORY.newKey(ACCOUNT_A)).getBalanceNQT());
+      t.insert(balance(ACCOUNT_A, 13L));
+      assertEquals(13L, t.get(KEY_FACTORY.newKey(ACCOUNT_A)).getBalanceNQT());
+      Db.commitTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+  }
+
+  private void push(int height, Account.Balance... balances) {
+    this.height = height;
+    Db.beginTransaction();
+    try {
+      for (Account.Balance balance : balances) {
+        t.insert(balance);
+      }
+      t.finish();
+      Db.commitTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+  }
+
+  private static Account.Balance balance(long id, long balanceNQT) {
+    Account.Balance balance = new Account.Balance(id);
+    balance.setBalanceNQT(balanceNQT);
+    balance.setUnconfirmedBalanceNQT(balanceNQT);
+    return balance;
+  }
+
+  private static void deleteRows() {
+    Db.useDSLContext(ctx -> {
+      ctx.deleteFrom(ACCOUNT_BALANCE).execute();
+    });
+  }
+}
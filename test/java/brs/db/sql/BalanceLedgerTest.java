@@ -0,0 +1,182 @@
+package brs.db.sql;
+
+import brs.Account;
+import brs.Burst;
+import brs.db.BurstKey;
+import brs.db.store.AccountStore;
+import brs.db.store.Stores;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static brs.schema.Tables.ACCOUNT;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(Burst.class)
+public class BalanceLedgerTest {
+
+  // the capacity of a new ledger
+  private static final int SLOTS = 1024;
+
+  private BalanceLedger t;
+
+  @Before
+  public void setUp() {
+    AccountStore accountStore = mock(AccountStore.class);
+    when(accountStore.getAccountKeyFactory()).thenReturn(new DbKey.LongKeyFactory<Account>(ACCOUNT.ID) {
+      @Override
+      public BurstKey newKey(Account account) {
+        return newKey(account.getId());
+      }
+    });
+    Stores stores = mock(Stores.class);
+    when(stores.getAccountStore()).thenReturn(accountStore);
+    mockStatic(Burst.class);
+    when(Burst.getStores()).thenReturn(stores);
+
+    t = new BalanceLedger();
+  }
+
+  @Test
+  public void balancesAreReturnedAsCopies() {
+    t.put(1L, 10L, 9L, 8L);
+
+    Account.Balance balance = t.get(1L);
+    assertBalance(balance, 1L, 10L, 9L, 8L);
+    balance.setBalanceNQT(0L);
+    assertEquals(10L, t.get(1L).getBalanceNQT());
+    assertNull(t.get(2L));
+  }
+
+  @Test
+  public void putReplacesTheBalancesOfAnAccount() {
+    t.put(1L, 10L, 9L, 8L);
+    t.put(1L, 20L, 19L, 18L);
+
+    assertEquals(1, t.size());
+    assertBalance(t.get(1L), 1L, 20L, 19L, 18L);
+  }
+
+  @Test
+  public void collidingAccountsAreAllFound() {
+    List<Long> ids = idsWithHome(7, 5);
+    for (long id : ids) {
+      t.put(id, id, 0L, 0L);
+    }
+
+    for (long id : ids) {
+      assertEquals(id, t.get(id).getBalanceNQT());
+    }
+    t.remove(ids.get(2));
+    assertNull(t.get(ids.get(2)));
+    assertEquals(ids.get(4).longValue(), t.get(ids.get(4)).getBalanceNQT());
+  }
+
+  @Test
+  public void removalInAClusterWrappingAroundTheEndKeepsTheOthersReachable() {
+    // at the last slot, then the first ones
+    List<Long> last = idsWithHome(SLOTS - 1, 3);
+    // displaced by the cluster past the end
+    List<Long> first = idsWithHome(0, 2);
+    for (long id : last) {
+      t.put(id, id, 0L, 0L);
+    }
+    for (long id : first) {
+      t.put(id, id, 0L, 0L);
+    }
+
+    t.remove(last.get(0));
+    t.remove(last.get(0));
+    assertEquals(4, t.size());
+    assertNull(t.get(last.get(0)));
+    for (long id : last.subList(1, last.size())) {
+      assertEquals(id, t.get(id).getBalanceNQT());
+    }
+    for (long id : first) {
+      assertEquals(id, t.get(id).getBalanceNQT());
+    }
+
+    t.remove(first.get(0));
+    t.remove(last.get(2));
+    assertEquals(2, t.size());
+    assertEquals(last.get(1).longValue(), t.get(last.get(1)).getBalanceNQT());
+    assertEquals(first.get(1).longValue(), t.get(first.get(1)).getBalanceNQT());
+  }
+
+  @Test
+  public void growingKeepsAllBalances() {
+    for (long id = 1; id <= 100000; id++) {
+      t.put(id, id, -id, 2 * id);
+    }
+
+    assertEquals(100000, t.size());
+    for (long id = 1; id <= 100000; id++) {
+      assertBalance(t.get(id), id, id, -id, 2 * id);
+    }
+  }
+
+  @Test
+  public void unloadingDropsAllBalances() {
+    t.put(1L, 10L, 9L, 8L);
+    t.setLoaded(true);
+    assertTrue(t.isLoaded());
+
+    t.setLoaded(false);
+    assertFalse(t.isLoaded());
+    assertEquals(0, t.size());
+    assertNull(t.get(1L));
+  }
+
+  @Test
+  public void randomOperationsMatchAHashMap() {
+    Random random = new Random(42);
+    Map<Long, Long> expected = new HashMap<>();
+    for (int i = 0; i < 100000; i++) {
+      // few ids, so that the same accounts are put and removed again
+      long id = random.nextInt(2000);
+      if (random.nextInt(3) == 0) {
+        expected.remove(id);
+        t.remove(id);
+      }
+      else {
+        expected.put(id, (long) i);
+        t.put(id, i, 0L, 0L);
+      }
+      assertEquals(expected.size(), t.size());
+    }
+    for (long id = 0; id < 2000; id++) {
+      Account.Balance balance = t.get(id);
+      assertEquals(expected.get(id), balance == null ? null : balance.getBalanceNQT());
+    }
+  }
+
+  // the first ids hashed to the slot of a new ledger
+  private static List<Long> idsWithHome(int slot, int count) {
+    List<Long> ids = new ArrayList<>();
+    for (long id = 1; ids.size() < count; id++) {
+      if ((BalanceLedger.hash(id) & (SLOTS - 1)) == slot) {
+        ids.add(id);
+      }
+    }
+    return ids;
+  }
+
+  private static void assertBalance(Account.Balance balance, long id, long balanceNQT, long unconfirmedBalanceNQT, long forgedBalanceNQT) {
+    assertEquals(id, balance.getId());
+    assertEquals(balanceNQT, balance.getBalanceNQT());
+    assertEquals(unconfirmedBalanceNQT, balance.getUnconfirmedBalanceNQT());
+    assertEquals(forgedBalanceNQT, balance.getForgedBalanceNQT());
+  }
+}
@@ -0,0 +1,219 @@
+package brs.db.sql;
+
+import brs.db.BurstKey;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static brs.schema.Tables.REWARD_RECIP_ASSIGN;
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class DbKeyMapTest {
+
+  private static final DbKey.LongKeyFactory<Object> LONG_KEYS = new DbKey.LongKeyFactory<Object>(REWARD_RECIP_ASSIGN.ACCOUNT_ID) {
+    @Override
+    public BurstKey newKey(Object o) {
+      throw new UnsupportedOperationException();
+    }
+  };
+
+  private static final DbKey.LinkKeyFactory<Object> LINK_KEYS = new DbKey.LinkKeyFactory<Object>("id_a", "id_b") {
+    @Override
+    public BurstKey newKey(Object o) {
+      throw new UnsupportedOperationException();
+    }
+  };
+
+  private static final DbKey.LinkKey3Factory<Object> LINK_KEYS_3 = new DbKey.LinkKey3Factory<Object>("id_a", "id_b", "id_c") {
+    @Override
+    public BurstKey newKey(Object o) {
+      throw new UnsupportedOperationException();
+    }
+  };
+
+  // the capacity of a new map
+  private static final int SLOTS = 16;
+
+  private DbKeyMap<String> t;
+
+  @Before
+  public void setUp() {
+    t = new DbKeyMap<>();
+  }
+
+  @Test
+  public void keysAreComparedByTheirIds() {
+    t.put(LONG_KEYS.newKey(1L), "long");
+    t.put(LINK_KEYS.newKey(1L, 2L), "link");
+    t.put(LINK_KEYS_3.newKey(1L, 2L, 3L), "link3");
+
+    assertEquals(3, t.size());
+    assertEquals("long", t.get(LONG_KEYS.newKey(1L)));
+    assertEquals("link", t.get(LINK_KEYS.newKey(1L, 2L)));
+    assertNull(t.get(LINK_KEYS.newKey(2L, 1L)));
+    assertEquals("link3", t.get(LINK_KEYS_3.newKey(1L, 2L, 3L)));
+    // any other key with the same ids is the same entry
+    assertEquals("link", t.get((BurstKey) () -> new long[] {1L, 2L}));
+    assertNull(t.get("not a key"));
+    assertFalse(t.containsKey(LONG_KEYS.newKey(2L)));
+  }
+
+  @Test
+  public void putReplacesTheValueOfAnExistingKey() {
+    assertNull(t.put(LONG_KEYS.newKey(1L), "a"));
+    assertEquals("a", t.put(LONG_KEYS.newKey(1L), "b"));
+
+    assertEquals(1, t.size());
+    assertEquals("b", t.get(LONG_KEYS.newKey(1L)));
+  }
+
+  @Test
+  public void collidingKeysAreAllFound() {
+    List<Long> ids = idsWithHome(3, 4);
+    for (long id : ids) {
+      t.put(LONG_KEYS.newKey(id), String.valueOf(id));
+    }
+
+    for (long id : ids) {
+      assertEquals(String.valueOf(id), t.get(LONG_KEYS.newKey(id)));
+    }
+    assertEquals(new HashSet<>(ids), ids(t));
+  }
+
+  @Test
+  public void removalInAClusterWrappingAroundTheEndKeepsTheOthersReachable() {
+    // at the last slot, then the first ones
+    List<Long> last = idsWithHome(SLOTS - 1, 3);
+    // displaced by the cluster past the end
+    List<Long> first = idsWithHome(0, 2);
+    for (long id : last) {
+      t.put(LONG_KEYS.newKey(id), String.valueOf(id));
+    }
+    for (long id : first) {
+      t.put(LONG_KEYS.newKey(id), String.valueOf(id));
+    }
+
+    assertEquals(String.valueOf(last.get(0)), t.remove(LONG_KEYS.newKey(last.get(0))));
+    assertNull(t.remove(LONG_KEYS.newKey(last.get(0))));
+    assertEquals(4, t.size());
+    for (long id : last.subList(1, last.size())) {
+      assertEquals(String.valueOf(id), t.get(LONG_KEYS.newKey(id)));
+    }
+    for (long id : first) {
+      assertEquals(String.valueOf(id), t.get(LONG_KEYS.newKey(id)));
+    }
+
+    assertEquals(String.valueOf(first.get(0)), t.remove(LONG_KEYS.newKey(first.get(0))));
+    assertEquals(String.valueOf(last.get(2)), t.remove(LONG_KEYS.newKey(last.get(2))));
+    assertEquals(String.valueOf(last.get(1)), t.get(LONG_KEYS.newKey(last.get(1))));
+    assertEquals(String.valueOf(first.get(1)), t.get(LONG_KEYS.newKey(first.get(1))));
+    assertEquals(new HashSet<>(List.of(last.get(1), first.get(1))), ids(t));
+  }
+
+  @Test
+  public void growingKeepsAllEntries() {
+    for (long id = 0; id < 10000; id++) {
+      t.put(LONG_KEYS.newKey(id), String.valueOf(id));
+      t.put(LINK_KEYS.newKey(id, id + 1), "link " + id);
+    }
+
+    assertEquals(20000, t.size());
+    for (long id = 0; id < 10000; id++) {
+      assertEquals(String.valueOf(id), t.get(LONG_KEYS.newKey(id)));
+      assertEquals("link " + id, t.get(LINK_KEYS.newKey(id, id + 1)));
+    }
+    assertEquals(20000, t.entrySet().size());
+    assertEquals(20000, new ArrayList<>(t.values()).size());
+  }
+
+  @Test
+  public void clearedMapIsEmptyAndUsable() {
+    for (long id = 0; id < 10; id++) {
+      t.put(LONG_KEYS.newKey(id), String.valueOf(id));
+    }
+
+    t.clear();
+    assertTrue(t.isEmpty());
+    assertNull(t.get(LONG_KEYS.newKey(1L)));
+    assertFalse(t.keySet().iterator().hasNext());
+
+    t.put(LONG_KEYS.newKey(1L), "again");
+    assertEquals(1, t.size());
+    assertEquals("again", t.get(LONG_KEYS.newKey(1L)));
+  }
+
+  @Test
+  public void clearedLargeMapIsEmptyAndUsable() {
+    for (long id = 0; id < 10000; id++) {
+      t.put(LONG_KEYS.newKey(id), String.valueOf(id));
+    }
+
+    t.clear();
+    assertTrue(t.isEmpty());
+    assertNull(t.get(LONG_KEYS.newKey(1L)));
+
+    for (long id = 0; id < 100; id++) {
+      t.put(LONG_KEYS.newKey(id), String.valueOf(id));
+    }
+    assertEquals(100, t.size());
+    assertEquals("99", t.get(LONG_KEYS.newKey(99L)));
+  }
+
+  @Test
+  public void randomOperationsMatchAHashMap() {
+    Random random = new Random(42);
+    Map<Long, String> expected = new HashMap<>();
+    for (int i = 0; i < 100000; i++) {
+      // few ids, so that the same keys are put and removed again
+      long id = random.nextInt(500);
+      String value = String.valueOf(i);
+      switch (random.nextInt(4)) {
+        case 0:
+          assertEquals(expected.remove(id), t.remove(LONG_KEYS.newKey(id)));
+          break;
+        case 1:
+          assertEquals(expected.get(id), t.get(LONG_KEYS.newKey(id)));
+          break;
+        default:
+          assertEquals(expected.put(id, value), t.put(LONG_KEYS.newKey(id), value));
+      }
+      assertEquals(expected.size(), t.size());
+      if (i % 10000 == 0) {
+        t.clear();
+        expected.clear();
+      }
+    }
+    assertEquals(expected.keySet(), ids(t));
+    for (Map.Entry<Long, String> entry : expected.entrySet()) {
+      assertEquals(entry.getValue(), t.get(LONG_KEYS.newKey(entry.getKey())));
+    }
+  }
+
+  // the first ids hashed to the slot of a new map
+  private static List<Long> idsWithHome(int slot, int count) {
+    List<Long> ids = new ArrayList<>();
+    for (long id = 1; ids.size() < count; id++) {
+      if ((DbKeyMap.hash(id, 0L, 0L) & (SLOTS - 1)) == slot) {
+        ids.add(id);
+      }
+    }
+    return ids;
+  }
+
+  private static HashSet<Long> ids(DbKeyMap<String> map) {
+    HashSet<Long> ids = new HashSet<>();
+    for (BurstKey key : map.keySet()) {
+      ids.add(key.getPKValues()[0]);
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,203 @@
+package brs.db.sql;
+
+import brs.Blockchain;
+import brs.Burst;
+import brs.Constants;
+import brs.common.TestDatabase;
+import brs.db.store.DerivedTableManager;
+import brs.props.PropertyService;
+import brs.util.Convert;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static brs.schema.Tables.BLOCK;
+import static brs.schema.Tables.REWARD_RECIP_ASSIGN;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(Burst.class)
+@PowerMockIgnore("javax.management.*")
+public class SnapshotTest {
+
+  private static final int HEIGHT = Constants.MAX_ROLLBACK + 100;
+  private static final int MIN_ROLLBACK_HEIGHT = HEIGHT - Constants.MAX_ROLLBACK;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private int height;
+
+  @Before
+  public void setUp() {
+    PropertyService propertyService = TestDatabase.init();
+    Blockchain blockchain = mock(Blockchain.class);
+    when(blockchain.getHeight()).thenAnswer(invocation -> height);
+    mockStatic(Burst.class);
+    when(Burst.getBlockchain()).thenReturn(blockchain);
+    when(Burst.getPropertyService()).thenReturn(propertyService);
+  }
+
+  @After
+  public void tearDown() {
+    TestDatabase.shutdown();
+  }
+
+  @Test
+  public void importedSnapshotCanBeRolledBackAsFarAsTheExportingNode() throws IOException {
+    DerivedTableManager derivedTableManager = new DerivedTableManager();
+    TestVersionedTable table = new TestVersionedTable(derivedTableManager, false);
+    insertBlock(0);
+    insertBlock(HEIGHT);
+    // trimmed below the lowest rollback height
+    insert(table, 10, 1, 1);
+    insert(table, 50, 1, 2);
+    // changed across the lowest rollback height
+    insert(table, 10, 2, 1);
+    insert(table, HEIGHT - 20, 2, 2);
+    insert(table, HEIGHT - 5, 2, 3);
+    // new since
+    insert(table, HEIGHT - 3, 3, 1);
+
+    String filename = folder.getRoot().toPath().resolve("snapshot.bin.gz").toString();
+    Snapshot.Export export = Snapshot.export(filename, derivedTableManager.getDerivedTables());
+    assertEquals(HEIGHT, export.getHeight());
+    TestDatabase.shutdown();
+
+    TestDatabase.init();
+    derivedTableManager = new DerivedTableManager();
+    table = new TestVersionedTable(derivedTableManager, false);
+    assertEquals(HEIGHT, Snapshot.importFrom(filename, Convert.toHexString(export.getStateHash()), derivedTableManager.getDerivedTables()));
+    height = HEIGHT;
+
+    assertEquals(Arrays.asList("1@50 latest", "2@10", "2@" + (HEIGHT - 20), "2@" + (HEIGHT - 5) + " latest", "3@" + (HEIGHT - 3) + " latest"), rows());
+    assertEquals(2, table.get(TestVersionedTable.KEY_FACTORY.newKey(1)).value);
+    assertEquals(3, table.get(TestVersionedTable.KEY_FACTORY.newKey(2)).value);
+
+    rollback(table, HEIGHT - 10);
+    assertEquals(2, table.get(TestVersionedTable.KEY_FACTORY.newKey(2)).value);
+    assertNotNull(table.get(TestVersionedTable.KEY_FACTORY.newKey(3)));
+
+    rollback(table, MIN_ROLLBACK_HEIGHT);
+    assertEquals(2, table.get(TestVersionedTable.KEY_FACTORY.newKey(1)).value);
+    assertEquals(1, table.get(TestVersionedTable.KEY_FACTORY.newKey(2)).value);
+    assertNull(table.get(TestVersionedTable.KEY_FACTORY.newKey(3)));
+  }
+
+  @Test
+  public void latestFlagsAreThoseAsOfTheSnapshotHeight() throws IOException {
+    DerivedTableManager derivedTableManager = new DerivedTableManager();
+    TestVersionedTable table = new TestVersionedTable(derivedTableManager, false);
+    insertBlock(0);
+    insertBlock(HEIGHT);
+    insert(table, HEIGHT - 1, 1, 1);
+    // pushed while the export is running, after the height it read
+    insert(table, HEIGHT + 1, 1, 2);
+
+    String filename = folder.getRoot().toPath().resolve("snapshot.bin.gz").toString();
+    Snapshot.export(filename, derivedTableManager.getDerivedTables());
+    TestDatabase.shutdown();
+
+    TestDatabase.init();
+    derivedTableManager = new DerivedTableManager();
+    new TestVersionedTable(derivedTableManager, false);
+    Snapshot.importFrom(filename, "", derivedTableManager.getDerivedTables());
+
+    assertEquals(Arrays.asList("1@" + (HEIGHT - 1) + " latest"), rows());
+  }
+
+  @Test(expected = IOException.class)
+  public void unexpectedStateHashIsRejected() throws IOException {
+    DerivedTableManager derivedTableManager = new DerivedTableManager();
+    TestVersionedTable table = new TestVersionedTable(derivedTableManager, false);
+    insertBlock(0);
+    insert(table, 0, 1, 1);
+
+    String filename = folder.getRoot().toPath().resolve("snapshot.bin.gz").toString();
+    Snapshot.export(filename, derivedTableManager.getDerivedTables());
+    TestDatabase.shutdown();
+
+    TestDatabase.init();
+    Snapshot.importFrom(filename, Convert.toHexString(new byte[32]), derivedTableManager.getDerivedTables());
+  }
+
+  @Test
+  public void rejectedSnapshotLeavesTheDatabaseEmpty() throws IOException {
+    DerivedTableManager derivedTableManager = new DerivedTableManager();
+    TestVersionedTable table = new TestVersionedTable(derivedTableManager, false);
+    insertBlock(0);
+    insertBlock(1);
+    insert(table, 1, 1, 1);
+
+    String filename = folder.getRoot().toPath().resolve("snapshot.bin.gz").toString();
+    Snapshot.export(filename, derivedTableManager.getDerivedTables());
+    TestDatabase.shutdown();
+
+    TestDatabase.init();
+    derivedTableManager = new DerivedTableManager();
+    new TestVersionedTable(derivedTableManager, false);
+    try {
+      Snapshot.importFrom(filename, Convert.toHexString(new byte[32]), derivedTableManager.getDerivedTables());
+      fail();
+    } catch (IOException expected) {
+    }
+
+    assertFalse(Db.useDSLContext(ctx -> {
+      return ctx.fetchExists(BLOCK);
+    }));
+    assertTrue(rows().isEmpty());
+  }
+
+  private void insert(TestVersionedTable table, int height, long id, long value) {
+    this.height = height;
+    Db.beginTransaction();
+    try {
+      table.insert(new TestVersionedTable.Entity(id, value));
+      Db.commitTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+  }
+
+  private void rollback(TestVersionedTable table, int height) {
+    Db.beginTransaction();
+    try {
+      table.rollback(height);
+      Db.commitTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+  }
+
+  private static void insertBlock(int height) {
+    Db.useDSLContext(ctx -> {
+      ctx.insertInto(BLOCK, BLOCK.ID, BLOCK.VERSION, BLOCK.TIMESTAMP, BLOCK.TOTAL_AMOUNT, BLOCK.TOTAL_FEE, BLOCK.PAYLOAD_LENGTH,
+          BLOCK.GENERATOR_PUBLIC_KEY, BLOCK.CUMULATIVE_DIFFICULTY, BLOCK.BASE_TARGET, BLOCK.HEIGHT, BLOCK.GENERATION_SIGNATURE,
+          BLOCK.BLOCK_SIGNATURE, BLOCK.PAYLOAD_HASH, BLOCK.GENERATOR_ID, BLOCK.NONCE)
+          .values(1000L + height, 3, height * 240, 0L, 0L, 0, new byte[32], new byte[] {0}, 18325193796L, height, new byte[32],
+              new byte[64], new byte[32], 1L, 0L)
+          .execute();
+    });
+  }
+
+  private static List<String> rows() {
+    return Db.useDSLContext(ctx -> {
+      return ctx.selectFrom(REWARD_RECIP_ASSIGN)
+          .orderBy(REWARD_RECIP_ASSIGN.ACCOUNT_ID, REWARD_RECIP_ASSIGN.HEIGHT)
+          .fetch(record -> record.getAccountId() + "@" + record.getHeight() + (record.getLatest() ? " latest" : ""));
+    });
+  }
+}
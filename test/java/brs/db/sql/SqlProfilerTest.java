@@ -0,0 +1,32 @@
+package brs.db.sql;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class SqlProfilerTest {
+
+  @Test
+  public void literalsAreReplaced() {
+    assertEquals("select `id`, `key1` from `account` where (`id` = ? and `name` = ?) limit ?",
+        SqlProfiler.normalize("select `id`, `key1` from `account` where (`id` = -1234567 and `name` = 'O''Brien') limit 10"));
+  }
+
+  @Test
+  public void staticAndPreparedStatementsAreTheSame() {
+    assertEquals(SqlProfiler.normalize("select * from t where id = ? and height <= ?"),
+        SqlProfiler.normalize("select * from t  where id = 42\n and height <= 1000"));
+  }
+
+  @Test
+  public void listsAndRowsAreCollapsed() {
+    assertEquals("select * from t where id in (?, ...)", SqlProfiler.normalize("select * from t where id in (1, 2, 3)"));
+    assertEquals(SqlProfiler.normalize("insert into t (a, b) values (1, 2)"),
+        SqlProfiler.normalize("insert into t (a, b) values (?, ?)"));
+    assertEquals("insert into t (a, b) values (?, ...), ...",
+        SqlProfiler.normalize("insert into t (a, b) values (1, 2), (3, 4), (5, 6)"));
+  }
+}
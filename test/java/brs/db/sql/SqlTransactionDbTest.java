@@ -0,0 +1,202 @@
+package brs.db.sql;
+
+import brs.Appendix;
+import brs.Attachment;
+import brs.Burst;
+import brs.BurstException;
+import brs.Transaction;
+import brs.common.QuickMocker;
+import brs.common.TestConstants;
+import brs.common.TestDatabase;
+import brs.crypto.EncryptedData;
+import brs.fluxcapacitor.FluxValues;
+import brs.props.PropertyService;
+import brs.util.JSON;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+
+/**
+ * Transactions loaded from the database keep their attachment and appendages as stored until used,
+ * they must read the same as the transactions they were saved from, whichever getter comes first.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(Burst.class)
+@PowerMockIgnore("javax.management.*")
+public class SqlTransactionDbTest {
+
+  private static final int HEIGHT = 1000;
+  // type, subtype, timestamp, deadline, sender public key, recipient, amount, fee, referenced hash, signature
+  private static final int FLAGS_OFFSET = 1 + 1 + 4 + 2 + 32 + 8 + 8 + 8 + 32 + 64;
+
+  private SqlTransactionDb t;
+
+  @Before
+  public void setUp() {
+    PropertyService propertyService = TestDatabase.init();
+    mockStatic(Burst.class);
+    when(Burst.getPropertyService()).thenReturn(propertyService);
+    when(Burst.getFluxCapacitor()).thenReturn(QuickMocker.fluxCapacitorEnabledFunctionalities(FluxValues.DIGITAL_GOODS_STORE, FluxValues.SMART_ALIASES));
+
+    t = new SqlTransactionDb();
+  }
+
+  @After
+  public void tearDown() {
+    TestDatabase.shutdown();
+  }
+
+  @Test
+  public void loadedTransactionsReadAsSaved() throws BurstException.ValidationException {
+    List<Transaction> transactions = transactions();
+    save(transactions);
+
+    for (Transaction saved : transactions) {
+      // the bytes first, from the stored appendages
+      assertSameTransaction(saved, t.findTransaction(saved.getId()));
+
+      // the appendages first, then the bytes from the parsed ones
+      Transaction loaded = t.findTransaction(saved.getId());
+      assertSameAppendages(saved, loaded);
+      assertSameTransaction(saved, loaded);
+    }
+  }
+
+  @Test
+  public void idIsComputedFromTheStoredAppendages() throws BurstException.ValidationException {
+    for (Transaction saved : transactions()) {
+      Transaction lazy = lazyCopy(saved);
+      assertEquals(saved.getId(), lazy.getId());
+      assertEquals(saved.getFullHash(), lazy.getFullHash());
+      assertArrayEquals(saved.getBytes(), lazy.getBytes());
+      assertSameAppendages(saved, lazy);
+    }
+  }
+
+  @Test
+  public void transactionWithoutAppendagesHasNoAttachmentBytes() throws BurstException.ValidationException {
+    Transaction payment = payment(null, null, null, null);
+    assertNull(SqlTransactionDb.getAttachmentBytes(payment));
+    save(Arrays.asList(payment));
+
+    Transaction loaded = t.findTransaction(payment.getId());
+    assertEquals(0, loaded.getAppendagesSize());
+    assertSameTransaction(payment, loaded);
+    assertSame(Attachment.ORDINARY_PAYMENT, loaded.getAttachment());
+  }
+
+  private static void assertSameTransaction(Transaction expected, Transaction actual) {
+    assertArrayEquals(expected.getBytes(), actual.getBytes());
+    assertEquals(flags(expected), flags(actual));
+    assertEquals(expected.getId(), actual.getId());
+    assertEquals(expected.getFullHash(), actual.getFullHash());
+    assertEquals(expected.getSize(), actual.getSize());
+    assertEquals(JSON.toJsonString(expected.getJsonObject()), JSON.toJsonString(actual.getJsonObject()));
+    assertTrue(actual.verifySignature());
+  }
+
+  private static void assertSameAppendages(Transaction expected, Transaction actual) {
+    assertEquals(expected.getAppendages().size(), actual.getAppendages().size());
+    assertEquals(JSON.toJsonString(expected.getAttachment().getJsonObject()), JSON.toJsonString(actual.getAttachment().getJsonObject()));
+    assertSameAppendix(expected.getMessage(), actual.getMessage());
+    assertSameAppendix(expected.getEncryptedMessage(), actual.getEncryptedMessage());
+    assertSameAppendix(expected.getPublicKeyAnnouncement(), actual.getPublicKeyAnnouncement());
+    assertSameAppendix(expected.getEncryptToSelfMessage(), actual.getEncryptToSelfMessage());
+  }
+
+  private static void assertSameAppendix(Appendix expected, Appendix actual) {
+    if (expected == null) {
+      assertNull(actual);
+    } else {
+      assertNotNull(actual);
+      assertEquals(JSON.toJsonString(expected.getJsonObject()), JSON.toJsonString(actual.getJsonObject()));
+    }
+  }
+
+  private static int flags(Transaction transaction) {
+    return ByteBuffer.wrap(transaction.getBytes()).order(ByteOrder.LITTLE_ENDIAN).getInt(FLAGS_OFFSET);
+  }
+
+  private static List<Transaction> transactions() throws BurstException.NotValidException {
+    EncryptedData encryptedData = new EncryptedData("encrypted".getBytes(StandardCharsets.UTF_8), new byte[32]);
+    return Arrays.asList(
+        payment(new Appendix.Message("message", HEIGHT), null, null, null),
+        payment(null, new Appendix.EncryptedMessage(encryptedData, true, HEIGHT),
+            new Appendix.PublicKeyAnnouncement(new byte[32], HEIGHT), null),
+        payment(new Appendix.Message("message", HEIGHT), new Appendix.EncryptedMessage(encryptedData, false, HEIGHT),
+            new Appendix.PublicKeyAnnouncement(new byte[32], HEIGHT), new Appendix.EncryptToSelfMessage(encryptedData, true, HEIGHT)),
+        signed(new Transaction.Builder((byte) 2, TestConstants.TEST_PUBLIC_KEY_BYTES, 0, 1_000_000, 1000, (short) 1440,
+            new Attachment.MessagingAliasAssignment("alias", "https://example.com", 0L, HEIGHT))
+            .message(new Appendix.Message("message", HEIGHT))));
+  }
+
+  private static Transaction payment(Appendix.Message message, Appendix.EncryptedMessage encryptedMessage,
+                                     Appendix.PublicKeyAnnouncement publicKeyAnnouncement,
+                                     Appendix.EncryptToSelfMessage encryptToSelfMessage) throws BurstException.NotValidException {
+    return signed(new Transaction.Builder((byte) 1, TestConstants.TEST_PUBLIC_KEY_BYTES, 100_000_000, 1_000_000, 1000, (short) 1440,
+        Attachment.ORDINARY_PAYMENT)
+        .recipientId(123L)
+        .message(message)
+        .encryptedMessage(encryptedMessage)
+        .publicKeyAnnouncement(publicKeyAnnouncement)
+        .encryptToSelfMessage(encryptToSelfMessage));
+  }
+
+  private static Transaction signed(Transaction.Builder builder) throws BurstException.NotValidException {
+    Transaction transaction = builder
+        .ecBlockHeight(HEIGHT - 10)
+        .ecBlockId(456L)
+        .height(HEIGHT)
+        .blockId(789L)
+        .blockTimestamp(2000)
+        .build();
+    transaction.sign(TestConstants.TEST_SECRET_PHRASE);
+    return transaction;
+  }
+
+  private void save(List<Transaction> transactions) {
+    Db.beginTransaction();
+    try {
+      t.saveTransactions(transactions);
+      Db.commitTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+  }
+
+  /**
+   * A lazily parsed transaction from the same columns as {@link SqlTransactionDb#loadTransaction}, but without
+   * the id and full hash, so that they are computed from the stored appendages.
+   */
+  private static Transaction lazyCopy(Transaction transaction) throws BurstException.NotValidException {
+    int appendagesFlags = (transaction.getMessage() != null ? 1 : 0)
+        | (transaction.getEncryptedMessage() != null ? 2 : 0)
+        | (transaction.getPublicKeyAnnouncement() != null ? 4 : 0)
+        | (transaction.getEncryptToSelfMessage() != null ? 8 : 0);
+    Transaction.Builder builder = new Transaction.Builder(transaction.getVersion(), transaction.getSenderPublicKey(),
+        transaction.getAmountNQT(), transaction.getFeeNQT(), transaction.getTimestamp(), transaction.getDeadline(),
+        transaction.getType(), SqlTransactionDb.getAttachmentBytes(transaction), appendagesFlags)
+        .signature(transaction.getSignature())
+        .ecBlockHeight(transaction.getECBlockHeight())
+        .ecBlockId(transaction.getECBlockId())
+        .cashBackId(transaction.getCashBackId());
+    if (transaction.getType().hasRecipient()) {
+      builder.recipientId(transaction.getRecipientId());
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,52 @@
+package brs.db.sql;
+
+import brs.Burst;
+import brs.db.BurstKey;
+import brs.db.store.DerivedTableManager;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+
+import static brs.schema.Tables.REWARD_RECIP_ASSIGN;
+
+/**
+ * A versioned table of plain id and value entities for the table tests, kept in the reward_recip_assign
+ * table with the value as recipient. Rows are saved at the height of the mocked blockchain.
+ */
+class TestVersionedTable extends VersionedEntitySqlTable<TestVersionedTable.Entity> {
+
+  static final DbKey.LongKeyFactory<Entity> KEY_FACTORY = new DbKey.LongKeyFactory<Entity>(REWARD_RECIP_ASSIGN.ACCOUNT_ID) {
+    @Override
+    public BurstKey newKey(Entity entity) {
+      return newKey(entity.id);
+    }
+  };
+
+  TestVersionedTable(DerivedTableManager derivedTableManager, boolean writeBehind) {
+    super("reward_recip_assign", REWARD_RECIP_ASSIGN, KEY_FACTORY, derivedTableManager, writeBehind);
+  }
+
+  @Override
+  protected Entity load(DSLContext ctx, Record record) {
+    return new Entity(record.get(REWARD_RECIP_ASSIGN.ACCOUNT_ID), record.get(REWARD_RECIP_ASSIGN.RECIP_ID));
+  }
+
+  @Override
+  void save(DSLContext ctx, Entity entity) {
+    int height = Burst.getBlockchain().getHeight();
+    ctx.mergeInto(REWARD_RECIP_ASSIGN, REWARD_RECIP_ASSIGN.ACCOUNT_ID, REWARD_RECIP_ASSIGN.PREV_RECIP_ID, REWARD_RECIP_ASSIGN.RECIP_ID, REWARD_RECIP_ASSIGN.FROM_HEIGHT, REWARD_RECIP_ASSIGN.HEIGHT, REWARD_RECIP_ASSIGN.LATEST)
+        .key(REWARD_RECIP_ASSIGN.ACCOUNT_ID, REWARD_RECIP_ASSIGN.HEIGHT)
+        .values(entity.id, 0L, entity.value, height, height, true)
+        .execute();
+  }
+
+  static final class Entity {
+
+    final long id;
+    long value;
+
+    Entity(long id, long value) {
+      this.id = id;
+      this.value = value;
+    }
+  }
+}
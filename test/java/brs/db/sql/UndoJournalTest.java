@@ -0,0 +1,89 @@
+package brs.db.sql;
+
+import brs.Constants;
+import brs.db.BurstKey;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static brs.schema.Tables.ACCOUNT_BALANCE;
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class UndoJournalTest {
+
+  private static final DbKey.LongKeyFactory<Object> KEYS = new DbKey.LongKeyFactory<Object>(ACCOUNT_BALANCE.ID) {
+    @Override
+    public BurstKey newKey(Object o) {
+      throw new UnsupportedOperationException();
+    }
+  };
+
+  private UndoJournal t;
+
+  @Before
+  public void setUp() {
+    t = new UndoJournal();
+  }
+
+  @Test
+  public void emptyJournalCoversNothing() {
+    assertNull(t.getKeysAbove(0));
+  }
+
+  @Test
+  public void keysWrittenAboveTheHeightAreReturned() {
+    t.record(10, Arrays.asList(key(1), key(2)));
+    t.record(11, Collections.singletonList(key(2)));
+    t.record(12, Collections.singletonList(key(3)));
+
+    assertEquals(new HashSet<>(Arrays.asList(key(2), key(3))), t.getKeysAbove(10));
+    assertEquals(Collections.singleton(key(3)), t.getKeysAbove(11));
+    assertEquals(Collections.emptySet(), t.getKeysAbove(12));
+  }
+
+  @Test
+  public void heightsBeforeTheFirstRecordedOneAreNotCovered() {
+    t.record(10, Collections.singletonList(key(1)));
+
+    // the keys written at 10 are known, but not those written before
+    assertEquals(Collections.singleton(key(1)), t.getKeysAbove(9));
+    assertNull(t.getKeysAbove(8));
+  }
+
+  @Test
+  public void heightsBeyondTheMaximumRollbackAreForgotten() {
+    t.record(10, Collections.singletonList(key(1)));
+    t.record(10 + Constants.MAX_ROLLBACK + 5, Collections.singletonList(key(2)));
+
+    assertNull(t.getKeysAbove(10));
+    assertEquals(Collections.singleton(key(2)), t.getKeysAbove(10 + Constants.MAX_ROLLBACK));
+  }
+
+  @Test
+  public void keysStayRecordedAfterBeingReturned() {
+    t.record(10, Collections.singletonList(key(1)));
+
+    t.getKeysAbove(9);
+    assertEquals(Collections.singleton(key(1)), t.getKeysAbove(9));
+  }
+
+  @Test
+  public void clearedJournalCoversNothing() {
+    t.record(10, Collections.singletonList(key(1)));
+
+    t.clear();
+    assertNull(t.getKeysAbove(9));
+    t.record(20, Collections.singletonList(key(2)));
+    assertEquals(Collections.singleton(key(2)), t.getKeysAbove(19));
+  }
+
+  private static BurstKey key(long id) {
+    return KEYS.newKey(id);
+  }
+}
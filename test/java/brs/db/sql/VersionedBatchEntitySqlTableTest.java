@@ -0,0 +1,181 @@
+package brs.db.sql;
+
+import brs.Account;
+import brs.Blockchain;
+import brs.Burst;
+import brs.common.TestDatabase;
+import brs.db.BurstKey;
+import brs.db.store.AccountStore;
+import brs.db.store.DerivedTableManager;
+import brs.db.store.Stores;
+import brs.props.PropertyService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import static brs.schema.Tables.ACCOUNT;
+import static brs.schema.Tables.ACCOUNT_BALANCE;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+
+/**
+ * The rollbacks of the batch tables, on the account balances without the in-memory ledger.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(Burst.class)
+@PowerMockIgnore("javax.management.*")
+public class VersionedBatchEntitySqlTableTest {
+
+  private static final DbKey.LongKeyFactory<Account.Balance> KEY_FACTORY = new DbKey.LongKeyFactory<Account.Balance>(ACCOUNT_BALANCE.ID) {
+    @Override
+    public BurstKey newKey(Account.Balance balance) {
+      return balance.nxtKey;
+    }
+  };
+
+  private static final BurstKey ACCOUNT_A = KEY_FACTORY.newKey(1L);
+  private static final BurstKey ACCOUNT_B = KEY_FACTORY.newKey(2L);
+
+  private int height;
+  private AccountBalanceSqlTable t;
+
+  @Before
+  public void setUp() {
+    PropertyService propertyService = TestDatabase.init();
+    Blockchain blockchain = mock(Blockchain.class);
+    when(blockchain.getHeight()).thenAnswer(invocation -> height);
+    AccountStore accountStore = mock(AccountStore.class);
+    when(accountStore.getAccountKeyFactory()).thenReturn(new DbKey.LongKeyFactory<Account>(ACCOUNT.ID) {
+      @Override
+      public BurstKey newKey(Account account) {
+        return newKey(account.getId());
+      }
+    });
+    Stores stores = mock(Stores.class);
+    when(stores.getAccountStore()).thenReturn(accountStore);
+    mockStatic(Burst.class);
+    when(Burst.getBlockchain()).thenReturn(blockchain);
+    when(Burst.getPropertyService()).thenReturn(propertyService);
+    when(Burst.getStores()).thenReturn(stores);
+
+    t = table();
+  }
+
+  @After
+  public void tearDown() {
+    TestDatabase.shutdown();
+  }
+
+  @Test
+  public void rollbackEvictsOnlyTheEntitiesWrittenAboveTheHeight() {
+    push(t, 1, balance(1L, 10L), balance(2L, 20L));
+    push(t, 2, balance(1L, 11L));
+    assertEquals(11L, t.get(ACCOUNT_A).getBalanceNQT());
+    assertEquals(20L, t.get(ACCOUNT_B).getBalanceNQT());
+
+    rollback(t, 1);
+
+    assertFalse(t.getCache().containsKey(ACCOUNT_A));
+    assertTrue(t.getCache().containsKey(ACCOUNT_B));
+    assertEquals(10L, t.get(ACCOUNT_A).getBalanceNQT());
+    assertEquals(20L, t.get(ACCOUNT_B).getBalanceNQT());
+  }
+
+  @Test
+  public void rollbackWithNothingAboveTheHeightLeavesTheTableAlone() {
+    push(t, 1, balance(1L, 10L));
+    assertEquals(10L, t.get(ACCOUNT_A).getBalanceNQT());
+
+    rollback(t, 5);
+
+    assertTrue(t.getCache().containsKey(ACCOUNT_A));
+    assertEquals(10L, t.get(ACCOUNT_A).getBalanceNQT());
+  }
+
+  @Test
+  public void rollbackBeyondTheJournalFlushesTheCache() {
+    push(t, 1, balance(1L, 10L), balance(2L, 20L));
+    push(t, 2, balance(1L, 11L));
+    assertEquals(11L, t.get(ACCOUNT_A).getBalanceNQT());
+    assertEquals(20L, t.get(ACCOUNT_B).getBalanceNQT());
+
+    // a new table on the same database and caches, as after a restart, knows nothing of the heights written
+    AccountBalanceSqlTable restarted = table();
+    rollback(restarted, 1);
+
+    assertFalse(restarted.getCache().containsKey(ACCOUNT_A));
+    assertFalse(restarted.getCache().containsKey(ACCOUNT_B));
+    assertEquals(10L, restarted.get(ACCOUNT_A).getBalanceNQT());
+    assertEquals(20L, restarted.get(ACCOUNT_B).getBalanceNQT());
+  }
+
+  @Test
+  public void insertedThenRolledBackEntityIsGone() {
+    push(t, 1, balance(1L, 10L));
+    push(t, 2, balance(2L, 20L));
+    assertEquals(20L, t.get(ACCOUNT_B).getBalanceNQT());
+
+    rollback(t, 1);
+
+    assertNull(t.get(ACCOUNT_B));
+    assertEquals(10L, t.get(ACCOUNT_A).getBalanceNQT());
+  }
+
+  @Test
+  public void uncachedReadsAreNotPutInTheCache() {
+    push(t, 1, balance(1L, 10L));
+    t.flushCache();
+
+    Db.beginUncachedReads();
+    try {
+      assertEquals(10L, t.get(ACCOUNT_A).getBalanceNQT());
+    } finally {
+      Db.endUncachedReads();
+    }
+    assertFalse(t.getCache().containsKey(ACCOUNT_A));
+
+    assertEquals(10L, t.get(ACCOUNT_A).getBalanceNQT());
+    assertTrue(t.getCache().containsKey(ACCOUNT_A));
+  }
+
+  private AccountBalanceSqlTable table() {
+    return new AccountBalanceSqlTable(KEY_FACTORY, new DerivedTableManager(), Db.getDbCacheManager(), false);
+  }
+
+  private void push(AccountBalanceSqlTable table, int height, Account.Balance... balances) {
+    this.height = height;
+    Db.beginTransaction();
+    try {
+      for (Account.Balance balance : balances) {
+        table.insert(balance);
+      }
+      table.finish();
+      Db.commitTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+  }
+
+  private static void rollback(AccountBalanceSqlTable table, int height) {
+    Db.beginTransaction();
+    try {
+      table.rollback(height);
+      Db.commitTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+  }
+
+  private static Account.Balance balance(long id, long balanceNQT) {
+    Account.Balance balance = new Account.Balance(id);
+    balance.setBalanceNQT(balanceNQT);
+    balance.setUnconfirmedBalanceNQT(balanceNQT);
+    return balance;
+  }
+}
@@ -0,0 +1,284 @@
+package brs.db.sql;
+
+import brs.Blockchain;
+import brs.Burst;
+import brs.common.TestDatabase;
+import brs.db.store.DerivedTableManager;
+import brs.props.PropertyService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static brs.schema.Tables.REWARD_RECIP_ASSIGN;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(Burst.class)
+@PowerMockIgnore("javax.management.*")
+public class VersionedEntitySqlTableTest {
+
+  private int height;
+
+  @Before
+  public void setUp() {
+    PropertyService propertyService = TestDatabase.init();
+    Blockchain blockchain = mock(Blockchain.class);
+    when(blockchain.getHeight()).thenAnswer(invocation -> height);
+    mockStatic(Burst.class);
+    when(Burst.getBlockchain()).thenReturn(blockchain);
+    when(Burst.getPropertyService()).thenReturn(propertyService);
+  }
+
+  @After
+  public void tearDown() {
+    TestDatabase.shutdown();
+  }
+
+  @Test
+  public void rollbackRestoresTheVersionsAsOfTheHeight() {
+    TestVersionedTable table = new TestVersionedTable(new DerivedTableManager(), false);
+    insert(table, 10, 1, 1);
+    insert(table, 20, 1, 2);
+    insert(table, 30, 1, 3);
+    insert(table, 10, 2, 1);
+    insert(table, 30, 3, 1);
+    assertEquals(3, table.get(TestVersionedTable.KEY_FACTORY.newKey(1)).value);
+
+    rollback(table, 25);
+
+    assertEquals(Arrays.asList("1@10", "1@20 latest", "2@10 latest"), rows());
+    assertEquals(2, table.get(TestVersionedTable.KEY_FACTORY.newKey(1)).value);
+    assertEquals(1, table.get(TestVersionedTable.KEY_FACTORY.newKey(2)).value);
+    assertNull(table.get(TestVersionedTable.KEY_FACTORY.newKey(3)));
+  }
+
+  @Test
+  public void rollbackWithinTheTransactionIsSeenByIt() {
+    TestVersionedTable table = new TestVersionedTable(new DerivedTableManager(), false);
+    insert(table, 10, 1, 1);
+
+    height = 20;
+    Db.beginTransaction();
+    try {
+      TestVersionedTable.Entity entity = table.get(TestVersionedTable.KEY_FACTORY.newKey(1));
+      entity.value = 2;
+      table.insert(entity);
+      assertEquals(2, table.get(TestVersionedTable.KEY_FACTORY.newKey(1)).value);
+      table.rollback(10);
+      assertEquals(1, table.get(TestVersionedTable.KEY_FACTORY.newKey(1)).value);
+      Db.commitTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+    assertEquals(Arrays.asList("1@10 latest"), rows());
+  }
+
+  @Test
+  public void writeBehindRowsAreWrittenOnCommit() {
+    TestVersionedTable table = new TestVersionedTable(new DerivedTableManager(), true);
+    insert(table, 10, 1, 1);
+
+    height = 20;
+    Db.beginTransaction();
+    try {
+      TestVersionedTable.Entity entity = table.get(TestVersionedTable.KEY_FACTORY.newKey(1));
+      entity.value = 2;
+      table.insert(entity);
+      table.insert(new TestVersionedTable.Entity(2, 1));
+      // held back, but seen by the transaction
+      assertEquals(Arrays.asList("1@10 latest"), rows());
+      assertEquals(2, table.get(TestVersionedTable.KEY_FACTORY.newKey(1)).value);
+      Db.commitTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+
+    assertEquals(Arrays.asList("1@10", "1@20 latest", "2@20 latest"), rows());
+    assertEquals(2, table.get(TestVersionedTable.KEY_FACTORY.newKey(1)).value);
+  }
+
+  @Test
+  public void writeBehindRowsOfEachHeightAreWrittenInOrder() {
+    TestVersionedTable table = new TestVersionedTable(new DerivedTableManager(), true);
+
+    Db.beginTransaction();
+    try {
+      // several blocks in one transaction, finished before the next block as by the block push
+      height = 10;
+      TestVersionedTable.Entity entity = new TestVersionedTable.Entity(1, 1);
+      table.insert(entity);
+      table.finish();
+      assertEquals(Arrays.asList("1@10 latest"), rows());
+      height = 11;
+      entity.value = 2;
+      table.insert(entity);
+      table.finish();
+      height = 12;
+      entity.value = 3;
+      table.insert(entity);
+      assertEquals(Arrays.asList("1@10", "1@11 latest"), rows());
+      Db.commitTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+
+    assertEquals(Arrays.asList("1@10", "1@11", "1@12 latest"), rows());
+  }
+
+  @Test
+  public void writeBehindRowsAreWrittenBeforeReadingFromSql() {
+    TestVersionedTable table = new TestVersionedTable(new DerivedTableManager(), true);
+    insert(table, 10, 1, 1);
+
+    height = 20;
+    Db.beginTransaction();
+    try {
+      table.insert(new TestVersionedTable.Entity(2, 1));
+      assertEquals(2, table.getCount());
+      assertEquals(2, table.getAll(0, -1).size());
+      Db.commitTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+  }
+
+  @Test
+  public void rollbackWritesTheHeldBackRowsBeforeDeletingThem() {
+    TestVersionedTable table = new TestVersionedTable(new DerivedTableManager(), true);
+    insert(table, 10, 1, 1);
+
+    height = 20;
+    Db.beginTransaction();
+    try {
+      TestVersionedTable.Entity entity = table.get(TestVersionedTable.KEY_FACTORY.newKey(1));
+      entity.value = 2;
+      table.insert(entity);
+      table.insert(new TestVersionedTable.Entity(2, 1));
+      table.rollback(10);
+      Db.commitTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+
+    assertEquals(Arrays.asList("1@10 latest"), rows());
+    assertEquals(1, table.get(TestVersionedTable.KEY_FACTORY.newKey(1)).value);
+    assertNull(table.get(TestVersionedTable.KEY_FACTORY.newKey(2)));
+  }
+
+  @Test
+  public void rolledBackTransactionDropsTheHeldBackRows() {
+    TestVersionedTable table = new TestVersionedTable(new DerivedTableManager(), true);
+    insert(table, 10, 1, 1);
+
+    height = 20;
+    Db.beginTransaction();
+    try {
+      table.insert(new TestVersionedTable.Entity(2, 1));
+      Db.rollbackTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+
+    assertEquals(Arrays.asList("1@10 latest"), rows());
+    assertNull(table.get(TestVersionedTable.KEY_FACTORY.newKey(2)));
+
+    // nothing of the dropped rows is written with the next commit
+    insert(table, 21, 3, 1);
+    assertEquals(Arrays.asList("1@10 latest", "3@21 latest"), rows());
+  }
+
+  @Test
+  public void trimKeepsTheLatestVersionBelowTheHeight() {
+    TestVersionedTable table = new TestVersionedTable(new DerivedTableManager(), false);
+    insert(table, 10, 1, 1);
+    insert(table, 20, 1, 2);
+    insert(table, 30, 1, 3);
+    insert(table, 120, 1, 4);
+    insert(table, 10, 2, 1);
+
+    assertEquals(1, trim(table, 100, 0, 10));
+
+    assertEquals(Arrays.asList("1@30", "1@120 latest", "2@10 latest"), rows());
+    rollback(table, 100);
+    assertEquals(3, table.get(TestVersionedTable.KEY_FACTORY.newKey(1)).value);
+  }
+
+  @Test
+  public void trimFromAHeightOnlyLooksAtTheEntitiesChangedSince() {
+    TestVersionedTable table = new TestVersionedTable(new DerivedTableManager(), false);
+    // not changed since the last trim, which would have left a single version
+    insert(table, 10, 1, 1);
+    insert(table, 20, 1, 2);
+    insert(table, 30, 2, 1);
+    insert(table, 60, 2, 2);
+
+    assertEquals(1, trim(table, 100, 50, 10));
+
+    assertEquals(Arrays.asList("1@10", "1@20 latest", "2@60 latest"), rows());
+  }
+
+  @Test
+  public void trimStopsAtTheMaximumNumberOfEntities() {
+    TestVersionedTable table = new TestVersionedTable(new DerivedTableManager(), false);
+    for (long id = 1; id <= 3; id++) {
+      insert(table, 10, id, 1);
+      insert(table, 20, id, 2);
+    }
+
+    assertEquals(2, trim(table, 100, 0, 2));
+    assertEquals(1, trim(table, 100, 0, 2));
+    assertEquals(0, trim(table, 100, 0, 2));
+
+    assertEquals(Arrays.asList("1@20 latest", "2@20 latest", "3@20 latest"), rows());
+  }
+
+  private void insert(TestVersionedTable table, int height, long id, long value) {
+    this.height = height;
+    Db.beginTransaction();
+    try {
+      table.insert(new TestVersionedTable.Entity(id, value));
+      Db.commitTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+  }
+
+  private void rollback(TestVersionedTable table, int height) {
+    Db.beginTransaction();
+    try {
+      table.rollback(height);
+      Db.commitTransaction();
+    } finally {
+      Db.endTransaction();
+    }
+  }
+
+  private static int trim(TestVersionedTable table, int height, int fromHeight, int maxKeys) {
+    Db.beginTransaction();
+    try {
+      int trimmed = table.trim(height, fromHeight, maxKeys);
+      Db.commitTransaction();
+      return trimmed;
+    } finally {
+      Db.endTransaction();
+    }
+  }
+
+  private static List<String> rows() {
+    return Db.useDSLContext(ctx -> {
+      return ctx.selectFrom(REWARD_RECIP_ASSIGN)
+          .orderBy(REWARD_RECIP_ASSIGN.ACCOUNT_ID, REWARD_RECIP_ASSIGN.HEIGHT)
+          .fetch(record -> record.getAccountId() + "@" + record.getHeight() + (record.getLatest() ? " latest" : ""));
+    });
+  }
+}
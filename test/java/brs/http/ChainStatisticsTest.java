@@ -0,0 +1,162 @@
+package brs.http;
+
+import brs.Block;
+import brs.Blockchain;
+import brs.assetexchange.AssetExchange;
+import brs.services.ATService;
+import brs.services.AccountService;
+import brs.services.AliasService;
+import brs.services.TimeService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyByte;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ChainStatisticsTest {
+
+  private ChainStatistics t;
+
+  private Blockchain mockBlockchain;
+  private AccountService mockAccountService;
+  private AssetExchange mockAssetExchange;
+  private AliasService mockAliasService;
+  private ATService mockATService;
+  private TimeService mockTimeService;
+
+  private long now;
+
+  @Before
+  public void setUp() {
+    mockBlockchain = mock(Blockchain.class);
+    mockAccountService = mock(AccountService.class);
+    mockAssetExchange = mock(AssetExchange.class);
+    mockAliasService = mock(AliasService.class);
+    mockATService = mock(ATService.class);
+    mockTimeService = mock(TimeService.class);
+    when(mockTimeService.getEpochTimeMillis()).thenAnswer(invocation -> now);
+    now = 1_000_000;
+    lastBlock(1L, 10);
+
+    t = new ChainStatistics(mockBlockchain, mockAccountService, mockAssetExchange, mockAliasService, mockATService, mockTimeService);
+  }
+
+  @Test
+  public void countsAreTheServiceCounts() {
+    when(mockBlockchain.getTransactionCount()).thenReturn(1);
+    when(mockATService.getAllATIds(null)).thenReturn(Arrays.asList(1L, 2L));
+    when(mockAssetExchange.getAssetsCount()).thenReturn(3);
+    when(mockAssetExchange.getAskCount()).thenReturn(4);
+    when(mockAssetExchange.getBidCount()).thenReturn(5);
+    when(mockAssetExchange.getTradesCount()).thenReturn(6);
+    when(mockAssetExchange.getAssetTransferCount()).thenReturn(7);
+    when(mockAliasService.getAliasCount()).thenReturn(8);
+    when(mockBlockchain.countTransactions(anyByte(), anyByte(), anyByte())).thenReturn(9);
+
+    ChainStatistics.Counts counts = t.getCounts();
+
+    assertEquals(1, counts.numberOfTransactions);
+    assertEquals(2, counts.numberOfATs);
+    assertEquals(3, counts.numberOfAssets);
+    assertEquals(4, counts.numberOfAskOrders);
+    assertEquals(5, counts.numberOfBidOrders);
+    assertEquals(6, counts.numberOfTrades);
+    assertEquals(7, counts.numberOfTransfers);
+    assertEquals(8, counts.numberOfAliases);
+    assertEquals(9, counts.numberOfSubscriptions);
+    assertEquals(9, counts.numberOfSubscriptionPayments);
+  }
+
+  @Test
+  public void balanceCountsAreTheServiceCountsAtTheLastBlock() {
+    when(mockAccountService.getAllAccountsBalance()).thenReturn(100L);
+    when(mockAccountService.getCount()).thenReturn(3);
+    when(mockBlockchain.getCommittedAmount(0L, 10, 10, null)).thenReturn(50L);
+
+    ChainStatistics.BalanceCounts balanceCounts = t.getBalanceCounts();
+
+    assertEquals(100L, balanceCounts.totalEffectiveBalanceNQT);
+    assertEquals(50L, balanceCounts.totalCommittedNQT);
+    assertEquals(3, balanceCounts.numberOfAccounts);
+  }
+
+  @Test
+  public void countsAreCachedForTheSameBlock() {
+    ChainStatistics.Counts counts = t.getCounts();
+    now += 10 * ChainStatistics.MAX_AGE_MILLIS;
+
+    assertSame(counts, t.getCounts());
+    verify(mockBlockchain, times(1)).getTransactionCount();
+  }
+
+  @Test
+  public void countsAreKeptForNewBlocksUntilTheyAreOld() {
+    when(mockBlockchain.getTransactionCount()).thenReturn(1);
+    ChainStatistics.Counts counts = t.getCounts();
+
+    when(mockBlockchain.getTransactionCount()).thenReturn(2);
+    lastBlock(2L, 11);
+    now += ChainStatistics.MAX_AGE_MILLIS - 1;
+    assertSame(counts, t.getCounts());
+
+    now += 1;
+    assertEquals(2, t.getCounts().numberOfTransactions);
+    verify(mockBlockchain, times(2)).getTransactionCount();
+  }
+
+  @Test
+  public void balanceCountsAreRecomputedForANewBlockOnceOld() {
+    when(mockAccountService.getCount()).thenReturn(1);
+    assertEquals(1, t.getBalanceCounts().numberOfAccounts);
+
+    when(mockAccountService.getCount()).thenReturn(2);
+    lastBlock(2L, 11);
+    now += ChainStatistics.MAX_AGE_MILLIS;
+
+    assertEquals(2, t.getBalanceCounts().numberOfAccounts);
+    verify(mockBlockchain).getCommittedAmount(eq(0L), eq(11), eq(11), any());
+  }
+
+  @Test
+  public void countsAreNotHeldUpByTheBalanceCounts() throws Exception {
+    CountDownLatch computing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(mockAccountService.getAllAccountsBalance()).thenAnswer(invocation -> {
+      computing.countDown();
+      release.await();
+      return 0L;
+    });
+    when(mockBlockchain.getTransactionCount()).thenReturn(1);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<ChainStatistics.BalanceCounts> balanceCounts = executor.submit(t::getBalanceCounts);
+      assertTrue(computing.await(10, TimeUnit.SECONDS));
+
+      assertEquals(1, t.getCounts().numberOfTransactions);
+
+      release.countDown();
+      assertNotNull(balanceCounts.get(10, TimeUnit.SECONDS));
+    } finally {
+      release.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  private void lastBlock(long id, int height) {
+    Block block = mock(Block.class);
+    when(block.getId()).thenReturn(id);
+    when(block.getHeight()).thenReturn(height);
+    when(mockBlockchain.getLastBlock()).thenReturn(block);
+  }
+}
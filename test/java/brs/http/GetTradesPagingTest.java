@@ -0,0 +1,153 @@
+package brs.http;
+
+import brs.Asset;
+import brs.Blockchain;
+import brs.Burst;
+import brs.BurstException;
+import brs.assetexchange.AssetExchange;
+import brs.common.QuickMocker;
+import brs.common.QuickMocker.MockParam;
+import brs.common.TestDatabase;
+import brs.db.sql.Db;
+import brs.db.sql.SqlTradeStore;
+import brs.db.store.DerivedTableManager;
+import brs.props.PropertyService;
+import brs.services.ParameterService;
+import brs.util.CollectionWithIndex;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static brs.http.common.Parameters.*;
+import static brs.http.common.ResultFields.HEIGHT_RESPONSE;
+import static brs.http.common.ResultFields.TRADES_RESPONSE;
+import static brs.schema.Tables.TRADE;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.powermock.api.mockito.PowerMockito.mockStatic;
+
+/**
+ * The pages of the trades of an asset, read from the database while blocks are pushed.
+ */
+@RunWith(PowerMockRunner.class)
+@PrepareForTest(Burst.class)
+@PowerMockIgnore("javax.management.*")
+public class GetTradesPagingTest {
+
+  private static final long ASSET_ID = 123L;
+
+  private int height;
+  private ParameterService parameterService;
+  private GetTrades t;
+
+  @Before
+  public void setUp() throws BurstException {
+    PropertyService propertyService = TestDatabase.init();
+    mockStatic(Burst.class);
+    when(Burst.getPropertyService()).thenReturn(propertyService);
+
+    Blockchain blockchain = mock(Blockchain.class);
+    when(blockchain.getHeight()).thenAnswer(invocation -> height);
+    Asset asset = mock(Asset.class);
+    when(asset.getId()).thenReturn(ASSET_ID);
+    parameterService = mock(ParameterService.class);
+    when(parameterService.getAsset(any())).thenReturn(asset);
+
+    SqlTradeStore tradeStore = new SqlTradeStore(new DerivedTableManager());
+    AssetExchange assetExchange = mock(AssetExchange.class);
+    when(assetExchange.getTrades(eq(ASSET_ID), anyInt(), anyInt())).thenAnswer(invocation -> {
+      int from = invocation.getArgument(1);
+      int to = invocation.getArgument(2);
+      return new CollectionWithIndex<>(tradeStore.getAssetTrades(ASSET_ID, from, to), from, to);
+    });
+    t = new GetTrades(parameterService, assetExchange, blockchain);
+
+    for (int tradeHeight = 1; tradeHeight <= 10; tradeHeight++) {
+      pushBlockWithTrade(tradeHeight);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    TestDatabase.shutdown();
+  }
+
+  @Test
+  public void blockPushedBetweenThePagesDoesNotShiftThem() throws BurstException {
+    JsonObject firstPage = page(0, 2, null);
+    assertEquals(10, firstPage.get(HEIGHT_RESPONSE).getAsInt());
+    assertEquals(Arrays.asList(10, 9, 8), tradeHeights(firstPage));
+
+    pushBlockWithTrade(11);
+
+    JsonObject secondPage = page(3, 5, 10);
+    assertEquals(10, secondPage.get(HEIGHT_RESPONSE).getAsInt());
+    assertEquals(Arrays.asList(7, 6, 5), tradeHeights(secondPage));
+  }
+
+  @Test
+  public void firstPageIsReadAtTheHeightItReturns() throws BurstException {
+    // the trade of a block pushed after the height was taken, before the first page is read
+    insertTrade(11);
+
+    JsonObject firstPage = page(0, 2, null);
+    assertEquals(10, firstPage.get(HEIGHT_RESPONSE).getAsInt());
+    assertEquals(Arrays.asList(10, 9, 8), tradeHeights(firstPage));
+
+    height = 11;
+    JsonObject secondPage = page(3, 5, 10);
+    assertEquals(Arrays.asList(7, 6, 5), tradeHeights(secondPage));
+  }
+
+  private JsonObject page(int firstIndex, int lastIndex, Integer atHeight) throws BurstException {
+    HttpServletRequest req = QuickMocker.httpServletRequest(
+        new MockParam(ASSET_PARAMETER, ASSET_ID),
+        new MockParam(FIRST_INDEX_PARAMETER, firstIndex),
+        new MockParam(LAST_INDEX_PARAMETER, lastIndex),
+        new MockParam(INCLUDE_ASSET_INFO_PARAMETER, false)
+    );
+    when(parameterService.getHeight(req)).thenReturn(atHeight != null ? atHeight : -1);
+    return (JsonObject) t.processRequest(req);
+  }
+
+  private static List<Integer> tradeHeights(JsonObject page) {
+    List<Integer> heights = new ArrayList<>();
+    for (JsonElement trade : (JsonArray) page.get(TRADES_RESPONSE)) {
+      heights.add(trade.getAsJsonObject().get(HEIGHT_RESPONSE).getAsInt());
+    }
+    return heights;
+  }
+
+  private void pushBlockWithTrade(int tradeHeight) {
+    insertTrade(tradeHeight);
+    height = tradeHeight;
+  }
+
+  private static void insertTrade(int tradeHeight) {
+    Db.useDSLContext(ctx -> {
+      ctx.insertInto(TRADE, TRADE.ASSET_ID, TRADE.BLOCK_ID, TRADE.ASK_ORDER_ID, TRADE.BID_ORDER_ID,
+          TRADE.ASK_ORDER_HEIGHT, TRADE.BID_ORDER_HEIGHT, TRADE.SELLER_ID, TRADE.BUYER_ID,
+          TRADE.QUANTITY, TRADE.PRICE, TRADE.TIMESTAMP, TRADE.HEIGHT)
+          .values(ASSET_ID, 1000L + tradeHeight, 2000L + tradeHeight, 3000L + tradeHeight,
+              tradeHeight, tradeHeight, 1L, 2L,
+              1L, 100L, tradeHeight * 240, tradeHeight)
+          .execute();
+    });
+  }
+}
@@ -2,6 +2,7 @@ package brs.http;
 
 import brs.Account;
 import brs.Asset;
+import brs.Blockchain;
 import brs.BurstException;
 import brs.Trade;
 import brs.assetexchange.AssetExchange;
@@ -39,7 +40,7 @@ public class GetTradesTest extends AbstractUnitTest {
     mockParameterService = mock(ParameterService.class);
     mockAssetExchange = mock(AssetExchange.class);
 
-    t = new GetTrades(mockParameterService, mockAssetExchange);
+    t = new GetTrades(mockParameterService, mockAssetExchange, mock(Blockchain.class));
   }
 
   @Test
@@ -2,6 +2,7 @@ package brs.peer;
 
 import brs.Block;
 import brs.Blockchain;
+import brs.BurstException;
 import brs.Genesis;
 import brs.props.PropertyService;
 import brs.props.Props;
@@ -36,6 +37,7 @@ public class GetNextBlocksTest {
         mockPeer = mock(Peer.class);
         Block mockBlock = mock(Block.class);
         when(mockBlock.getJsonObject()).thenReturn(new JsonObject());
+        when(mockBlock.getTransferBytes()).thenReturn(new byte[]{1, 2, 3});
         when(mockPropertyService.getInt(Props.P2P_MAX_BLOCKS)).thenReturn(720);
         List<Block> blocks = new ArrayList<>();
         for (int i = 0; i < 100; i++) {
@@ -65,6 +67,19 @@ public class GetNextBlocksTest {
         }
     }
 
+    @Test
+    public void testGetNextBlocks_binary() throws BurstException.NotValidException {
+        JsonObject request = new JsonObject();
+        request.addProperty("blockId", Long.toUnsignedString(Genesis.GENESIS_BLOCK_ID));
+        byte[] response = getNextBlocks.processBinaryRequest(request, mockPeer);
+        assertNotNull(response);
+        List<byte[]> nextBlocks = BinaryBlocks.read(response, 720);
+        assertEquals(100, nextBlocks.size());
+        for (byte[] nextBlock : nextBlocks) {
+            assertArrayEquals(new byte[]{1, 2, 3}, nextBlock);
+        }
+    }
+
     @Test
     public void testGetNextBlocks_noIdSpecified() {
         JsonObject request = new JsonObject();
@@ -0,0 +1,220 @@
+package brs.util;
+
+import brs.Block;
+import brs.Blockchain;
+import brs.common.QuickMocker;
+import brs.props.PropertyServiceImpl;
+import brs.props.Props;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(JUnit4.class)
+public class DownloadCacheImplTest {
+
+  private Blockchain blockchain;
+  private Block chainBlock;
+  private DownloadCacheImpl t;
+
+  @Before
+  public void setUp() {
+    chainBlock = block(100, 99, 10);
+    blockchain = mock(Blockchain.class);
+    when(blockchain.getLastBlock()).thenReturn(chainBlock);
+    when(blockchain.getHeight()).thenReturn(10);
+
+    Properties properties = new Properties();
+    properties.setProperty(Props.BRS_BLOCK_CACHE_MB.getName(), "1");
+    t = new DownloadCacheImpl(new PropertyServiceImpl(properties), QuickMocker.fluxCapacitorEnabledFunctionalities(), blockchain);
+  }
+
+  @Test
+  public void addedBlocksAreFoundByIdAndPreviousId() {
+    Block b1 = block(101, 100, 11);
+    Block b2 = block(102, 101, 12);
+    assertTrue(t.addBlock(b1));
+    assertTrue(t.addBlock(b2));
+
+    assertEquals(2, t.size());
+    assertSame(b1, t.getBlock(101));
+    assertTrue(t.hasBlock(102));
+    assertSame(b1, t.getNextBlock(100));
+    assertSame(b2, t.getNextBlock(101));
+    assertNull(t.getNextBlock(102));
+    assertSame(b2, t.getLastBlock());
+    assertEquals(102, t.getLastBlockId());
+  }
+
+  @Test
+  public void emptyCacheFallsBackToTheChain() {
+    assertSame(chainBlock, t.getLastBlock());
+    assertEquals(100, t.getLastBlockId());
+    assertNull(t.getNextBlock(100));
+  }
+
+  @Test
+  public void blockNotFollowingTheLastOneIsAdded() {
+    // a block announced by a peer on top of another branch than the downloaded one
+    Block b1 = block(101, 100, 11);
+    Block other = block(201, 100, 11);
+    t.addBlock(b1);
+
+    assertTrue(t.addBlock(other));
+    assertSame(other, t.getLastBlock());
+    assertSame(b1, t.getBlock(101));
+    assertSame(other, t.getNextBlock(100));
+  }
+
+  @Test
+  public void removeBlockOnlyRemovesThatBlock() {
+    Block b1 = block(101, 100, 11);
+    Block b2 = block(102, 101, 12);
+    Block b3 = block(103, 102, 13);
+    t.addBlock(b1);
+    t.addBlock(b2);
+    t.addBlock(b3);
+
+    assertTrue(t.removeBlock(b2));
+    assertFalse(t.removeBlock(b2));
+    assertEquals(2, t.size());
+    assertSame(b1, t.getBlock(101));
+    assertSame(b3, t.getBlock(103));
+    assertNull(t.getNextBlock(101));
+    assertSame(b3, t.getNextBlock(102));
+    assertEquals(2, t.getUnverifiedSize());
+    assertEquals(101, t.getUnverifiedBlockIdFromPos(0));
+    assertEquals(103, t.getUnverifiedBlockIdFromPos(1));
+    assertSame(b3, t.getLastBlock());
+  }
+
+  @Test
+  public void removingTheLastBlockMakesThePreviousOneLast() {
+    Block b1 = block(101, 100, 11);
+    Block b2 = block(102, 101, 12);
+    t.addBlock(b1);
+    t.addBlock(b2);
+
+    t.removeBlock(b2);
+    assertSame(b1, t.getLastBlock());
+    t.removeBlock(b1);
+    assertSame(chainBlock, t.getLastBlock());
+    assertEquals(0, t.size());
+    assertEquals(0, t.getBlockCacheSize());
+  }
+
+  @Test
+  public void forkBlocksAreFoundUntilReset() {
+    Block fork = block(301, 100, 11);
+    when(blockchain.hasBlock(301)).thenReturn(false);
+    t.addForkBlock(fork);
+
+    assertSame(fork, t.getBlock(301));
+    assertEquals(Collections.singletonList(fork), t.getForkList());
+    t.resetForkBlocks();
+    assertNull(t.getBlock(301));
+  }
+
+  @Test
+  public void resetCacheEmptiesAndLocksTheCache() {
+    t.addBlock(block(101, 100, 11));
+    t.addBlock(block(102, 101, 12));
+
+    t.resetCache();
+    assertEquals(0, t.size());
+    assertEquals(0, t.getUnverifiedSize());
+    assertEquals(0, t.getBlockCacheSize());
+    assertSame(chainBlock, t.getLastBlock());
+    assertFalse(t.hasBlock(101));
+    assertFalse(t.addBlock(block(101, 100, 11)));
+
+    t.unlockCache();
+    assertTrue(t.addBlock(block(101, 100, 11)));
+  }
+
+  @Test
+  public void lockedCacheRefusesBlocks() {
+    t.lockCache();
+    assertFalse(t.addBlock(block(101, 100, 11)));
+    t.unlockCache();
+    assertTrue(t.addBlock(block(101, 100, 11)));
+  }
+
+  @Test
+  public void unverifiedBlocksAreBatchedInOrder() {
+    Block b1 = block(101, 100, 11);
+    Block b2 = block(102, 101, 12);
+    Block b3 = block(103, 102, 13);
+    Block b4 = block(104, 103, 14);
+    t.addBlock(b1);
+    t.addBlock(b2);
+    t.addBlock(b3);
+    t.addBlock(b4);
+    assertEquals(4, t.getUnverifiedSize());
+
+    t.removeUnverifiedBatch(Arrays.asList(b1, b3));
+    assertEquals(2, t.getUnverifiedSize());
+    assertEquals(102, t.getUnverifiedBlockIdFromPos(0));
+    assertEquals(104, t.getUnverifiedBlockIdFromPos(1));
+
+    assertSame(b2, t.getFirstUnverifiedBlock());
+    assertEquals(1, t.getUnverifiedSize());
+    t.removeUnverified(104);
+    assertEquals(0, t.getUnverifiedSize());
+    // verified blocks stay in the cache until pushed
+    assertEquals(4, t.size());
+  }
+
+  @Test
+  public void fullCacheRefusesBlocksUntilOneIsRemoved() {
+    Block big = block(101, 100, 11, 1024 * 1024);
+    Block next = block(102, 101, 12);
+    assertTrue(t.addBlock(big));
+    assertTrue(t.isFull());
+
+    assertFalse(t.addBlock(next));
+    t.removeBlock(big);
+    assertFalse(t.isFull());
+    assertEquals(0, t.getBlockCacheSize());
+    assertTrue(t.addBlock(next));
+  }
+
+  @Test
+  public void sizeIsTheSerializedSizeOfTheBlocks() {
+    Block b1 = block(101, 100, 11);
+    when(b1.getPayloadLength()).thenReturn(500);
+    Block b2 = block(102, 101, 12);
+    t.addBlock(b1);
+    t.addBlock(b2);
+
+    assertEquals(100 + 500 + 100, t.getBlockCacheSize());
+    t.removeBlock(b1);
+    assertEquals(100, t.getBlockCacheSize());
+  }
+
+  private static Block block(long id, long previousBlockId, int height) {
+    return block(id, previousBlockId, height, 100);
+  }
+
+  private static Block block(long id, long previousBlockId, int height, int bytes) {
+    Block block = mock(Block.class);
+    when(block.getId()).thenReturn(id);
+    when(block.getPreviousBlockId()).thenReturn(previousBlockId);
+    when(block.getHeight()).thenReturn(height);
+    when(block.getBytes()).thenReturn(new byte[bytes]);
+    when(block.getTransactions()).thenReturn(Collections.emptyList());
+    doCallRealMethod().when(block).setByteLength(anyInt());
+    doCallRealMethod().when(block).getByteLength();
+    return block;
+  }
+}
@@ -0,0 +1,42 @@
+package brs.util;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+@RunWith(JUnit4.class)
+public class LongBloomFilterTest {
+
+  @Test
+  public void addedKeysAreAlwaysFound() {
+    LongBloomFilter filter = new LongBloomFilter(10_000);
+    Random random = new Random(42);
+    long[] keys = new long[10_000];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = random.nextLong();
+      filter.add(keys[i]);
+    }
+    for (long key : keys) {
+      assertTrue(filter.mightContain(key));
+    }
+  }
+
+  @Test
+  public void falsePositivesStayRare() {
+    LongBloomFilter filter = new LongBloomFilter(10_000);
+    for (long key = 0; key < 10_000; key++) {
+      filter.add(key);
+    }
+    int falsePositives = 0;
+    for (long key = 10_000; key < 110_000; key++) {
+      if (filter.mightContain(key)) {
+        falsePositives++;
+      }
+    }
+    assertTrue("too many false positives: " + falsePositives, falsePositives < 2_000);
+  }
+}
@@ -0,0 +1,73 @@
+package brs.util;
+
+import brs.crypto.Crypto;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import signumj.crypto.SignumCrypto;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(JUnit4.class)
+public class MiningPlotTest {
+    private static final long ACCOUNT_ID = 6502115112683865257L;
+    private static final byte[] GEN_SIG = Convert.parseHexString("6ec823b5fd86c4aee9f7c3453cacaf4a43296f48ede77e70060ca8225c2855d0");
+
+    @Test
+    public void testGenerateScoopMatchesFullPlot() {
+        MiningPlot plot = new MiningPlot();
+        MiningPlot fullPlot = new MiningPlot();
+        byte[] scoopData = new byte[MiningPlot.SCOOP_SIZE];
+        for (boolean poc2 : new boolean[]{false, true}) {
+            for (long nonce = 0; nonce < 3; nonce++) {
+                fullPlot.generate(ACCOUNT_ID, nonce, poc2);
+                for (int scoop : new int[]{0, 1, 2047, 2048, 4095}) {
+                    plot.generateScoop(ACCOUNT_ID, nonce, scoop, poc2, scoopData);
+                    assertArrayEquals(fullPlot.getScoop(scoop), scoopData);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testGenerateScoopMatchesFullPlotOnTheSameInstance() {
+        MiningPlot plot = new MiningPlot();
+        byte[] scoopData = new byte[MiningPlot.SCOOP_SIZE];
+        for (boolean poc2 : new boolean[]{false, true}) {
+            for (int scoop : new int[]{0, 1, 2047, 2048, 4095}) {
+                plot.generateScoop(ACCOUNT_ID, 7, scoop, poc2, scoopData);
+                plot.generate(ACCOUNT_ID, 7, poc2);
+                assertArrayEquals(plot.getScoop(scoop), scoopData);
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGetScoopAfterGenerateScoopOnlyFails() {
+        MiningPlot plot = new MiningPlot();
+        plot.generateScoop(ACCOUNT_ID, 0, 0, true, new byte[MiningPlot.SCOOP_SIZE]);
+        plot.getScoop(0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testHashScoopOfAnOlderNonceFails() {
+        MiningPlot plot = new MiningPlot();
+        plot.generate(ACCOUNT_ID, 0, true);
+        plot.generateScoop(ACCOUNT_ID, 1, 0, true, new byte[MiningPlot.SCOOP_SIZE]);
+        plot.hashScoop(Crypto.shabal256(), 0);
+    }
+
+    @Test
+    public void testGenerateScoopMatchesSignumCrypto() {
+        SignumCrypto crypto = SignumCrypto.getInstance();
+        MiningPlot plot = new MiningPlot();
+        byte[] scoopData = new byte[MiningPlot.SCOOP_SIZE];
+        for (int pocVersion = 1; pocVersion <= 2; pocVersion++) {
+            for (int scoop : new int[]{0, 1234, 4095}) {
+                plot.generateScoop(ACCOUNT_ID, 42, scoop, pocVersion == 2, scoopData);
+                assertEquals(crypto.calculateHit(ACCOUNT_ID, 42, GEN_SIG, scoop, pocVersion), crypto.calculateHit(GEN_SIG, scoopData));
+            }
+        }
+    }
+}